@@ -0,0 +1,50 @@
+package com.kltn.scsms_api_service.configs;
+
+import com.kltn.scsms_api_service.configs.property.WebSocketBrokerProperties;
+import com.kltn.scsms_api_service.core.service.websocket.RealtimeBroadcaster;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Nhận message WebSocket do node khác broadcast qua Redis (chỉ khi app.websocket.broker.mode=redis)
+ * Giao cho broker local trên 1 thread (giữ thứ tự) với hàng đợi giới hạn; đầy → thread subscriber tự giao
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.websocket.broker", name = "mode", havingValue = "redis")
+public class RealtimeBroadcastConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor realtimeBroadcastExecutor(WebSocketBrokerProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(Math.max(properties.getRedis().getListenerQueueCapacity(), 1));
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setThreadNamePrefix("ws-broadcast-");
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    @Bean
+    public RedisMessageListenerContainer realtimeBroadcastListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            WebSocketBrokerProperties properties,
+                                                                            RealtimeBroadcaster broadcaster,
+                                                                            ThreadPoolTaskExecutor realtimeBroadcastExecutor) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(realtimeBroadcastExecutor);
+        container.addMessageListener(
+                (message, pattern) -> broadcaster.onBroadcastMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(properties.getRedis().getChannel()));
+        return container;
+    }
+}
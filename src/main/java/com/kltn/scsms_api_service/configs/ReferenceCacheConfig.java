@@ -0,0 +1,33 @@
+package com.kltn.scsms_api_service.configs;
+
+import com.kltn.scsms_api_service.configs.property.ReferenceCacheProperties;
+import com.kltn.scsms_api_service.core.service.entityService.ReferenceDataCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lắng nghe kênh invalidation của ReferenceDataCache trên Redis (chỉ khi app.reference-cache.remote=true)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.reference-cache", name = "remote", havingValue = "true")
+public class ReferenceCacheConfig {
+
+    @Bean
+    public RedisMessageListenerContainer referenceCacheListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                         ReferenceCacheProperties properties,
+                                                                         ReferenceDataCache referenceDataCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> referenceDataCache.onInvalidationMessage(
+                        new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(properties.getInvalidationChannel()));
+        return container;
+    }
+}
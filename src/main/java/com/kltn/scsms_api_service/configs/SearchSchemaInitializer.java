@@ -0,0 +1,130 @@
+package com.kltn.scsms_api_service.configs;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Tạo hạ tầng tìm kiếm full-text trên PostgreSQL khi ứng dụng khởi động (idempotent, chạy lại an toàn)
+ * - Extension unaccent + pg_trgm, hàm f_unaccent/f_similarity IMMUTABLE trong schema hiện tại
+ *   (search_path chỉ có schema ứng dụng nên các hàm của extension được gọi qua wrapper)
+ * - Cột search_vector (tsvector, GENERATED STORED, có trọng số) + GIN index cho products/services/categories
+ * - GIN trigram index cho tên không dấu (search mới) và các cột mà các query ILIKE/LIKE cũ đang quét
+ * Project không dùng Flyway/Liquibase nên DDL được chạy ở đây; lỗi (thiếu quyền tạo extension...)
+ * chỉ log cảnh báo và SearchService tự rơi về query ILIKE
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchSchemaInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.search.manage-schema:true}")
+    private boolean manageSchema;
+
+    private volatile boolean ready;
+
+    /**
+     * true khi cột search_vector và các hàm wrapper đã sẵn sàng để query
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            if (manageSchema) {
+                createSchema();
+            }
+            ready = schemaExists();
+            log.info("Full-text search schema ready={}", ready);
+        } catch (Exception e) {
+            ready = false;
+            log.warn("Failed to prepare full-text search schema, falling back to ILIKE search: {}", e.getMessage());
+        }
+    }
+
+    private void createSchema() {
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS unaccent");
+        jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        String unaccentSchema = extensionSchema("unaccent");
+        String trgmSchema = extensionSchema("pg_trgm");
+        String trgmOps = trgmSchema + ".gin_trgm_ops";
+
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION f_unaccent(text) RETURNS text " +
+                "LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT AS " +
+                "$$ SELECT " + unaccentSchema + ".unaccent('" + unaccentSchema + ".unaccent'::regdictionary, $1) $$");
+        jdbcTemplate.execute("CREATE OR REPLACE FUNCTION f_similarity(text, text) RETURNS real " +
+                "LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT AS " +
+                "$$ SELECT " + trgmSchema + ".similarity($1, $2) $$");
+
+        // Tên: trọng số A, mã/thương hiệu: B, mô tả: C
+        addSearchVector("products",
+                "setweight(to_tsvector('simple', f_unaccent(lower(coalesce(product_name, '')))), 'A') || " +
+                "setweight(to_tsvector('simple', f_unaccent(lower(coalesce(brand, '') || ' ' || coalesce(sku, '')))), 'B') || " +
+                "setweight(to_tsvector('simple', f_unaccent(lower(coalesce(description, '')))), 'C')");
+        addSearchVector("services",
+                "setweight(to_tsvector('simple', f_unaccent(lower(coalesce(service_name, '')))), 'A') || " +
+                "setweight(to_tsvector('simple', f_unaccent(lower(coalesce(description, '')))), 'C')");
+        addSearchVector("categories",
+                "setweight(to_tsvector('simple', f_unaccent(lower(coalesce(category_name, '')))), 'A') || " +
+                "setweight(to_tsvector('simple', f_unaccent(lower(coalesce(description, '')))), 'C')");
+
+        // Trigram trên tên không dấu - dùng cho khớp một phần/gõ sai trong search mới
+        createTrigramIndex("idx_products_name_unaccent_trgm", "products", "f_unaccent(lower(product_name))", trgmOps);
+        createTrigramIndex("idx_services_name_unaccent_trgm", "services", "f_unaccent(lower(service_name))", trgmOps);
+        createTrigramIndex("idx_categories_name_unaccent_trgm", "categories", "f_unaccent(lower(category_name))", trgmOps);
+        createTrigramIndex("idx_bookings_customer_name_unaccent_trgm", "bookings", "f_unaccent(lower(customer_name))", trgmOps);
+
+        // Trigram trên cột gốc - phục vụ các query ILIKE/LIKE '%kw%' hiện có
+        createTrigramIndex("idx_products_product_name_trgm", "products", "product_name", trgmOps);
+        createTrigramIndex("idx_products_description_trgm", "products", "description", trgmOps);
+        createTrigramIndex("idx_products_brand_trgm", "products", "brand", trgmOps);
+        createTrigramIndex("idx_products_sku_trgm", "products", "sku", trgmOps);
+        createTrigramIndex("idx_services_service_name_trgm", "services", "service_name", trgmOps);
+        createTrigramIndex("idx_services_description_trgm", "services", "description", trgmOps);
+        createTrigramIndex("idx_categories_category_name_trgm", "categories", "category_name", trgmOps);
+        createTrigramIndex("idx_bookings_customer_name_trgm", "bookings", "customer_name", trgmOps);
+        createTrigramIndex("idx_bookings_customer_phone_trgm", "bookings", "customer_phone", trgmOps);
+        createTrigramIndex("idx_bookings_vehicle_license_plate_trgm", "bookings", "vehicle_license_plate", trgmOps);
+        createTrigramIndex("idx_bookings_booking_code_trgm", "bookings", "booking_code", trgmOps);
+    }
+
+    private void addSearchVector(String table, String expression) {
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS search_vector tsvector " +
+                "GENERATED ALWAYS AS (" + expression + ") STORED");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_search_vector ON " + table +
+                " USING gin (search_vector)");
+    }
+
+    private void createTrigramIndex(String indexName, String table, String expression, String opClass) {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + indexName + " ON " + table +
+                " USING gin ((" + expression + ") " + opClass + ")");
+    }
+
+    private String extensionSchema(String extension) {
+        return jdbcTemplate.queryForObject(
+                "SELECT n.nspname FROM pg_extension e JOIN pg_namespace n ON n.oid = e.extnamespace " +
+                        "WHERE e.extname = ?", String.class, extension);
+    }
+
+    private boolean schemaExists() {
+        List<String> tables = jdbcTemplate.queryForList(
+                "SELECT table_name FROM information_schema.columns " +
+                        "WHERE table_schema = current_schema() AND column_name = 'search_vector' " +
+                        "AND table_name IN ('products', 'services', 'categories')", String.class);
+        Integer functions = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_proc p JOIN pg_namespace n ON n.oid = p.pronamespace " +
+                        "WHERE n.nspname = current_schema() AND p.proname IN ('f_unaccent', 'f_similarity')",
+                Integer.class);
+        return tables.size() == 3 && functions != null && functions == 2;
+    }
+}
@@ -1,18 +1,21 @@
 package com.kltn.scsms_api_service.configs;
 
 import com.kltn.scsms_api_service.configs.filters.JwtAuthenticationFilter;
+import com.kltn.scsms_api_service.core.dto.token.LoginUserInfo;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
@@ -82,8 +85,10 @@ public class SecurityConfiguration {
                         "/auth/verify-token", "/auth/oauth2/**").permitAll()
                     // OTP endpoints
                     .requestMatchers("/otp/**").permitAll()
-                    // Actuator endpoints
-                    .requestMatchers("/actuator/**").permitAll()
+                    // Actuator endpoints: health/info công khai (healthcheck), metrics chỉ cho ADMIN
+                    .requestMatchers("/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
+                    .requestMatchers("/actuator/**").access((authentication, context) ->
+                        new AuthorizationDecision(isAdmin(authentication.get())))
                     // Swagger/Docs endpoints
                     .requestMatchers("/docs/**", "/swagger-ui/**", "/swagger-resources/**", 
                         "/webjars/**", "/swagger-ui.html", "/v3/api-docs/**").permitAll()
@@ -93,6 +98,7 @@ public class SecurityConfiguration {
                     // NOTE: Context-path is /api, so Spring Security removes it before pattern matching
                     // Products - GET only (Guest can view products)
                     .requestMatchers(HttpMethod.GET, "/products/**").permitAll()
+                    .requestMatchers(HttpMethod.POST, "/products/facet-search").permitAll()
                     // Services - GET only (Guest can view services)
                     .requestMatchers(HttpMethod.GET, "/services/**").permitAll()
                     // Service Types - GET dropdown and active (Guest can view service types)
@@ -102,6 +108,8 @@ public class SecurityConfiguration {
                     .requestMatchers(HttpMethod.GET, "/centers/get-all").permitAll()
                     // Branches - GET only (Guest can view branches)
                     .requestMatchers(HttpMethod.GET, "/branches/**").permitAll()
+                    // Search - GET products/services only (Guest can search catalog)
+                    .requestMatchers(HttpMethod.GET, "/search/products", "/search/services").permitAll()
                     // Pricing endpoints - Guest can view prices (POST because they have request body)
                     .requestMatchers(HttpMethod.POST, "/pricing/preview").permitAll()
                     .requestMatchers(HttpMethod.POST, "/pricing/preview-batch").permitAll()
@@ -119,6 +127,12 @@ public class SecurityConfiguration {
             .build();
     }
     
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication != null
+            && authentication.getPrincipal() instanceof LoginUserInfo loginUserInfo
+            && "ADMIN".equalsIgnoreCase(loginUserInfo.getRole());
+    }
+    
     /**
      * Apply custom HttpFirewall to WebSecurity
      * This ensures the firewall configuration is used for all requests
@@ -0,0 +1,37 @@
+package com.kltn.scsms_api_service.configs;
+
+import com.kltn.scsms_api_service.core.service.websocket.WebSocketSessionMonitor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.config.annotation.DelegatingWebSocketMessageBrokerConfiguration;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * Thay cho @EnableWebSocketMessageBroker (vẫn áp dụng mọi WebSocketMessageBrokerConfigurer như WebSocketConfig)
+ * - Chỉ override bean subProtocolWebSocketHandler: SubProtocolWebSocketHandler tự bọc session bằng
+ *   ConcurrentWebSocketSessionDecorator ngoài cùng, nên buffer/overflow của từng session phải gắn tại decorateSession
+ *   (WebSocketSessionMonitor) thay vì qua decorator factory
+ */
+@Configuration(proxyBeanMethods = false)
+public class WebSocketBrokerConfiguration extends DelegatingWebSocketMessageBrokerConfiguration {
+
+    private WebSocketSessionMonitor webSocketSessionMonitor;
+
+    @Autowired
+    public void setWebSocketSessionMonitor(WebSocketSessionMonitor webSocketSessionMonitor) {
+        this.webSocketSessionMonitor = webSocketSessionMonitor;
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                        AbstractSubscribableChannel clientOutboundChannel) {
+        SubProtocolWebSocketHandler handler =
+                webSocketSessionMonitor.createHandler(clientInboundChannel, clientOutboundChannel);
+        handler.setPhase(getPhase());
+        return handler;
+    }
+}
@@ -1,25 +1,46 @@
 package com.kltn.scsms_api_service.configs;
 
+import com.kltn.scsms_api_service.configs.property.WebSocketBrokerProperties;
+import com.kltn.scsms_api_service.configs.property.WebSocketTransportProperties;
+import com.kltn.scsms_api_service.configs.security.WebSocketChannelInterceptor;
 import com.kltn.scsms_api_service.configs.security.WebSocketHandshakeInterceptor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
-import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
+import org.springframework.messaging.simp.config.TaskExecutorRegistration;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 import java.util.Arrays;
 import java.util.List;
 
 @Slf4j
 @Configuration
-@EnableWebSocketMessageBroker
 @RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final WebSocketHandshakeInterceptor webSocketHandshakeInterceptor;
+    private final WebSocketChannelInterceptor webSocketChannelInterceptor;
+    private final WebSocketBrokerProperties brokerProperties;
+    private final WebSocketTransportProperties transportProperties;
+
+    /**
+     * Scheduler của chính message broker (bean messageBrokerTaskScheduler), inject lazy vì được tạo sau config này
+     */
+    private TaskScheduler messageBrokerTaskScheduler;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler messageBrokerTaskScheduler) {
+        this.messageBrokerTaskScheduler = messageBrokerTaskScheduler;
+    }
 
     @Value("${app.cors.allowed-origin-patterns}")
     private String allowedOriginPatterns;
@@ -28,21 +49,74 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     private String contextPath;
 
     /**
-     * Cấu hình STOMP message broker
-     * - Enable simple broker cho các topics
-     * - Set application destination prefix cho client send messages
+     * Cấu hình STOMP message broker theo app.websocket.broker.mode
+     * - SIMPLE/REDIS: simple broker trong bộ nhớ (REDIS thêm broadcast giữa các node qua RealtimeBroadcaster)
+     * - Heartbeat STOMP để phát hiện kết nối chết (mobile mất mạng) thay vì giữ session tới khi TCP timeout
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple in-memory message broker để broadcast messages đến clients
-        // Prefix "/topic" cho broadcast messages (pub/sub pattern)
-        config.enableSimpleBroker("/topic", "/queue");
-        
+        long[] heartbeat = {brokerProperties.getHeartbeatSendMs(), brokerProperties.getHeartbeatReceiveMs()};
+
+        // Simple in-memory broker; prefix "/topic" cho broadcast, "/queue" cho message riêng
+        config.enableSimpleBroker("/topic", "/queue")
+                .setHeartbeatValue(heartbeat)
+                .setTaskScheduler(messageBrokerTaskScheduler);
+        log.info("WebSocket: Simple broker configured (mode={}) - topics: /topic, /queue",
+                brokerProperties.getMode());
+
         // Prefix "/app" cho messages từ client gửi đến server
         // (Hiện tại chưa cần, nhưng có thể dùng sau)
         config.setApplicationDestinationPrefixes("/app");
-        
-        log.info("WebSocket: Message broker configured - topics: /topic, /queue, app prefix: /app");
+
+        // Prefix "/user" cho message riêng của từng user (convertAndSendToUser → /user/queue/...)
+        config.setUserDestinationPrefix("/user");
+
+        // Outbound chạy nhiều thread → giữ thứ tự message của từng session (delta theo version)
+        config.setPreservePublishOrder(transportProperties.isPreservePublishOrder());
+    }
+
+    /**
+     * Giới hạn mỗi session: client chậm (mobile mạng yếu) chỉ làm đầy buffer của chính nó
+     * (WebSocketSessionMonitor qua WebSocketBrokerConfiguration: bỏ message hoặc đóng session),
+     * không giữ thread outbound dùng chung
+     */
+    @Override
+    public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendTimeLimit(transportProperties.getSendTimeLimitMs())
+                .setSendBufferSizeLimit(transportProperties.getSendBufferSizeLimit())
+                .setMessageSizeLimit(transportProperties.getMessageSizeLimit());
+    }
+
+    /**
+     * Gắn principal khi CONNECT và kiểm tra quyền SUBSCRIBE (topic theo chi nhánh/bay/user)
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.interceptors(webSocketChannelInterceptor);
+        configureExecutor(registration, transportProperties.getInbound(), "ws-inbound-");
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        configureExecutor(registration, transportProperties.getOutbound(), "ws-outbound-");
+    }
+
+    /**
+     * Virtual thread (không hàng đợi) hoặc thread pool có hàng đợi giới hạn
+     */
+    private void configureExecutor(ChannelRegistration registration, WebSocketTransportProperties.Channel channel,
+                                   String threadNamePrefix) {
+        if (channel.isVirtualThreads()) {
+            registration.executor(new VirtualThreadTaskExecutor(threadNamePrefix));
+            return;
+        }
+        TaskExecutorRegistration executor = registration.taskExecutor()
+                .queueCapacity(channel.getQueueCapacity())
+                .keepAliveSeconds(channel.getKeepAliveSeconds());
+        if (channel.getCorePoolSize() > 0) {
+            executor.corePoolSize(channel.getCorePoolSize())
+                    .maxPoolSize(Math.max(channel.getMaxPoolSize(), channel.getCorePoolSize()));
+        }
     }
 
     /**
@@ -19,7 +19,6 @@ import com.kltn.scsms_api_service.core.service.aiAssistant.AiBookingAssistantSer
 import com.kltn.scsms_api_service.core.service.aiAssistant.ExtractionService;
 import com.kltn.scsms_api_service.core.service.entityService.BookingDraftService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceBayService;
-import com.kltn.scsms_api_service.core.service.entityService.ServiceService;
 import com.kltn.scsms_api_service.core.service.entityService.VehicleProfileService;
 import com.kltn.scsms_api_service.core.utils.DraftContextHolder;
 import com.kltn.scsms_api_service.core.utils.PermissionUtils;
@@ -47,7 +46,6 @@ public class AiAssistantFunctionsConfig {
     private final ServiceBayService serviceBayService;
     private final VehicleProfileService vehicleProfileService;
     private final BookingDraftService bookingDraftService;
-    private final ServiceService serviceService;
     private final ExtractionService extractionService;
 
     /**
@@ -436,8 +434,8 @@ public class AiAssistantFunctionsConfig {
                             (response.getStatus().equals("AVAILABLE") || response.getStatus().equals("FULL"))) {
 
                         // Tìm service từ request.getServiceType() bằng cách search trong database
-                        List<Service> foundServices = serviceService
-                                .searchByKeyword(request.getServiceType());
+                        List<Service> foundServices = aiBookingAssistantService
+                                .searchServicesByKeyword(request.getServiceType());
 
                         Service foundService = null;
                         if (!foundServices.isEmpty()) {
@@ -813,13 +811,13 @@ public class AiAssistantFunctionsConfig {
                     response.getStatus(),
                     response.getBookingCode() != null ? response.getBookingCode() : "N/A");
 
-            // Nếu booking thành công → Xóa draft thực sự khỏi database
+            // Nếu booking thành công → Kết thúc draft (DATABASE: xóa, REDIS: write-behind COMPLETED rồi bỏ khỏi Redis)
             if (draftId != null && "SUCCESS".equalsIgnoreCase(response.getStatus())) {
                 try {
-                    bookingDraftService.deleteDraft(draftId);
-                    log.info("Deleted draft after successful booking: draft_id={}", draftId);
+                    bookingDraftService.finishDraftAfterBooking(draftId);
+                    log.info("Finished draft after successful booking: draft_id={}", draftId);
                 } catch (Exception e) {
-                    log.warn("Could not delete draft after successful booking: {}", e.getMessage());
+                    log.warn("Could not finish draft after successful booking: {}", e.getMessage());
                 }
             }
 
@@ -0,0 +1,62 @@
+package com.kltn.scsms_api_service.configs.aiAssistant;
+
+import com.kltn.scsms_api_service.configs.property.LlmGatewayProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.MessageType;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+
+/**
+ * ChatModel giả lập cho load test (app.llm-gateway.stub.enabled=true)
+ * Không gọi OpenAI: chờ độ trễ cấu hình rồi trả câu trả lời cố định
+ * - Extraction prompt → JSON rỗng (ExtractionService parse được, rơi về flow pattern matching)
+ * - Chat prompt → câu trả lời text ngắn, không gọi functions
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.llm-gateway.stub", name = "enabled", havingValue = "true")
+@Slf4j
+public class StubChatModelConfig {
+
+    private static final String EXTRACTION_MARKER = "extract lựa chọn";
+    private static final String EXTRACTION_RESPONSE = "{\"intent\": \"UNKNOWN\"}";
+    private static final String CHAT_RESPONSE = "Đây là phản hồi giả lập từ stub ChatModel. Bạn muốn đặt lịch cho xe nào?";
+
+    @Bean
+    @Primary
+    public ChatModel stubChatModel(LlmGatewayProperties properties) {
+        log.warn("Using stub ChatModel - OpenAI will NOT be called (latency={})", properties.getStub().getLatency());
+        return new ChatModel() {
+            @Override
+            public ChatResponse call(Prompt prompt) {
+                try {
+                    Thread.sleep(properties.getStub().getLatency().toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                String content = isExtractionPrompt(prompt) ? EXTRACTION_RESPONSE : CHAT_RESPONSE;
+                return new ChatResponse(List.of(new Generation(new AssistantMessage(content))));
+            }
+        };
+    }
+
+    private static boolean isExtractionPrompt(Prompt prompt) {
+        for (Message message : prompt.getInstructions()) {
+            if (message.getMessageType() == MessageType.SYSTEM
+                    && message.getContent() != null
+                    && message.getContent().contains(EXTRACTION_MARKER)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
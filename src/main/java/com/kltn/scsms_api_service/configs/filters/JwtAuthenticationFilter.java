@@ -159,7 +159,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
     
     private boolean isBypassPath(String path, String method) {
-        boolean bypass = path.contains("/actuator")
+        boolean bypass = path.contains("/actuator/health") // Metrics cần token ADMIN nên không bypass
+            || path.contains("/actuator/info")
             || path.contains("/docs/api-docs")
             || path.contains("/docs/swagger-ui")
             || path.contains("/swagger-resources")
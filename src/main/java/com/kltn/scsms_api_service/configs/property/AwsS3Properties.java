@@ -2,12 +2,24 @@ package com.kltn.scsms_api_service.configs.property;
 
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.retries.api.BackoffStrategy;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3AsyncClientBuilder;
+import software.amazon.awssdk.services.s3.multipart.MultipartConfiguration;
+
+import java.net.URI;
+import java.time.Duration;
 
 @Configuration
 @ConfigurationProperties(prefix = "aws")
@@ -28,17 +40,81 @@ public class AwsS3Properties {
     public AmazonS3 amazonS3() {
         BasicAWSCredentials credentials = new BasicAWSCredentials(accessKeyId, secretAccessKey);
         
-        return AmazonS3ClientBuilder
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder
             .standard()
             .withCredentials(new AWSStaticCredentialsProvider(credentials))
-            .withRegion(region)
-            .build();
+            .withPathStyleAccessEnabled(Boolean.TRUE.equals(s3.getPathStyleAccess()));
+        
+        // Endpoint riêng (MinIO, LocalStack...) để chạy/test với S3-compatible storage
+        if (hasEndpoint()) {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(s3.getEndpoint(), region));
+        } else {
+            builder.withRegion(region);
+        }
+        
+        return builder.build();
+    }
+    
+    /**
+     * Client v2 async cho upload/download (S3Utils)
+     * - Multipart tự động khi file lớn hơn threshold, các part được upload song song
+     *   (tối đa maxConcurrency part đang gửi cho mỗi file)
+     * - Retry theo maxAttempts/backoffDelay của multipart-upload
+     */
+    @Bean(destroyMethod = "close")
+    public S3AsyncClient s3AsyncClient() {
+        long partSize = multiPartUpload.getPartSize() != null ? multiPartUpload.getPartSize() : 8L * 1024 * 1024;
+        long threshold = multiPartUpload.getThreshold() != null ? multiPartUpload.getThreshold() : 16L * 1024 * 1024;
+        int maxAttempts = multiPartUpload.getMaxAttempts() != null ? multiPartUpload.getMaxAttempts() : 3;
+        long backoffDelay = multiPartUpload.getBackoffDelay() != null ? multiPartUpload.getBackoffDelay() : 1000;
+        
+        S3AsyncClientBuilder builder = S3AsyncClient.builder()
+            .credentialsProvider(StaticCredentialsProvider.create(
+                AwsBasicCredentials.create(accessKeyId, secretAccessKey)))
+            .region(Region.of(region))
+            .forcePathStyle(Boolean.TRUE.equals(s3.getPathStyleAccess()))
+            .multipartEnabled(true)
+            .multipartConfiguration(MultipartConfiguration.builder()
+                .thresholdInBytes(threshold)
+                .minimumPartSizeInBytes(partSize)
+                .apiCallBufferSizeInBytes(partSize * maxConcurrency())
+                .build())
+            .overrideConfiguration(config -> config.retryStrategy(AwsRetryStrategy.standardRetryStrategy()
+                .toBuilder()
+                .maxAttempts(maxAttempts)
+                .backoffStrategy(BackoffStrategy.exponentialDelay(
+                    Duration.ofMillis(backoffDelay), Duration.ofMillis(backoffDelay * 20)))
+                .build()));
+        
+        if (hasEndpoint()) {
+            builder.endpointOverride(URI.create(s3.getEndpoint()));
+        }
+        
+        return builder.build();
+    }
+    
+    /**
+     * Số upload/part chạy song song (mặc định 5)
+     */
+    public int maxConcurrency() {
+        return multiPartUpload.getMaxConcurrency() != null && multiPartUpload.getMaxConcurrency() > 0
+            ? multiPartUpload.getMaxConcurrency() : 5;
+    }
+    
+    private boolean hasEndpoint() {
+        return s3.getEndpoint() != null && !s3.getEndpoint().isBlank();
     }
     
     @Data
     public static class S3 {
         private String bucketName;
         
+        /** Endpoint S3-compatible (VD: http://localhost:9000 cho MinIO); để trống = AWS S3 theo region */
+        private String endpoint;
+        
+        /** true cho MinIO/LocalStack (bucket nằm trong path thay vì subdomain) */
+        private Boolean pathStyleAccess;
+        
         private Integer imageFileSizeLimit;
         
         private Integer videoFileSizeLimit;
@@ -0,0 +1,44 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Cấu hình lưu trữ booking draft của AI assistant
+ * - DATABASE: mọi bước lưu thẳng vào Postgres (mặc định, giữ hành vi cũ)
+ * - REDIS: draft sống trong Redis với TTL, chỉ draft hoàn thành/được persist chủ động mới ghi xuống Postgres
+ */
+@Component
+@ConfigurationProperties(prefix = "app.booking-draft")
+@Getter
+@Setter
+public class BookingDraftProperties {
+
+    public enum StoreMode {
+        DATABASE, REDIS
+    }
+
+    private StoreMode store = StoreMode.DATABASE;
+
+    /** TTL trượt: draft hết hạn nếu không có hoạt động trong khoảng này */
+    private Duration ttl = Duration.ofHours(24);
+
+    private String keyPrefix = "scsms:booking-draft:";
+
+    /** Chu kỳ flush hàng đợi write-behind xuống Postgres (ms) */
+    private long writeBehindFlushIntervalMs = 5000;
+
+    /** Số draft tối đa ghi trong 1 lần flush */
+    private int writeBehindBatchSize = 200;
+
+    /** Ghi lỗi quá số lần này → chuyển snapshot sang list write-behind:failed */
+    private int writeBehindMaxAttempts = 5;
+
+    public boolean isRedisMode() {
+        return store == StoreMode.REDIS;
+    }
+}
@@ -0,0 +1,29 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình upload trực tiếp lên S3 bằng presigned PUT (client → S3, không đi qua API)
+ * Giai đoạn 1 cấp URL + upload token, giai đoạn 2 (finalize) kiểm tra object rồi tạo S3File/Media
+ */
+@Component
+@ConfigurationProperties(prefix = "app.media.direct-upload")
+@Getter
+@Setter
+public class DirectUploadProperties {
+
+    /** Thời hạn của presigned PUT URL */
+    private int urlExpirationMinutes = 10;
+
+    /** Upload chưa finalize sau khoảng này bị coi là bỏ dở và bị sweeper xóa */
+    private int pendingTtlMinutes = 60;
+
+    /** Chu kỳ chạy sweeper */
+    private long sweepIntervalMs = 900000;
+
+    /** Số upload bỏ dở xử lý mỗi lần sweep */
+    private int sweepBatchSize = 200;
+}
@@ -0,0 +1,46 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import com.kltn.scsms_api_service.core.entity.enumAttribute.ImageVariant;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình sinh ảnh nhiều kích thước khi upload (ImageVariantGenerator)
+ * Kích thước tính theo cạnh dài (px); ảnh nhỏ hơn không bị phóng to
+ */
+@Component
+@ConfigurationProperties(prefix = "app.media.image-variants")
+@Getter
+@Setter
+public class ImageVariantProperties {
+
+    private boolean enabled = true;
+
+    private int thumbSize = 200;
+
+    private int cardSize = 600;
+
+    private int fullSize = 1600;
+
+    /** Chất lượng JPEG (0..1); ảnh có nền trong suốt được giữ PNG */
+    private float jpegQuality = 0.8f;
+
+    /** Số thread xử lý ảnh; decode ảnh lớn tốn CPU + RAM nên giữ nhỏ */
+    private int poolSize = 2;
+
+    /** Hàng đợi của pool; đầy → upload vẫn thành công nhưng không có variant (client dùng ảnh gốc) */
+    private int queueCapacity = 20;
+
+    /** Ảnh vượt quá số pixel này không được decode (chống decompression bomb) */
+    private long maxSourcePixels = 50_000_000L;
+
+    public int sizeOf(ImageVariant variant) {
+        return switch (variant) {
+            case THUMB -> thumbSize;
+            case CARD -> cardSize;
+            case FULL -> fullSize;
+        };
+    }
+}
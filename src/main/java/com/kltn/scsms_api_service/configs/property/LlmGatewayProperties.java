@@ -0,0 +1,79 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình LLM gateway (giới hạn concurrency, deadline, hedging, circuit breaker)
+ * Key của models là tên logic của model trong gateway: "chat" (có functions) và "extraction"
+ */
+@Component
+@ConfigurationProperties(prefix = "app.llm-gateway")
+@Getter
+@Setter
+public class LlmGatewayProperties {
+
+    private Map<String, ModelLimits> models = new HashMap<>();
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Stub stub = new Stub();
+
+    public ModelLimits limitsFor(String model) {
+        return models.getOrDefault(model, new ModelLimits());
+    }
+
+    @Getter
+    @Setter
+    public static class ModelLimits {
+        /** Số call đồng thời tối đa tới provider */
+        private int maxConcurrent = 16;
+
+        /** Thời gian tối đa chờ slot trống, hết thời gian → fail nhanh */
+        private Duration queueTimeout = Duration.ofMillis(500);
+
+        /** Deadline của một call (kể cả function calling bên trong), bỏ qua khi sideEffects = true */
+        private Duration deadline = Duration.ofSeconds(25);
+
+        /** Gửi thêm 1 request dự phòng nếu request đầu chưa xong sau khoảng này, null = tắt hedging */
+        private Duration hedgeDelay;
+
+        /**
+         * Call có thể chạy functions có side effect (createBooking): không hedge, không áp deadline cứng
+         * - caller luôn chờ attempt kết thúc (bị chặn bởi read-timeout của HTTP client)
+         */
+        private boolean sideEffects = false;
+    }
+
+    @Getter
+    @Setter
+    public static class CircuitBreaker {
+        /** Số call gần nhất dùng để tính tỉ lệ lỗi */
+        private int windowSize = 20;
+
+        /** Số call tối thiểu trong window trước khi xét mở circuit */
+        private int minimumCalls = 10;
+
+        /** Tỉ lệ lỗi (0..1) để mở circuit */
+        private double failureRateThreshold = 0.5;
+
+        /** Thời gian circuit mở trước khi cho 1 call thử (half-open) */
+        private Duration openDuration = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Stub {
+        /** Dùng ChatModel giả lập thay cho OpenAI (load test) */
+        private boolean enabled = false;
+
+        /** Độ trễ giả lập của mỗi call */
+        private Duration latency = Duration.ofMillis(800);
+    }
+}
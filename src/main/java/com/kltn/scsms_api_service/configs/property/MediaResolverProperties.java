@@ -0,0 +1,27 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình MediaResolver: tra ảnh theo lô cho các trang danh sách + cache local TTL ngắn
+ * Thay đổi media invalidate ngay trên node hiện tại; node khác thấy ảnh mới sau tối đa ttlMs
+ */
+@Component
+@ConfigurationProperties(prefix = "app.media.resolver")
+@Getter
+@Setter
+public class MediaResolverProperties {
+
+    /** false = luôn query DB (vẫn theo lô) */
+    private boolean cacheEnabled = true;
+
+    private long ttlMs = 30000;
+
+    private int maxEntries = 20000;
+
+    /** Số entity tối đa trong 1 query IN (đường list không phân trang có thể hỏi cả catalogue) */
+    private int loadBatchSize = 500;
+}
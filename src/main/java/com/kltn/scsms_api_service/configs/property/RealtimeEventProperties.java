@@ -0,0 +1,26 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình dispatcher event real-time (RealtimeEventDispatcher)
+ * Event booking/tracking được gộp theo entity trong coalesceWindowMs rồi gửi trên pool riêng có giới hạn
+ */
+@Component
+@ConfigurationProperties(prefix = "app.websocket.events")
+@Getter
+@Setter
+public class RealtimeEventProperties {
+
+    /** Cửa sổ gộp event của cùng 1 entity; 0 = gửi ngay (vẫn sau commit, vẫn async) */
+    private long coalesceWindowMs = 150;
+
+    /** Số thread gửi WebSocket */
+    private int poolSize = 2;
+
+    /** Hàng đợi của pool; đầy → thread của scheduler tự gửi (backpressure, không mất event) */
+    private int queueCapacity = 1000;
+}
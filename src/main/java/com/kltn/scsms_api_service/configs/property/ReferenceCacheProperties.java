@@ -0,0 +1,72 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cấu hình cache dữ liệu tham chiếu 2 tầng (ReferenceDataCache)
+ * - Tầng local: map trong bộ nhớ mỗi node, TTL ngắn + giới hạn số entry
+ * - Tầng remote (Redis, bật bằng remote=true): dùng chung giữa các node, TTL dài hơn,
+ *   invalidation được broadcast qua Redis pub/sub
+ * Key của regions là tên region (xem ReferenceCacheRegions); region không khai báo dùng giá trị mặc định
+ */
+@Component
+@ConfigurationProperties(prefix = "app.reference-cache")
+@Getter
+@Setter
+public class ReferenceCacheProperties {
+
+    /** false = luôn gọi loader (tắt cache hoàn toàn) */
+    private boolean enabled = true;
+
+    /** true = dùng Redis làm tầng 2 và kênh broadcast invalidation */
+    private boolean remote = false;
+
+    private String keyPrefix = "scsms:cache:";
+
+    /** Tăng khi đổi cấu trúc DTO được cache để bỏ qua toàn bộ entry cũ trong Redis */
+    private String keyVersion = "v1";
+
+    private String invalidationChannel = "scsms:cache:invalidate";
+
+    /** Chu kỳ đồng bộ generation của các region từ Redis (bù cho message pub/sub bị mất) */
+    private long generationSyncIntervalMs = 60000;
+
+    private Region defaults = new Region();
+
+    private Map<String, Region> regions = new HashMap<>();
+
+    public Duration ttlFor(String region) {
+        Region config = regions.get(region);
+        return config != null && config.getTtl() != null ? config.getTtl() : defaults.getTtl();
+    }
+
+    public Duration localTtlFor(String region) {
+        Region config = regions.get(region);
+        return config != null && config.getLocalTtl() != null ? config.getLocalTtl() : defaults.getLocalTtl();
+    }
+
+    public int localMaxEntriesFor(String region) {
+        Region config = regions.get(region);
+        return config != null && config.getLocalMaxEntries() != null
+                ? config.getLocalMaxEntries() : defaults.getLocalMaxEntries();
+    }
+
+    @Getter
+    @Setter
+    public static class Region {
+        /** TTL ở Redis */
+        private Duration ttl = Duration.ofHours(6);
+
+        /** TTL ở bộ nhớ local (giới hạn thời gian dữ liệu cũ nếu lỡ mất message invalidation) */
+        private Duration localTtl = Duration.ofMinutes(10);
+
+        private Integer localMaxEntries = 256;
+    }
+}
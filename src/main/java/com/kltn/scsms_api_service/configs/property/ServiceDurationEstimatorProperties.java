@@ -0,0 +1,36 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình ServiceDurationEstimator: sketch phân vị thời lượng dịch vụ học từ booking/tracking đã hoàn thành
+ * Ước lượng lùi dần (loại xe + chi nhánh) → (loại xe) → (chi nhánh) → (toàn hệ thống) → thời lượng cấu hình tĩnh
+ */
+@Component
+@ConfigurationProperties(prefix = "app.duration-estimator")
+@Getter
+@Setter
+public class ServiceDurationEstimatorProperties {
+
+    /** false = không ghi mẫu mới, lập lịch dùng thời lượng cấu hình tĩnh */
+    private boolean enabled = true;
+
+    private double planningQuantile = 0.8;
+
+    /** Số mẫu tối thiểu của 1 phạm vi để được dùng */
+    private int minSamples = 20;
+
+    /** Vượt ngưỡng → chia đôi số đếm của sketch */
+    private int maxSamples = 2000;
+
+    private int maxDurationMinutes = 720;
+
+    private int backfillDays = 180;
+
+    /** Pool ghi mẫu sau khi booking hoàn thành; hàng đợi đầy → thread gọi tự ghi */
+    private int poolSize = 1;
+    private int queueCapacity = 500;
+}
@@ -0,0 +1,38 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình STOMP broker cho WebSocket
+ * - SIMPLE: broker trong bộ nhớ (1 node)
+ * - REDIS: broker trong bộ nhớ + mọi message server gửi được broadcast qua Redis pub/sub để node khác
+ *   giao cho client đang kết nối vào node đó (chạy nhiều replica không cần thêm hạ tầng)
+ */
+@Component
+@ConfigurationProperties(prefix = "app.websocket.broker")
+@Getter
+@Setter
+public class WebSocketBrokerProperties {
+
+    public enum Mode { SIMPLE, REDIS }
+
+    private Mode mode = Mode.SIMPLE;
+
+    /** Heartbeat STOMP server ↔ client (ms, 0 = tắt); phát hiện kết nối chết khi mạng mobile chập chờn */
+    private long heartbeatSendMs = 10000;
+    private long heartbeatReceiveMs = 10000;
+
+    private Redis redis = new Redis();
+
+    @Getter
+    @Setter
+    public static class Redis {
+        private String channel = "scsms:ws:broadcast";
+
+        /** Hàng đợi message nhận từ Redis chờ giao cho broker local; đầy → thread subscriber tự giao (backpressure) */
+        private int listenerQueueCapacity = 2000;
+    }
+}
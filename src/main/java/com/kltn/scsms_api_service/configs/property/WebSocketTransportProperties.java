@@ -0,0 +1,56 @@
+package com.kltn.scsms_api_service.configs.property;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cấu hình transport WebSocket: giới hạn mỗi session và thread pool của client inbound/outbound channel
+ * - Client chậm (mobile mạng yếu) không được làm nghẽn outbound executor dùng chung
+ * - overflowStrategy: TERMINATE = đóng session khi buffer đầy (client reconnect + resync);
+ *   DROP = bỏ message mới của riêng session đó (client phát hiện qua base_version rồi resync)
+ */
+@Component
+@ConfigurationProperties(prefix = "app.websocket.transport")
+@Getter
+@Setter
+public class WebSocketTransportProperties {
+
+    public enum OverflowStrategy { TERMINATE, DROP }
+
+    /** Thời gian tối đa cho 1 lần gửi tới session; quá hạn → đóng session */
+    private int sendTimeLimitMs = 15000;
+
+    /** Dung lượng tối đa message chờ gửi cho 1 session */
+    private int sendBufferSizeLimit = 512 * 1024;
+
+    private OverflowStrategy overflowStrategy = OverflowStrategy.TERMINATE;
+
+    /** Kích thước tối đa 1 message client gửi lên (client chỉ SUBSCRIBE/heartbeat nên không cần lớn) */
+    private int messageSizeLimit = 64 * 1024;
+
+    /** Giữ thứ tự message gửi tới từng session khi outbound chạy nhiều thread (delta cần đúng thứ tự version) */
+    private boolean preservePublishOrder = true;
+
+    private Channel inbound = new Channel();
+
+    private Channel outbound = new Channel();
+
+    @Getter
+    @Setter
+    public static class Channel {
+        /** true = mỗi message 1 virtual thread (không giới hạn, không hàng đợi); bỏ qua các giá trị pool bên dưới */
+        private boolean virtualThreads = false;
+
+        /** 0 = mặc định của Spring (số CPU x 2) */
+        private int corePoolSize = 0;
+
+        /** 0 = bằng corePoolSize */
+        private int maxPoolSize = 0;
+
+        private int queueCapacity = 10000;
+
+        private int keepAliveSeconds = 60;
+    }
+}
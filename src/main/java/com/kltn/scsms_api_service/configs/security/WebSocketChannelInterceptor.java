@@ -0,0 +1,148 @@
+package com.kltn.scsms_api_service.configs.security;
+
+import com.kltn.scsms_api_service.core.dto.token.LoginUserInfo;
+import com.kltn.scsms_api_service.core.service.entityService.BranchService;
+import com.kltn.scsms_api_service.core.service.entityService.ServiceBayService;
+import com.kltn.scsms_api_service.core.service.websocket.WebSocketService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * STOMP inbound interceptor
+ * - CONNECT: gắn WebSocketPrincipal (userId, role, chi nhánh được phân công) từ thông tin đã xác thực ở handshake
+ * - SUBSCRIBE: kiểm tra quyền theo destination
+ *   + /topic/branches/{branchId}/**: admin, hoặc nhân viên được phân công chi nhánh đó
+ *   + /topic/bays/{bayId}/**: admin, hoặc nhân viên được phân công chi nhánh chứa bay
+ *   + /topic/auth/{userId}, /queue/notifications/{userId}: chỉ chính user đó
+ *   + /user/queue/**: cần đăng nhập (broker tự giới hạn theo session của user)
+ *   + Các topic cũ (/topic/bookings, ...) giữ nguyên để client cũ không bị ảnh hưởng
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WebSocketChannelInterceptor implements ChannelInterceptor {
+
+    private final BranchService branchService;
+    private final ServiceBayService serviceBayService;
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            WebSocketPrincipal principal = principalFromSession(accessor.getSessionAttributes());
+            if (principal != null) {
+                accessor.setUser(principal);
+            }
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscription(accessor.getDestination(), accessor.getUser());
+        }
+        return message;
+    }
+
+    private void authorizeSubscription(String destination, Principal user) {
+        if (destination == null) {
+            return;
+        }
+        WebSocketPrincipal principal = user instanceof WebSocketPrincipal webSocketPrincipal ? webSocketPrincipal : null;
+
+        if (destination.startsWith(WebSocketService.TOPIC_BRANCHES_PREFIX)) {
+            if (principal == null || !principal.isStaff()) {
+                deny(destination, principal);
+            } else if (!principal.isAdmin()) {
+                UUID branchId = resourceId(destination, WebSocketService.TOPIC_BRANCHES_PREFIX);
+                if (!principal.canAccessBranch(branchId)) {
+                    deny(destination, principal);
+                }
+            }
+        } else if (destination.startsWith(WebSocketService.TOPIC_BAYS_PREFIX)) {
+            if (principal == null || !principal.isStaff()) {
+                deny(destination, principal);
+            } else if (!principal.isAdmin()) {
+                UUID bayId = resourceId(destination, WebSocketService.TOPIC_BAYS_PREFIX);
+                UUID branchId = bayId != null ? serviceBayService.findBranchIdByBayId(bayId).orElse(null) : null;
+                if (!principal.canAccessBranch(branchId)) {
+                    deny(destination, principal);
+                }
+            }
+        } else if (destination.startsWith(WebSocketService.TOPIC_AUTH + "/")) {
+            requireOwner(destination, WebSocketService.TOPIC_AUTH + "/", principal);
+        } else if (destination.startsWith(WebSocketService.QUEUE_NOTIFICATIONS_PREFIX)) {
+            requireOwner(destination, WebSocketService.QUEUE_NOTIFICATIONS_PREFIX, principal);
+        } else if (destination.startsWith("/user/") && principal == null) {
+            deny(destination, null);
+        }
+    }
+
+    /**
+     * Lấy id ngay sau prefix (prefix + {id} + "/..."); null nếu không phải UUID hợp lệ
+     */
+    private UUID resourceId(String destination, String prefix) {
+        String rest = destination.substring(prefix.length());
+        int end = rest.indexOf('/');
+        try {
+            return UUID.fromString(end >= 0 ? rest.substring(0, end) : rest);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private void requireOwner(String destination, String prefix, WebSocketPrincipal principal) {
+        String owner = destination.substring(prefix.length());
+        if (principal == null || !owner.equals(principal.userId())) {
+            deny(destination, principal);
+        }
+    }
+
+    private void deny(String destination, WebSocketPrincipal principal) {
+        log.warn("WebSocket: Subscription to {} denied for user {}", destination,
+                principal != null ? principal.userId() : "anonymous");
+        throw new AccessDeniedException("Not allowed to subscribe to " + destination);
+    }
+
+    private WebSocketPrincipal principalFromSession(Map<String, Object> attributes) {
+        if (attributes == null || !(attributes.get("user") instanceof LoginUserInfo user) || user.getSub() == null) {
+            return null;
+        }
+        return new WebSocketPrincipal(user.getSub(), user.getRole(), assignedBranchIds(user));
+    }
+
+    /**
+     * Chi nhánh được phân công: chi nhánh user làm quản lý + chi nhánh có bay user là kỹ thuật viên
+     * - Admin và khách hàng không cần nạp
+     */
+    private Set<UUID> assignedBranchIds(LoginUserInfo user) {
+        String role = user.getRole();
+        if (role == null || WebSocketPrincipal.CUSTOMER_ROLE.equalsIgnoreCase(role)
+                || WebSocketPrincipal.ADMIN_ROLE.equalsIgnoreCase(role)) {
+            return Set.of();
+        }
+        UUID userId;
+        try {
+            userId = UUID.fromString(user.getSub());
+        } catch (IllegalArgumentException e) {
+            return Set.of();
+        }
+        Set<UUID> branchIds = new HashSet<>(branchService.findBranchIdsByManagerId(userId));
+        branchIds.addAll(serviceBayService.findBranchIdsByTechnicianId(userId));
+        return branchIds;
+    }
+}
@@ -0,0 +1,40 @@
+package com.kltn.scsms_api_service.configs.security;
+
+import java.security.Principal;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Principal của STOMP session (name = userId) - dùng cho user destination (/user/queue/...)
+ * và kiểm tra quyền subscribe trong WebSocketChannelInterceptor
+ * - branchIds: chi nhánh được phân công (quản lý chi nhánh / kỹ thuật viên của bay), nạp một lần lúc CONNECT
+ */
+public record WebSocketPrincipal(String userId, String role, Set<UUID> branchIds) implements Principal {
+
+    public static final String CUSTOMER_ROLE = "CUSTOMER";
+    public static final String ADMIN_ROLE = "ADMIN";
+
+    public WebSocketPrincipal {
+        branchIds = branchIds != null ? Set.copyOf(branchIds) : Set.of();
+    }
+
+    @Override
+    public String getName() {
+        return userId;
+    }
+
+    public boolean isStaff() {
+        return role != null && !CUSTOMER_ROLE.equalsIgnoreCase(role);
+    }
+
+    public boolean isAdmin() {
+        return ADMIN_ROLE.equalsIgnoreCase(role);
+    }
+
+    /**
+     * Admin xem được mọi chi nhánh; nhân viên khác chỉ xem chi nhánh được phân công
+     */
+    public boolean canAccessBranch(UUID branchId) {
+        return isAdmin() || (isStaff() && branchId != null && branchIds.contains(branchId));
+    }
+}
@@ -170,6 +170,9 @@ public class ApiConstant {
         public static final String BULK_UPDATE_MEDIA_ORDER_API = MEDIA_MANAGEMENT_PREFIX + "/bulk-update-order";
         public static final String VALIDATE_MEDIA_URL_API = MEDIA_MANAGEMENT_PREFIX + "/validate-url";
         public static final String GET_MEDIA_STATISTICS_API = MEDIA_MANAGEMENT_PREFIX + "/statistics";
+        public static final String DOWNLOAD_MEDIA_FILE_API = MEDIA_MANAGEMENT_PREFIX + "/files/{fileId}/download";
+        public static final String PRESIGN_MEDIA_UPLOAD_API = MEDIA_MANAGEMENT_PREFIX + "/uploads/presign";
+        public static final String FINALIZE_MEDIA_UPLOAD_API = MEDIA_MANAGEMENT_PREFIX + "/uploads/finalize";
 
         // Product Attribute management module endpoints
         public static final String PRODUCT_ATTRIBUTE_MANAGEMENT_PREFIX = "/product-attributes";
@@ -231,6 +234,7 @@ public class ApiConstant {
                         + "/product-type/{productTypeId}";
         public static final String GET_PRODUCTS_BY_SUPPLIER_API = PRODUCT_MANAGEMENT_PREFIX + "/supplier/{supplierId}";
         public static final String SEARCH_PRODUCTS_API = PRODUCT_MANAGEMENT_PREFIX + "/search";
+        public static final String FACET_SEARCH_PRODUCTS_API = PRODUCT_MANAGEMENT_PREFIX + "/facet-search";
         public static final String GET_FEATURED_PRODUCTS_API = PRODUCT_MANAGEMENT_PREFIX + "/featured";
         public static final String CREATE_PRODUCT_API = PRODUCT_MANAGEMENT_PREFIX + "/create";
         public static final String UPDATE_PRODUCT_API = PRODUCT_MANAGEMENT_PREFIX + "/{productId}/update";
@@ -380,6 +384,7 @@ public class ApiConstant {
         public static final String GET_PROMOTIONS_STARTING_SOON_API = PROMOTION_MANAGEMENT_PREFIX + "/starting-soon";
         public static final String GET_PROMOTIONS_ENDING_SOON_API = PROMOTION_MANAGEMENT_PREFIX + "/ending-soon";
         public static final String GET_PROMOTION_USAGE_HISTORY_API = PROMOTION_MANAGEMENT_PREFIX + "/usage-history";
+        public static final String EVALUATE_PROMOTIONS_API = PROMOTION_MANAGEMENT_PREFIX + "/evaluate";
 
         // Service Type management module endpoints
         public static final String SERVICE_TYPE_MANAGEMENT_PREFIX = "/service-types";
@@ -489,6 +494,10 @@ public class ApiConstant {
         public static final String GET_BOOKINGS_PENDING_PAYMENT_API = BOOKING_MANAGEMENT_PREFIX + "/pending-payment";
         public static final String MARK_BOOKING_AS_PAID_API = BOOKING_MANAGEMENT_PREFIX + "/{bookingId}/mark-paid";
 
+        // Real-time (WebSocket) module endpoints
+        public static final String REALTIME_PREFIX = "/realtime";
+        public static final String REALTIME_RESYNC_API = REALTIME_PREFIX + "/resync";
+
         // Walk-in Booking module endpoints
         public static final String WALK_IN_BOOKING_PREFIX = "/walk-in";
         public static final String RECOMMEND_BAY_API = WALK_IN_BOOKING_PREFIX + "/recommend-bay";
@@ -506,6 +515,11 @@ public class ApiConstant {
         public static final String GET_RECENT_ACTIVITIES_API = DASHBOARD_PREFIX + "/recent-activities";
         public static final String GET_UPCOMING_BOOKINGS_API = DASHBOARD_PREFIX + "/upcoming-bookings";
         public static final String GET_REVENUE_STATS_API = DASHBOARD_PREFIX + "/revenue";
+        public static final String GET_STEP_PRODUCTIVITY_API = DASHBOARD_PREFIX + "/productivity/steps";
+        public static final String GET_BAY_PRODUCTIVITY_API = DASHBOARD_PREFIX + "/productivity/bays";
+        public static final String GET_TECHNICIAN_PRODUCTIVITY_API = DASHBOARD_PREFIX + "/productivity/technicians";
+        public static final String GET_DAILY_THROUGHPUT_API = DASHBOARD_PREFIX + "/productivity/throughput";
+        public static final String REBUILD_PRODUCTIVITY_STATS_API = DASHBOARD_PREFIX + "/productivity/rebuild";
 
         public static List<String> PROTECTED_PATHS(String apiPrefix) {
                 return List.of(
@@ -586,6 +600,9 @@ public class ApiConstant {
                                 apiPrefix + BULK_UPDATE_MEDIA_ORDER_API,
                                 apiPrefix + VALIDATE_MEDIA_URL_API,
                                 apiPrefix + GET_MEDIA_STATISTICS_API,
+                                apiPrefix + DOWNLOAD_MEDIA_FILE_API,
+                                apiPrefix + PRESIGN_MEDIA_UPLOAD_API,
+                                apiPrefix + FINALIZE_MEDIA_UPLOAD_API,
                                 // Product Attribute management APIs
                                 apiPrefix + CREATE_PRODUCT_ATTRIBUTE_API,
                                 apiPrefix + UPDATE_PRODUCT_ATTRIBUTE_API,
@@ -742,6 +759,11 @@ public class ApiConstant {
                                 apiPrefix + GET_BOOKING_STATUS_STATS_API,
                                 apiPrefix + GET_RECENT_ACTIVITIES_API,
                                 apiPrefix + GET_UPCOMING_BOOKINGS_API,
-                                apiPrefix + GET_REVENUE_STATS_API);
+                                apiPrefix + GET_REVENUE_STATS_API,
+                                apiPrefix + GET_STEP_PRODUCTIVITY_API,
+                                apiPrefix + GET_BAY_PRODUCTIVITY_API,
+                                apiPrefix + GET_TECHNICIAN_PRODUCTIVITY_API,
+                                apiPrefix + GET_DAILY_THROUGHPUT_API,
+                                apiPrefix + REBUILD_PRODUCTIVITY_STATS_API);
         }
 }
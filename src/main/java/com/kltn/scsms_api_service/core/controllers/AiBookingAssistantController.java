@@ -15,13 +15,15 @@ import com.kltn.scsms_api_service.core.dto.vehicleManagement.param.VehicleProfil
 import com.kltn.scsms_api_service.core.entity.*;
 import com.kltn.scsms_api_service.core.service.aiAssistant.AiBookingAssistantService;
 import com.kltn.scsms_api_service.core.service.aiAssistant.ExtractionService;
+import com.kltn.scsms_api_service.core.service.aiAssistant.LlmGateway;
+import com.kltn.scsms_api_service.core.service.aiAssistant.PromptTemplateEngine;
 import com.kltn.scsms_api_service.core.service.entityService.BookingDraftService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceBayService;
-import com.kltn.scsms_api_service.core.service.entityService.ServiceService;
 import com.kltn.scsms_api_service.core.service.entityService.VehicleProfileService;
 import com.kltn.scsms_api_service.core.utils.DraftContextHolder;
 import com.kltn.scsms_api_service.core.utils.PermissionUtils;
 import com.kltn.scsms_api_service.core.utils.ResponseBuilder;
+import com.kltn.scsms_api_service.exception.ServerSideException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -58,7 +60,8 @@ public class AiBookingAssistantController {
     private final ServiceBayService serviceBayService;
     private final BookingDraftService bookingDraftService;
     private final ExtractionService extractionService;
-    private final ServiceService serviceService;
+    private final PromptTemplateEngine promptTemplateEngine;
+    private final LlmGateway llmGateway;
 
     @PostMapping("/chat")
     @Operation(summary = "Chat with AI booking assistant", description = "Send a message to AI assistant. AI will automatically call functions (checkAvailability, createBooking) when needed.")
@@ -492,6 +495,11 @@ public class AiBookingAssistantController {
             // đầy đủ context
             List<Message> messages = new ArrayList<>();
 
+            // Ngày/giờ hiện tại inject theo request, ngay sau phần system prompt tĩnh (defaultSystem)
+            // → Prompt luôn đúng ngày kể cả khi server chạy qua nửa đêm, prefix tĩnh vẫn được cache
+            messages.add(new org.springframework.ai.chat.messages.SystemMessage(
+                    promptTemplateEngine.renderSystemTimeContext()));
+
             // Add conversation history nếu có (sử dụng toàn bộ để AI có đầy đủ context)
             if (request.getConversationHistory() != null && !request.getConversationHistory().isEmpty()) {
                 int historySize = request.getConversationHistory().size();
@@ -1013,28 +1021,28 @@ public class AiBookingAssistantController {
             // - Quyết định có cần gọi functions không
             // - Gọi functions nếu cần
             // - Tạo response
-            org.springframework.ai.chat.model.ChatResponse springAiChatResponse;
-
-            if (messages.size() > 1) {
-                // Có conversation history, pass tất cả messages
-                springAiChatResponse = aiChatClient.prompt()
-                        .messages(messages)
-                        .call()
-                        .chatResponse();
-            } else {
-                // Không có history, chỉ pass user message (backward compatible)
-                springAiChatResponse = aiChatClient.prompt()
-                        .user(userMessage)
-                        .call()
-                        .chatResponse();
+            // Messages luôn có ít nhất time context + user message
+            // Đi qua LlmGateway: quá tải/timeout/circuit mở → trả lời theo flow deterministic từ draft
+            String aiMessage;
+            try {
+                org.springframework.ai.chat.model.ChatResponse springAiChatResponse = llmGateway.call(
+                        LlmGateway.CHAT_MODEL,
+                        () -> aiChatClient.prompt()
+                                .messages(messages)
+                                .call()
+                                .chatResponse());
+
+                long aiCallEndTime = System.currentTimeMillis();
+                log.info("OpenAI API call completed in {} ms", (aiCallEndTime - aiCallStartTime));
+
+                // 4. Extract response message
+                aiMessage = springAiChatResponse.getResult().getOutput().getContent();
+            } catch (ServerSideException e) {
+                log.warn("LLM unavailable after {} ms ({}), using deterministic fallback: {}",
+                        System.currentTimeMillis() - aiCallStartTime, e.getErrorCode(), e.getMessage());
+                aiMessage = buildDeterministicFallbackMessage(draft);
             }
 
-            long aiCallEndTime = System.currentTimeMillis();
-            log.info("OpenAI API call completed in {} ms", (aiCallEndTime - aiCallStartTime));
-
-            // 4. Extract response message
-            String aiMessage = springAiChatResponse.getResult().getOutput().getContent();
-
             // 4.1. Clean response: Remove STATE JSON if AI accidentally includes it
             // This is a safety net in case AI still prints STATE despite instructions
             if (aiMessage != null) {
@@ -2277,6 +2285,25 @@ public class AiBookingAssistantController {
         }
     }
     
+    /**
+     * Câu trả lời không cần LLM, dựa trên step thực tế của draft
+     * Dùng khi LlmGateway từ chối call (quá tải, timeout, circuit mở); draft đã được cập nhật bằng pattern matching trước đó
+     */
+    private String buildDeterministicFallbackMessage(BookingDraft draft) {
+        String prefix = "Hệ thống trợ lý đang bận, tôi sẽ hướng dẫn bạn từng bước. ";
+        return switch (determineActualStep(draft)) {
+            case 1 -> prefix + "Bạn muốn đặt lịch cho xe nào? Vui lòng cho tôi biết biển số xe.";
+            case 2 -> prefix + "Bạn muốn đặt lịch vào ngày nào? (ví dụ: ngày mai, 15/12, hôm nay)";
+            case 3 -> prefix + "Bạn muốn chọn chi nhánh nào? Vui lòng cho tôi biết tên chi nhánh.";
+            case 4 -> prefix + "Bạn muốn đặt dịch vụ gì? (ví dụ: rửa xe, bảo dưỡng)";
+            case 5 -> prefix + "Bạn muốn chọn bay/khu vực nào? Vui lòng cho tôi biết tên bay.";
+            case 6 -> prefix + "Bạn muốn chọn giờ nào? (ví dụ: 08:00)";
+            // Call lỗi giữa chừng vẫn có thể đã chạy createBooking → nhắc kiểm tra trước khi xác nhận lại
+            default -> prefix + "Thông tin đặt lịch đã đầy đủ. Lịch hẹn có thể đã được tạo, "
+                    + "vui lòng kiểm tra danh sách lịch hẹn trước khi xác nhận lại sau ít phút.";
+        };
+    }
+    
     /**
      * Build instruction để AI KHÔNG tự động chọn khi extraction fail
      * Dùng khi cả AI extraction và pattern matching đều không detect được selection
@@ -2737,6 +2764,12 @@ public class AiBookingAssistantController {
             return false;
         }
         
+        // Circuit của model extraction đang mở → dùng thẳng pattern matching
+        if (!extractionService.isAiExtractionAvailable()) {
+            log.debug("AI extraction circuit is open, using pattern matching only");
+            return false;
+        }
+        
         String userMsgLower = userMessage.toLowerCase().trim();
         
         // Skip AI extraction cho các câu hỏi hoặc yêu cầu thông tin rõ ràng
@@ -4383,7 +4416,7 @@ public class AiBookingAssistantController {
         try {
             // BƯỚC 1: Tìm theo keyword (searchByKeyword)
             List<com.kltn.scsms_api_service.core.entity.Service> foundServices = 
-                    serviceService.searchByKeyword(serviceName.trim());
+                    aiBookingAssistantService.searchServicesByKeyword(serviceName.trim());
             
             if (foundServices.isEmpty()) {
                 log.debug("No services found in database for keyword: {}", serviceName);
@@ -5,16 +5,20 @@ import com.kltn.scsms_api_service.constants.ApiConstant;
 import com.kltn.scsms_api_service.core.dto.dashboard.*;
 import com.kltn.scsms_api_service.core.dto.response.ApiResponse;
 import com.kltn.scsms_api_service.core.service.businessService.DashboardService;
+import com.kltn.scsms_api_service.core.service.businessService.ProductivityAnalyticsService;
 import com.kltn.scsms_api_service.core.utils.ResponseBuilder;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
 
 /**
  * Controller for dashboard statistics and analytics
@@ -26,6 +30,7 @@ import java.util.List;
 public class DashboardController {
 
   private final DashboardService dashboardService;
+  private final ProductivityAnalyticsService productivityAnalyticsService;
 
   @GetMapping(ApiConstant.GET_DASHBOARD_STATS_API)
   @Operation(summary = "Get dashboard statistics", description = "Retrieve overall dashboard statistics including totals and growth")
@@ -73,4 +78,59 @@ public class DashboardController {
     RevenueStatsDto stats = dashboardService.getRevenueStats();
     return ResponseBuilder.success(stats);
   }
+
+  @GetMapping(ApiConstant.GET_STEP_PRODUCTIVITY_API)
+  @Operation(summary = "Get step bottlenecks", description = "Per-step actual vs. estimated durations, slowest against plan first")
+  @SwaggerOperation(summary = "Get step bottlenecks")
+  public ResponseEntity<ApiResponse<List<StepProductivityDto>>> getStepProductivity(
+      @Parameter(description = "Branch filter") @RequestParam(required = false) UUID branchId,
+      @Parameter(description = "From date (default: 30 days ago)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @Parameter(description = "To date (default: today)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+      @Parameter(description = "Maximum number of steps to return") @RequestParam(defaultValue = "20") int limit) {
+    log.info("Getting step productivity for branch {}", branchId);
+    return ResponseBuilder.success(productivityAnalyticsService.getStepBottlenecks(branchId, fromDate, toDate, limit));
+  }
+
+  @GetMapping(ApiConstant.GET_BAY_PRODUCTIVITY_API)
+  @Operation(summary = "Get bay productivity", description = "Per-bay utilization, throughput and actual vs. estimated durations")
+  @SwaggerOperation(summary = "Get bay productivity")
+  public ResponseEntity<ApiResponse<List<BayProductivityDto>>> getBayProductivity(
+      @Parameter(description = "Branch filter") @RequestParam(required = false) UUID branchId,
+      @Parameter(description = "From date (default: 30 days ago)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @Parameter(description = "To date (default: today)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+    log.info("Getting bay productivity for branch {}", branchId);
+    return ResponseBuilder.success(productivityAnalyticsService.getBayProductivity(branchId, fromDate, toDate));
+  }
+
+  @GetMapping(ApiConstant.GET_TECHNICIAN_PRODUCTIVITY_API)
+  @Operation(summary = "Get technician productivity", description = "Per-technician throughput and efficiency through assigned bays")
+  @SwaggerOperation(summary = "Get technician productivity")
+  public ResponseEntity<ApiResponse<List<TechnicianProductivityDto>>> getTechnicianProductivity(
+      @Parameter(description = "Branch filter") @RequestParam(required = false) UUID branchId,
+      @Parameter(description = "Technician filter") @RequestParam(required = false) UUID technicianId,
+      @Parameter(description = "From date (default: 30 days ago)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @Parameter(description = "To date (default: today)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+    log.info("Getting technician productivity for branch {}, technician {}", branchId, technicianId);
+    return ResponseBuilder.success(
+        productivityAnalyticsService.getTechnicianProductivity(branchId, technicianId, fromDate, toDate));
+  }
+
+  @GetMapping(ApiConstant.GET_DAILY_THROUGHPUT_API)
+  @Operation(summary = "Get daily throughput", description = "Completed steps per day with a 7-day moving average")
+  @SwaggerOperation(summary = "Get daily throughput")
+  public ResponseEntity<ApiResponse<List<DailyThroughputDto>>> getDailyThroughput(
+      @Parameter(description = "Branch filter") @RequestParam(required = false) UUID branchId,
+      @Parameter(description = "From date (default: 30 days ago)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+      @Parameter(description = "To date (default: today)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+    log.info("Getting daily throughput for branch {}", branchId);
+    return ResponseBuilder.success(productivityAnalyticsService.getDailyThroughput(branchId, fromDate, toDate));
+  }
+
+  @PostMapping(ApiConstant.REBUILD_PRODUCTIVITY_STATS_API)
+  @Operation(summary = "Rebuild productivity statistics", description = "Recompute productivity rollups from tracking history (e.g. after service durations change)")
+  @SwaggerOperation(summary = "Rebuild productivity statistics")
+  public ResponseEntity<ApiResponse<Integer>> rebuildProductivityStats() {
+    log.info("Rebuilding productivity statistics");
+    return ResponseBuilder.success(productivityAnalyticsService.rebuildStats());
+  }
 }
@@ -3,21 +3,29 @@ package com.kltn.scsms_api_service.core.controllers;
 import com.kltn.scsms_api_service.annotations.SwaggerOperation;
 import com.kltn.scsms_api_service.constants.ApiConstant;
 import com.kltn.scsms_api_service.core.dto.mediaManagement.MediaInfoDto;
+import com.kltn.scsms_api_service.core.dto.mediaManagement.PresignedUploadDto;
 import com.kltn.scsms_api_service.core.dto.mediaManagement.param.MediaFilterParam;
 import com.kltn.scsms_api_service.core.dto.mediaManagement.request.*;
 import com.kltn.scsms_api_service.core.dto.response.ApiResponse;
 import com.kltn.scsms_api_service.core.dto.response.PaginatedResponse;
+import com.kltn.scsms_api_service.core.entity.S3File;
 import com.kltn.scsms_api_service.core.service.businessService.MediaManagementService;
+import com.kltn.scsms_api_service.core.service.entityService.S3FileService;
 import com.kltn.scsms_api_service.core.utils.ResponseBuilder;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -32,6 +40,7 @@ import java.util.UUID;
 public class MediaManagementController {
 
     private final MediaManagementService mediaManagementService;
+    private final S3FileService s3FileService;
 
     /**
      * Get all media with pagination and filtering
@@ -243,4 +252,61 @@ public class MediaManagementController {
             return ResponseBuilder.internalServerError("Failed to upload service image: " + e.getMessage());
         }
     }
+
+    /**
+     * Request a presigned upload URL
+     * The client PUTs the image straight to storage, then calls finalize with the returned upload token
+     */
+    @PostMapping(ApiConstant.PRESIGN_MEDIA_UPLOAD_API)
+    @SwaggerOperation(summary = "Presign image upload", description = "Get a presigned PUT URL to upload an image directly to storage")
+    public ResponseEntity<ApiResponse<PresignedUploadDto>> presignImageUpload(
+            @Valid @RequestBody PresignMediaUploadRequest request) {
+        log.info("Presigning image upload for {} {}", request.getEntityType(), request.getEntityId());
+
+        PresignedUploadDto presignedUpload = mediaManagementService.presignImageUpload(request);
+
+        return ResponseBuilder.success("Upload URL generated successfully", presignedUpload);
+    }
+
+    /**
+     * Finalize a direct upload
+     * Verifies the uploaded object and creates the media record
+     */
+    @PostMapping(ApiConstant.FINALIZE_MEDIA_UPLOAD_API)
+    @SwaggerOperation(summary = "Finalize image upload", description = "Verify a directly uploaded image and attach it to its entity")
+    public ResponseEntity<ApiResponse<MediaInfoDto>> finalizeImageUpload(
+            @Valid @RequestBody FinalizeMediaUploadRequest request) {
+        log.info("Finalizing direct image upload");
+
+        MediaInfoDto media = mediaManagementService.finalizeImageUpload(request);
+
+        return ResponseBuilder.created("Image uploaded successfully", media);
+    }
+
+    /**
+     * Download stored file
+     * Streams the object from S3 directly into the response without buffering it in memory
+     */
+    @GetMapping(ApiConstant.DOWNLOAD_MEDIA_FILE_API)
+    @SwaggerOperation(summary = "Download file", description = "Stream a stored file from S3")
+    public ResponseEntity<StreamingResponseBody> downloadFile(@PathVariable("fileId") Long fileId) {
+        log.info("Downloading file ID: {}", fileId);
+
+        S3File s3File = s3FileService.prepareDownload(fileId);
+        StreamingResponseBody body = outputStream -> s3FileService.streamFile(s3File, outputStream);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(s3File.getOriginalName() != null ? s3File.getOriginalName() : s3File.getFileKey(),
+                                StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .contentType(s3File.getContentType() != null
+                        ? MediaType.parseMediaType(s3File.getContentType())
+                        : MediaType.APPLICATION_OCTET_STREAM);
+        if (s3File.getFileSize() != null) {
+            response.contentLength(s3File.getFileSize());
+        }
+        return response.body(body);
+    }
 }
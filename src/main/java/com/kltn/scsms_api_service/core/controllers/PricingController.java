@@ -1,8 +1,10 @@
 package com.kltn.scsms_api_service.core.controllers;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.BatchPricingDto;
 import com.kltn.scsms_api_service.core.dto.pricingManagement.PriceBookInfoDto;
 import com.kltn.scsms_api_service.core.dto.pricingManagement.PriceBookItemInfoDto;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.request.BatchPricingRequest;
 import com.kltn.scsms_api_service.core.dto.pricingManagement.request.CreatePriceBookItemRequest;
 import com.kltn.scsms_api_service.core.dto.pricingManagement.request.CreatePriceBookRequest;
 import com.kltn.scsms_api_service.core.dto.pricingManagement.request.CreateServicePriceBookItemRequest;
@@ -77,6 +79,20 @@ public class PricingController {
                 prices);
     }
 
+    /**
+     * Unified batch pricing for mixed product and service lines of a branch
+     * Resolves the branch price book once and applies each item's pricing policy
+     */
+    @PostMapping("/pricing/batch")
+    @Operation(summary = "Batch price cart lines", description = "Price product and service lines against the branch's active price book in a single call")
+    public ResponseEntity<ApiResponse<BatchPricingDto>> priceBatch(@RequestBody BatchPricingRequest request) {
+        log.info("Batch pricing {} lines for branch {}",
+                request.getLines() != null ? request.getLines().size() : 0, request.getBranchId());
+
+        return ResponseBuilder.success("Batch prices calculated successfully",
+                pricingBS.priceBatch(request));
+    }
+
     /**
      * Batch endpoint to get service prices with detailed information
      * Returns full ServicePriceDto objects with service names
@@ -2,9 +2,11 @@ package com.kltn.scsms_api_service.core.controllers;
 
 import com.kltn.scsms_api_service.annotations.SwaggerOperation;
 import com.kltn.scsms_api_service.constants.ApiConstant;
+import com.kltn.scsms_api_service.core.dto.productManagement.ProductFacetSearchDto;
 import com.kltn.scsms_api_service.core.dto.productManagement.ProductInfoDto;
 import com.kltn.scsms_api_service.core.dto.productManagement.param.ProductFilterParam;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.CreateProductRequest;
+import com.kltn.scsms_api_service.core.dto.productManagement.request.ProductFacetSearchRequest;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.UpdateProductRequest;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.ProductStatusUpdateRequest;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.ProductImageRequest;
@@ -95,6 +97,17 @@ public class ProductManagementController {
         return ResponseBuilder.success("Products searched successfully", products);
     }
 
+    @PostMapping(ApiConstant.FACET_SEARCH_PRODUCTS_API)
+    @Operation(summary = "Faceted product search", description = "Filter products by attribute values/ranges and return counts per facet value")
+    @SwaggerOperation(summary = "Faceted product search")
+    public ResponseEntity<ApiResponse<ProductFacetSearchDto>> searchProductsFaceted(
+            @Parameter(description = "Filter parameters") @ModelAttribute ProductFilterParam filterParam,
+            @Valid @RequestBody ProductFacetSearchRequest request) {
+        log.info("Faceted product search with filter: {}", filterParam);
+        ProductFacetSearchDto result = productManagementService.searchProductsFaceted(filterParam, request);
+        return ResponseBuilder.success("Products fetched successfully", result);
+    }
+
     @GetMapping(ApiConstant.GET_FEATURED_PRODUCTS_API)
     @Operation(summary = "Get featured products", description = "Retrieve all featured products")
     @SwaggerOperation(summary = "Get featured products")
@@ -3,11 +3,13 @@ package com.kltn.scsms_api_service.core.controllers;
 import com.kltn.scsms_api_service.annotations.SwaggerOperation;
 import com.kltn.scsms_api_service.constants.ApiConstant;
 import com.kltn.scsms_api_service.core.dto.productManagement.ProductInfoDto;
+import com.kltn.scsms_api_service.core.dto.promotionManagement.PromotionEvaluationDto;
 import com.kltn.scsms_api_service.core.dto.promotionManagement.PromotionInfoDto;
 import com.kltn.scsms_api_service.core.dto.promotionManagement.PromotionUsageHistoryDto;
 import com.kltn.scsms_api_service.core.dto.promotionManagement.param.PromotionFilterParam;
 import com.kltn.scsms_api_service.core.dto.promotionManagement.param.PromotionUsageHistoryFilterParam;
 import com.kltn.scsms_api_service.core.dto.promotionManagement.request.CreatePromotionRequest;
+import com.kltn.scsms_api_service.core.dto.promotionManagement.request.EvaluatePromotionRequest;
 import com.kltn.scsms_api_service.core.dto.promotionManagement.request.UpdatePromotionRequest;
 import com.kltn.scsms_api_service.core.dto.promotionManagement.request.UpdatePromotionStatusRequest;
 import com.kltn.scsms_api_service.core.dto.response.ApiResponse;
@@ -15,10 +17,13 @@ import com.kltn.scsms_api_service.core.dto.response.PaginatedResponse;
 import com.kltn.scsms_api_service.core.dto.serviceManagement.ServiceInfoDto;
 import com.kltn.scsms_api_service.core.entity.Promotion;
 import com.kltn.scsms_api_service.core.entity.PromotionLine;
-import com.kltn.scsms_api_service.core.entity.PromotionUsage;
+import com.kltn.scsms_api_service.core.entity.PromotionLineUsageStats;
+import com.kltn.scsms_api_service.core.entity.PromotionUsageStats;
 import com.kltn.scsms_api_service.core.service.businessService.ProductManagementService;
+import com.kltn.scsms_api_service.core.service.businessService.PromotionEngine;
 import com.kltn.scsms_api_service.core.service.businessService.PromotionManagementService;
 import com.kltn.scsms_api_service.core.service.businessService.ServiceManagementService;
+import com.kltn.scsms_api_service.core.service.entityService.PromotionUsageService;
 import com.kltn.scsms_api_service.core.utils.ResponseBuilder;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -35,11 +40,11 @@ import org.springframework.web.bind.annotation.*;
 
 import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -53,6 +58,8 @@ import java.util.UUID;
 public class PromotionManagementController {
     
     private final PromotionManagementService promotionManagementService;
+    private final PromotionEngine promotionEngine;
+    private final PromotionUsageService promotionUsageService;
     private final ProductManagementService productManagementService;
     private final ServiceManagementService serviceManagementService;
     
@@ -226,6 +233,21 @@ public class PromotionManagementController {
         return ResponseBuilder.success("Promotion statistics fetched successfully", statistics);
     }
     
+    /**
+     * Evaluate promotions for a cart (server-side pricing)
+     */
+    @PostMapping(ApiConstant.EVALUATE_PROMOTIONS_API)
+    @SwaggerOperation(summary = "Evaluate promotions for a cart", description = "Compute the best promotion combination and final amounts for the given cart lines")
+    public ResponseEntity<ApiResponse<PromotionEvaluationDto>> evaluatePromotions(
+        @RequestBody EvaluatePromotionRequest request) {
+        log.info("Evaluating promotions for cart with {} lines at branch {}",
+            request.getLines() != null ? request.getLines().size() : 0, request.getBranchId());
+        
+        PromotionEvaluationDto evaluation = promotionEngine.evaluate(request);
+        
+        return ResponseBuilder.success("Promotions evaluated successfully", evaluation);
+    }
+    
     /**
      * Get active promotions
      */
@@ -392,10 +414,16 @@ public class PromotionManagementController {
             BigDecimal totalUsedBudget = BigDecimal.ZERO;
             BigDecimal totalRemainingBudget = BigDecimal.ZERO;
             
+            // Usage statistics are read from pre-aggregated rows (no usage history loading)
+            List<UUID> promotionIds = promotions.stream().map(Promotion::getPromotionId).toList();
+            Map<UUID, PromotionUsageStats> usageStatsById = promotionUsageService.getUsageStats(promotionIds);
+            Map<UUID, PromotionLineUsageStats> lineStatsById = promotionUsageService.getLineUsageStats(promotionIds);
+            
             for (Promotion promotion : promotions) {
                 // Calculate promotion statistics
-                BigDecimal promotionBudget = calculatePromotionBudget(promotion);
-                BigDecimal usedBudget = calculateUsedBudget(promotion);
+                PromotionUsageStats usageStats = usageStatsById.get(promotion.getPromotionId());
+                BigDecimal promotionBudget = calculatePromotionBudget(promotion, usageStats);
+                BigDecimal usedBudget = calculateUsedBudget(usageStats);
                 BigDecimal remainingBudget = promotionBudget.subtract(usedBudget);
                 
                 totalBudget = totalBudget.add(promotionBudget);
@@ -486,7 +514,7 @@ public class PromotionManagementController {
                         
                         // Số tiền chiết khấu
                         Cell cell8 = row.createCell(8);
-                        BigDecimal lineDiscount = calculateLineDiscount(line, promotion);
+                        BigDecimal lineDiscount = calculateLineDiscount(line, lineStatsById);
                         cell8.setCellValue(lineDiscount.doubleValue());
                         cell8.setCellStyle(currencyStyle);
                         
@@ -668,32 +696,24 @@ public class PromotionManagementController {
     }
     
     // Helper methods for calculations
-    private BigDecimal calculatePromotionBudget(Promotion promotion) {
+    private BigDecimal calculatePromotionBudget(Promotion promotion, PromotionUsageStats usageStats) {
         // Calculate total budget based on usage limit and average discount
         if (promotion.getUsageLimit() != null) {
-            BigDecimal avgDiscount = calculateAverageDiscount(promotion);
+            BigDecimal avgDiscount = calculateAverageDiscount(promotion, usageStats);
             return avgDiscount.multiply(BigDecimal.valueOf(promotion.getUsageLimit()));
         }
         // Default budget estimation
         return BigDecimal.valueOf(2000000); // 2,000,000 VND
     }
     
-    private BigDecimal calculateUsedBudget(Promotion promotion) {
-        // Sum all discount amounts from promotion usages
-        if (promotion.getUsages() != null && !promotion.getUsages().isEmpty()) {
-            return promotion.getUsages().stream()
-                .map(PromotionUsage::getDiscountAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-        return BigDecimal.ZERO;
+    private BigDecimal calculateUsedBudget(PromotionUsageStats usageStats) {
+        // Sum of all discount amounts, maintained when usages are recorded
+        return usageStats != null ? usageStats.getTotalDiscount() : BigDecimal.ZERO;
     }
     
-    private BigDecimal calculateAverageDiscount(Promotion promotion) {
-        if (promotion.getUsages() != null && !promotion.getUsages().isEmpty()) {
-            BigDecimal total = promotion.getUsages().stream()
-                .map(PromotionUsage::getDiscountAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            return total.divide(BigDecimal.valueOf(promotion.getUsages().size()), RoundingMode.HALF_UP);
+    private BigDecimal calculateAverageDiscount(Promotion promotion, PromotionUsageStats usageStats) {
+        if (usageStats != null && usageStats.getUsageCount() > 0) {
+            return usageStats.getAverageDiscount();
         }
         // Default discount from promotion lines
         if (promotion.getPromotionLines() != null && !promotion.getPromotionLines().isEmpty()) {
@@ -705,19 +725,9 @@ public class PromotionManagementController {
         return BigDecimal.valueOf(20000); // 20,000 VND default
     }
     
-    private BigDecimal calculateLineDiscount(PromotionLine line, Promotion promotion) {
-        // Calculate total discount for this line based on usage
-        BigDecimal lineDiscount = BigDecimal.ZERO;
-        
-        if (promotion.getUsages() != null) {
-            for (PromotionUsage usage : promotion.getUsages()) {
-                if (usage.getPromotionLine() != null &&
-                    usage.getPromotionLine().getPromotionLineId().equals(line.getPromotionLineId())) {
-                    lineDiscount = lineDiscount.add(usage.getDiscountAmount());
-                }
-            }
-        }
-        
-        return lineDiscount;
+    private BigDecimal calculateLineDiscount(PromotionLine line, Map<UUID, PromotionLineUsageStats> lineStatsById) {
+        // Total discount recorded for this line
+        PromotionLineUsageStats lineStats = lineStatsById.get(line.getPromotionLineId());
+        return lineStats != null ? lineStats.getTotalDiscount() : BigDecimal.ZERO;
     }
 }
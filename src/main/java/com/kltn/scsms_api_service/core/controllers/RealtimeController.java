@@ -0,0 +1,44 @@
+package com.kltn.scsms_api_service.core.controllers;
+
+import com.kltn.scsms_api_service.constants.ApiConstant;
+import com.kltn.scsms_api_service.core.dto.response.ApiResponse;
+import com.kltn.scsms_api_service.core.dto.websocket.RealtimeResyncResponse;
+import com.kltn.scsms_api_service.core.service.businessService.RealtimeResyncService;
+import com.kltn.scsms_api_service.core.utils.ResponseBuilder;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Controller supporting WebSocket clients that receive delta payloads
+ * Clients call resync when a delta's base_version does not match their local copy or after reconnecting
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Real-time", description = "Resync endpoints for WebSocket delta feeds")
+public class RealtimeController {
+
+    private final RealtimeResyncService realtimeResyncService;
+
+    @GetMapping(ApiConstant.REALTIME_RESYNC_API)
+    @Operation(summary = "Resync real-time feed",
+        description = "Current state of bookings and trackings changed since the given time, scoped to a branch, "
+            + "a bay (staff) or the current customer when neither is given")
+    public ResponseEntity<ApiResponse<RealtimeResyncResponse>> resync(
+            @RequestParam(name = "branch_id", required = false) UUID branchId,
+            @RequestParam(name = "bay_id", required = false) UUID bayId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        return ResponseBuilder.success("Real-time feed resynced successfully",
+            realtimeResyncService.resync(branchId, bayId, since));
+    }
+}
@@ -4,6 +4,7 @@ import com.kltn.scsms_api_service.annotations.SwaggerOperation;
 import com.kltn.scsms_api_service.core.dto.productManagement.ProductInfoDto;
 import com.kltn.scsms_api_service.core.dto.report.InventoryStatsDto;
 import com.kltn.scsms_api_service.core.dto.report.InventoryTransactionDto;
+import com.kltn.scsms_api_service.core.dto.report.PromotionUsageStatsDto;
 import com.kltn.scsms_api_service.core.dto.report.SalesStatsDto;
 import com.kltn.scsms_api_service.core.dto.serviceManagement.ServiceInfoDto;
 import com.kltn.scsms_api_service.core.dto.response.ApiResponse;
@@ -68,6 +69,8 @@ public class ReportController {
     private final InventoryLevelEntityService invLevelES;
     private final BranchService branchES;
     private final PurchaseOrderEntityService poES;
+    private final PromotionService promotionES;
+    private final PromotionUsageService promotionUsageService;
 
     // ==================== COMMON UTILITY METHODS ====================
 
@@ -149,32 +152,24 @@ public class ReportController {
                 .body(outputStream.toByteArray());
     }
 
-    private BigDecimal calculatePromotionBudget(Promotion promotion) {
+    private BigDecimal calculatePromotionBudget(Promotion promotion, PromotionUsageStats usageStats) {
         // Calculate total budget based on usage limit and average discount
         if (promotion.getUsageLimit() != null) {
-            BigDecimal avgDiscount = calculateAverageDiscount(promotion);
+            BigDecimal avgDiscount = calculateAverageDiscount(promotion, usageStats);
             return avgDiscount.multiply(BigDecimal.valueOf(promotion.getUsageLimit()));
         }
         // Default budget estimation
         return BigDecimal.valueOf(0);
     }
 
-    private BigDecimal calculateUsedBudget(Promotion promotion) {
-        // Sum all discount amounts from promotion usages
-        if (promotion.getUsages() != null && !promotion.getUsages().isEmpty()) {
-            return promotion.getUsages().stream()
-                    .map(PromotionUsage::getDiscountAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-        }
-        return BigDecimal.ZERO;
+    private BigDecimal calculateUsedBudget(PromotionUsageStats usageStats) {
+        // Sum of all discount amounts, maintained when usages are recorded
+        return usageStats != null ? usageStats.getTotalDiscount() : BigDecimal.ZERO;
     }
 
-    private BigDecimal calculateAverageDiscount(Promotion promotion) {
-        if (promotion.getUsages() != null && !promotion.getUsages().isEmpty()) {
-            BigDecimal total = promotion.getUsages().stream()
-                    .map(PromotionUsage::getDiscountAmount)
-                    .reduce(BigDecimal.ZERO, BigDecimal::add);
-            return total.divide(BigDecimal.valueOf(promotion.getUsages().size()), RoundingMode.HALF_UP);
+    private BigDecimal calculateAverageDiscount(Promotion promotion, PromotionUsageStats usageStats) {
+        if (usageStats != null && usageStats.getUsageCount() > 0) {
+            return usageStats.getAverageDiscount();
         }
         // Default discount from promotion lines
         if (promotion.getPromotionLines() != null && !promotion.getPromotionLines().isEmpty()) {
@@ -186,20 +181,10 @@ public class ReportController {
         return BigDecimal.valueOf(0);
     }
 
-    private BigDecimal calculateLineDiscount(PromotionLine line, Promotion promotion) {
-        // Calculate total discount for this line based on usage
-        BigDecimal lineDiscount = BigDecimal.ZERO;
-
-        if (promotion.getUsages() != null) {
-            for (PromotionUsage usage : promotion.getUsages()) {
-                if (usage.getPromotionLine() != null &&
-                        usage.getPromotionLine().getPromotionLineId().equals(line.getPromotionLineId())) {
-                    lineDiscount = lineDiscount.add(usage.getDiscountAmount());
-                }
-            }
-        }
-
-        return lineDiscount;
+    private BigDecimal calculateLineDiscount(PromotionLine line, Map<UUID, PromotionLineUsageStats> lineStatsById) {
+        // Total discount recorded for this line
+        PromotionLineUsageStats lineStats = lineStatsById.get(line.getPromotionLineId());
+        return lineStats != null ? lineStats.getTotalDiscount() : BigDecimal.ZERO;
     }
 
     // ==================== SALES REPORTS ====================
@@ -1304,10 +1289,16 @@ public class ReportController {
             BigDecimal totalUsedBudget = BigDecimal.ZERO;
             BigDecimal totalRemainingBudget = BigDecimal.ZERO;
 
+            // Usage statistics are read from pre-aggregated rows (no usage history loading)
+            List<UUID> promotionIds = promotions.stream().map(Promotion::getPromotionId).toList();
+            Map<UUID, PromotionUsageStats> usageStatsById = promotionUsageService.getUsageStats(promotionIds);
+            Map<UUID, PromotionLineUsageStats> lineStatsById = promotionUsageService.getLineUsageStats(promotionIds);
+
             for (Promotion promotion : promotions) {
                 // Calculate promotion statistics
-                BigDecimal promotionBudget = calculatePromotionBudget(promotion);
-                BigDecimal usedBudget = calculateUsedBudget(promotion);
+                PromotionUsageStats usageStats = usageStatsById.get(promotion.getPromotionId());
+                BigDecimal promotionBudget = calculatePromotionBudget(promotion, usageStats);
+                BigDecimal usedBudget = calculateUsedBudget(usageStats);
                 BigDecimal remainingBudget = promotionBudget.subtract(usedBudget);
 
                 totalBudget = totalBudget.add(promotionBudget);
@@ -1411,7 +1402,7 @@ public class ReportController {
 
                         // Số tiền chiết khấu
                         Cell cell8 = row.createCell(8);
-                        BigDecimal lineDiscount = calculateLineDiscount(line, promotion);
+                        BigDecimal lineDiscount = calculateLineDiscount(line, lineStatsById);
                         cell8.setCellValue(lineDiscount.doubleValue());
                         cell8.setCellStyle(currencyStyle);
 
@@ -1703,6 +1694,43 @@ public class ReportController {
         }
     }
 
+    /**
+     * Get promotion usage statistics for a date range (grouped query, ordered by usage count)
+     */
+    @GetMapping("/promotion/stats")
+    @SwaggerOperation(summary = "Get promotion statistics", description = "Get promotion usage count and discount totals within a date range")
+    public ResponseEntity<ApiResponse<List<PromotionUsageStatsDto>>> getPromotionStats(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate) {
+
+        Map<UUID, PromotionUsageStats> statsById = promotionUsageService.getUsageStatsBetween(
+                fromDate.atStartOfDay(),
+                toDate.atTime(23, 59, 59));
+
+        Map<UUID, Promotion> promotionsById = new HashMap<>();
+        for (Promotion promotion : promotionES.findAllByIds(statsById.keySet())) {
+            promotionsById.put(promotion.getPromotionId(), promotion);
+        }
+
+        List<PromotionUsageStatsDto> stats = statsById.values().stream()
+                .sorted(Comparator.comparing(PromotionUsageStats::getUsageCount).reversed())
+                .map(stat -> {
+                    Promotion promotion = promotionsById.get(stat.getPromotionId());
+                    return PromotionUsageStatsDto.builder()
+                            .promotionId(stat.getPromotionId())
+                            .promotionCode(promotion != null ? promotion.getPromotionCode() : null)
+                            .promotionName(promotion != null ? promotion.getName() : null)
+                            .usageCount(stat.getUsageCount())
+                            .totalDiscount(stat.getTotalDiscount())
+                            .averageDiscount(stat.getAverageDiscount())
+                            .lastUsedAt(stat.getLastUsedAt())
+                            .build();
+                })
+                .toList();
+
+        return ResponseBuilder.success("Promotion statistics retrieved successfully", stats);
+    }
+
     /**
      * Get inventory statistics for visualization
      */
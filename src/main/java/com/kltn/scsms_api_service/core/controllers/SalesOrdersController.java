@@ -1,18 +1,25 @@
 package com.kltn.scsms_api_service.core.controllers;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kltn.scsms_api_service.annotations.SwaggerOperation;
 import com.kltn.scsms_api_service.core.dto.paymentManagement.request.InitiatePaymentRequest;
 import com.kltn.scsms_api_service.core.dto.paymentManagement.response.PaymentResponse;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.BatchPricingDto;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.request.BatchPricingRequest;
+import com.kltn.scsms_api_service.core.dto.promotionManagement.PromotionEvaluationDto;
+import com.kltn.scsms_api_service.core.dto.promotionManagement.request.EvaluatePromotionRequest;
 import com.kltn.scsms_api_service.core.dto.response.ApiResponse;
 import com.kltn.scsms_api_service.core.dto.saleOrderManagement.SaleOrderInfoDto;
 import com.kltn.scsms_api_service.core.dto.saleOrderManagement.SaleReturnInfoDto;
 import com.kltn.scsms_api_service.core.entity.*;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.PaymentMethod;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.SalesStatus;
-import com.kltn.scsms_api_service.core.repository.PromotionUsageRepository;
 import com.kltn.scsms_api_service.core.service.businessService.BookingManagementService;
 import com.kltn.scsms_api_service.core.service.businessService.PaymentBusinessService;
+import com.kltn.scsms_api_service.core.service.businessService.PricingBusinessService;
+import com.kltn.scsms_api_service.core.service.businessService.PromotionEngine;
 import com.kltn.scsms_api_service.core.service.businessService.SalesBusinessService;
 import com.kltn.scsms_api_service.core.service.entityService.*;
 import com.kltn.scsms_api_service.core.utils.ResponseBuilder;
@@ -62,6 +69,8 @@ public class SalesOrdersController {
     private final SalesBusinessService salesBS;
     private final PaymentBusinessService paymentBS;
     private final BookingManagementService bookingBS;
+    private final PromotionEngine promotionEngine;
+    private final PricingBusinessService pricingBS;
 
     private final SalesOrderEntityService soES;
     private final SalesOrderLineEntityService solES;
@@ -71,12 +80,16 @@ public class SalesOrdersController {
     private final BranchService branchES;
     private final UserService userES;
     private final PromotionService promotionES;
+    private final PromotionLineService promotionLineES;
+    private final BookingItemService bookingItemES;
+    private final PromotionRedemptionLedger promotionRedemptionLedger;
 
     private final SaleOrderMapper soMapper;
     private final SalesReturnMapper salesReturnMapper;
     private final SalesReturnMapper srMapper;
 
-    private final PromotionUsageRepository promotionUsageRepo;
+    private final PromotionUsageService promotionUsageService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/so/create-draft")
     @Operation(summary = "Create draft order", description = "Create a new draft sales order")
@@ -123,6 +136,24 @@ public class SalesOrdersController {
     @Operation(summary = "Create order and initiate payment", description = "Create sales order, confirm, fulfill, and initiate payment in one call")
     public ResponseEntity<ApiResponse<CreateAndPayResponse>> createAndPay(@RequestBody CreateAndPayRequest req) {
         try {
+            // 0. Price the cart server-side (client amounts are only compared, never stored)
+            List<CreateSOLine> orderLines = new ArrayList<>(paidLines(req));
+            List<BigDecimal> unitPrices = new ArrayList<>(resolveLineUnitPrices(req, orderLines));
+            PromotionEvaluationDto pricing = priceOrder(req, orderLines, unitPrices);
+
+            // 0.1 Free lines come from the engine's gifts; client free flags must match them
+            for (CreateSOLine freeLine : resolveFreeLines(req, pricing)) {
+                orderLines.add(freeLine);
+                unitPrices.add(freeLine.getUnitPrice());
+            }
+
+            // 0.5 Reserve usage of applied promotions (atomic counters, released if this transaction rolls back)
+            promotionRedemptionLedger.reserve(
+                    pricing.getAppliedPromotions().stream()
+                            .map(PromotionEvaluationDto.AppliedPromotion::getPromotionId)
+                            .toList(),
+                    req.getCustomerId());
+
             // 1. Create draft order
             User customer = null;
             if (req.getCustomerId() != null) {
@@ -133,11 +164,11 @@ public class SalesOrdersController {
                     .branch(branchES.getRefById(req.getBranchId()))
                     .customer(customer)
                     .status(SalesStatus.DRAFT)
-                    .originalAmount(req.getOriginalAmount())
-                    .totalDiscountAmount(req.getTotalDiscountAmount())
-                    .finalAmount(req.getFinalAmount())
-                    .discountPercentage(req.getDiscountPercentage())
-                    .promotionSnapshot(req.getPromotionSnapshot())
+                    .originalAmount(pricing.getOriginalAmount())
+                    .totalDiscountAmount(pricing.getTotalDiscountAmount())
+                    .finalAmount(pricing.getFinalAmount())
+                    .discountPercentage(pricing.getDiscountPercentage())
+                    .promotionSnapshot(toPromotionSnapshot(pricing.getAppliedPromotions()))
                     .shippingFullName(req.getShippingFullName())
                     .shippingPhone(req.getShippingPhone())
                     .shippingAddress(req.getShippingAddress())
@@ -150,7 +181,8 @@ public class SalesOrdersController {
 
             // 2. Add order lines
             List<SalesOrderLine> createdLines = new ArrayList<>();
-            for (CreateSOLine l : req.getLines()) {
+            for (int lineIndex = 0; lineIndex < orderLines.size(); lineIndex++) {
+                CreateSOLine l = orderLines.get(lineIndex);
                 Boolean isFree = (l.getIsFreeItem() != null && l.getIsFreeItem());
 
                 // Log line item details
@@ -163,7 +195,7 @@ public class SalesOrdersController {
                 SalesOrderLine.SalesOrderLineBuilder lineBuilder = SalesOrderLine.builder()
                         .salesOrder(so)
                         .quantity(l.getQty())
-                        .unitPrice(l.getUnitPrice())
+                        .unitPrice(unitPrices.get(lineIndex))
                         .isFreeItem(isFree);
 
                 // Set product reference only for product items (not service items)
@@ -201,9 +233,9 @@ public class SalesOrdersController {
             so.getLines().clear();
             so.getLines().addAll(createdLines);
 
-            // 3. Create PromotionUsage records for applied promotions
-            if (req.getPromotionIds() != null && !req.getPromotionIds().isEmpty()) {
-                createPromotionUsageRecords(req.getPromotionIds(), so, customer, createdLines);
+            // 3. Create PromotionUsage records for promotions applied by the engine
+            if (!pricing.getAppliedPromotions().isEmpty()) {
+                createPromotionUsageRecords(pricing.getAppliedPromotions(), so, customer);
             }
 
             // 4. Confirm order
@@ -234,9 +266,7 @@ public class SalesOrdersController {
                     Double currentTotalSpent = customer.getTotalSpent() != null
                             ? customer.getTotalSpent()
                             : 0.0;
-                    Double orderAmount = req.getFinalAmount() != null
-                            ? req.getFinalAmount().doubleValue()
-                            : 0.0;
+                    Double orderAmount = pricing.getFinalAmount().doubleValue();
                     customer.setTotalSpent(currentTotalSpent + orderAmount);
 
                     // Save all changes
@@ -361,6 +391,9 @@ public class SalesOrdersController {
         so.setCancellationReason(req.getCancellationReason().trim());
         so = soES.update(so);
 
+        // Give back the promotion redemptions reserved by this order
+        promotionRedemptionLedger.releaseForOrder(so.getId());
+
         // Reverse customer statistics when cancel (decrease total_orders, total_spent,
         // and potentially accumulated_points)
         User customer = so.getCustomer();
@@ -541,70 +574,239 @@ public class SalesOrdersController {
     // ===== Helper Methods =====
 
     /**
-     * Create PromotionUsage records for applied promotions
+     * Lines the customer pays for; free lines sent by the client are only checked against the engine's gifts
      */
-    private void createPromotionUsageRecords(List<UUID> promotionIds, SalesOrder order,
-            User customer, List<SalesOrderLine> lines) {
+    private List<CreateSOLine> paidLines(CreateAndPayRequest req) {
+        if (req.getLines() == null) {
+            return List.of();
+        }
+        return req.getLines().stream()
+                .filter(l -> !Boolean.TRUE.equals(l.getIsFreeItem()))
+                .toList();
+    }
 
-        if (promotionIds == null || promotionIds.isEmpty()) {
-            log.debug("No promotions to record for order {}", order.getId());
-            return;
+    /**
+     * Build the free lines from the gifts granted by the promotion engine.
+     * Client lines flagged as free must add up to exactly the same products and quantities, otherwise the
+     * request is rejected; when the client sends no free lines the granted gifts are still added.
+     */
+    private List<CreateSOLine> resolveFreeLines(CreateAndPayRequest req, PromotionEvaluationDto pricing) {
+        Map<UUID, Long> granted = new LinkedHashMap<>();
+        Map<UUID, BigDecimal> giftPrices = new HashMap<>();
+        for (PromotionEvaluationDto.FreeItem item : pricing.getFreeItems()) {
+            granted.merge(item.getProductId(), item.getQuantity().longValue(), Long::sum);
+            giftPrices.putIfAbsent(item.getProductId(),
+                    item.getUnitPrice() != null ? item.getUnitPrice() : BigDecimal.ZERO);
         }
 
-        // Calculate discount per promotion (equal split if multiple promotions)
-        BigDecimal totalDiscount = order.getTotalDiscountAmount() != null
-                ? order.getTotalDiscountAmount()
-                : BigDecimal.ZERO;
+        Map<UUID, Long> claimed = new LinkedHashMap<>();
+        if (req.getLines() != null) {
+            for (CreateSOLine l : req.getLines()) {
+                if (!Boolean.TRUE.equals(l.getIsFreeItem())) {
+                    continue;
+                }
+                if (!l.isProductItem() || l.getProductId() == null || l.getQty() == null || l.getQty() <= 0) {
+                    throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                            "Free items must be products with a positive quantity");
+                }
+                claimed.merge(l.getProductId(), l.getQty(), Long::sum);
+            }
+        }
+        if (!claimed.isEmpty() && !claimed.equals(granted)) {
+            log.warn("Client free items {} do not match promotion gifts {}", claimed, granted);
+            throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                    "Free items do not match the gifts of the applied promotions");
+        }
 
-        BigDecimal discountPerPromotion = promotionIds.size() > 1
-                ? totalDiscount.divide(BigDecimal.valueOf(promotionIds.size()), 4, java.math.RoundingMode.HALF_UP)
-                : totalDiscount;
+        List<CreateSOLine> freeLines = new ArrayList<>(granted.size());
+        granted.forEach((productId, qty) -> freeLines.add(CreateSOLine.builder()
+                .productId(productId)
+                .qty(qty)
+                .unitPrice(giftPrices.get(productId))
+                .isFreeItem(true)
+                .build()));
+        return freeLines;
+    }
 
-        // Parse promotion snapshot to get individual promotion details
-        java.util.Map<UUID, String> promotionSnapshotMap = new java.util.HashMap<>();
-        if (order.getPromotionSnapshot() != null && !order.getPromotionSnapshot().isBlank()) {
-            try {
-                com.fasterxml.jackson.databind.ObjectMapper objectMapper = new com.fasterxml.jackson.databind.ObjectMapper();
-                com.fasterxml.jackson.databind.JsonNode promotionsArray = objectMapper
-                        .readTree(order.getPromotionSnapshot());
-
-                if (promotionsArray.isArray()) {
-                    for (com.fasterxml.jackson.databind.JsonNode promoNode : promotionsArray) {
-                        if (promoNode.has("promotion_id")) {
-                            UUID promoId = UUID.fromString(promoNode.get("promotion_id").asText());
-                            // Store individual promotion snapshot as JSON string
-                            promotionSnapshotMap.put(promoId, objectMapper.writeValueAsString(promoNode));
-                        }
-                    }
+    /**
+     * Resolve unit prices for the paid order lines; the client unit price is only compared, never used.
+     * Service lines carried over from a booking take the price of the matching booking item, after checking
+     * that the booking belongs to the order's customer and branch. Every other line is priced with one batch
+     * call against the branch price book. A line without a price is rejected.
+     */
+    private List<BigDecimal> resolveLineUnitPrices(CreateAndPayRequest req, List<CreateSOLine> lines) {
+        Map<UUID, Map<UUID, BigDecimal>> bookingPrices = loadBookingItemPrices(req, lines);
+
+        List<BigDecimal> unitPrices = new ArrayList<>(lines.size());
+        List<Integer> pricedIndexes = new ArrayList<>();
+        List<BatchPricingRequest.PricingLine> pricingLines = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            CreateSOLine l = lines.get(i);
+            unitPrices.add(null);
+            if (l.getOriginalBookingId() != null && l.isServiceItem()) {
+                BigDecimal bookingPrice = bookingPrices.getOrDefault(l.getOriginalBookingId(), Map.of())
+                        .get(l.getServiceId());
+                if (bookingPrice == null) {
+                    throw new ClientSideException(ErrorCode.BAD_REQUEST, "Service " + l.getServiceId()
+                            + " is not a priced item of booking " + l.getOriginalBookingId());
                 }
-            } catch (Exception e) {
-                log.warn("Failed to parse promotion snapshot for order {}: {}", order.getId(), e.getMessage());
+                logClientPriceMismatch(i, l.getUnitPrice(), bookingPrice);
+                unitPrices.set(i, bookingPrice);
+                continue;
+            }
+            UUID productId = l.isProductItem() ? l.getProductId() : null;
+            if (productId == null && l.getServiceId() == null) {
+                throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                        "Order line " + i + " must reference a product or a service");
+            }
+            pricedIndexes.add(i);
+            pricingLines.add(BatchPricingRequest.PricingLine.builder()
+                    .productId(productId)
+                    .serviceId(productId == null ? l.getServiceId() : null)
+                    .quantity(l.getQty())
+                    .build());
+        }
+        if (pricingLines.isEmpty()) {
+            return unitPrices;
+        }
+
+        BatchPricingDto batch = pricingBS.priceBatch(BatchPricingRequest.builder()
+                .branchId(req.getBranchId())
+                .lines(pricingLines)
+                .build());
+        for (int j = 0; j < pricedIndexes.size(); j++) {
+            int i = pricedIndexes.get(j);
+            BatchPricingDto.LinePrice linePrice = batch.getLines().get(j);
+            if (!linePrice.isFound()) {
+                throw new ClientSideException(ErrorCode.BAD_REQUEST, "No price in book " + batch.getPriceBookCode()
+                        + " for product " + linePrice.getProductId() + " / service " + linePrice.getServiceId());
+            }
+            logClientPriceMismatch(i, lines.get(i).getUnitPrice(), linePrice.getUnitPrice());
+            unitPrices.set(i, linePrice.getUnitPrice());
+        }
+        return unitPrices;
+    }
+
+    /**
+     * Load the item prices of every booking referenced by the lines in one query (bookingId → serviceId → price).
+     * Rejects bookings that do not exist, belong to another customer or to another branch.
+     */
+    private Map<UUID, Map<UUID, BigDecimal>> loadBookingItemPrices(CreateAndPayRequest req, List<CreateSOLine> lines) {
+        Set<UUID> bookingIds = new HashSet<>();
+        for (CreateSOLine l : lines) {
+            if (l.getOriginalBookingId() != null && l.isServiceItem()) {
+                bookingIds.add(l.getOriginalBookingId());
+            }
+        }
+        if (bookingIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<UUID, Map<UUID, BigDecimal>> prices = new HashMap<>();
+        for (Object[] row : bookingItemES.findItemPricesByBookingIds(bookingIds)) {
+            UUID bookingId = (UUID) row[0];
+            UUID customerId = (UUID) row[1];
+            UUID branchId = (UUID) row[2];
+            if (customerId != null && !customerId.equals(req.getCustomerId())) {
+                throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                        "Booking " + bookingId + " does not belong to the order's customer");
+            }
+            if (branchId != null && !branchId.equals(req.getBranchId())) {
+                throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                        "Booking " + bookingId + " does not belong to the order's branch");
             }
+            if (row[3] != null && row[4] != null) {
+                prices.computeIfAbsent(bookingId, k -> new HashMap<>()).put((UUID) row[3], (BigDecimal) row[4]);
+            }
+        }
+        return prices;
+    }
+
+    private void logClientPriceMismatch(int lineIndex, BigDecimal clientPrice, BigDecimal serverPrice) {
+        if (clientPrice != null && clientPrice.compareTo(serverPrice) != 0) {
+            log.warn("Client unit price mismatch on line {} - client: {}, server: {}",
+                    lineIndex, clientPrice, serverPrice);
+        }
+    }
+
+    /**
+     * Price the paid lines with the server-side promotion engine.
+     * Only promotions selected by the client are considered; no selection means no promotion.
+     */
+    private PromotionEvaluationDto priceOrder(CreateAndPayRequest req, List<CreateSOLine> paidLines,
+            List<BigDecimal> unitPrices) {
+        List<EvaluatePromotionRequest.CartLine> cartLines = new ArrayList<>(paidLines.size());
+        for (int i = 0; i < paidLines.size(); i++) {
+            CreateSOLine l = paidLines.get(i);
+            cartLines.add(EvaluatePromotionRequest.CartLine.builder()
+                    .productId(l.isProductItem() ? l.getProductId() : null)
+                    .serviceId(l.getServiceId())
+                    .quantity(l.getQty())
+                    .unitPrice(unitPrices.get(i))
+                    .build());
         }
 
-        for (UUID promotionId : promotionIds) {
+        PromotionEvaluationDto pricing = promotionEngine.evaluate(EvaluatePromotionRequest.builder()
+                .branchId(req.getBranchId())
+                .customerId(req.getCustomerId())
+                .promotionIds(req.getPromotionIds() != null ? req.getPromotionIds() : List.of())
+                .lines(cartLines)
+                .build());
+
+        if (req.getFinalAmount() != null && req.getFinalAmount().compareTo(pricing.getFinalAmount()) != 0) {
+            log.warn("Client amount mismatch - client final: {}, server final: {} (original: {}, discount: {})",
+                    req.getFinalAmount(), pricing.getFinalAmount(),
+                    pricing.getOriginalAmount(), pricing.getTotalDiscountAmount());
+        }
+        return pricing;
+    }
+
+    /**
+     * Serialize what the promotion engine applied (order: JSON array, usage: single object)
+     * The client's promotion_snapshot is never stored
+     */
+    private String toPromotionSnapshot(Object applied) {
+        if (applied == null || (applied instanceof List<?> list && list.isEmpty())) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(applied);
+        } catch (JsonProcessingException e) {
+            log.warn("Failed to serialize promotion snapshot: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Create PromotionUsage records for applied promotions
+     */
+    private void createPromotionUsageRecords(List<PromotionEvaluationDto.AppliedPromotion> appliedPromotions,
+            SalesOrder order, User customer) {
+
+        for (PromotionEvaluationDto.AppliedPromotion applied : appliedPromotions) {
+            UUID promotionId = applied.getPromotionId();
             try {
                 Promotion promotion = promotionES.getReferenceById(promotionId);
 
-                // Get individual promotion snapshot or null
-                String individualSnapshot = promotionSnapshotMap.get(promotionId);
-
                 PromotionUsage usage = PromotionUsage.builder()
                         .promotion(promotion)
+                        .promotionLine(applied.getPromotionLineId() != null
+                                ? promotionLineES.getReferenceById(applied.getPromotionLineId())
+                                : null)
                         .customer(customer)
                         .orderId(order.getId())
-                        .discountAmount(discountPerPromotion)
+                        .discountAmount(applied.getDiscountAmount())
                         .usedAt(LocalDateTime.now())
-                        .promotionSnapshot(individualSnapshot) // Store individual promotion snapshot
+                        .promotionSnapshot(toPromotionSnapshot(applied)) // What the engine applied, not client JSON
                         .orderOriginalAmount(order.getOriginalAmount())
                         .orderFinalAmount(order.getFinalAmount())
                         .branch(order.getBranch())
                         .build();
 
-                promotionUsageRepo.save(usage);
+                promotionUsageService.recordUsage(usage);
 
                 log.info("Created promotion usage record - Promotion: {}, Order: {}, Discount: {}",
-                        promotionId, order.getId(), discountPerPromotion);
+                        promotionId, order.getId(), applied.getDiscountAmount());
 
             } catch (Exception e) {
                 log.warn("Failed to create promotion usage for promotion {}: {}",
@@ -1322,7 +1524,7 @@ public class SalesOrdersController {
         private BigDecimal discountPercentage; // Overall discount % (if applicable)
 
         @JsonProperty("promotion_snapshot")
-        private String promotionSnapshot; // JSON array of applied promotions snapshot
+        private String promotionSnapshot; // Ignored: the server stores the promotions the engine applied
 
         // ===== LOYALTY POINTS FIELD =====
 
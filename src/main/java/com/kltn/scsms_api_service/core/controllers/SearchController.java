@@ -0,0 +1,67 @@
+package com.kltn.scsms_api_service.core.controllers;
+
+import com.kltn.scsms_api_service.core.dto.bookingManagement.BookingInfoDto;
+import com.kltn.scsms_api_service.core.dto.categoryManagement.CategoryInfoDto;
+import com.kltn.scsms_api_service.core.dto.productManagement.ProductInfoDto;
+import com.kltn.scsms_api_service.core.dto.response.ApiResponse;
+import com.kltn.scsms_api_service.core.dto.response.PaginatedResponse;
+import com.kltn.scsms_api_service.core.dto.serviceManagement.ServiceInfoDto;
+import com.kltn.scsms_api_service.core.service.businessService.SearchService;
+import com.kltn.scsms_api_service.core.utils.ResponseBuilder;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Controller handling ranked search
+ * Full-text (accent-insensitive) search with typo-tolerant trigram matching, paged
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Search", description = "Ranked search endpoints")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping("/search/products")
+    @Operation(summary = "Search products", description = "Ranked search over product name, brand, SKU and description")
+    public ResponseEntity<ApiResponse<PaginatedResponse<ProductInfoDto>>> searchProducts(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseBuilder.paginated("Products searched successfully", searchService.searchProducts(q, page, size));
+    }
+
+    @GetMapping("/search/services")
+    @Operation(summary = "Search services", description = "Ranked search over service name and description")
+    public ResponseEntity<ApiResponse<PaginatedResponse<ServiceInfoDto>>> searchServices(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseBuilder.paginated("Services searched successfully", searchService.searchServices(q, page, size));
+    }
+
+    @GetMapping("/search/categories")
+    @Operation(summary = "Search categories", description = "Ranked search over category name and description")
+    public ResponseEntity<ApiResponse<PaginatedResponse<CategoryInfoDto>>> searchCategories(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseBuilder.paginated("Categories searched successfully", searchService.searchCategories(q, page, size));
+    }
+
+    @GetMapping("/search/bookings")
+    @Operation(summary = "Search bookings", description = "Search bookings by customer name, phone, license plate or booking code")
+    public ResponseEntity<ApiResponse<PaginatedResponse<BookingInfoDto>>> searchBookings(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseBuilder.paginated("Bookings searched successfully", searchService.searchBookings(q, page, size));
+    }
+}
@@ -14,10 +14,13 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -306,4 +309,38 @@ public class ServiceProcessTrackingController {
 
                 return ResponseEntity.ok(new BaseResponseData<>(true, "Thêm media evidence thành công", response));
         }
-}
\ No newline at end of file
+
+        /**
+         * Hiệu suất kỹ thuật viên (thời gian dự kiến / thực tế)
+         */
+        @GetMapping(ApiConstant.GET_TECHNICIAN_EFFICIENCY_API)
+        @SwaggerOperation(summary = "Hiệu suất kỹ thuật viên", description = "Tỷ lệ thời gian dự kiến / thực tế của các bước trên bay được phân công")
+        public ResponseEntity<BaseResponseData<BigDecimal>> getTechnicianEfficiency(
+                        @Parameter(description = "Technician ID") @PathVariable UUID technicianId,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+                log.info("Getting efficiency for technician: {}", technicianId);
+
+                BigDecimal response = serviceProcessTrackingManagementService.getTechnicianEfficiency(
+                                technicianId, startDate, endDate);
+
+                return ResponseEntity.ok(new BaseResponseData<>(true, "Lấy hiệu suất kỹ thuật viên thành công", response));
+        }
+
+        /**
+         * Tổng thời gian làm việc (phút) của kỹ thuật viên
+         */
+        @GetMapping(ApiConstant.GET_TECHNICIAN_WORK_TIME_API)
+        @SwaggerOperation(summary = "Thời gian làm việc của kỹ thuật viên", description = "Tổng thời gian (phút) các bước hoàn thành trên bay được phân công")
+        public ResponseEntity<BaseResponseData<Long>> getTechnicianWorkTime(
+                        @Parameter(description = "Technician ID") @PathVariable UUID technicianId,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
+                log.info("Getting total work time for technician: {}", technicianId);
+
+                Long response = serviceProcessTrackingManagementService.getTechnicianTotalWorkTime(
+                                technicianId, startDate, endDate);
+
+                return ResponseEntity.ok(new BaseResponseData<>(true, "Lấy thời gian làm việc thành công", response));
+        }
+}
@@ -2,6 +2,7 @@ package com.kltn.scsms_api_service.core.dto.branchManagement;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kltn.scsms_api_service.core.dto.mediaManagement.MediaInfoDto;
 import com.kltn.scsms_api_service.core.dto.response.AuditDto;
 import com.kltn.scsms_api_service.core.entity.Branch;
 import lombok.*;
@@ -74,4 +75,8 @@ public class BranchInfoDto extends AuditDto {
     @JsonProperty("manager_assigned_by")
     private String managerAssignedBy;
     
+    // Ảnh chính của chi nhánh, resolve theo lô bởi MediaResolver
+    @JsonProperty("main_image")
+    private MediaInfoDto mainImage;
+    
 }
\ No newline at end of file
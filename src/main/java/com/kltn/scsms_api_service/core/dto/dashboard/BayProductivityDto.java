@@ -0,0 +1,35 @@
+package com.kltn.scsms_api_service.core.dto.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * DTO for per-bay utilization and throughput
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BayProductivityDto {
+  private UUID bayId;
+  private String bayName;
+  private UUID branchId;
+  private Long completedSteps;
+  private Double totalActualMinutes;
+  private Double averageActualMinutes;
+  /** Average estimated minutes over steps whose service has an estimated duration */
+  private Double averageEstimatedMinutes;
+  /** Estimated / actual time over steps with an estimate (1.0 = on plan, below 1.0 = slower than planned) */
+  private Double efficiency;
+  /** Share of estimated steps that took longer than planned */
+  private Double overrunRate;
+  /** Busy time / bay working hours over the requested days */
+  private Double utilization;
+  private Double stepsPerDay;
+  /** Rank by completed steps across the returned bays (1 = highest throughput) */
+  private Long throughputRank;
+}
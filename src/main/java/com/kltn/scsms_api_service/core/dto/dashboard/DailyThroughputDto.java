@@ -0,0 +1,23 @@
+package com.kltn.scsms_api_service.core.dto.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO for completed steps per day
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyThroughputDto {
+  private LocalDate date;
+  private Long completedSteps;
+  private Double totalActualMinutes;
+  /** Moving average of completed steps over the last 7 days with data */
+  private Double movingAverageSteps;
+}
@@ -0,0 +1,35 @@
+package com.kltn.scsms_api_service.core.dto.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * DTO for per-step actual vs. estimated durations (bottleneck analysis)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StepProductivityDto {
+  private UUID serviceStepId;
+  private String stepName;
+  private Integer stepOrder;
+  private UUID processId;
+  private Long completedSteps;
+  private Double totalActualMinutes;
+  private Double averageActualMinutes;
+  /** Average estimated minutes over steps whose service has an estimated duration */
+  private Double averageEstimatedMinutes;
+  /** Estimated / actual time over steps with an estimate (1.0 = on plan, below 1.0 = slower than planned) */
+  private Double efficiency;
+  /** Share of estimated steps that took longer than planned */
+  private Double overrunRate;
+  /** Share of the process's total working time spent in this step */
+  private Double shareOfProcessTime;
+  /** Rank of the step inside its process by average actual duration (1 = slowest) */
+  private Long rankInProcess;
+}
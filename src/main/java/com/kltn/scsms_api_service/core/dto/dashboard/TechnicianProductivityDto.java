@@ -0,0 +1,33 @@
+package com.kltn.scsms_api_service.core.dto.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * DTO for per-technician productivity, attributed through the bays the technician is assigned to
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TechnicianProductivityDto {
+  private UUID technicianId;
+  private String technicianName;
+  private Long bayCount;
+  private Long completedSteps;
+  private Double totalActualMinutes;
+  private Double averageActualMinutes;
+  /** Average estimated minutes over steps whose service has an estimated duration */
+  private Double averageEstimatedMinutes;
+  /** Estimated / actual time over steps with an estimate (1.0 = on plan, below 1.0 = slower than planned) */
+  private Double efficiency;
+  /** Share of estimated steps that took longer than planned */
+  private Double overrunRate;
+  private Double stepsPerDay;
+  /** Rank by efficiency across the returned technicians (1 = most efficient) */
+  private Long efficiencyRank;
+}
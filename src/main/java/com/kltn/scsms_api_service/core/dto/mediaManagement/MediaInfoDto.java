@@ -25,6 +25,12 @@ public class MediaInfoDto {
     @JsonProperty("media_url")
     private String mediaUrl;
     
+    @JsonProperty("thumbnail_url")
+    private String thumbnailUrl;
+    
+    @JsonProperty("card_url")
+    private String cardUrl;
+    
     @JsonProperty("media_type")
     private String mediaType;
     
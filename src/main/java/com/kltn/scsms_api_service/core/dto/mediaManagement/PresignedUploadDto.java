@@ -0,0 +1,40 @@
+package com.kltn.scsms_api_service.core.dto.mediaManagement;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Presigned PUT for uploading a file directly to storage.
+ * The client must PUT the file to upload_url with the same Content-Type header,
+ * then call finalize with upload_token.
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PresignedUploadDto {
+    
+    @JsonProperty("upload_token")
+    private String uploadToken;
+    
+    @JsonProperty("upload_url")
+    private String uploadUrl;
+    
+    @JsonProperty("method")
+    private String method;
+    
+    @JsonProperty("content_type")
+    private String contentType;
+    
+    @JsonProperty("file_key")
+    private String fileKey;
+    
+    @JsonProperty("url_expires_at")
+    private LocalDateTime urlExpiresAt;
+    
+    @JsonProperty("finalize_before")
+    private LocalDateTime finalizeBefore;
+}
@@ -29,6 +29,12 @@ public class CreateMediaRequest {
     @JsonProperty("media_url")
     private String mediaUrl;
     
+    @JsonProperty("thumbnail_url")
+    private String thumbnailUrl;
+    
+    @JsonProperty("card_url")
+    private String cardUrl;
+    
     @JsonProperty("media_type")
     @Builder.Default
     private String mediaType = "IMAGE";
@@ -0,0 +1,28 @@
+package com.kltn.scsms_api_service.core.dto.mediaManagement.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FinalizeMediaUploadRequest {
+    
+    @NotBlank(message = "Upload token is required")
+    @JsonProperty("upload_token")
+    private String uploadToken;
+    
+    @Size(max = 255, message = "Alt text must not exceed 255 characters")
+    @JsonProperty("alt_text")
+    private String altText;
+    
+    @JsonProperty("is_main")
+    @Builder.Default
+    private Boolean isMain = false;
+}
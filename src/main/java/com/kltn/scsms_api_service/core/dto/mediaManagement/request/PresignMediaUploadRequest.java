@@ -0,0 +1,40 @@
+package com.kltn.scsms_api_service.core.dto.mediaManagement.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.*;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PresignMediaUploadRequest {
+    
+    @NotBlank(message = "Entity type is required")
+    @JsonProperty("entity_type")
+    private String entityType;
+    
+    @NotNull(message = "Entity ID is required")
+    @JsonProperty("entity_id")
+    private UUID entityId;
+    
+    @NotBlank(message = "File name is required")
+    @JsonProperty("file_name")
+    private String fileName;
+    
+    @NotBlank(message = "Content type is required")
+    @JsonProperty("content_type")
+    private String contentType;
+    
+    @NotNull(message = "File size is required")
+    @Positive(message = "File size must be positive")
+    @JsonProperty("file_size")
+    private Long fileSize;
+}
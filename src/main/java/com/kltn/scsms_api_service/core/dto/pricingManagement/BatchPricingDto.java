@@ -0,0 +1,70 @@
+package com.kltn.scsms_api_service.core.dto.pricingManagement;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.PricingPolicyType;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Kết quả tính giá theo lô: giá từng dòng (cùng thứ tự với request) và tổng tiền các dòng có giá
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchPricingDto {
+    
+    @JsonProperty("branch_id")
+    private UUID branchId;
+    
+    @JsonProperty("price_book_id")
+    private UUID priceBookId;
+    
+    @JsonProperty("price_book_code")
+    private String priceBookCode;
+    
+    @JsonProperty("total_amount")
+    private BigDecimal totalAmount;
+    
+    @JsonProperty("lines")
+    private List<LinePrice> lines;
+    
+    @JsonProperty("unpriced_count")
+    private int unpricedCount;
+    
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class LinePrice {
+        
+        @JsonProperty("product_id")
+        private UUID productId;
+        
+        @JsonProperty("service_id")
+        private UUID serviceId;
+        
+        @JsonProperty("quantity")
+        private Long quantity;
+        
+        @JsonProperty("policy_type")
+        private PricingPolicyType policyType;
+        
+        @JsonProperty("unit_price")
+        private BigDecimal unitPrice;
+        
+        @JsonProperty("line_total")
+        private BigDecimal lineTotal;
+        
+        @JsonProperty("found")
+        private boolean found; // false = không có giá trong bảng giá (unitPrice/lineTotal null)
+    }
+}
@@ -0,0 +1,48 @@
+package com.kltn.scsms_api_service.core.dto.pricingManagement.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Các dòng sản phẩm/dịch vụ cần tính giá trong 1 lần
+ * priceBookId = null → dùng bảng giá đang áp dụng của chi nhánh (không có thì bảng giá chung)
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BatchPricingRequest {
+    
+    @JsonProperty("branch_id")
+    private UUID branchId;
+    
+    @JsonProperty("price_book_id")
+    private UUID priceBookId;
+    
+    @JsonProperty("lines")
+    private List<PricingLine> lines;
+    
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class PricingLine {
+        
+        @JsonProperty("product_id")
+        private UUID productId;
+        
+        @JsonProperty("service_id")
+        private UUID serviceId;
+        
+        @JsonProperty("quantity")
+        private Long quantity; // null = 1
+    }
+}
@@ -0,0 +1,77 @@
+package com.kltn.scsms_api_service.core.dto.productManagement;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kltn.scsms_api_service.core.dto.response.PaginatedResponse;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Kết quả lọc sản phẩm theo thuộc tính: trang sản phẩm + số lượng theo từng giá trị facet
+ * Số đếm của 1 thuộc tính bỏ qua chính bộ lọc của thuộc tính đó (chọn thêm giá trị thì kết quả mở rộng)
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductFacetSearchDto {
+    
+    @JsonProperty("products")
+    private PaginatedResponse<ProductInfoDto> products;
+    
+    @JsonProperty("facets")
+    private List<AttributeFacet> facets;
+    
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class AttributeFacet {
+        
+        @JsonProperty("attribute_id")
+        private UUID attributeId;
+        
+        @JsonProperty("attribute_code")
+        private String attributeCode;
+        
+        @JsonProperty("attribute_name")
+        private String attributeName;
+        
+        @JsonProperty("unit")
+        private String unit;
+        
+        @JsonProperty("data_type")
+        private String dataType;
+        
+        @JsonProperty("min_value")
+        private BigDecimal minValue;
+        
+        @JsonProperty("max_value")
+        private BigDecimal maxValue;
+        
+        @JsonProperty("values")
+        private List<FacetValue> values;
+    }
+    
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class FacetValue {
+        
+        @JsonProperty("value")
+        private String value;
+        
+        @JsonProperty("count")
+        private int count;
+    }
+}
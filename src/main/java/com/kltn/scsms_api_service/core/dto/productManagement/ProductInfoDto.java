@@ -1,6 +1,7 @@
 package com.kltn.scsms_api_service.core.dto.productManagement;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kltn.scsms_api_service.core.dto.mediaManagement.MediaInfoDto;
 import com.kltn.scsms_api_service.core.dto.response.AuditDto;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
@@ -56,4 +57,11 @@ public class ProductInfoDto extends AuditDto {
     // Product Attribute Values
     @JsonProperty("attribute_values")
     private List<ProductAttributeValueDto> attributeValues;
+
+    // Ảnh chính (danh sách) và gallery (chi tiết), resolve theo lô bởi MediaResolver
+    @JsonProperty("main_image")
+    private MediaInfoDto mainImage;
+
+    @JsonProperty("images")
+    private List<MediaInfoDto> images;
 }
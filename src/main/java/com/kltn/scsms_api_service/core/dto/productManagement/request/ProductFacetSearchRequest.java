@@ -0,0 +1,63 @@
+package com.kltn.scsms_api_service.core.dto.productManagement.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lọc sản phẩm theo giá trị thuộc tính (kết hợp với ProductFilterParam) và yêu cầu đếm theo facet
+ * - Các giá trị trong cùng 1 thuộc tính: OR; giữa các thuộc tính: AND
+ * - facet_attribute_ids rỗng = trả facet cho mọi thuộc tính đang hoạt động
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductFacetSearchRequest {
+    
+    @Valid
+    @JsonProperty("attribute_filters")
+    @Builder.Default
+    private List<AttributeFilter> attributeFilters = new ArrayList<>();
+    
+    @JsonProperty("facet_attribute_ids")
+    @Builder.Default
+    private List<UUID> facetAttributeIds = new ArrayList<>();
+    
+    @JsonProperty("max_facet_values")
+    @Builder.Default
+    private int maxFacetValues = 20;
+    
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class AttributeFilter {
+        
+        @NotNull(message = "Attribute ID is required")
+        @JsonProperty("attribute_id")
+        private UUID attributeId;
+        
+        // Khớp chính xác (không phân biệt hoa thường) 1 trong các giá trị
+        @JsonProperty("values")
+        private List<String> values;
+        
+        // Khoảng số (bao gồm 2 đầu), chỉ áp dụng cho value_number
+        @JsonProperty("min_value")
+        private BigDecimal minValue;
+        
+        @JsonProperty("max_value")
+        private BigDecimal maxValue;
+    }
+}
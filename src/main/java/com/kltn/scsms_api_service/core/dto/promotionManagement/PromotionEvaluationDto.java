@@ -0,0 +1,119 @@
+package com.kltn.scsms_api_service.core.dto.promotionManagement;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Kết quả tính khuyến mãi phía server cho 1 giỏ hàng
+ * Tổ hợp KM được chọn là tổ hợp có tổng giảm lớn nhất (các KM stackable cộng dồn, KM không stackable áp dụng riêng)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromotionEvaluationDto {
+
+    @JsonProperty("original_amount")
+    private BigDecimal originalAmount;
+
+    @JsonProperty("total_discount_amount")
+    private BigDecimal totalDiscountAmount;
+
+    @JsonProperty("final_amount")
+    private BigDecimal finalAmount;
+
+    @JsonProperty("discount_percentage")
+    private BigDecimal discountPercentage;
+
+    @JsonProperty("applied_promotions")
+    private List<AppliedPromotion> appliedPromotions;
+
+    @JsonProperty("line_discounts")
+    private List<LineDiscount> lineDiscounts;
+
+    @JsonProperty("free_items")
+    private List<FreeItem> freeItems;
+
+    @JsonProperty("evaluated_at")
+    private LocalDateTime evaluatedAt;
+
+    @JsonProperty("index_version")
+    private Long indexVersion;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class AppliedPromotion {
+
+        @JsonProperty("promotion_id")
+        private UUID promotionId;
+
+        @JsonProperty("promotion_code")
+        private String promotionCode;
+
+        @JsonProperty("promotion_name")
+        private String promotionName;
+
+        @JsonProperty("promotion_line_id")
+        private UUID promotionLineId; // Line đóng góp nhiều nhất (giảm + quà) vào KM này
+
+        @JsonProperty("is_stackable")
+        private Boolean isStackable;
+
+        @JsonProperty("discount_amount")
+        private BigDecimal discountAmount; // Số tiền giảm thực tế (đã trừ vào đơn)
+
+        @JsonProperty("gift_value")
+        private BigDecimal giftValue; // Giá trị quà tặng (FREE_PRODUCT), không trừ vào đơn
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LineDiscount {
+
+        @JsonProperty("line_index")
+        private Integer lineIndex;
+
+        @JsonProperty("product_id")
+        private UUID productId;
+
+        @JsonProperty("service_id")
+        private UUID serviceId;
+
+        @JsonProperty("original_amount")
+        private BigDecimal originalAmount;
+
+        @JsonProperty("discount_amount")
+        private BigDecimal discountAmount; // Chỉ gồm giảm giá cấp dòng (giảm cấp đơn nằm trong total)
+    }
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FreeItem {
+
+        @JsonProperty("promotion_id")
+        private UUID promotionId;
+
+        @JsonProperty("product_id")
+        private UUID productId;
+
+        @JsonProperty("quantity")
+        private Integer quantity;
+
+        @JsonProperty("unit_price")
+        private BigDecimal unitPrice; // Giá quà theo bảng giá hiện hành (0 nếu không có trong bảng giá)
+    }
+}
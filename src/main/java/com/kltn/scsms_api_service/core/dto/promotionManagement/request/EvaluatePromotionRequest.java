@@ -0,0 +1,58 @@
+package com.kltn.scsms_api_service.core.dto.promotionManagement.request;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Giỏ hàng cần tính khuyến mãi phía server
+ * promotionIds = null → xét mọi KM đang áp dụng được, ngược lại chỉ xét các KM được chọn
+ */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EvaluatePromotionRequest {
+    
+    @JsonProperty("branch_id")
+    private UUID branchId;
+    
+    @JsonProperty("customer_id")
+    private UUID customerId;
+    
+    @JsonProperty("promotion_ids")
+    private List<UUID> promotionIds;
+    
+    @JsonProperty("lines")
+    private List<CartLine> lines;
+    
+    @Getter
+    @Setter
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class CartLine {
+        
+        @JsonProperty("product_id")
+        private UUID productId;
+        
+        @JsonProperty("service_id")
+        private UUID serviceId;
+        
+        @JsonProperty("quantity")
+        private Long quantity;
+        
+        @JsonProperty("unit_price")
+        private BigDecimal unitPrice;
+        
+        @JsonProperty("is_free_item")
+        private Boolean isFreeItem;
+    }
+}
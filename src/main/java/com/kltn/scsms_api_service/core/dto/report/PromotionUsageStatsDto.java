@@ -0,0 +1,27 @@
+package com.kltn.scsms_api_service.core.dto.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for promotion usage statistics in a date range
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromotionUsageStatsDto {
+  private UUID promotionId;
+  private String promotionCode;
+  private String promotionName;
+  private Long usageCount;
+  private BigDecimal totalDiscount;
+  private BigDecimal averageDiscount;
+  private LocalDateTime lastUsedAt;
+}
@@ -1,6 +1,7 @@
 package com.kltn.scsms_api_service.core.dto.serviceManagement;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.kltn.scsms_api_service.core.dto.mediaManagement.MediaInfoDto;
 import com.kltn.scsms_api_service.core.dto.response.AuditDto;
 import com.kltn.scsms_api_service.core.dto.serviceProcessManagement.ServiceProcessInfoDto;
 import com.kltn.scsms_api_service.core.entity.Service;
@@ -79,6 +80,13 @@ public class ServiceInfoDto {
     @JsonProperty("service_process")
     private ServiceProcessInfoDto serviceProcess;
     
+    // Ảnh chính (danh sách) và gallery (chi tiết), resolve theo lô bởi MediaResolver
+    @JsonProperty("main_image")
+    private MediaInfoDto mainImage;
+    
+    @JsonProperty("images")
+    private List<MediaInfoDto> images;
+    
     @Builder.Default
     private AuditDto audit = AuditDto.builder().build();
 }
\ No newline at end of file
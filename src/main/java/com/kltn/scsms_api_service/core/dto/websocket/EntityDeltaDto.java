@@ -0,0 +1,82 @@
+package com.kltn.scsms_api_service.core.dto.websocket;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Delta gọn cho WebSocket (booking/tracking) thay cho payload chứa toàn bộ DTO
+ * - full = false: changes chỉ chứa các field thay đổi so với base_version
+ *   → client chỉ áp dụng nếu version đang giữ == base_version, ngược lại gọi API resync
+ * - full = true: changes chứa toàn bộ field gọn của entity (client thay thế bản đang giữ)
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EntityDeltaDto {
+
+    @JsonProperty("entity_type")
+    private EntityType entityType;
+
+    /**
+     * Tên event, ví dụ CREATED, CONFIRMED, STARTED, COMPLETED, UPDATED, DELETED
+     */
+    @JsonProperty("event_type")
+    private String eventType;
+
+    @JsonProperty("id")
+    private UUID id;
+
+    @JsonProperty("booking_id")
+    private UUID bookingId;
+
+    @JsonProperty("booking_code")
+    private String bookingCode;
+
+    @JsonProperty("branch_id")
+    private UUID branchId;
+
+    @JsonProperty("bay_id")
+    private UUID bayId;
+
+    @JsonProperty("status")
+    private String status;
+
+    /**
+     * Version (optimistic lock) của entity sau khi commit
+     */
+    @JsonProperty("version")
+    private Long version;
+
+    /**
+     * Version mà changes được tính từ đó (null khi full = true)
+     */
+    @JsonProperty("base_version")
+    private Long baseVersion;
+
+    @JsonProperty("full")
+    private boolean full;
+
+    @JsonProperty("changes")
+    private Map<String, Object> changes;
+
+    @JsonProperty("timestamp")
+    private LocalDateTime timestamp;
+
+    @JsonProperty("message")
+    private String message;
+
+    public enum EntityType {
+        BOOKING,
+        TRACKING
+    }
+}
@@ -0,0 +1,39 @@
+package com.kltn.scsms_api_service.core.dto.websocket;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Trạng thái hiện tại (dạng delta full) của các booking/tracking thay đổi từ thời điểm since
+ * Client gọi khi phát hiện mất delta (base_version không khớp) hoặc sau khi reconnect
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RealtimeResyncResponse {
+
+    @JsonProperty("bookings")
+    private List<EntityDeltaDto> bookings;
+
+    @JsonProperty("trackings")
+    private List<EntityDeltaDto> trackings;
+
+    /**
+     * Mốc thời gian server - dùng làm since cho lần resync tiếp theo
+     */
+    @JsonProperty("server_time")
+    private LocalDateTime serverTime;
+
+    /**
+     * true nếu số thay đổi vượt giới hạn → client nên tải lại toàn bộ danh sách
+     */
+    @JsonProperty("truncated")
+    private boolean truncated;
+}
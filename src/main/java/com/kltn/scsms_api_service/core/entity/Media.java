@@ -32,6 +32,15 @@ public class Media extends AuditEntity {
     @Column(name = "media_url", nullable = false, length = Integer.MAX_VALUE)
     private String mediaUrl;
     
+    /**
+     * Ảnh thu nhỏ cho danh sách / ảnh cỡ thẻ cho lưới (null → dùng media_url)
+     */
+    @Column(name = "thumbnail_url", length = Integer.MAX_VALUE)
+    private String thumbnailUrl;
+    
+    @Column(name = "card_url", length = Integer.MAX_VALUE)
+    private String cardUrl;
+    
     @Column(name = "media_type", length = 20)
     @Enumerated(EnumType.STRING)
     @Builder.Default
@@ -0,0 +1,39 @@
+package com.kltn.scsms_api_service.core.entity;
+
+import com.kltn.scsms_api_service.constants.GeneralConstant;
+import com.kltn.scsms_api_service.core.entity.compositId.PromotionCustomerRedemptionId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Bộ đếm số lượt 1 khách hàng đã dùng 1 khuyến mãi (ledger cho per_customer_limit / coupon_redeem_once)
+ * Khóa (promotion_id, customer_id) nên mỗi lần kiểm tra chỉ chạm đúng 1 dòng
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "promotion_customer_redemptions", schema = GeneralConstant.DB_SCHEMA_DEV)
+@IdClass(PromotionCustomerRedemptionId.class)
+public class PromotionCustomerRedemption {
+    
+    @Id
+    @Column(name = "promotion_id", nullable = false)
+    private UUID promotionId;
+    
+    @Id
+    @Column(name = "customer_id", nullable = false)
+    private UUID customerId;
+    
+    @Column(name = "used_count", nullable = false)
+    @Builder.Default
+    private Long usedCount = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
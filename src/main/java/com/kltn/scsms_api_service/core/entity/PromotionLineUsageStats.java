@@ -0,0 +1,43 @@
+package com.kltn.scsms_api_service.core.entity;
+
+import com.kltn.scsms_api_service.constants.GeneralConstant;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Số liệu tổng hợp sẵn của 1 promotion line (chỉ có với PromotionUsage ghi nhận promotion_line_id)
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "promotion_line_usage_stats", schema = GeneralConstant.DB_SCHEMA_DEV,
+    indexes = {
+        @Index(name = "idx_promotion_line_usage_stats_promotion", columnList = "promotion_id")
+    })
+public class PromotionLineUsageStats {
+    
+    @Id
+    @Column(name = "promotion_line_id", nullable = false)
+    private UUID promotionLineId;
+    
+    @Column(name = "promotion_id", nullable = false)
+    private UUID promotionId;
+    
+    @Column(name = "usage_count", nullable = false)
+    @Builder.Default
+    private Long usageCount = 0L;
+    
+    @Column(name = "total_discount", precision = 18, scale = 4, nullable = false)
+    @Builder.Default
+    private BigDecimal totalDiscount = BigDecimal.ZERO;
+    
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+}
@@ -0,0 +1,33 @@
+package com.kltn.scsms_api_service.core.entity;
+
+import com.kltn.scsms_api_service.constants.GeneralConstant;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Bộ đếm tổng số lượt đã dùng của 1 khuyến mãi (ledger cho usage_limit)
+ * Chỉ được tăng/giảm bằng UPDATE có điều kiện trong PromotionRedemptionCounterRepository
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "promotion_redemption_counters", schema = GeneralConstant.DB_SCHEMA_DEV)
+public class PromotionRedemptionCounter {
+    
+    @Id
+    @Column(name = "promotion_id", nullable = false)
+    private UUID promotionId;
+    
+    @Column(name = "used_count", nullable = false)
+    @Builder.Default
+    private Long usedCount = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -16,7 +16,10 @@ import java.util.UUID;
 @SuperBuilder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "promotion_usages", schema = GeneralConstant.DB_SCHEMA_DEV)
+@Table(name = "promotion_usages", schema = GeneralConstant.DB_SCHEMA_DEV,
+    indexes = {
+        @Index(name = "idx_promotion_usages_used_at", columnList = "used_at,promotion_id")
+    })
 public class PromotionUsage extends AuditEntity {
 
     @Id
@@ -0,0 +1,46 @@
+package com.kltn.scsms_api_service.core.entity;
+
+import com.kltn.scsms_api_service.constants.GeneralConstant;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Số liệu tổng hợp sẵn của 1 khuyến mãi (số lượt dùng, tổng tiền giảm, lần dùng gần nhất)
+ * Được cộng dồn mỗi khi ghi PromotionUsage (PromotionUsageService.recordUsage), report không cần đọc lịch sử usage
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "promotion_usage_stats", schema = GeneralConstant.DB_SCHEMA_DEV)
+public class PromotionUsageStats {
+    
+    @Id
+    @Column(name = "promotion_id", nullable = false)
+    private UUID promotionId;
+    
+    @Column(name = "usage_count", nullable = false)
+    @Builder.Default
+    private Long usageCount = 0L;
+    
+    @Column(name = "total_discount", precision = 18, scale = 4, nullable = false)
+    @Builder.Default
+    private BigDecimal totalDiscount = BigDecimal.ZERO;
+    
+    @Column(name = "last_used_at")
+    private LocalDateTime lastUsedAt;
+    
+    public BigDecimal getAverageDiscount() {
+        if (usageCount == null || usageCount == 0) {
+            return BigDecimal.ZERO;
+        }
+        return totalDiscount.divide(BigDecimal.valueOf(usageCount), RoundingMode.HALF_UP);
+    }
+}
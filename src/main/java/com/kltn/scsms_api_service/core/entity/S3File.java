@@ -4,12 +4,16 @@ import com.kltn.scsms_api_service.abstracts.AuditEntity;
 import com.kltn.scsms_api_service.constants.GeneralConstant;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.FileStatus;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.FileType;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.ImageVariant;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Getter
 @Setter
@@ -142,6 +146,25 @@ public class S3File extends AuditEntity {
     @Column(name = "metadata", columnDefinition = "TEXT")
     private String metadata;
     
+    /**
+     * Key các variant của ảnh (null nếu không phải ảnh hoặc không sinh được variant)
+     * VD: images/products/banh_xe_1700000000_ab12cd34_thumb.jpg
+     */
+    @Column(name = "thumbnail_key", length = 500)
+    private String thumbnailKey;
+    
+    @Column(name = "card_key", length = 500)
+    private String cardKey;
+    
+    @Column(name = "full_key", length = 500)
+    private String fullKey;
+    
+    /**
+     * Token của upload trực tiếp (presigned PUT) đang chờ finalize; null sau khi finalize
+     */
+    @Column(name = "upload_token", unique = true, length = 64)
+    private String uploadToken;
+    
     @Column(name = "deleted_at")
     private LocalDateTime deletedAt;
     
@@ -180,6 +203,34 @@ public class S3File extends AuditEntity {
         return this.status == FileStatus.ACTIVE && !isExpired();
     }
     
+    /**
+     * Get key of an image variant
+     */
+    public String getVariantKey(ImageVariant variant) {
+        return switch (variant) {
+            case THUMB -> this.thumbnailKey;
+            case CARD -> this.cardKey;
+            case FULL -> this.fullKey;
+        };
+    }
+    
+    public void setVariantKey(ImageVariant variant, String key) {
+        switch (variant) {
+            case THUMB -> this.thumbnailKey = key;
+            case CARD -> this.cardKey = key;
+            case FULL -> this.fullKey = key;
+        }
+    }
+    
+    /**
+     * Keys of all generated variants
+     */
+    public List<String> getVariantKeys() {
+        return Stream.of(this.thumbnailKey, this.cardKey, this.fullKey)
+            .filter(Objects::nonNull)
+            .toList();
+    }
+    
     /**
      * Get file extension
      */
@@ -2,6 +2,7 @@ package com.kltn.scsms_api_service.core.entity;
 
 import com.kltn.scsms_api_service.abstracts.AuditEntity;
 import com.kltn.scsms_api_service.constants.GeneralConstant;
+import com.kltn.scsms_api_service.core.service.aiAssistant.AssistantSearchIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
@@ -17,6 +18,7 @@ import java.util.UUID;
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "services", schema = GeneralConstant.DB_SCHEMA_DEV)
+@EntityListeners(AssistantSearchIndexListener.class)
 public class Service extends AuditEntity {
 
     @Id
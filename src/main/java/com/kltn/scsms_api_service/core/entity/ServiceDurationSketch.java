@@ -0,0 +1,79 @@
+package com.kltn.scsms_api_service.core.entity;
+
+import com.kltn.scsms_api_service.constants.GeneralConstant;
+import com.kltn.scsms_api_service.core.entity.compositId.ServiceDurationSketchId;
+import com.kltn.scsms_api_service.core.utils.DurationSketch;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Phân phối thời lượng thực tế (phút) của 1 dịch vụ theo (loại xe, chi nhánh), lưu dạng DurationSketch
+ * vehicle_type_id / branch_id = ALL là phạm vi gộp; mỗi mẫu được cộng vào cả 4 phạm vi
+ * Được cộng dồn khi booking hoàn thành (ServiceDurationEstimator), lập lịch đọc p50/p80 thay vì thời lượng cấu hình
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "service_duration_sketches", schema = GeneralConstant.DB_SCHEMA_DEV)
+@IdClass(ServiceDurationSketchId.class)
+public class ServiceDurationSketch {
+    
+    /**
+     * Giá trị đại diện cho "mọi loại xe" / "mọi chi nhánh"
+     */
+    public static final UUID ALL = new UUID(0L, 0L);
+    
+    @Id
+    @Column(name = "service_id", nullable = false)
+    private UUID serviceId;
+    
+    @Id
+    @Column(name = "vehicle_type_id", nullable = false)
+    private UUID vehicleTypeId;
+    
+    @Id
+    @Column(name = "branch_id", nullable = false)
+    private UUID branchId;
+    
+    @Column(name = "sample_count", nullable = false)
+    @Builder.Default
+    private Long sampleCount = 0L;
+    
+    @Column(name = "sum_minutes", nullable = false)
+    @Builder.Default
+    private Double sumMinutes = 0.0;
+    
+    @Column(name = "min_minutes")
+    private Double minMinutes;
+    
+    @Column(name = "max_minutes")
+    private Double maxMinutes;
+    
+    /**
+     * Bucket của sketch: "index:count,..." (DurationSketch.encode)
+     */
+    @Column(name = "buckets", columnDefinition = "TEXT")
+    private String buckets;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    public DurationSketch toSketch() {
+        return DurationSketch.decode(buckets, sampleCount != null ? sampleCount : 0L,
+            sumMinutes != null ? sumMinutes : 0.0, minMinutes, maxMinutes);
+    }
+    
+    public void applySketch(DurationSketch sketch) {
+        this.buckets = sketch.encode();
+        this.sampleCount = sketch.getCount();
+        this.sumMinutes = sketch.getSum();
+        this.minMinutes = sketch.getMin();
+        this.maxMinutes = sketch.getMax();
+    }
+}
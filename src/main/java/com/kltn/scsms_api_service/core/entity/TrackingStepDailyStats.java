@@ -0,0 +1,91 @@
+package com.kltn.scsms_api_service.core.entity;
+
+import com.kltn.scsms_api_service.constants.GeneralConstant;
+import com.kltn.scsms_api_service.core.entity.compositId.TrackingStepDailyStatsId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Số liệu tổng hợp sẵn thời gian thực hiện bước dịch vụ theo (ngày hoàn thành, bay, bước)
+ * Được cộng dồn khi 1 ServiceProcessTracking chuyển sang COMPLETED (TrackingStepStatsService.recordCompletion),
+ * dashboard năng suất chỉ đọc bảng này thay vì quét toàn bộ service_process_tracking
+ * Thời gian dự kiến của 1 bước = services.estimated_duration chia đều cho số bước của quy trình
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "tracking_step_daily_stats", schema = GeneralConstant.DB_SCHEMA_DEV,
+    indexes = {
+        @Index(name = "idx_tracking_step_daily_stats_branch_date", columnList = "branch_id, stat_date"),
+        @Index(name = "idx_tracking_step_daily_stats_step", columnList = "service_step_id")
+    })
+@IdClass(TrackingStepDailyStatsId.class)
+public class TrackingStepDailyStats {
+    
+    @Id
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+    
+    @Id
+    @Column(name = "bay_id", nullable = false)
+    private UUID bayId;
+    
+    @Id
+    @Column(name = "service_step_id", nullable = false)
+    private UUID serviceStepId;
+    
+    @Column(name = "process_id")
+    private UUID processId;
+    
+    @Column(name = "branch_id")
+    private UUID branchId;
+    
+    /**
+     * Số bước đã hoàn thành
+     */
+    @Column(name = "completed_count", nullable = false)
+    @Builder.Default
+    private Long completedCount = 0L;
+    
+    /**
+     * Tổng thời gian thực tế (giây) của mọi bước hoàn thành
+     */
+    @Column(name = "total_actual_seconds", nullable = false)
+    @Builder.Default
+    private Long totalActualSeconds = 0L;
+    
+    /**
+     * Số bước có thời gian dự kiến (dịch vụ có estimated_duration)
+     */
+    @Column(name = "estimated_count", nullable = false)
+    @Builder.Default
+    private Long estimatedCount = 0L;
+    
+    /**
+     * Tổng thời gian thực tế (giây) của riêng các bước có thời gian dự kiến, để so sánh cùng mẫu
+     */
+    @Column(name = "estimated_actual_seconds", nullable = false)
+    @Builder.Default
+    private Long estimatedActualSeconds = 0L;
+    
+    @Column(name = "total_estimated_seconds", nullable = false)
+    @Builder.Default
+    private Long totalEstimatedSeconds = 0L;
+    
+    /**
+     * Số bước vượt thời gian dự kiến
+     */
+    @Column(name = "overrun_count", nullable = false)
+    @Builder.Default
+    private Long overrunCount = 0L;
+    
+    @Column(name = "last_completed_at")
+    private LocalDateTime lastCompletedAt;
+}
@@ -0,0 +1,17 @@
+package com.kltn.scsms_api_service.core.entity.compositId;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromotionCustomerRedemptionId implements Serializable {
+    
+    private UUID promotionId;
+    private UUID customerId;
+}
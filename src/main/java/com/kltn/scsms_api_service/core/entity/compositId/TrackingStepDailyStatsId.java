@@ -0,0 +1,19 @@
+package com.kltn.scsms_api_service.core.entity.compositId;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackingStepDailyStatsId implements Serializable {
+    
+    private LocalDate statDate;
+    private UUID bayId;
+    private UUID serviceStepId;
+}
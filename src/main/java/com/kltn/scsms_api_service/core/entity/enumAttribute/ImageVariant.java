@@ -0,0 +1,25 @@
+package com.kltn.scsms_api_service.core.entity.enumAttribute;
+
+/**
+ * Các kích thước ảnh được sinh khi upload
+ * THUMB: danh sách/avatar nhỏ, CARD: thẻ/lưới sản phẩm, FULL: trang chi tiết
+ */
+public enum ImageVariant {
+    THUMB("thumb"),
+    CARD("card"),
+    FULL("full");
+
+    private final String suffix;
+
+    ImageVariant(String suffix) {
+        this.suffix = suffix;
+    }
+
+    /**
+     * Hậu tố gắn vào key S3 của ảnh gốc
+     * VD: products/abc/banh_xe_1700000000_ab12cd34.jpg → products/abc/banh_xe_1700000000_ab12cd34_thumb.jpg
+     */
+    public String getSuffix() {
+        return suffix;
+    }
+}
@@ -0,0 +1,33 @@
+package com.kltn.scsms_api_service.core.events;
+
+import com.kltn.scsms_api_service.core.entity.Booking;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Event nghiệp vụ khi booking chuyển IN_PROGRESS → COMPLETED (listener xử lý sau commit)
+ * Tách khỏi BookingRealtimeEvent: event realtime chỉ phục vụ UI, có thể bị gộp/đổi tên
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingCompletedEvent {
+    
+    private UUID bookingId;
+    private UUID branchId;
+    private LocalDateTime completedAt;
+    
+    public static BookingCompletedEvent of(Booking booking) {
+        return BookingCompletedEvent.builder()
+            .bookingId(booking.getBookingId())
+            .branchId(booking.getBranch() != null ? booking.getBranch().getBranchId() : null)
+            .completedAt(booking.getActualEndAt())
+            .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.kltn.scsms_api_service.core.events;
+
+import com.kltn.scsms_api_service.core.dto.websocket.BookingEventDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Event nhẹ khi booking thay đổi, chỉ mang id + loại event
+ * RealtimeEventDispatcher nhận sau khi transaction commit, gộp theo booking rồi mới load và gửi WebSocket
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingRealtimeEvent {
+
+    private UUID bookingId;
+    private String eventName; // "CREATED", "CONFIRMED", ..., "UPDATED", "DELETED"
+    private BookingEventDto.BookingEventType legacyType; // Type cho event cũ trên /topic/bookings
+    private String message; // null = dùng message mặc định theo eventName
+}
@@ -0,0 +1,24 @@
+package com.kltn.scsms_api_service.core.events;
+
+import com.kltn.scsms_api_service.core.dto.websocket.TrackingEventDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Event nhẹ khi tracking thay đổi, chỉ mang id + loại event
+ * RealtimeEventDispatcher nhận sau khi transaction commit, gộp theo tracking rồi mới load và gửi WebSocket
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackingRealtimeEvent {
+
+    private UUID trackingId;
+    private TrackingEventDto.TrackingEventType eventType;
+    private String message; // null = dùng message mặc định theo eventType
+}
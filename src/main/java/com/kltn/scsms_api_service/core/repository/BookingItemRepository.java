@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -34,6 +35,15 @@ public interface BookingItemRepository extends JpaRepository<BookingItem, UUID>
     List<BookingItem> findByBooking_BookingIdAndItemStatusOrderByDisplayOrderAsc(
         UUID bookingId, BookingItem.ItemStatus itemStatus);
     
+    /**
+     * Giá các item của nhiều booking trong 1 query, kèm chủ booking và chi nhánh để đối chiếu
+     * Mỗi dòng: bookingId, customerId, branchId, serviceId, unitPrice
+     */
+    @Query("SELECT b.bookingId, c.userId, br.branchId, bi.serviceId, bi.unitPrice " +
+           "FROM BookingItem bi JOIN bi.booking b LEFT JOIN b.customer c LEFT JOIN b.branch br " +
+           "WHERE b.bookingId IN :bookingIds")
+    List<Object[]> findItemPricesByBookingIds(@Param("bookingIds") Collection<UUID> bookingIds);
+    
     /**
      * Đếm booking items theo booking
      */
@@ -13,6 +13,7 @@ import jakarta.persistence.LockModeType;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -253,6 +254,38 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
                      "ORDER BY b.scheduledStartAt DESC")
        List<Booking> findByVehicleLicensePlateContaining(@Param("licensePlate") String licensePlate);
 
+       /**
+        * Tìm booking theo tên khách (không dấu), số điện thoại, biển số hoặc mã booking - có phân trang
+        * Mọi nhánh OR đều có GIN trigram index (SearchSchemaInitializer); tên khớp sát hơn xếp trước
+        */
+       @Query(value = "SELECT b.* FROM bookings b " +
+                     "WHERE b.is_deleted = false " +
+                     "AND (f_unaccent(lower(b.customer_name)) LIKE '%' || f_unaccent(lower(:pattern)) || '%' " +
+                     "  OR b.customer_phone LIKE '%' || :pattern || '%' " +
+                     "  OR b.vehicle_license_plate ILIKE '%' || :pattern || '%' " +
+                     "  OR b.booking_code ILIKE '%' || :pattern || '%') " +
+                     "ORDER BY f_similarity(f_unaccent(lower(coalesce(b.customer_name, ''))), f_unaccent(lower(:pattern))) DESC, " +
+                     "  b.scheduled_start_at DESC",
+                     countQuery = "SELECT count(*) FROM bookings b " +
+                                   "WHERE b.is_deleted = false " +
+                                   "AND (f_unaccent(lower(b.customer_name)) LIKE '%' || f_unaccent(lower(:pattern)) || '%' " +
+                                   "  OR b.customer_phone LIKE '%' || :pattern || '%' " +
+                                   "  OR b.vehicle_license_plate ILIKE '%' || :pattern || '%' " +
+                                   "  OR b.booking_code ILIKE '%' || :pattern || '%')",
+                     nativeQuery = true)
+       Page<Booking> searchRanked(@Param("pattern") String pattern, Pageable pageable);
+
+       /**
+        * Như searchRanked nhưng không cần f_unaccent (fallback khi chưa có schema full-text)
+        */
+       @Query("SELECT b FROM Booking b WHERE b.isDeleted = false AND (" +
+                     "b.customerName ILIKE CONCAT('%', :keyword, '%') OR " +
+                     "b.customerPhone LIKE CONCAT('%', :keyword, '%') OR " +
+                     "b.vehicleLicensePlate ILIKE CONCAT('%', :keyword, '%') OR " +
+                     "b.bookingCode ILIKE CONCAT('%', :keyword, '%')) " +
+                     "ORDER BY b.scheduledStartAt DESC")
+       Page<Booking> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
        /**
         * Tìm booking theo trạng thái thanh toán và trạng thái booking không phải
         * cancelled
@@ -280,6 +313,16 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
                      "WHERE b.bookingId = :bookingId")
        Optional<Booking> findByIdWithDetails(@Param("bookingId") UUID bookingId);
 
+       /**
+        * Batch version of findByIdWithDetails for duration estimates (branch, vehicle and items in one query)
+        */
+       @Query("SELECT DISTINCT b FROM Booking b " +
+                     "LEFT JOIN FETCH b.branch " +
+                     "LEFT JOIN FETCH b.vehicle " +
+                     "LEFT JOIN FETCH b.bookingItems " +
+                     "WHERE b.bookingId IN :bookingIds")
+       List<Booking> findAllByIdWithItems(@Param("bookingIds") Collection<UUID> bookingIds);
+
        /**
         * Projection query để lấy thông tin schedule bookings cho bay và ngày cụ thể
         * Chỉ lấy các field cần thiết để tính toán available time ranges
@@ -328,6 +371,7 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
 
        /**
         * Tìm các WALK_IN bookings của bay trong ngày cụ thể, chưa kết thúc
+        * (booking IN_PROGRESS đã quá scheduledEndAt vẫn chiếm bay nên vẫn nằm trong hàng chờ)
         * Sắp xếp theo scheduledStartAt để tính toán position
         * Prevents N+1 queries by using JOIN FETCH for bookingItems
         */
@@ -339,7 +383,7 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
                      "AND b.status IN ('PENDING', 'CONFIRMED', 'CHECKED_IN', 'IN_PROGRESS') " +
                      "AND b.scheduledStartAt IS NOT NULL " +
                      "AND b.scheduledEndAt IS NOT NULL " +
-                     "AND b.scheduledEndAt >= :currentTime " +
+                     "AND (b.scheduledEndAt >= :currentTime OR b.status = 'IN_PROGRESS') " +
                      "ORDER BY b.scheduledStartAt ASC")
        List<Booking> findWalkInBookingsByBayAndDate(
                      @Param("bayId") UUID bayId,
@@ -418,4 +462,32 @@ public interface BookingRepository extends JpaRepository<Booking, UUID> {
         * Find bookings by status
         */
        List<Booking> findByStatus(Booking.BookingStatus status);
+
+       /**
+        * Booking thay đổi từ thời điểm since theo chi nhánh/bay/khách hàng (resync WebSocket), mới nhất trước
+        */
+       @Query("SELECT b FROM Booking b WHERE b.branch.branchId = :branchId AND b.modifiedDate >= :since " +
+                     "ORDER BY b.modifiedDate DESC")
+       List<Booking> findChangedByBranch(@Param("branchId") UUID branchId, @Param("since") LocalDateTime since,
+                     Pageable pageable);
+
+       @Query("SELECT b FROM Booking b WHERE b.serviceBay.bayId = :bayId AND b.modifiedDate >= :since " +
+                     "ORDER BY b.modifiedDate DESC")
+       List<Booking> findChangedByBay(@Param("bayId") UUID bayId, @Param("since") LocalDateTime since,
+                     Pageable pageable);
+
+       @Query("SELECT b FROM Booking b WHERE b.customer.userId = :customerId AND b.modifiedDate >= :since " +
+                     "ORDER BY b.modifiedDate DESC")
+       List<Booking> findChangedByCustomer(@Param("customerId") UUID customerId, @Param("since") LocalDateTime since,
+                     Pageable pageable);
+
+       /**
+        * Id các booking đã hoàn thành có thời gian thực tế, theo thứ tự kết thúc (backfill ServiceDurationEstimator)
+        */
+       @Query("SELECT b.bookingId FROM Booking b " +
+                     "WHERE b.status = 'COMPLETED' " +
+                     "AND b.actualStartAt IS NOT NULL " +
+                     "AND b.actualEndAt >= :since " +
+                     "ORDER BY b.actualEndAt ASC, b.bookingId ASC")
+       List<UUID> findCompletedBookingIdsSince(@Param("since") LocalDateTime since, Pageable pageable);
 }
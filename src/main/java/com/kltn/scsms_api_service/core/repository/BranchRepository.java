@@ -37,6 +37,9 @@ public interface BranchRepository extends JpaRepository<Branch, UUID> {
     @Query("SELECT b FROM Branch b WHERE b.manager.userId = :managerId")
     List<Branch> findByManagerId(@Param("managerId") UUID managerId);
     
+    @Query("SELECT b.branchId FROM Branch b WHERE b.manager.userId = :managerId")
+    List<UUID> findBranchIdsByManagerId(@Param("managerId") UUID managerId);
+    
     @Query("SELECT b FROM Branch b WHERE b.serviceSlots >= :minSlots")
     List<Branch> findByMinServiceSlots(@Param("minSlots") Integer minSlots);
     
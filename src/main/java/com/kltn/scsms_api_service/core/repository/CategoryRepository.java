@@ -109,15 +109,37 @@ public interface CategoryRepository extends JpaRepository<Category, UUID>, JpaSp
     /**
      * Search categories by name (case-insensitive)
      */
-    @Query("SELECT c FROM Category c WHERE LOWER(c.categoryName) LIKE LOWER(CONCAT('%', :name, '%'))")
+    @Query("SELECT c FROM Category c WHERE c.categoryName ILIKE CONCAT('%', :name, '%')")
     List<Category> findByCategoryNameContainingIgnoreCase(@Param("name") String name);
     
     /**
      * Search categories by name with limit
      */
-    @Query("SELECT c FROM Category c WHERE LOWER(c.categoryName) LIKE LOWER(CONCAT('%', :name, '%')) ORDER BY c.categoryName")
+    @Query("SELECT c FROM Category c WHERE c.categoryName ILIKE CONCAT('%', :name, '%') ORDER BY c.categoryName")
     List<Category> findByCategoryNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
     
+    /**
+     * Search categories by name with pagination (fallback khi chưa có schema full-text)
+     */
+    @Query("SELECT c FROM Category c WHERE c.categoryName ILIKE CONCAT('%', :name, '%') AND c.isDeleted = false ORDER BY c.categoryName")
+    Page<Category> searchByName(@Param("name") String name, Pageable pageable);
+    
+    /**
+     * Tìm kiếm full-text có xếp hạng (xem ProductRepository.searchRanked)
+     */
+    @Query(value = "SELECT c.* FROM categories c " +
+        "WHERE c.is_deleted = false " +
+        "AND (c.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+        "  OR f_unaccent(lower(c.category_name)) LIKE '%' || f_unaccent(lower(:pattern)) || '%') " +
+        "ORDER BY ts_rank(c.search_vector, to_tsquery('simple', f_unaccent(:tsQuery))) " +
+        "  + f_similarity(f_unaccent(lower(c.category_name)), f_unaccent(lower(:pattern))) DESC, c.category_name",
+        countQuery = "SELECT count(*) FROM categories c " +
+            "WHERE c.is_deleted = false " +
+            "AND (c.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+            "  OR f_unaccent(lower(c.category_name)) LIKE '%' || f_unaccent(lower(:pattern)) || '%')",
+        nativeQuery = true)
+    Page<Category> searchRanked(@Param("tsQuery") String tsQuery, @Param("pattern") String pattern, Pageable pageable);
+    
     /**
      * Find categories for autocomplete suggestions
      */
@@ -2,7 +2,10 @@ package com.kltn.scsms_api_service.core.repository;
 
 import com.kltn.scsms_api_service.core.entity.InventoryLot;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,4 +17,19 @@ public interface InventoryLotRepository extends JpaRepository<InventoryLot, UUID
     List<InventoryLot> findAllByProduct_ProductId(UUID productId);
 
     List<InventoryLot> findAllByProduct_ProductIdAndBranch_BranchId(UUID productId, UUID branchId);
+    
+    /**
+     * Giá nhập cao nhất (peak purchase price) theo sản phẩm, dùng cho chính sách MARKUP_ON_PEAK
+     * Thứ tự cột: product_id, max_unit_cost
+     */
+    @Query("SELECT l.product.productId, MAX(l.unitCost) FROM InventoryLot l " +
+        "WHERE l.product.productId IN :productIds AND l.unitCost IS NOT NULL " +
+        "GROUP BY l.product.productId")
+    List<Object[]> findPeakUnitCosts(@Param("productIds") Collection<UUID> productIds);
+    
+    @Query("SELECT l.product.productId, MAX(l.unitCost) FROM InventoryLot l " +
+        "WHERE l.product.productId IN :productIds AND l.branch.branchId = :branchId AND l.unitCost IS NOT NULL " +
+        "GROUP BY l.product.productId")
+    List<Object[]> findPeakUnitCostsByBranch(@Param("productIds") Collection<UUID> productIds,
+                                             @Param("branchId") UUID branchId);
 }
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -37,6 +38,14 @@ public interface MediaRepository extends JpaRepository<Media, UUID>, JpaSpecific
      */
     List<Media> findByEntityTypeAndEntityIdAndIsDeletedFalseOrderBySortOrderAsc(Media.EntityType entityType, UUID entityId);
     
+    /**
+     * Find active media of many entities of one type in a single query, ordered for grouping per entity
+     */
+    @Query("SELECT m FROM Media m WHERE m.entityType = :entityType AND m.entityId IN :entityIds " +
+        "AND m.isDeleted = false ORDER BY m.entityId, m.sortOrder")
+    List<Media> findActiveByEntityIds(@Param("entityType") Media.EntityType entityType,
+                                      @Param("entityIds") Collection<UUID> entityIds);
+    
     /**
      * Find main media for an entity
      */
@@ -88,6 +97,12 @@ public interface MediaRepository extends JpaRepository<Media, UUID>, JpaSpecific
     @Query("SELECT COALESCE(MAX(m.sortOrder), 0) FROM Media m WHERE m.entityType = :entityType AND m.entityId = :entityId AND m.isDeleted = false")
     Integer getMaxSortOrderByEntity(@Param("entityType") Media.EntityType entityType, @Param("entityId") UUID entityId);
     
+    /**
+     * Get the sort order for a new media of an entity (0 when the entity has no media yet)
+     */
+    @Query("SELECT COALESCE(MAX(m.sortOrder) + 1, 0) FROM Media m WHERE m.entityType = :entityType AND m.entityId = :entityId AND m.isDeleted = false")
+    Integer getNextSortOrderByEntity(@Param("entityType") Media.EntityType entityType, @Param("entityId") UUID entityId);
+    
     /**
      * Update sort order for a specific media
      */
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -27,4 +28,29 @@ public interface PriceBookItemRepository extends JpaRepository<PriceBookItem, UU
     List<PriceBookItem> findServicePricesBatch(
             @Param("priceBookId") UUID priceBookId,
             @Param("serviceIds") List<UUID> serviceIds);
+
+    /**
+     * Toàn bộ giá của các bảng giá (dùng build price snapshot)
+     * Thứ tự cột: price_book_id, product_id, service_id, policy_type, fixed_price, markup_percent
+     */
+    @Query("SELECT pbi.priceBook.id, p.productId, s.serviceId, pbi.policyType, pbi.fixedPrice, pbi.markupPercent " +
+            "FROM PriceBookItem pbi " +
+            "LEFT JOIN pbi.product p " +
+            "LEFT JOIN pbi.service s " +
+            "WHERE pbi.priceBook.id IN :priceBookIds")
+    List<Object[]> findPriceRowsByPriceBookIds(@Param("priceBookIds") Collection<UUID> priceBookIds);
+
+    /**
+     * Giá của các sản phẩm/dịch vụ trong 1 bảng giá, cùng thứ tự cột với findPriceRowsByPriceBookIds
+     */
+    @Query("SELECT pbi.priceBook.id, p.productId, s.serviceId, pbi.policyType, pbi.fixedPrice, pbi.markupPercent " +
+            "FROM PriceBookItem pbi " +
+            "LEFT JOIN pbi.product p " +
+            "LEFT JOIN pbi.service s " +
+            "WHERE pbi.priceBook.id = :priceBookId " +
+            "AND (p.productId IN :productIds OR s.serviceId IN :serviceIds)")
+    List<Object[]> findPriceRowsByPriceBookIdAndTargets(
+            @Param("priceBookId") UUID priceBookId,
+            @Param("productIds") Collection<UUID> productIds,
+            @Param("serviceIds") Collection<UUID> serviceIds);
 }
@@ -13,6 +13,8 @@ public interface PriceBookRepository extends JpaRepository<PriceBook, UUID> {
     
     List<PriceBook> findByIsActiveAndValidFromLessThanEqual(boolean isActive, LocalDateTime from);
     
+    List<PriceBook> findByIsActive(boolean isActive);
+    
     List<PriceBook> findAllByIsActiveAndValidFromAfterAndValidToBefore(Boolean isActive, LocalDateTime validFromAfter, LocalDateTime validToBefore);
     
     List<PriceBook> findByIsActiveAndValidToLessThanEqual(Boolean isActive, LocalDateTime validToIsLessThan);
@@ -95,4 +95,11 @@ public interface ProductAttributeValueRepository extends JpaRepository<ProductAt
                      "JOIN FETCH pav.productAttribute pa " +
                      "WHERE pav.product.productId IN :productIds AND pav.isDeleted = false")
        List<ProductAttributeValue> findByProductIdInAndIsDeletedFalse(@Param("productIds") List<UUID> productIds);
+
+       /**
+        * (productId, attributeId, valueText, valueNumber) của mọi giá trị thuộc tính chưa xóa - build ProductFacetIndex
+        */
+       @Query("SELECT pav.productId, pav.attributeId, pav.valueText, pav.valueNumber FROM ProductAttributeValue pav " +
+                     "WHERE pav.isDeleted = false")
+       List<Object[]> findFacetRows();
 }
@@ -1,12 +1,15 @@
 package com.kltn.scsms_api_service.core.repository;
 
 import com.kltn.scsms_api_service.core.entity.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -55,15 +58,41 @@ public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpec
     // Find sellable products (not reward products)
     List<Product> findByIsRewardFalseAndIsActiveTrueAndIsDeletedFalse();
 
-    // Search by name, description, brand, or SKU
+    // Search by name, description, brand, or SKU (ILIKE dùng được GIN trigram index trên các cột)
     @Query("SELECT p FROM Product p WHERE " +
-            "(LOWER(p.productName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(p.brand) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(p.sku) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+            "(p.productName ILIKE CONCAT('%', :keyword, '%') OR " +
+            "p.description ILIKE CONCAT('%', :keyword, '%') OR " +
+            "p.brand ILIKE CONCAT('%', :keyword, '%') OR " +
+            "p.sku ILIKE CONCAT('%', :keyword, '%')) AND " +
             "p.isActive = true AND p.isDeleted = false")
     List<Product> searchByKeyword(@Param("keyword") String keyword);
 
+    @Query("SELECT p FROM Product p WHERE " +
+            "(p.productName ILIKE CONCAT('%', :keyword, '%') OR " +
+            "p.description ILIKE CONCAT('%', :keyword, '%') OR " +
+            "p.brand ILIKE CONCAT('%', :keyword, '%') OR " +
+            "p.sku ILIKE CONCAT('%', :keyword, '%')) AND " +
+            "p.isActive = true AND p.isDeleted = false ORDER BY p.productName")
+    Page<Product> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+
+    /**
+     * Tìm kiếm full-text có xếp hạng (cần SearchSchemaInitializer đã tạo search_vector + f_unaccent)
+     * - tsQuery: tsquery dạng prefix ("phanh:* & xe:*"), pattern: từ khóa gốc đã escape ký tự LIKE
+     * - Khớp nếu tsvector khớp hoặc tên không dấu chứa từ khóa; xếp theo ts_rank + độ tương tự trigram của tên
+     */
+    @Query(value = "SELECT p.* FROM products p " +
+            "WHERE p.is_active = true AND p.is_deleted = false " +
+            "AND (p.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+            "  OR f_unaccent(lower(p.product_name)) LIKE '%' || f_unaccent(lower(:pattern)) || '%') " +
+            "ORDER BY ts_rank(p.search_vector, to_tsquery('simple', f_unaccent(:tsQuery))) " +
+            "  + f_similarity(f_unaccent(lower(p.product_name)), f_unaccent(lower(:pattern))) DESC, p.product_name",
+            countQuery = "SELECT count(*) FROM products p " +
+                    "WHERE p.is_active = true AND p.is_deleted = false " +
+                    "AND (p.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+                    "  OR f_unaccent(lower(p.product_name)) LIKE '%' || f_unaccent(lower(:pattern)) || '%')",
+            nativeQuery = true)
+    Page<Product> searchRanked(@Param("tsQuery") String tsQuery, @Param("pattern") String pattern, Pageable pageable);
+
     // Count by product type
     long countByProductTypeProductTypeIdAndIsDeletedFalse(UUID productTypeId);
 
@@ -79,4 +108,9 @@ public interface ProductRepository extends JpaRepository<Product, UUID>, JpaSpec
 
     // Count all products
     long countByIsDeletedFalse();
-}
\ No newline at end of file
+
+    // Cặp (productId, categoryId) của các sản phẩm thuộc các danh mục cho trước (PromotionEngine)
+    @Query("SELECT p.productId, pt.category.categoryId FROM Product p JOIN p.productType pt " +
+        "WHERE pt.category.categoryId IN :categoryIds")
+    List<Object[]> findProductCategoryPairs(@Param("categoryIds") Collection<UUID> categoryIds);
+}
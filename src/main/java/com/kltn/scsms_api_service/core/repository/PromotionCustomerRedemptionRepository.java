@@ -0,0 +1,68 @@
+package com.kltn.scsms_api_service.core.repository;
+
+import com.kltn.scsms_api_service.core.entity.PromotionCustomerRedemption;
+import com.kltn.scsms_api_service.core.entity.compositId.PromotionCustomerRedemptionId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PromotionCustomerRedemptionRepository
+    extends JpaRepository<PromotionCustomerRedemption, PromotionCustomerRedemptionId> {
+    
+    boolean existsByPromotionIdAndCustomerId(UUID promotionId, UUID customerId);
+    
+    /**
+     * Tăng bộ đếm của khách nếu chưa chạm per_customer_limit (coupon_redeem_once = tối đa 1 lần)
+     * @return 1 nếu giữ được lượt, 0 nếu hết lượt hoặc bộ đếm chưa được tạo
+     */
+    @Modifying
+    @Query(value = "UPDATE promotion_customer_redemptions c " +
+        "SET used_count = c.used_count + 1, updated_at = now() " +
+        "FROM promotions p " +
+        "WHERE c.promotion_id = :promotionId AND c.customer_id = :customerId AND p.promotion_id = c.promotion_id " +
+        "AND (p.per_customer_limit IS NULL OR c.used_count < p.per_customer_limit) " +
+        "AND (p.coupon_redeem_once IS NOT TRUE OR c.used_count < 1)",
+        nativeQuery = true)
+    int tryIncrement(@Param("promotionId") UUID promotionId, @Param("customerId") UUID customerId);
+    
+    @Modifying
+    @Query(value = "UPDATE promotion_customer_redemptions " +
+        "SET used_count = GREATEST(used_count - 1, 0), updated_at = now() " +
+        "WHERE promotion_id = :promotionId AND customer_id = :customerId",
+        nativeQuery = true)
+    int decrement(@Param("promotionId") UUID promotionId, @Param("customerId") UUID customerId);
+    
+    /**
+     * Tạo bộ đếm lần đầu cho cặp (promotion, customer), khởi tạo từ PromotionUsage đã có
+     */
+    @Modifying
+    @Query(value = "INSERT INTO promotion_customer_redemptions (promotion_id, customer_id, used_count, updated_at) " +
+        "SELECT :promotionId, :customerId, COUNT(*), now() FROM promotion_usages u " +
+        "WHERE u.promotion_id = :promotionId AND u.customer_id = :customerId " +
+        "ON CONFLICT (promotion_id, customer_id) DO NOTHING",
+        nativeQuery = true)
+    int seedFromUsages(@Param("promotionId") UUID promotionId, @Param("customerId") UUID customerId);
+    
+    /**
+     * KM mà khách đã dùng hết lượt (per_customer_limit hoặc coupon_redeem_once);
+     * bộ đếm chưa được tạo thì đếm từ promotion_usages như lúc seed
+     */
+    @Query(value = "SELECT p.promotion_id FROM promotions p " +
+        "LEFT JOIN promotion_customer_redemptions c " +
+        "ON c.promotion_id = p.promotion_id AND c.customer_id = :customerId " +
+        "CROSS JOIN LATERAL (SELECT COALESCE(c.used_count, (SELECT COUNT(*) FROM promotion_usages u " +
+        "WHERE u.promotion_id = p.promotion_id AND u.customer_id = :customerId)) AS used) x " +
+        "WHERE p.promotion_id IN (:promotionIds) " +
+        "AND ((p.per_customer_limit IS NOT NULL AND x.used >= p.per_customer_limit) " +
+        "OR (p.coupon_redeem_once IS TRUE AND x.used >= 1))",
+        nativeQuery = true)
+    List<UUID> findExhausted(@Param("promotionIds") Collection<UUID> promotionIds,
+                             @Param("customerId") UUID customerId);
+}
@@ -2,10 +2,27 @@ package com.kltn.scsms_api_service.core.repository;
 
 import com.kltn.scsms_api_service.core.entity.PromotionLine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface PromotionLineRepository extends JpaRepository<PromotionLine, UUID> {
+    
+    /**
+     * Lấy toàn bộ line còn hiệu lực (kể cả KM chưa bắt đầu) kèm promotion/branch/free product
+     * Dùng để compile rule index cho PromotionEngine trong 1 query
+     */
+    @Query("SELECT pl FROM PromotionLine pl " +
+        "JOIN FETCH pl.promotion p " +
+        "LEFT JOIN FETCH p.branch " +
+        "LEFT JOIN FETCH pl.branch " +
+        "LEFT JOIN FETCH pl.freeProduct " +
+        "WHERE p.isDeleted = false AND p.isActive = true AND pl.isActive = true " +
+        "AND (p.endAt IS NULL OR p.endAt >= :now) AND (pl.endAt IS NULL OR pl.endAt >= :now)")
+    List<PromotionLine> findCompilableLines(@Param("now") LocalDateTime now);
 }
@@ -0,0 +1,50 @@
+package com.kltn.scsms_api_service.core.repository;
+
+import com.kltn.scsms_api_service.core.entity.PromotionLineUsageStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PromotionLineUsageStatsRepository extends JpaRepository<PromotionLineUsageStats, UUID> {
+    
+    List<PromotionLineUsageStats> findByPromotionIdIn(Collection<UUID> promotionIds);
+    
+    /**
+     * Cộng dồn 1 lượt dùng của line (upsert nguyên tử, không đọc trước)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO promotion_line_usage_stats " +
+        "(promotion_line_id, promotion_id, usage_count, total_discount, last_used_at) " +
+        "VALUES (:promotionLineId, :promotionId, 1, :discount, :usedAt) " +
+        "ON CONFLICT (promotion_line_id) DO UPDATE SET " +
+        "usage_count = promotion_line_usage_stats.usage_count + 1, " +
+        "total_discount = promotion_line_usage_stats.total_discount + EXCLUDED.total_discount, " +
+        "last_used_at = GREATEST(promotion_line_usage_stats.last_used_at, EXCLUDED.last_used_at)",
+        nativeQuery = true)
+    void increment(@Param("promotionLineId") UUID promotionLineId,
+                   @Param("promotionId") UUID promotionId,
+                   @Param("discount") BigDecimal discount,
+                   @Param("usedAt") LocalDateTime usedAt);
+    
+    @Modifying
+    @Query(value = "DELETE FROM promotion_line_usage_stats", nativeQuery = true)
+    void deleteAllStats();
+    
+    @Modifying
+    @Query(value = "INSERT INTO promotion_line_usage_stats " +
+        "(promotion_line_id, promotion_id, usage_count, total_discount, last_used_at) " +
+        "SELECT u.promotion_line_id, u.promotion_id, COUNT(*), COALESCE(SUM(u.discount_amount), 0), MAX(u.used_at) " +
+        "FROM promotion_usages u WHERE u.promotion_line_id IS NOT NULL " +
+        "GROUP BY u.promotion_line_id, u.promotion_id",
+        nativeQuery = true)
+    int rebuildFromUsages();
+}
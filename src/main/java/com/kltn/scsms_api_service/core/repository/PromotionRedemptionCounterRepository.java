@@ -0,0 +1,57 @@
+package com.kltn.scsms_api_service.core.repository;
+
+import com.kltn.scsms_api_service.core.entity.PromotionRedemptionCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PromotionRedemptionCounterRepository extends JpaRepository<PromotionRedemptionCounter, UUID> {
+    
+    /**
+     * Tăng bộ đếm nếu chưa chạm usage_limit hiện tại của promotion
+     * @return 1 nếu giữ được lượt, 0 nếu hết lượt hoặc bộ đếm chưa được tạo
+     */
+    @Modifying
+    @Query(value = "UPDATE promotion_redemption_counters c " +
+        "SET used_count = c.used_count + 1, updated_at = now() " +
+        "FROM promotions p " +
+        "WHERE c.promotion_id = :promotionId AND p.promotion_id = c.promotion_id " +
+        "AND (p.usage_limit IS NULL OR c.used_count < p.usage_limit)",
+        nativeQuery = true)
+    int tryIncrement(@Param("promotionId") UUID promotionId);
+    
+    @Modifying
+    @Query(value = "UPDATE promotion_redemption_counters " +
+        "SET used_count = GREATEST(used_count - 1, 0), updated_at = now() " +
+        "WHERE promotion_id = :promotionId",
+        nativeQuery = true)
+    int decrement(@Param("promotionId") UUID promotionId);
+    
+    /**
+     * Tạo bộ đếm lần đầu, khởi tạo từ số PromotionUsage đã có (chỉ chạy 1 lần cho mỗi promotion)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO promotion_redemption_counters (promotion_id, used_count, updated_at) " +
+        "SELECT :promotionId, COUNT(*), now() FROM promotion_usages u WHERE u.promotion_id = :promotionId " +
+        "ON CONFLICT (promotion_id) DO NOTHING",
+        nativeQuery = true)
+    int seedFromUsages(@Param("promotionId") UUID promotionId);
+    
+    /**
+     * KM đã chạm usage_limit; bộ đếm chưa được tạo thì đếm từ promotion_usages như lúc seed
+     */
+    @Query(value = "SELECT p.promotion_id FROM promotions p " +
+        "LEFT JOIN promotion_redemption_counters c ON c.promotion_id = p.promotion_id " +
+        "WHERE p.promotion_id IN (:promotionIds) AND p.usage_limit IS NOT NULL " +
+        "AND COALESCE(c.used_count, (SELECT COUNT(*) FROM promotion_usages u WHERE u.promotion_id = p.promotion_id)) " +
+        ">= p.usage_limit",
+        nativeQuery = true)
+    List<UUID> findExhausted(@Param("promotionIds") Collection<UUID> promotionIds);
+}
@@ -120,6 +120,19 @@ public interface PromotionRepository extends JpaRepository<Promotion, UUID>, Jpa
     @Query("SELECT COUNT(p) FROM Promotion p WHERE p.isDeleted = false AND p.isStackable = true")
     long getStackablePromotionsCount();
     
+    /**
+     * Tất cả số liệu thống kê ở trên trong 1 lần quét bảng (conditional aggregation)
+     * Thứ tự cột: total, active, visible, auto_apply, stackable
+     */
+    @Query(value = "SELECT COUNT(*) AS total, " +
+        "COUNT(*) FILTER (WHERE p.is_deleted = false) AS active, " +
+        "COUNT(*) FILTER (WHERE p.is_deleted = false AND p.is_active = true) AS visible, " +
+        "COUNT(*) FILTER (WHERE p.is_deleted = false AND p.is_active = true) AS auto_apply, " +
+        "COUNT(*) FILTER (WHERE p.is_deleted = false AND p.is_stackable = true) AS stackable " +
+        "FROM promotions p",
+        nativeQuery = true)
+    List<Object[]> getPromotionCounts();
+    
     /**
      * Get promotions by date range
      */
@@ -139,13 +152,15 @@ public interface PromotionRepository extends JpaRepository<Promotion, UUID>, Jpa
     /**
      * Get most used promotions
      */
-    @Query("SELECT p FROM Promotion p WHERE p.isDeleted = false ORDER BY SIZE(p.usages) DESC")
+    @Query("SELECT p FROM Promotion p LEFT JOIN PromotionUsageStats s ON s.promotionId = p.promotionId " +
+        "WHERE p.isDeleted = false ORDER BY COALESCE(s.usageCount, 0) DESC")
     List<Promotion> findMostUsedPromotions(Pageable pageable);
     
     /**
      * Get least used promotions
      */
-    @Query("SELECT p FROM Promotion p WHERE p.isDeleted = false ORDER BY SIZE(p.usages) ASC")
+    @Query("SELECT p FROM Promotion p LEFT JOIN PromotionUsageStats s ON s.promotionId = p.promotionId " +
+        "WHERE p.isDeleted = false ORDER BY COALESCE(s.usageCount, 0) ASC")
     List<Promotion> findLeastUsedPromotions(Pageable pageable);
     
     
@@ -3,8 +3,11 @@ package com.kltn.scsms_api_service.core.repository;
 import com.kltn.scsms_api_service.core.entity.PromotionUsage;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -15,4 +18,14 @@ public interface PromotionUsageRepository
   List<PromotionUsage> findByOrderId(UUID orderId);
 
   List<PromotionUsage> findByCustomer_UserId(UUID customerId);
+
+  /**
+   * Tổng hợp lượt dùng theo promotion trong khoảng thời gian (report có giới hạn ngày)
+   * Mỗi dòng: promotionId, usageCount, totalDiscount, lastUsedAt
+   */
+  @Query("SELECT u.promotion.promotionId, COUNT(u), COALESCE(SUM(u.discountAmount), 0), MAX(u.usedAt) " +
+      "FROM PromotionUsage u WHERE u.usedAt BETWEEN :fromDate AND :toDate " +
+      "GROUP BY u.promotion.promotionId")
+  List<Object[]> aggregateByPromotionBetween(@Param("fromDate") LocalDateTime fromDate,
+                                             @Param("toDate") LocalDateTime toDate);
 }
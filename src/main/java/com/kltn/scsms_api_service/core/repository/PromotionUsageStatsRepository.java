@@ -0,0 +1,55 @@
+package com.kltn.scsms_api_service.core.repository;
+
+import com.kltn.scsms_api_service.core.entity.PromotionUsageStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PromotionUsageStatsRepository extends JpaRepository<PromotionUsageStats, UUID> {
+    
+    List<PromotionUsageStats> findByPromotionIdIn(Collection<UUID> promotionIds);
+    
+    /**
+     * Cộng dồn 1 lượt dùng (upsert nguyên tử, không đọc trước)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO promotion_usage_stats (promotion_id, usage_count, total_discount, last_used_at) " +
+        "VALUES (:promotionId, 1, :discount, :usedAt) " +
+        "ON CONFLICT (promotion_id) DO UPDATE SET " +
+        "usage_count = promotion_usage_stats.usage_count + 1, " +
+        "total_discount = promotion_usage_stats.total_discount + EXCLUDED.total_discount, " +
+        "last_used_at = GREATEST(promotion_usage_stats.last_used_at, EXCLUDED.last_used_at)",
+        nativeQuery = true)
+    void increment(@Param("promotionId") UUID promotionId,
+                   @Param("discount") BigDecimal discount,
+                   @Param("usedAt") LocalDateTime usedAt);
+    
+    @Modifying
+    @Query(value = "DELETE FROM promotion_usage_stats", nativeQuery = true)
+    void deleteAllStats();
+    
+    /**
+     * Tính lại toàn bộ từ promotion_usages (backfill lần đầu)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO promotion_usage_stats (promotion_id, usage_count, total_discount, last_used_at) " +
+        "SELECT u.promotion_id, COUNT(*), COALESCE(SUM(u.discount_amount), 0), MAX(u.used_at) " +
+        "FROM promotion_usages u GROUP BY u.promotion_id",
+        nativeQuery = true)
+    int rebuildFromUsages();
+    
+    /**
+     * Khóa advisory theo transaction (tự nhả khi commit/rollback); false nếu node khác đang giữ
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryAdvisoryXactLock(@Param("lockKey") long lockKey);
+}
@@ -3,12 +3,16 @@ package com.kltn.scsms_api_service.core.repository;
 import com.kltn.scsms_api_service.core.entity.S3File;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.FileStatus;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.FileType;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface S3FileRepository extends JpaRepository<S3File, Long> {
@@ -26,6 +30,21 @@ public interface S3FileRepository extends JpaRepository<S3File, Long> {
     List<S3File> findActiveByEntity(@Param("entityType") String entityType,
                                     @Param("entityId") Long entityId);
     
+    /**
+     * Find pending direct upload by its token, locking the row until the finalize transaction ends
+     * (a concurrent finalize waits, then finds the token cleared and gets NOT_FOUND)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM S3File f WHERE f.uploadToken = :uploadToken")
+    Optional<S3File> findByUploadTokenForUpdate(@Param("uploadToken") String uploadToken);
+    
+    /**
+     * Find direct uploads that were never finalized
+     */
+    @Query("SELECT f FROM S3File f WHERE f.isTemporary = true AND f.status = 'PROCESSING' " +
+        "AND f.expiresAt < :currentTime ORDER BY f.expiresAt")
+    List<S3File> findExpiredPendingUploads(@Param("currentTime") LocalDateTime currentTime, Pageable pageable);
+    
     /**
      * Find all files by uploader
      */
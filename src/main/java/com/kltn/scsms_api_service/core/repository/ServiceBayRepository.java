@@ -152,4 +152,16 @@ public interface ServiceBayRepository extends JpaRepository<ServiceBay, UUID> {
      * Tìm service bays theo kỹ thuật viên
      */
     List<ServiceBay> findByTechniciansContaining(User technician);
+    
+    /**
+     * Lấy branchId của bay (không load entity)
+     */
+    @Query("SELECT b.branch.branchId FROM ServiceBay b WHERE b.bayId = :bayId")
+    Optional<UUID> findBranchIdByBayId(@Param("bayId") UUID bayId);
+    
+    /**
+     * Các chi nhánh có bay mà kỹ thuật viên được phân công
+     */
+    @Query("SELECT DISTINCT b.branch.branchId FROM ServiceBay b JOIN b.technicians t WHERE t.userId = :technicianId")
+    List<UUID> findBranchIdsByTechnicianId(@Param("technicianId") UUID technicianId);
 }
@@ -0,0 +1,50 @@
+package com.kltn.scsms_api_service.core.repository;
+
+import com.kltn.scsms_api_service.core.entity.ServiceDurationSketch;
+import com.kltn.scsms_api_service.core.entity.compositId.ServiceDurationSketchId;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ServiceDurationSketchRepository extends JpaRepository<ServiceDurationSketch, ServiceDurationSketchId> {
+    
+    /**
+     * Đọc theo lô cho ước lượng: truyền cả ALL trong vehicleTypeIds/branchIds để lấy luôn các phạm vi gộp
+     */
+    List<ServiceDurationSketch> findByServiceIdInAndVehicleTypeIdInAndBranchIdIn(Collection<UUID> serviceIds,
+                                                                                 Collection<UUID> vehicleTypeIds,
+                                                                                 Collection<UUID> branchIds);
+    
+    /**
+     * Tạo dòng rỗng nếu chưa có (2 node cùng tạo không lỗi), sau đó khóa dòng bằng findForUpdate
+     */
+    @Modifying
+    @Query(value = "INSERT INTO service_duration_sketches (service_id, vehicle_type_id, branch_id, sample_count, sum_minutes) " +
+        "VALUES (:serviceId, :vehicleTypeId, :branchId, 0, 0) " +
+        "ON CONFLICT (service_id, vehicle_type_id, branch_id) DO NOTHING",
+        nativeQuery = true)
+    void insertIfMissing(@Param("serviceId") UUID serviceId,
+                         @Param("vehicleTypeId") UUID vehicleTypeId,
+                         @Param("branchId") UUID branchId);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ServiceDurationSketch s " +
+        "WHERE s.serviceId = :serviceId AND s.vehicleTypeId = :vehicleTypeId AND s.branchId = :branchId")
+    Optional<ServiceDurationSketch> findForUpdate(@Param("serviceId") UUID serviceId,
+                                                  @Param("vehicleTypeId") UUID vehicleTypeId,
+                                                  @Param("branchId") UUID branchId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM service_duration_sketches", nativeQuery = true)
+    void deleteAllSketches();
+}
@@ -1,6 +1,7 @@
 package com.kltn.scsms_api_service.core.repository;
 
 import com.kltn.scsms_api_service.core.entity.ServiceProcessTracking;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -130,4 +131,21 @@ public interface ServiceProcessTrackingRepository extends JpaRepository<ServiceP
             "ORDER BY spt.createdDate DESC LIMIT 1")
     ServiceProcessTracking findLatestTrackingForBooking(@Param("bookingId") UUID bookingId);
 
+    /**
+     * Tracking thay đổi từ thời điểm since theo chi nhánh/bay/khách hàng (resync WebSocket), mới nhất trước
+     */
+    @Query("SELECT spt FROM ServiceProcessTracking spt JOIN FETCH spt.booking b JOIN FETCH spt.serviceStep " +
+            "WHERE b.branch.branchId = :branchId AND spt.modifiedDate >= :since ORDER BY spt.modifiedDate DESC")
+    List<ServiceProcessTracking> findChangedByBranch(@Param("branchId") UUID branchId,
+            @Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query("SELECT spt FROM ServiceProcessTracking spt JOIN FETCH spt.booking JOIN FETCH spt.serviceStep " +
+            "WHERE spt.bay.bayId = :bayId AND spt.modifiedDate >= :since ORDER BY spt.modifiedDate DESC")
+    List<ServiceProcessTracking> findChangedByBay(@Param("bayId") UUID bayId,
+            @Param("since") LocalDateTime since, Pageable pageable);
+
+    @Query("SELECT spt FROM ServiceProcessTracking spt JOIN FETCH spt.booking b JOIN FETCH spt.serviceStep " +
+            "WHERE b.customer.userId = :customerId AND spt.modifiedDate >= :since ORDER BY spt.modifiedDate DESC")
+    List<ServiceProcessTracking> findChangedByCustomer(@Param("customerId") UUID customerId,
+            @Param("since") LocalDateTime since, Pageable pageable);
 }
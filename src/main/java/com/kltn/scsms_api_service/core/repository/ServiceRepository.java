@@ -1,12 +1,15 @@
 package com.kltn.scsms_api_service.core.repository;
 
 import com.kltn.scsms_api_service.core.entity.Service;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -45,11 +48,31 @@ public interface ServiceRepository extends JpaRepository<Service, UUID>, JpaSpec
     
     // Search by name or description
     @Query("SELECT s FROM Service s WHERE " +
-           "(LOWER(s.serviceName) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-           "LOWER(s.description) LIKE LOWER(CONCAT('%', :keyword, '%'))) AND " +
+           "(s.serviceName ILIKE CONCAT('%', :keyword, '%') OR " +
+           "s.description ILIKE CONCAT('%', :keyword, '%')) AND " +
            "s.isActive = true")
     List<Service> searchByKeyword(@Param("keyword") String keyword);
     
+    @Query("SELECT s FROM Service s WHERE " +
+           "(s.serviceName ILIKE CONCAT('%', :keyword, '%') OR " +
+           "s.description ILIKE CONCAT('%', :keyword, '%')) AND " +
+           "s.isActive = true ORDER BY s.serviceName")
+    Page<Service> searchByKeyword(@Param("keyword") String keyword, Pageable pageable);
+    
+    // Tìm kiếm full-text có xếp hạng (xem ProductRepository.searchRanked)
+    @Query(value = "SELECT s.* FROM services s " +
+           "WHERE s.is_active = true AND s.is_deleted = false " +
+           "AND (s.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+           "  OR f_unaccent(lower(s.service_name)) LIKE '%' || f_unaccent(lower(:pattern)) || '%') " +
+           "ORDER BY ts_rank(s.search_vector, to_tsquery('simple', f_unaccent(:tsQuery))) " +
+           "  + f_similarity(f_unaccent(lower(s.service_name)), f_unaccent(lower(:pattern))) DESC, s.service_name",
+           countQuery = "SELECT count(*) FROM services s " +
+                   "WHERE s.is_active = true AND s.is_deleted = false " +
+                   "AND (s.search_vector @@ to_tsquery('simple', f_unaccent(:tsQuery)) " +
+                   "  OR f_unaccent(lower(s.service_name)) LIKE '%' || f_unaccent(lower(:pattern)) || '%')",
+           nativeQuery = true)
+    Page<Service> searchRanked(@Param("tsQuery") String tsQuery, @Param("pattern") String pattern, Pageable pageable);
+    
     
     // Count by category
     long countByCategoryCategoryId(UUID categoryId);
@@ -67,4 +90,8 @@ public interface ServiceRepository extends JpaRepository<Service, UUID>, JpaSpec
     @Query("SELECT AVG(s.estimatedDuration) FROM Service s WHERE s.serviceTypeId = :serviceTypeId AND s.isActive = true")
     Double getAverageDurationByServiceType(@Param("serviceTypeId") UUID serviceTypeId);
     
-}
\ No newline at end of file
+    // Cặp (serviceId, categoryId) của các dịch vụ thuộc các danh mục cho trước (PromotionEngine)
+    @Query("SELECT s.serviceId, s.category.categoryId FROM Service s WHERE s.category.categoryId IN :categoryIds")
+    List<Object[]> findServiceCategoryPairs(@Param("categoryIds") Collection<UUID> categoryIds);
+    
+}
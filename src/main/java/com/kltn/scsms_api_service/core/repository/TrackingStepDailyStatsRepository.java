@@ -0,0 +1,179 @@
+package com.kltn.scsms_api_service.core.repository;
+
+import com.kltn.scsms_api_service.core.entity.TrackingStepDailyStats;
+import com.kltn.scsms_api_service.core.entity.compositId.TrackingStepDailyStatsId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TrackingStepDailyStatsRepository extends JpaRepository<TrackingStepDailyStats, TrackingStepDailyStatsId> {
+
+    /**
+     * Thời gian thực tế/dự kiến của từng tracking COMPLETED (CTE dùng chung cho cộng dồn, trừ và tính lại)
+     * Dự kiến của 1 bước = estimated_duration của dịch vụ chia đều cho số bước trong quy trình (COUNT() OVER)
+     * Câu gọi nối thêm điều kiện rồi đóng ngoặc của CTE durations
+     */
+    String COMPLETED_STEP_DURATIONS =
+        "WITH step_estimates AS (" +
+        "SELECT ps.id AS step_id, ps.process_id, COUNT(*) OVER (PARTITION BY ps.process_id) AS step_count " +
+        "FROM service_process_step ps), " +
+        "durations AS (" +
+        "SELECT CAST(t.end_time AS date) AS stat_date, t.bay_id, t.service_step_id, se.process_id, sb.branch_id, " +
+        "t.end_time, CAST(ROUND(EXTRACT(EPOCH FROM (t.end_time - t.start_time))) AS bigint) AS actual_seconds, " +
+        "CAST(ROUND(s.estimated_duration * 60.0 / se.step_count) AS bigint) AS estimated_seconds " +
+        "FROM service_process_tracking t " +
+        "JOIN step_estimates se ON se.step_id = t.service_step_id " +
+        "JOIN service_bays sb ON sb.bay_id = t.bay_id " +
+        "LEFT JOIN services s ON s.service_id = t.car_service_id " +
+        "WHERE t.status = 'COMPLETED' AND t.start_time IS NOT NULL AND t.end_time >= t.start_time ";
+
+    String INSERT_AGGREGATED_DURATIONS =
+        "INSERT INTO tracking_step_daily_stats (stat_date, bay_id, service_step_id, process_id, branch_id, " +
+        "completed_count, total_actual_seconds, estimated_count, estimated_actual_seconds, total_estimated_seconds, " +
+        "overrun_count, last_completed_at) " +
+        "SELECT d.stat_date, d.bay_id, d.service_step_id, d.process_id, d.branch_id, COUNT(*), SUM(d.actual_seconds), " +
+        "COUNT(d.estimated_seconds), COALESCE(SUM(d.actual_seconds) FILTER (WHERE d.estimated_seconds IS NOT NULL), 0), " +
+        "COALESCE(SUM(d.estimated_seconds), 0), COUNT(*) FILTER (WHERE d.actual_seconds > d.estimated_seconds), " +
+        "MAX(d.end_time) " +
+        "FROM durations d GROUP BY d.stat_date, d.bay_id, d.service_step_id, d.process_id, d.branch_id ";
+
+    String STATS_RANGE_FILTER =
+        "WHERE d.stat_date BETWEEN :fromDate AND :toDate " +
+        "AND (CAST(:branchId AS uuid) IS NULL OR d.branch_id = CAST(:branchId AS uuid)) ";
+
+    /**
+     * Cộng dồn 1 tracking vừa hoàn thành (upsert nguyên tử, không đọc trước)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = COMPLETED_STEP_DURATIONS + "AND t.tracking_id = :trackingId) " +
+        INSERT_AGGREGATED_DURATIONS +
+        "ON CONFLICT (stat_date, bay_id, service_step_id) DO UPDATE SET " +
+        "process_id = EXCLUDED.process_id, branch_id = EXCLUDED.branch_id, " +
+        "completed_count = tracking_step_daily_stats.completed_count + EXCLUDED.completed_count, " +
+        "total_actual_seconds = tracking_step_daily_stats.total_actual_seconds + EXCLUDED.total_actual_seconds, " +
+        "estimated_count = tracking_step_daily_stats.estimated_count + EXCLUDED.estimated_count, " +
+        "estimated_actual_seconds = tracking_step_daily_stats.estimated_actual_seconds + EXCLUDED.estimated_actual_seconds, " +
+        "total_estimated_seconds = tracking_step_daily_stats.total_estimated_seconds + EXCLUDED.total_estimated_seconds, " +
+        "overrun_count = tracking_step_daily_stats.overrun_count + EXCLUDED.overrun_count, " +
+        "last_completed_at = GREATEST(tracking_step_daily_stats.last_completed_at, EXCLUDED.last_completed_at)",
+        nativeQuery = true)
+    int recordCompletion(@Param("trackingId") UUID trackingId);
+
+    /**
+     * Trừ 1 tracking COMPLETED khỏi số liệu (trước khi xóa hoặc đưa tracking về trạng thái khác)
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = COMPLETED_STEP_DURATIONS + "AND t.tracking_id = :trackingId) " +
+        "UPDATE tracking_step_daily_stats st SET " +
+        "completed_count = GREATEST(st.completed_count - 1, 0), " +
+        "total_actual_seconds = GREATEST(st.total_actual_seconds - d.actual_seconds, 0), " +
+        "estimated_count = GREATEST(st.estimated_count - CASE WHEN d.estimated_seconds IS NULL THEN 0 ELSE 1 END, 0), " +
+        "estimated_actual_seconds = GREATEST(st.estimated_actual_seconds " +
+        "- CASE WHEN d.estimated_seconds IS NULL THEN 0 ELSE d.actual_seconds END, 0), " +
+        "total_estimated_seconds = GREATEST(st.total_estimated_seconds - COALESCE(d.estimated_seconds, 0), 0), " +
+        "overrun_count = GREATEST(st.overrun_count - CASE WHEN d.actual_seconds > d.estimated_seconds THEN 1 ELSE 0 END, 0) " +
+        "FROM durations d " +
+        "WHERE st.stat_date = d.stat_date AND st.bay_id = d.bay_id AND st.service_step_id = d.service_step_id",
+        nativeQuery = true)
+    int removeCompletion(@Param("trackingId") UUID trackingId);
+
+    @Modifying
+    @Query(value = "DELETE FROM tracking_step_daily_stats", nativeQuery = true)
+    void deleteAllStats();
+
+    /**
+     * Tính lại toàn bộ từ service_process_tracking (backfill lần đầu / sau khi sửa thời gian dự kiến của dịch vụ)
+     */
+    @Modifying
+    @Query(value = COMPLETED_STEP_DURATIONS + ") " + INSERT_AGGREGATED_DURATIONS, nativeQuery = true)
+    int rebuildFromTrackings();
+
+    /**
+     * Tổng hợp theo bước trong khoảng ngày, xếp theo tổng thời gian vượt dự kiến (bước nghẽn trước)
+     * Mỗi dòng: stepId, stepName, stepOrder, processId, completedCount, totalActualSeconds, estimatedCount,
+     * estimatedActualSeconds, totalEstimatedSeconds, overrunCount, shareOfProcessTime, rankInProcess
+     */
+    @Query(value = "SELECT d.service_step_id, ps.name, ps.step_order, d.process_id, SUM(d.completed_count), " +
+        "SUM(d.total_actual_seconds), SUM(d.estimated_count), SUM(d.estimated_actual_seconds), " +
+        "SUM(d.total_estimated_seconds), SUM(d.overrun_count), " +
+        "SUM(d.total_actual_seconds) * 1.0 / NULLIF(SUM(SUM(d.total_actual_seconds)) OVER (PARTITION BY d.process_id), 0), " +
+        "RANK() OVER (PARTITION BY d.process_id " +
+        "ORDER BY SUM(d.total_actual_seconds) * 1.0 / NULLIF(SUM(d.completed_count), 0) DESC NULLS LAST) " +
+        "FROM tracking_step_daily_stats d " +
+        "JOIN service_process_step ps ON ps.id = d.service_step_id " +
+        STATS_RANGE_FILTER +
+        "GROUP BY d.service_step_id, ps.name, ps.step_order, d.process_id " +
+        "HAVING SUM(d.completed_count) > 0 " +
+        "ORDER BY SUM(d.estimated_actual_seconds) - SUM(d.total_estimated_seconds) DESC, SUM(d.total_actual_seconds) DESC " +
+        "LIMIT :limit",
+        nativeQuery = true)
+    List<Object[]> aggregateBySteps(@Param("branchId") UUID branchId,
+                                    @Param("fromDate") LocalDate fromDate,
+                                    @Param("toDate") LocalDate toDate,
+                                    @Param("limit") int limit);
+
+    /**
+     * Tổng hợp theo bay trong khoảng ngày
+     * Mỗi dòng: bayId, bayName, branchId, workingDaySeconds, completedCount, totalActualSeconds, estimatedCount,
+     * estimatedActualSeconds, totalEstimatedSeconds, overrunCount, throughputRank
+     */
+    @Query(value = "SELECT d.bay_id, sb.bay_name, sb.branch_id, " +
+        "COALESCE(EXTRACT(EPOCH FROM (sb.working_hours_end - sb.working_hours_start)), 0), SUM(d.completed_count), " +
+        "SUM(d.total_actual_seconds), SUM(d.estimated_count), SUM(d.estimated_actual_seconds), " +
+        "SUM(d.total_estimated_seconds), SUM(d.overrun_count), " +
+        "RANK() OVER (ORDER BY SUM(d.completed_count) DESC) " +
+        "FROM tracking_step_daily_stats d " +
+        "JOIN service_bays sb ON sb.bay_id = d.bay_id " +
+        STATS_RANGE_FILTER +
+        "GROUP BY d.bay_id, sb.bay_name, sb.branch_id, sb.working_hours_start, sb.working_hours_end " +
+        "ORDER BY SUM(d.total_actual_seconds) DESC",
+        nativeQuery = true)
+    List<Object[]> aggregateByBays(@Param("branchId") UUID branchId,
+                                   @Param("fromDate") LocalDate fromDate,
+                                   @Param("toDate") LocalDate toDate);
+
+    /**
+     * Tổng hợp theo kỹ thuật viên qua các bay được phân công (service_bay_technicians)
+     * Mỗi dòng: technicianId, fullName, bayCount, completedCount, totalActualSeconds, estimatedCount,
+     * estimatedActualSeconds, totalEstimatedSeconds, overrunCount, efficiencyRank
+     */
+    @Query(value = "SELECT u.user_id, u.full_name, COUNT(DISTINCT d.bay_id), SUM(d.completed_count), " +
+        "SUM(d.total_actual_seconds), SUM(d.estimated_count), SUM(d.estimated_actual_seconds), " +
+        "SUM(d.total_estimated_seconds), SUM(d.overrun_count), " +
+        "RANK() OVER (ORDER BY SUM(d.total_estimated_seconds) * 1.0 / NULLIF(SUM(d.estimated_actual_seconds), 0) " +
+        "DESC NULLS LAST) " +
+        "FROM tracking_step_daily_stats d " +
+        "JOIN service_bay_technicians sbt ON sbt.bay_id = d.bay_id " +
+        "JOIN users u ON u.user_id = sbt.technician_id " +
+        STATS_RANGE_FILTER +
+        "AND (CAST(:technicianId AS uuid) IS NULL OR u.user_id = CAST(:technicianId AS uuid)) " +
+        "GROUP BY u.user_id, u.full_name " +
+        "ORDER BY SUM(d.completed_count) DESC",
+        nativeQuery = true)
+    List<Object[]> aggregateByTechnicians(@Param("branchId") UUID branchId,
+                                          @Param("technicianId") UUID technicianId,
+                                          @Param("fromDate") LocalDate fromDate,
+                                          @Param("toDate") LocalDate toDate);
+
+    /**
+     * Số bước hoàn thành theo ngày + trung bình trượt 7 ngày có dữ liệu
+     * Mỗi dòng: statDate, completedCount, totalActualSeconds, movingAverageCompleted
+     */
+    @Query(value = "SELECT d.stat_date, SUM(d.completed_count), SUM(d.total_actual_seconds), " +
+        "AVG(SUM(d.completed_count)) OVER (ORDER BY d.stat_date ROWS BETWEEN 6 PRECEDING AND CURRENT ROW) " +
+        "FROM tracking_step_daily_stats d " +
+        STATS_RANGE_FILTER +
+        "GROUP BY d.stat_date " +
+        "ORDER BY d.stat_date",
+        nativeQuery = true)
+    List<Object[]> aggregateByDay(@Param("branchId") UUID branchId,
+                                  @Param("fromDate") LocalDate fromDate,
+                                  @Param("toDate") LocalDate toDate);
+}
@@ -14,6 +14,7 @@ import com.kltn.scsms_api_service.core.dto.vehicleManagement.param.VehicleProfil
 import com.kltn.scsms_api_service.core.dto.bookingSchedule.AvailableTimeRangesResponse;
 import com.kltn.scsms_api_service.core.dto.bookingSchedule.TimeRangeDto;
 import com.kltn.scsms_api_service.core.dto.bookingSchedule.WorkingHoursDto;
+import com.kltn.scsms_api_service.core.dto.branchManagement.BranchFlatDto;
 import com.kltn.scsms_api_service.core.dto.branchServiceFilter.BranchServiceFilterResult;
 import com.kltn.scsms_api_service.core.dto.branchServiceFilter.ServiceAvailabilityInfo;
 import com.kltn.scsms_api_service.core.entity.Service;
@@ -67,6 +68,10 @@ public class AiBookingAssistantService {
     private static final LocalTime DEFAULT_WORKING_HOURS_START = LocalTime.of(8, 0);
     private static final LocalTime DEFAULT_WORKING_HOURS_END = LocalTime.of(18, 0);
 
+    // Số kết quả tối đa và ngưỡng tương đối khi tìm dịch vụ theo keyword
+    private static final int MAX_SERVICE_MATCHES = 10;
+    private static final double SERVICE_MATCH_RELATIVE_CUTOFF = 0.75;
+
     private final BookingTimeRangeService bookingTimeRangeService;
 
     /**
@@ -88,6 +93,7 @@ public class AiBookingAssistantService {
     private final BranchService branchService;
     private final PricingBusinessService pricingBusinessService;
     private final BookingPricingService bookingPricingService;
+    private final AssistantSearchIndex assistantSearchIndex;
 
 
     public AvailabilityResponse checkAvailability(AvailabilityRequest request) {
@@ -122,7 +128,7 @@ public class AiBookingAssistantService {
             Service service = null;
             if (request.getServiceType() != null && !request.getServiceType().trim().isEmpty()) {
                 // Tìm services theo keyword trước
-                List<Service> foundServices = serviceService.searchByKeyword(request.getServiceType());
+                List<Service> foundServices = searchServicesByKeyword(request.getServiceType());
 
                 if (foundServices.isEmpty()) {
                     // Không tìm thấy service nào
@@ -310,7 +316,7 @@ public class AiBookingAssistantService {
                                     parsedBranchId, request.getBranchName());
 
                             // Lấy danh sách tất cả branches để gợi ý
-                            List<Branch> allBranches = branchService.findAllActiveBranches();
+                            List<BranchFlatDto> allBranches = branchService.findAllActiveBranchSummaries();
                             String branchList = allBranches.stream()
                                     .map(b -> String.format("- %s (ID: %s)", b.getBranchName(), b.getBranchId()))
                                     .collect(Collectors.joining("\n"));
@@ -1106,90 +1112,52 @@ public class AiBookingAssistantService {
     }
 
     /**
-     * Tìm branch theo tên hoặc địa chỉ với logic matching linh hoạt
-     * Hỗ trợ các trường hợp:
-     * - Exact match trên branch name
-     * - Substring match trên branch name
-     * - Substring match trên address
-     * - Keyword matching (ví dụ: "Premium" từ "Premium - 416 Thảo Điền")
+     * Tìm branch theo tên hoặc địa chỉ bằng AssistantSearchIndex
+     * - So khớp không dấu, theo trigram → chịu được gõ thiếu dấu/sai chính tả
+     * - Một lần tra cứu có xếp hạng trên tên, mã và địa chỉ chi nhánh
+     * - Chỉ load entity của kết quả khớp nhất
      */
     public Branch findBranchByNameOrAddress(String searchString) {
         if (searchString == null || searchString.trim().isEmpty()) {
             return null;
         }
 
-        String searchLower = searchString.toLowerCase().trim();
-        List<Branch> allBranches = branchService.findAllActiveBranches();
-
-        // 1. Thử exact match trên branch name
-        Optional<Branch> exactMatch = allBranches.stream()
-                .filter(b -> b.getBranchName() != null
-                        && b.getBranchName().equalsIgnoreCase(searchString))
-                .findFirst();
-        if (exactMatch.isPresent()) {
-            return exactMatch.get();
-        }
+        return assistantSearchIndex.findBest(AssistantSearchIndex.Kind.BRANCH, searchString.trim())
+                .flatMap(match -> {
+                    log.debug("Branch match for '{}': {} (score={})", searchString, match.name(), match.score());
+                    return branchService.findById(match.id());
+                })
+                .filter(b -> Boolean.TRUE.equals(b.getIsActive()) && !Boolean.TRUE.equals(b.getIsDeleted()))
+                .orElse(null);
+    }
 
-        // 2. Thử substring match trên branch name
-        Optional<Branch> nameContains = allBranches.stream()
-                .filter(b -> b.getBranchName() != null
-                        && b.getBranchName().toLowerCase().contains(searchLower))
-                .findFirst();
-        if (nameContains.isPresent()) {
-            return nameContains.get();
+    /**
+     * Tìm services theo keyword bằng AssistantSearchIndex, kết quả đã xếp hạng (khớp nhất trước)
+     * Chỉ giữ các kết quả có điểm gần với kết quả tốt nhất để tránh gợi ý lan man
+     */
+    public List<Service> searchServicesByKeyword(String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return List.of();
         }
 
-        // 3. Thử substring match trên address
-        Optional<Branch> addressContains = allBranches.stream()
-                .filter(b -> b.getAddress() != null
-                        && b.getAddress().toLowerCase().contains(searchLower))
-                .findFirst();
-        if (addressContains.isPresent()) {
-            return addressContains.get();
+        List<AssistantSearchIndex.Match> matches = assistantSearchIndex.search(
+                AssistantSearchIndex.Kind.SERVICE, keyword.trim(), MAX_SERVICE_MATCHES);
+        if (matches.isEmpty()) {
+            return List.of();
         }
 
-        // 4. Thử keyword matching: tách searchString thành các từ và tìm branch có tên hoặc địa chỉ chứa từ đó
-        String[] keywords = searchLower.split("[\\s-]+");
-        for (String keyword : keywords) {
-            if (keyword.length() < 2) { // Bỏ qua từ quá ngắn
-                continue;
-            }
-
-            // Tìm branch có tên chứa keyword
-            Optional<Branch> keywordMatch = allBranches.stream()
-                    .filter(b -> {
-                        boolean nameMatch = b.getBranchName() != null
-                                && b.getBranchName().toLowerCase().contains(keyword);
-                        boolean addressMatch = b.getAddress() != null
-                                && b.getAddress().toLowerCase().contains(keyword);
-                        return nameMatch || addressMatch;
-                    })
-                    .findFirst();
-            if (keywordMatch.isPresent()) {
-                return keywordMatch.get();
-            }
-        }
-
-        // 5. Thử reverse matching: kiểm tra xem branch name có chứa trong searchString không
-        Optional<Branch> reverseMatch = allBranches.stream()
-                .filter(b -> {
-                    if (b.getBranchName() == null) {
-                        return false;
-                    }
-                    String branchNameLower = b.getBranchName().toLowerCase();
-                    // Loại bỏ "Chi nhánh" prefix nếu có
-                    String branchNameWithoutPrefix = branchNameLower
-                            .replaceFirst("^chi nhánh\\s+", "")
-                            .trim();
-                    return searchLower.contains(branchNameWithoutPrefix)
-                            || searchLower.contains(branchNameLower);
-                })
-                .findFirst();
-        if (reverseMatch.isPresent()) {
-            return reverseMatch.get();
-        }
+        double cutoff = matches.get(0).score() * SERVICE_MATCH_RELATIVE_CUTOFF;
+        List<UUID> rankedIds = matches.stream()
+                .filter(m -> m.score() >= cutoff)
+                .map(AssistantSearchIndex.Match::id)
+                .collect(Collectors.toList());
 
-        return null;
+        Map<UUID, Service> servicesById = serviceService.findAllByIds(rankedIds).stream()
+                .collect(Collectors.toMap(Service::getServiceId, s -> s));
+        return rankedIds.stream()
+                .map(servicesById::get)
+                .filter(s -> s != null && Boolean.TRUE.equals(s.getIsActive()))
+                .collect(Collectors.toList());
     }
 
     /**
@@ -1206,7 +1174,7 @@ public class AiBookingAssistantService {
             return serviceService.findById(serviceId).orElse(null);
         } catch (IllegalArgumentException e) {
             // Không phải UUID, tìm theo tên bằng searchByKeyword
-            List<Service> services = serviceService.searchByKeyword(serviceType);
+            List<Service> services = searchServicesByKeyword(serviceType);
             // Tìm exact match trước
             for (Service s : services) {
                 if (s.getServiceName().equalsIgnoreCase(serviceType)) {
@@ -1807,7 +1775,7 @@ public class AiBookingAssistantService {
             // 9. Tính tổng giá từ bảng giá
             BigDecimal totalPrice;
             try {
-                totalPrice = bookingPricingService.calculateBookingTotalPrice(bookingItems, null);
+                totalPrice = bookingPricingService.calculateBookingTotalPrice(bookingItems, branchId, null);
                 log.info("Calculated total price for booking: {} VND ({} services)", totalPrice, bookingItems.size());
             } catch (Exception e) {
                 log.error("Error calculating booking total price: {}", e.getMessage(), e);
@@ -2306,7 +2274,7 @@ public class AiBookingAssistantService {
 
         try {
             // Lấy danh sách tất cả chi nhánh đang hoạt động
-            List<Branch> branches = branchService.findAllActiveBranches();
+            List<BranchFlatDto> branches = branchService.findAllActiveBranchSummaries();
 
             log.info("Found {} active branches", branches.size());
 
@@ -2383,7 +2351,7 @@ public class AiBookingAssistantService {
                 log.info("No keyword provided, returning all {} active services", foundServices.size());
             } else {
                 // Có keyword → Tìm theo keyword
-                foundServices = serviceService.searchByKeyword(request.getKeyword().trim());
+                foundServices = searchServicesByKeyword(request.getKeyword().trim());
                 log.info("Searching services by keyword '{}', found {} services",
                         request.getKeyword(), foundServices.size());
             }
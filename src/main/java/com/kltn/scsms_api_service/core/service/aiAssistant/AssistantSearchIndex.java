@@ -0,0 +1,319 @@
+package com.kltn.scsms_api_service.core.service.aiAssistant;
+
+import com.kltn.scsms_api_service.core.entity.Branch;
+import com.kltn.scsms_api_service.core.entity.Service;
+import com.kltn.scsms_api_service.core.service.entityService.BranchService;
+import com.kltn.scsms_api_service.core.service.entityService.ServiceService;
+import com.kltn.scsms_api_service.core.utils.VietnameseTextNormalizer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory search index cho AI assistant: chi nhánh, dịch vụ
+ * - Text được bỏ dấu tiếng Việt, tách token và index theo trigram (inverted index trigram → ids)
+ * - Một lần tra cứu = gom candidate từ posting list + chấm điểm, thay cho nhiều lượt quét contains()
+ * - Cập nhật từng document khi entity thay đổi (qua AssistantSearchIndexListener, sau khi commit)
+ */
+@org.springframework.stereotype.Service
+@RequiredArgsConstructor
+@Slf4j
+public class AssistantSearchIndex {
+
+    /** Điểm tối thiểu để coi là khớp */
+    public static final double MIN_SCORE = 0.35;
+
+    // Token xuất hiện ở gần như mọi tên → bỏ khi chấm điểm để không làm loãng kết quả
+    private static final Set<String> STOP_TOKENS = Set.of("chi", "nhanh", "cn", "dich", "vu");
+
+    public enum Kind {
+        BRANCH, SERVICE
+    }
+
+    /**
+     * Kết quả tìm kiếm đã xếp hạng
+     */
+    public record Match(UUID id, String name, double score) {
+    }
+
+    private final BranchService branchService;
+    private final ServiceService serviceService;
+
+    private final Map<Kind, KindIndex> indexes = initIndexes();
+
+    private static Map<Kind, KindIndex> initIndexes() {
+        Map<Kind, KindIndex> map = new ConcurrentHashMap<>();
+        for (Kind kind : Kind.values()) {
+            map.put(kind, new KindIndex());
+        }
+        return map;
+    }
+
+    /**
+     * Build toàn bộ index khi ứng dụng sẵn sàng, và rebuild định kỳ mỗi đêm
+     * để tự sửa các thay đổi không đi qua JPA (bulk update, sửa tay trong DB)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "0 0 3 * * *")
+    @Transactional(readOnly = true)
+    public void rebuildAll() {
+        long start = System.currentTimeMillis();
+        try {
+            KindIndex branches = new KindIndex();
+            for (Branch branch : branchService.findAllActiveBranches()) {
+                branches.put(toDocument(branch));
+            }
+
+            KindIndex services = new KindIndex();
+            for (Service service : serviceService.findAll()) {
+                if (isActive(service.getIsActive(), service.getIsDeleted())) {
+                    services.put(toDocument(service));
+                }
+            }
+
+            indexes.put(Kind.BRANCH, branches);
+            indexes.put(Kind.SERVICE, services);
+
+            log.info("Assistant search index rebuilt in {} ms: branches={}, services={}",
+                    System.currentTimeMillis() - start, branches.size(), services.size());
+        } catch (Exception e) {
+            log.error("Error rebuilding assistant search index: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tìm kiếm có xếp hạng, chỉ trả về kết quả có score >= MIN_SCORE
+     */
+    public List<Match> search(Kind kind, String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        return indexes.get(kind).search(query, limit);
+    }
+
+    /**
+     * Kết quả khớp nhất (nếu có)
+     */
+    public Optional<Match> findBest(Kind kind, String query) {
+        List<Match> matches = search(kind, query, 1);
+        return matches.isEmpty() ? Optional.empty() : Optional.of(matches.get(0));
+    }
+
+    /**
+     * Cập nhật index cho entity vừa được lưu/xóa
+     * Nếu đang trong transaction → áp dụng sau khi commit để không index dữ liệu bị rollback
+     */
+    public void onEntityChanged(Object entity, boolean removed) {
+        Runnable update = () -> applyChange(entity, removed);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private void applyChange(Object entity, boolean removed) {
+        try {
+            if (entity instanceof Branch branch) {
+                upsertOrRemove(Kind.BRANCH, branch.getBranchId(), toDocument(branch),
+                        !removed && isActive(branch.getIsActive(), branch.getIsDeleted()));
+            } else if (entity instanceof Service service) {
+                upsertOrRemove(Kind.SERVICE, service.getServiceId(), toDocument(service),
+                        !removed && isActive(service.getIsActive(), service.getIsDeleted()));
+            }
+        } catch (Exception e) {
+            log.warn("Could not update assistant search index for {}: {}", entity.getClass().getSimpleName(), e.getMessage());
+        }
+    }
+
+    private void upsertOrRemove(Kind kind, UUID id, Document document, boolean keep) {
+        if (id == null) {
+            return;
+        }
+        if (keep) {
+            indexes.get(kind).put(document);
+        } else {
+            indexes.get(kind).remove(id);
+        }
+    }
+
+    private static boolean isActive(Boolean isActive, Boolean isDeleted) {
+        return Boolean.TRUE.equals(isActive) && !Boolean.TRUE.equals(isDeleted);
+    }
+
+    private static Document toDocument(Branch branch) {
+        return Document.of(branch.getBranchId(), branch.getBranchName(),
+                branch.getBranchName() + " " + nullToEmpty(branch.getBranchCode()),
+                branch.getAddress());
+    }
+
+    private static Document toDocument(Service service) {
+        return Document.of(service.getServiceId(), service.getServiceName(),
+                service.getServiceName(), service.getDescription());
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+
+    /**
+     * Trigram của text, bỏ các token chung chung; nếu bỏ hết thì giữ nguyên
+     */
+    private static Set<String> significantTrigrams(String text) {
+        List<String> tokens = VietnameseTextNormalizer.tokenize(text);
+        List<String> kept = tokens.stream().filter(t -> !STOP_TOKENS.contains(t)).toList();
+        return VietnameseTextNormalizer.trigrams(String.join(" ", kept.isEmpty() ? tokens : kept));
+    }
+
+    /**
+     * Document đã chuẩn hóa - immutable
+     */
+    private record Document(UUID id, String displayName, String foldedName,
+                            Set<String> primaryTrigrams, Set<String> secondaryTrigrams) {
+
+        static Document of(UUID id, String displayName, String primaryText, String secondaryText) {
+            return new Document(id, displayName,
+                    VietnameseTextNormalizer.fold(displayName),
+                    significantTrigrams(primaryText),
+                    significantTrigrams(secondaryText));
+        }
+
+        Set<String> allTrigrams() {
+            Set<String> all = new HashSet<>(primaryTrigrams);
+            all.addAll(secondaryTrigrams);
+            return all;
+        }
+    }
+
+    /**
+     * Index của một loại entity: documents + inverted index trigram → ids
+     */
+    private static final class KindIndex {
+
+        private final Map<UUID, Document> documents = new ConcurrentHashMap<>();
+        private final Map<String, Set<UUID>> postings = new ConcurrentHashMap<>();
+
+        int size() {
+            return documents.size();
+        }
+
+        synchronized void put(Document document) {
+            remove(document.id());
+            documents.put(document.id(), document);
+            for (String trigram : document.allTrigrams()) {
+                postings.computeIfAbsent(trigram, k -> ConcurrentHashMap.newKeySet()).add(document.id());
+            }
+        }
+
+        synchronized void remove(UUID id) {
+            Document previous = documents.remove(id);
+            if (previous == null) {
+                return;
+            }
+            for (String trigram : previous.allTrigrams()) {
+                Set<UUID> ids = postings.get(trigram);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(trigram);
+                    }
+                }
+            }
+        }
+
+        List<Match> search(String query, int limit) {
+            String foldedQuery = VietnameseTextNormalizer.fold(query);
+            Set<String> queryTrigrams = significantTrigrams(query);
+            if (foldedQuery.isEmpty() || queryTrigrams.isEmpty()) {
+                return List.of();
+            }
+
+            // Gom candidate: chỉ các document có chung ít nhất 1 trigram với query
+            Set<UUID> candidates = new HashSet<>();
+            for (String trigram : queryTrigrams) {
+                Set<UUID> ids = postings.get(trigram);
+                if (ids != null) {
+                    candidates.addAll(ids);
+                }
+            }
+
+            List<Match> matches = new ArrayList<>();
+            for (UUID id : candidates) {
+                Document document = documents.get(id);
+                if (document == null) {
+                    continue;
+                }
+                double score = score(foldedQuery, queryTrigrams, document);
+                if (score >= MIN_SCORE) {
+                    matches.add(new Match(id, document.displayName(), score));
+                }
+            }
+
+            matches.sort(Comparator.comparingDouble(Match::score).reversed()
+                    .thenComparing(Match::name, Comparator.nullsLast(Comparator.naturalOrder())));
+            return matches.size() > limit ? List.copyOf(matches.subList(0, limit)) : matches;
+        }
+
+        private static double score(String foldedQuery, Set<String> queryTrigrams, Document document) {
+            // Khớp chính xác tên (sau khi bỏ dấu)
+            if (document.foldedName().equals(foldedQuery)) {
+                return 1.0;
+            }
+
+            int sharedPrimary = countShared(queryTrigrams, document.primaryTrigrams());
+            int sharedSecondary = countShared(queryTrigrams, document.secondaryTrigrams());
+
+            // Tên: Dice similarity, hoặc tên nằm trọn trong câu của user ("đặt ở Thảo Điền giúp mình")
+            double dice = document.primaryTrigrams().isEmpty() ? 0.0
+                    : 2.0 * sharedPrimary / (queryTrigrams.size() + document.primaryTrigrams().size());
+            double nameInQuery = document.primaryTrigrams().isEmpty() ? 0.0
+                    : 0.9 * sharedPrimary / document.primaryTrigrams().size();
+            double queryInName = 0.9 * sharedPrimary / queryTrigrams.size();
+
+            // Địa chỉ/mô tả: query nằm trong text dài → dùng containment, trọng số thấp hơn tên
+            double queryInSecondary = 0.85 * sharedSecondary / queryTrigrams.size();
+
+            double score = Math.max(Math.max(dice, nameInQuery), Math.max(queryInName, queryInSecondary));
+
+            // Chuỗi con liên tục trên tên được ưu tiên hơn khớp rời rạc
+            if (!document.foldedName().isEmpty()
+                    && (document.foldedName().contains(foldedQuery) || foldedQuery.contains(document.foldedName()))) {
+                score = Math.max(score, 0.95);
+            }
+            return Math.min(score, 0.99);
+        }
+
+        private static int countShared(Set<String> queryTrigrams, Set<String> documentTrigrams) {
+            if (documentTrigrams.isEmpty()) {
+                return 0;
+            }
+            int shared = 0;
+            for (String trigram : queryTrigrams) {
+                if (documentTrigrams.contains(trigram)) {
+                    shared++;
+                }
+            }
+            return shared;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.kltn.scsms_api_service.core.service.aiAssistant;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener giữ AssistantSearchIndex đồng bộ với Branch, Service
+ * Index được resolve lười qua ObjectProvider vì listener được Hibernate tạo trước khi repositories sẵn sàng
+ */
+@Component
+public class AssistantSearchIndexListener {
+
+    private final ObjectProvider<AssistantSearchIndex> searchIndexProvider;
+
+    public AssistantSearchIndexListener(ObjectProvider<AssistantSearchIndex> searchIndexProvider) {
+        this.searchIndexProvider = searchIndexProvider;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Object entity) {
+        searchIndexProvider.ifAvailable(index -> index.onEntityChanged(entity, false));
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        searchIndexProvider.ifAvailable(index -> index.onEntityChanged(entity, true));
+    }
+}
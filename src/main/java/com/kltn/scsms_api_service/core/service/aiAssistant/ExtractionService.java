@@ -12,14 +12,12 @@ import com.kltn.scsms_api_service.core.dto.aiAssistant.response.AvailabilityResp
 import com.kltn.scsms_api_service.core.utils.DraftContextHolder;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.model.ChatModel;
 import org.springframework.ai.chat.model.ChatResponse;
-import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -33,14 +31,27 @@ import java.util.regex.Pattern;
 @Slf4j
 public class ExtractionService {
 
-    private final ChatModel chatModel;
+    private final ChatClient extractionChatClient;
     private final ObjectMapper objectMapper;
+    private final PromptTemplateEngine promptTemplateEngine;
+    private final LlmGateway llmGateway;
 
     public ExtractionService(
-            ChatModel chatModel,
-            ObjectMapper objectMapper) {
-        this.chatModel = chatModel;
+            @Qualifier("extractionChatClient") ChatClient extractionChatClient,
+            ObjectMapper objectMapper,
+            PromptTemplateEngine promptTemplateEngine,
+            LlmGateway llmGateway) {
+        this.extractionChatClient = extractionChatClient;
         this.objectMapper = objectMapper;
+        this.promptTemplateEngine = promptTemplateEngine;
+        this.llmGateway = llmGateway;
+    }
+
+    /**
+     * AI extraction đang dùng được (circuit của model extraction không mở)
+     */
+    public boolean isAiExtractionAvailable() {
+        return llmGateway.isAvailable(LlmGateway.EXTRACTION_MODEL);
     }
 
     /**
@@ -76,31 +87,20 @@ public class ExtractionService {
         }
 
         try {
-            // Step 1: Build extraction prompt với JSON schema rõ ràng
+            // Step 1: Build extraction prompt
+            // System = phần tĩnh đã compile sẵn (hướng dẫn + JSON schema) → prefix giống nhau giữa các call
+            // User = thời gian hiện tại + context của request
             String extractionPrompt = buildExtractionPrompt(request);
 
             // Step 2: Call AI để extract
-            // Tạo ChatClient riêng cho extraction (không có functions)
-            // KHÔNG có functions → AI sẽ không tự gọi functions, chỉ trả về JSON
-            ChatClient extractionClient = ChatClient.builder(chatModel)
-                    .defaultAdvisors(new org.springframework.ai.chat.client.advisor.SimpleLoggerAdvisor())
-                    // KHÔNG có defaultFunctions - AI sẽ không tự gọi functions
-                    .build();
-            
-            // Set options: Lower temperature cho extraction chính xác hơn
-            // Note: Prompt đã được cải thiện để yêu cầu JSON format rõ ràng
-            // Nếu Spring AI M5 hỗ trợ response_format, có thể thêm sau
-            // Note: withTemperature() deprecated in M5, using default temperature
-            OpenAiChatOptions options = OpenAiChatOptions.builder()
-                    // Temperature sẽ dùng default từ application.yml (0.7)
-                    // Có thể override trong application.yml nếu cần
-                    .build();
-            
-            ChatResponse aiResponse = extractionClient.prompt()
+            // Dùng extractionChatClient bean (không có functions) → AI chỉ trả về JSON
+            // Temperature dùng default từ application.yml
+            // Đi qua LlmGateway: giới hạn concurrency, deadline, hedging, circuit breaker
+            ChatResponse aiResponse = llmGateway.call(LlmGateway.EXTRACTION_MODEL, () -> extractionChatClient.prompt()
+                    .system(promptTemplateEngine.getExtractionPromptStatic())
                     .user(extractionPrompt)
-                    .options(options)
                     .call()
-                    .chatResponse();
+                    .chatResponse());
 
             String aiResponseText = aiResponse.getResult().getOutput().getContent();
             log.info("AI extraction response (raw): {}", aiResponseText);
@@ -134,24 +134,14 @@ public class ExtractionService {
     }
 
     /**
-     * Build extraction prompt cho AI
+     * Build phần dynamic của extraction prompt cho AI
+     * Phần tĩnh (hướng dẫn, JSON schema, rules) nằm trong PromptTemplateEngine và được gửi qua system message
      */
     private String buildExtractionPrompt(ExtractSelectionRequest request) {
-        StringBuilder prompt = new StringBuilder();
+        StringBuilder prompt = new StringBuilder(1024);
         
         // CRITICAL: Thêm current date context để AI biết "ngày mai", "hôm nay" là ngày nào
-        LocalDate today = LocalDate.now();
-        LocalDateTime now = LocalDateTime.now();
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
-        
-        prompt.append("Bạn là AI assistant chuyên extract lựa chọn từ user message trong quy trình đặt lịch.\n\n");
-        prompt.append("THÔNG TIN THỜI GIAN (QUAN TRỌNG - DÙNG ĐỂ EXTRACT DATE):\n");
-        prompt.append("- Hôm nay: ").append(today.format(dateFormatter)).append(" (").append(today.format(DateTimeFormatter.ISO_LOCAL_DATE)).append(")\n");
-        prompt.append("- Ngày mai: ").append(today.plusDays(1).format(dateFormatter)).append(" (").append(today.plusDays(1).format(DateTimeFormatter.ISO_LOCAL_DATE)).append(")\n");
-        prompt.append("- Ngày kia: ").append(today.plusDays(2).format(dateFormatter)).append(" (").append(today.plusDays(2).format(DateTimeFormatter.ISO_LOCAL_DATE)).append(")\n");
-        prompt.append("- Thời gian hiện tại: ").append(now.format(dateTimeFormatter)).append("\n");
-        prompt.append("- Năm hiện tại: ").append(today.getYear()).append("\n\n");
+        prompt.append(promptTemplateEngine.renderExtractionTimeContext()).append("\n");
         
         prompt.append("THÔNG TIN HIỆN TẠI:\n");
         prompt.append("- Bước hiện tại: ").append(request.getCurrentStep()).append("\n");
@@ -211,87 +201,7 @@ public class ExtractionService {
             }
         }
         
-        prompt.append("\nUSER MESSAGE: ").append(request.getUserMessage()).append("\n\n");
-        
-        prompt.append("NHIỆM VỤ CỦA BẠN:\n");
-        prompt.append("1. Phân tích user message và extract lựa chọn\n");
-        prompt.append("2. Xác định intent: SELECT (chọn mới), CHANGE (thay đổi), CONFIRM (xác nhận), CANCEL (hủy)\n");
-        prompt.append("3. Extract dữ liệu phù hợp với bước hiện tại\n");
-        prompt.append("4. Match với available options (nếu có)\n");
-        prompt.append("5. BẠN PHẢI TRẢ VỀ JSON FORMAT - KHÔNG được trả về text thông thường\n\n");
-        
-        prompt.append("JSON SCHEMA (BẮT BUỘC PHẢI TUÂN THỦ):\n");
-        prompt.append("{\n");
-        prompt.append("  \"intent\": \"SELECT|CHANGE|CONFIRM|CANCEL\",\n");
-        prompt.append("  \"vehicle\": {\n");
-        prompt.append("    \"license_plate\": \"string hoặc null\",\n");
-        prompt.append("    \"vehicle_id\": \"UUID string hoặc null\",\n");
-        prompt.append("    \"selection_type\": \"LICENSE_PLATE|INDEX|DESCRIPTION hoặc null\",\n");
-        prompt.append("    \"raw_text\": \"string hoặc null\",\n");
-        prompt.append("    \"confidence\": 0.0-1.0\n");
-        prompt.append("  } hoặc null,\n");
-        prompt.append("  \"date\": {\n");
-        prompt.append("    \"date_time\": \"ISO 8601 string (YYYY-MM-DDTHH:mm:ss) hoặc null\",\n");
-        prompt.append("    \"raw_text\": \"string hoặc null\",\n");
-        prompt.append("    \"confidence\": 0.0-1.0\n");
-        prompt.append("  } hoặc null,\n");
-        prompt.append("\n");
-        prompt.append("VÍ DỤ VỀ DATE EXTRACTION (QUAN TRỌNG):\n");
-        prompt.append("- \"Ngày mai\" → ").append(today.plusDays(1).format(DateTimeFormatter.ISO_LOCAL_DATE)).append("T00:00:00\n");
-        prompt.append("- \"Hôm nay\" → ").append(today.format(DateTimeFormatter.ISO_LOCAL_DATE)).append("T00:00:00\n");
-        prompt.append("- \"Ngày kia\" → ").append(today.plusDays(2).format(DateTimeFormatter.ISO_LOCAL_DATE)).append("T00:00:00\n");
-        prompt.append("- \"07/12\" → ").append(today.getYear()).append("-12-07T00:00:00 (năm hiện tại: ").append(today.getYear()).append(")\n");
-        prompt.append("- \"07/12/2025\" → 2025-12-07T00:00:00\n");
-        prompt.append("- \"Thứ 2 tuần sau\" → Tính từ hôm nay, tìm thứ 2 tiếp theo\n");
-        prompt.append("\n");
-        prompt.append("  \"branch\": {\n");
-        prompt.append("    \"branch_name\": \"string hoặc null\",\n");
-        prompt.append("    \"branch_id\": \"UUID string hoặc null\",\n");
-        prompt.append("    \"selection_type\": \"NAME|INDEX|ADDRESS hoặc null\",\n");
-        prompt.append("    \"raw_text\": \"string hoặc null\",\n");
-        prompt.append("    \"confidence\": 0.0-1.0\n");
-        prompt.append("  } hoặc null,\n");
-        prompt.append("  \"service\": {\n");
-        prompt.append("    \"service_name\": \"string hoặc null\",\n");
-        prompt.append("    \"service_id\": \"UUID string hoặc null\",\n");
-        prompt.append("    \"selection_type\": \"NAME|INDEX|KEYWORD hoặc null\",\n");
-        prompt.append("    \"raw_text\": \"string hoặc null\",\n");
-        prompt.append("    \"confidence\": 0.0-1.0\n");
-        prompt.append("  } hoặc null,\n");
-        prompt.append("  \"bay\": {\n");
-        prompt.append("    \"bay_name\": \"string hoặc null\",\n");
-        prompt.append("    \"bay_id\": \"UUID string hoặc null\",\n");
-        prompt.append("    \"selection_type\": \"NAME|INDEX hoặc null\",\n");
-        prompt.append("    \"raw_text\": \"string hoặc null\",\n");
-        prompt.append("    \"confidence\": 0.0-1.0\n");
-        prompt.append("  } hoặc null,\n");
-        prompt.append("  \"time\": {\n");
-        prompt.append("    \"time_slot\": \"string (HH:mm) hoặc null\",\n");
-        prompt.append("    \"raw_text\": \"string hoặc null\",\n");
-        prompt.append("    \"confidence\": 0.0-1.0\n");
-        prompt.append("  } hoặc null\n");
-        prompt.append("}\n\n");
-        
-        prompt.append("QUAN TRỌNG NHẤT:\n");
-        prompt.append("- BẠN PHẢI TRẢ VỀ JSON FORMAT - KHÔNG được trả về text thông thường\n");
-        prompt.append("- KHÔNG được có comment (// hoặc /* */) trong JSON\n");
-        prompt.append("- UUID phải là string hợp lệ hoặc null, KHÔNG được là empty string hoặc placeholder\n");
-        prompt.append("- Chỉ extract field phù hợp với bước hiện tại\n");
-        prompt.append("- Nếu user nói \"xe đầu tiên\" → dùng INDEX và match với vehicles[0], vehicle_id = vehicles[0].vehicle_id\n");
-        prompt.append("- Nếu user nói \"chi nhánh Phú Nhuận\" → branch_name = \"Chi nhánh Phú Nhuận\", branch_id = match với available branches\n");
-        prompt.append("- Nếu user nói \"chi nhánh thứ 2\" → INDEX = 2, branch_id = branches[1].branch_id\n");
-        prompt.append("- Confidence >= 0.8 mới được chấp nhận\n");
-        prompt.append("- Nếu không chắc chắn → để confidence < 0.8\n");
-        prompt.append("- Nếu không extract được field nào → để null, KHÔNG được để empty string\n");
-        prompt.append("\n");
-        prompt.append("PHÂN BIỆT DATE VÀ TIME (QUAN TRỌNG):\n");
-        prompt.append("- \"date\" (date_time): NGÀY đặt lịch (ví dụ: \"Ngày mai\", \"07/12\", \"2025-12-07T00:00:00\")\n");
-        prompt.append("- \"time\" (time_slot): GIỜ đặt lịch trong ngày (ví dụ: \"08:00\", \"13:30\", \"14:00\")\n");
-        prompt.append("- Nếu user nói \"thay đổi ngày\" hoặc \"đổi ngày\" → extract vào \"date\" (date_time)\n");
-        prompt.append("- Nếu user nói \"thay đổi giờ\" hoặc \"đổi giờ\" hoặc \"đổi giờ đặt lịch\" → extract vào \"time\" (time_slot)\n");
-        prompt.append("- Nếu user nói \"thay đổi thời gian\" (không rõ ngày hay giờ) → để tất cả null, confidence < 0.8\n");
-        prompt.append("- Nếu user nói \"08:00\" hoặc \"13:30\" → extract vào \"time\" (time_slot), KHÔNG extract vào \"date\"\n");
-        prompt.append("- Nếu user nói \"Ngày mai\" hoặc \"07/12\" → extract vào \"date\" (date_time), KHÔNG extract vào \"time\"\n");
+        prompt.append("\nUSER MESSAGE: ").append(request.getUserMessage()).append("\n");
         
         return prompt.toString();
     }
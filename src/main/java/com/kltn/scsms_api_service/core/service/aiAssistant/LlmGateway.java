@@ -0,0 +1,379 @@
+package com.kltn.scsms_api_service.core.service.aiAssistant;
+
+import com.kltn.scsms_api_service.configs.property.LlmGatewayProperties;
+import com.kltn.scsms_api_service.core.utils.DraftContextHolder;
+import com.kltn.scsms_api_service.exception.ErrorCode;
+import com.kltn.scsms_api_service.exception.ServerSideException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Cổng duy nhất cho mọi call tới LLM provider
+ * - Semaphore theo model: giới hạn số call đồng thời, chờ slot tối đa queue-timeout rồi fail nhanh
+ * - Deadline theo call: request Tomcat không bị treo theo provider
+ * - Hedging (tùy chọn): gửi thêm 1 call dự phòng nếu call đầu chậm, lấy kết quả về trước
+ * - Model có side effect (functions như createBooking): không hedge, không deadline cứng; caller chờ
+ *   attempt kết thúc để không trả fallback trong khi booking vẫn đang được tạo ở nền
+ * - Circuit breaker theo model: provider lỗi liên tục → từ chối ngay để caller chạy flow deterministic
+ * - Metrics: latency histogram, tokens, số call bị từ chối
+ * Call chạy trên virtual thread riêng; DraftContextHolder và SecurityContext được chuyển sang thread đó
+ * và context của call thắng được chép ngược về thread gọi (functions ghi response vào DraftContextHolder)
+ */
+@Service
+@Slf4j
+public class LlmGateway {
+
+    public static final String CHAT_MODEL = "chat";
+    public static final String EXTRACTION_MODEL = "extraction";
+
+    private final LlmGatewayProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public LlmGateway(LlmGatewayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Circuit của model đang mở → caller nên bỏ qua LLM và dùng flow deterministic
+     */
+    public boolean isAvailable(String model) {
+        return !breaker(model).isOpen();
+    }
+
+    /**
+     * Thực hiện call tới LLM qua gateway
+     *
+     * @throws ServerSideException SERVICE_UNAVAILABLE khi hết slot/circuit mở, TIMEOUT khi quá deadline
+     */
+    public ChatResponse call(String model, Supplier<ChatResponse> call) {
+        LlmGatewayProperties.ModelLimits limits = properties.limitsFor(model);
+        Semaphore semaphore = semaphore(model);
+
+        if (!acquire(semaphore, limits.getQueueTimeout())) {
+            reject(model, "queue_full");
+            throw new ServerSideException(ErrorCode.SERVICE_UNAVAILABLE,
+                    "LLM gateway is saturated for model " + model);
+        }
+
+        CircuitBreaker breaker = breaker(model);
+        if (!breaker.tryAcquire()) {
+            semaphore.release();
+            reject(model, "circuit_open");
+            throw new ServerSideException(ErrorCode.SERVICE_UNAVAILABLE,
+                    "LLM circuit is open for model " + model);
+        }
+
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + limits.getDeadline().toNanos();
+        DraftContextHolder.Snapshot callerContext = DraftContextHolder.capture();
+        SecurityContext securityContext = SecurityContextHolder.getContext();
+
+        CompletableFuture<Outcome> winner = new CompletableFuture<>();
+        AtomicInteger pendingAttempts = new AtomicInteger(1);
+        submit(call, semaphore, callerContext, securityContext, winner, pendingAttempts);
+
+        String outcome = "success";
+        try {
+            Outcome result = awaitWithHedge(model, call, limits, semaphore, callerContext, securityContext,
+                    winner, pendingAttempts, deadlineNanos);
+            breaker.onSuccess();
+            DraftContextHolder.restore(result.context());
+            recordTokens(model, result.response());
+            return result.response();
+        } catch (TimeoutException e) {
+            outcome = "timeout";
+            breaker.onFailure();
+            // Không cancel attempts: slot chỉ được trả khi provider thực sự trả về, giữ đúng giới hạn concurrency
+            log.warn("LLM call exceeded deadline: model={}, deadline={}", model, limits.getDeadline());
+            throw new ServerSideException(ErrorCode.TIMEOUT, "LLM call exceeded deadline for model " + model);
+        } catch (ExecutionException e) {
+            outcome = "error";
+            breaker.onFailure();
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new ServerSideException(ErrorCode.RESPONSE_ERROR, cause.getMessage(), new RuntimeException(cause));
+        } catch (InterruptedException e) {
+            outcome = "interrupted";
+            breaker.onFailure();
+            Thread.currentThread().interrupt();
+            throw new ServerSideException(ErrorCode.SERVICE_UNAVAILABLE, "LLM call interrupted");
+        } finally {
+            Timer.builder("llm.gateway.latency")
+                    .tag("model", model)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Outcome awaitWithHedge(
+            String model,
+            Supplier<ChatResponse> call,
+            LlmGatewayProperties.ModelLimits limits,
+            Semaphore semaphore,
+            DraftContextHolder.Snapshot callerContext,
+            SecurityContext securityContext,
+            CompletableFuture<Outcome> winner,
+            AtomicInteger pendingAttempts,
+            long deadlineNanos) throws TimeoutException, ExecutionException, InterruptedException {
+
+        // Functions có side effect: bỏ attempt giữa chừng → fallback trong khi booking vẫn được tạo
+        // và DraftContextHolder bị mất, nên chờ đến khi provider trả về (read-timeout HTTP client chặn trên)
+        if (limits.isSideEffects()) {
+            return winner.get();
+        }
+
+        Duration hedgeDelay = limits.getHedgeDelay();
+        if (hedgeDelay != null && !hedgeDelay.isZero()) {
+            long hedgeWait = Math.min(hedgeDelay.toNanos(), deadlineNanos - System.nanoTime());
+            try {
+                return winner.get(Math.max(hedgeWait, 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException slow) {
+                // Chỉ hedge khi còn slot trống ngay lúc này, không chờ để tránh khuếch đại tải
+                if (System.nanoTime() < deadlineNanos && semaphore.tryAcquire()) {
+                    pendingAttempts.incrementAndGet();
+                    submit(call, semaphore, callerContext, securityContext, winner, pendingAttempts);
+                    Counter.builder("llm.gateway.hedges").tag("model", model).register(meterRegistry).increment();
+                    log.debug("Hedged LLM call after {} ms: model={}", hedgeDelay.toMillis(), model);
+                }
+            }
+        }
+        return winner.get(Math.max(deadlineNanos - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Chạy 1 attempt trên virtual thread; slot semaphore chỉ được trả khi provider thực sự trả về
+     * (kể cả khi caller đã timeout) để số call đồng thời tới provider luôn bị chặn
+     */
+    private void submit(
+            Supplier<ChatResponse> call,
+            Semaphore semaphore,
+            DraftContextHolder.Snapshot callerContext,
+            SecurityContext securityContext,
+            CompletableFuture<Outcome> winner,
+            AtomicInteger pendingAttempts) {
+
+        CompletableFuture<Outcome> attempt = CompletableFuture.supplyAsync(() -> {
+            DraftContextHolder.restore(callerContext);
+            SecurityContextHolder.setContext(securityContext);
+            try {
+                ChatResponse response = call.get();
+                return new Outcome(response, DraftContextHolder.capture());
+            } finally {
+                DraftContextHolder.clear();
+                SecurityContextHolder.clearContext();
+            }
+        }, executor);
+
+        attempt.whenComplete((result, error) -> {
+            semaphore.release();
+            if (error == null) {
+                winner.complete(result);
+            } else if (pendingAttempts.decrementAndGet() == 0) {
+                winner.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            }
+        });
+    }
+
+    private boolean acquire(Semaphore semaphore, Duration queueTimeout) {
+        try {
+            return semaphore.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reject(String model, String reason) {
+        Counter.builder("llm.gateway.rejected")
+                .tag("model", model)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        log.warn("LLM call rejected: model={}, reason={}", model, reason);
+    }
+
+    private void recordTokens(String model, ChatResponse response) {
+        if (response == null || response.getMetadata() == null) {
+            return;
+        }
+        Usage usage = response.getMetadata().getUsage();
+        if (usage == null) {
+            return;
+        }
+        if (usage.getPromptTokens() != null) {
+            Counter.builder("llm.gateway.tokens").tag("model", model).tag("type", "prompt")
+                    .register(meterRegistry).increment(usage.getPromptTokens());
+        }
+        if (usage.getGenerationTokens() != null) {
+            Counter.builder("llm.gateway.tokens").tag("model", model).tag("type", "generation")
+                    .register(meterRegistry).increment(usage.getGenerationTokens());
+        }
+    }
+
+    private Semaphore semaphore(String model) {
+        return permits.computeIfAbsent(model, key -> {
+            int maxConcurrent = properties.limitsFor(key).getMaxConcurrent();
+            Semaphore semaphore = new Semaphore(maxConcurrent, true);
+            Gauge.builder("llm.gateway.in_flight", semaphore, s -> maxConcurrent - s.availablePermits())
+                    .tag("model", key)
+                    .register(meterRegistry);
+            return semaphore;
+        });
+    }
+
+    private CircuitBreaker breaker(String model) {
+        return breakers.computeIfAbsent(model, key -> {
+            CircuitBreaker breaker = new CircuitBreaker(key, properties.getCircuitBreaker());
+            Gauge.builder("llm.gateway.circuit.open", breaker, b -> b.isOpen() ? 1 : 0)
+                    .tag("model", key)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private record Outcome(ChatResponse response, DraftContextHolder.Snapshot context) {
+    }
+
+    /**
+     * Circuit breaker đếm lỗi trên cửa sổ N call gần nhất
+     * CLOSED → OPEN khi tỉ lệ lỗi vượt ngưỡng; OPEN → HALF_OPEN sau open-duration, cho đúng 1 call thử;
+     * call thử thành công → CLOSED, thất bại → OPEN lại
+     */
+    private static final class CircuitBreaker {
+
+        private enum State { CLOSED, OPEN, HALF_OPEN }
+
+        private final String model;
+        private final LlmGatewayProperties.CircuitBreaker config;
+        private final boolean[] window;
+        private int windowIndex;
+        private int recordedCalls;
+        private int failures;
+        private State state = State.CLOSED;
+        private long openedAtNanos;
+        private boolean probeInFlight;
+
+        CircuitBreaker(String model, LlmGatewayProperties.CircuitBreaker config) {
+            this.model = model;
+            this.config = config;
+            this.window = new boolean[Math.max(config.getWindowSize(), 1)];
+        }
+
+        synchronized boolean isOpen() {
+            return state == State.OPEN && !openDurationElapsed();
+        }
+
+        synchronized boolean tryAcquire() {
+            if (state == State.OPEN && openDurationElapsed()) {
+                state = State.HALF_OPEN;
+                probeInFlight = false;
+            }
+            return switch (state) {
+                case CLOSED -> true;
+                case OPEN -> false;
+                case HALF_OPEN -> {
+                    if (probeInFlight) {
+                        yield false;
+                    }
+                    probeInFlight = true;
+                    yield true;
+                }
+            };
+        }
+
+        synchronized void onSuccess() {
+            if (state == State.HALF_OPEN) {
+                log.info("LLM circuit closed: model={}", model);
+                state = State.CLOSED;
+                resetWindow();
+                return;
+            }
+            record(false);
+        }
+
+        synchronized void onFailure() {
+            if (state == State.HALF_OPEN) {
+                open();
+                return;
+            }
+            record(true);
+            if (recordedCalls >= config.getMinimumCalls()
+                    && (double) failures / recordedCalls >= config.getFailureRateThreshold()) {
+                open();
+            }
+        }
+
+        private void record(boolean failed) {
+            if (recordedCalls == window.length) {
+                if (window[windowIndex]) {
+                    failures--;
+                }
+            } else {
+                recordedCalls++;
+            }
+            window[windowIndex] = failed;
+            if (failed) {
+                failures++;
+            }
+            windowIndex = (windowIndex + 1) % window.length;
+        }
+
+        private void open() {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+            probeInFlight = false;
+            resetWindow();
+            log.warn("LLM circuit opened: model={}, open for {}", model, config.getOpenDuration());
+        }
+
+        private void resetWindow() {
+            Arrays.fill(window, false);
+            windowIndex = 0;
+            recordedCalls = 0;
+            failures = 0;
+        }
+
+        private boolean openDurationElapsed() {
+            return System.nanoTime() - openedAtNanos >= config.getOpenDuration().toNanos();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.kltn.scsms_api_service.core.service.aiAssistant;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Template engine cho các prompt của AI assistant
+ * - Template được đọc và compile MỘT LẦN khi khởi động (tách literal và slot {{name}})
+ * - Phần trước marker {{#dynamic}} là phần tĩnh, giống hệt nhau giữa các request
+ *   → đặt ở đầu prompt để OpenAI có thể cache prompt prefix
+ * - Phần sau marker chứa các slot ngày/giờ, được render lại ở MỖI request
+ *   → prompt không bị "đứng" ở ngày khởi động server sau nửa đêm
+ */
+@Service
+@Slf4j
+public class PromptTemplateEngine {
+
+    public static final String SYSTEM_PROMPT_CLASSPATH = "configs/aiAssistant/promtTemplate.txt";
+    public static final String EXTRACTION_PROMPT_CLASSPATH = "configs/aiAssistant/extractionPromptTemplate.txt";
+
+    private static final String DYNAMIC_MARKER = "{{#dynamic}}";
+    private static final String SLOT_OPEN = "{{";
+    private static final String SLOT_CLOSE = "}}";
+
+    private static final DateTimeFormatter DISPLAY_DATE = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final DateTimeFormatter DISPLAY_DATE_TIME = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private static final DateTimeFormatter DISPLAY_TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final CompiledPromptTemplate systemPrompt;
+    private final CompiledPromptTemplate extractionPrompt;
+
+    // Cache các slot theo ngày - chỉ tính lại khi sang ngày mới
+    private volatile DaySlots daySlots;
+
+    public PromptTemplateEngine() {
+        this.systemPrompt = load(SYSTEM_PROMPT_CLASSPATH);
+        this.extractionPrompt = load(EXTRACTION_PROMPT_CLASSPATH);
+        log.info("Compiled AI prompt templates: system static={} chars, extraction static={} chars",
+                systemPrompt.getStaticPrefix().length(), extractionPrompt.getStaticPrefix().length());
+    }
+
+    /**
+     * Phần tĩnh của system prompt - dùng cho defaultSystem của ChatClient
+     */
+    public String getSystemPromptStatic() {
+        return systemPrompt.getStaticPrefix();
+    }
+
+    /**
+     * Phần thời gian của system prompt, render theo thời điểm hiện tại
+     */
+    public String renderSystemTimeContext() {
+        return systemPrompt.renderDynamic(currentTimeSlots());
+    }
+
+    /**
+     * Phần tĩnh của extraction prompt (hướng dẫn, JSON schema, rules)
+     */
+    public String getExtractionPromptStatic() {
+        return extractionPrompt.getStaticPrefix();
+    }
+
+    /**
+     * Phần thời gian của extraction prompt, render theo thời điểm hiện tại
+     */
+    public String renderExtractionTimeContext() {
+        return extractionPrompt.renderDynamic(currentTimeSlots());
+    }
+
+    /**
+     * Giá trị các slot ngày/giờ tại thời điểm hiện tại
+     */
+    public Map<String, String> currentTimeSlots() {
+        LocalDateTime now = LocalDateTime.now();
+        DaySlots cached = daySlots;
+        if (cached == null || !cached.date().equals(now.toLocalDate())) {
+            cached = new DaySlots(now.toLocalDate(), buildDaySlots(now.toLocalDate()));
+            daySlots = cached;
+        }
+
+        Map<String, String> slots = new HashMap<>(cached.slots());
+        slots.put("now_display", now.format(DISPLAY_DATE_TIME));
+        slots.put("now_time", now.format(DISPLAY_TIME));
+        return slots;
+    }
+
+    /**
+     * Đọc template từ classpath và compile
+     */
+    public static CompiledPromptTemplate load(String classpath) {
+        try {
+            ClassPathResource resource = new ClassPathResource(classpath);
+            if (!resource.exists()) {
+                throw new IllegalStateException("Không tìm thấy file prompt template: " + classpath);
+            }
+            return compile(StreamUtils.copyToString(resource.getInputStream(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Không thể đọc file prompt template: " + classpath, e);
+        }
+    }
+
+    /**
+     * Compile template thành phần tĩnh + danh sách segment (literal hoặc slot)
+     * Nếu không có marker {{#dynamic}}, phần tĩnh là toàn bộ text trước slot đầu tiên
+     */
+    public static CompiledPromptTemplate compile(String template) {
+        String staticPart;
+        String dynamicPart;
+        int markerIndex = template.indexOf(DYNAMIC_MARKER);
+        if (markerIndex >= 0) {
+            staticPart = template.substring(0, markerIndex);
+            dynamicPart = template.substring(markerIndex + DYNAMIC_MARKER.length());
+            if (dynamicPart.startsWith("\n")) {
+                dynamicPart = dynamicPart.substring(1);
+            }
+        } else {
+            int firstSlot = template.indexOf(SLOT_OPEN);
+            staticPart = firstSlot >= 0 ? template.substring(0, firstSlot) : template;
+            dynamicPart = firstSlot >= 0 ? template.substring(firstSlot) : "";
+        }
+
+        if (staticPart.contains(SLOT_OPEN)) {
+            throw new IllegalArgumentException("Prompt template có slot trong phần tĩnh (trước " + DYNAMIC_MARKER + ")");
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        int cursor = 0;
+        while (cursor < dynamicPart.length()) {
+            int open = dynamicPart.indexOf(SLOT_OPEN, cursor);
+            if (open < 0) {
+                segments.add(new Segment(dynamicPart.substring(cursor), false));
+                break;
+            }
+            int close = dynamicPart.indexOf(SLOT_CLOSE, open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Prompt template có slot chưa đóng tại vị trí " + open);
+            }
+            if (open > cursor) {
+                segments.add(new Segment(dynamicPart.substring(cursor, open), false));
+            }
+            segments.add(new Segment(dynamicPart.substring(open + SLOT_OPEN.length(), close).trim(), true));
+            cursor = close + SLOT_CLOSE.length();
+        }
+
+        return new CompiledPromptTemplate(staticPart.stripTrailing(), Collections.unmodifiableList(segments));
+    }
+
+    private static Map<String, String> buildDaySlots(LocalDate today) {
+        LocalDate tomorrow = today.plusDays(1);
+        LocalDate dayAfterTomorrow = today.plusDays(2);
+
+        Map<String, String> slots = new HashMap<>();
+        slots.put("today_iso", today.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        slots.put("today_display", today.format(DISPLAY_DATE));
+        slots.put("tomorrow_iso", tomorrow.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        slots.put("tomorrow_display", tomorrow.format(DISPLAY_DATE));
+        slots.put("day_after_tomorrow_iso", dayAfterTomorrow.format(DateTimeFormatter.ISO_LOCAL_DATE));
+        slots.put("day_after_tomorrow_display", dayAfterTomorrow.format(DISPLAY_DATE));
+        slots.put("year", String.valueOf(today.getYear()));
+        return Collections.unmodifiableMap(slots);
+    }
+
+    private record DaySlots(LocalDate date, Map<String, String> slots) {
+    }
+
+    private record Segment(String value, boolean slot) {
+    }
+
+    /**
+     * Template đã compile - immutable, thread-safe
+     */
+    public static final class CompiledPromptTemplate {
+
+        private final String staticPrefix;
+        private final List<Segment> dynamicSegments;
+        private final int estimatedDynamicLength;
+
+        private CompiledPromptTemplate(String staticPrefix, List<Segment> dynamicSegments) {
+            this.staticPrefix = staticPrefix;
+            this.dynamicSegments = dynamicSegments;
+            this.estimatedDynamicLength = dynamicSegments.stream()
+                    .mapToInt(segment -> segment.slot() ? 16 : segment.value().length())
+                    .sum();
+        }
+
+        public String getStaticPrefix() {
+            return staticPrefix;
+        }
+
+        /**
+         * Render phần dynamic với giá trị slot. Slot không có giá trị sẽ giữ nguyên {{name}}
+         */
+        public String renderDynamic(Map<String, String> slots) {
+            StringBuilder result = new StringBuilder(estimatedDynamicLength);
+            for (Segment segment : dynamicSegments) {
+                if (!segment.slot()) {
+                    result.append(segment.value());
+                    continue;
+                }
+                String value = slots.get(segment.value());
+                if (value == null) {
+                    log.warn("Prompt slot '{}' has no value", segment.value());
+                    result.append(SLOT_OPEN).append(segment.value()).append(SLOT_CLOSE);
+                } else {
+                    result.append(value);
+                }
+            }
+            return result.toString();
+        }
+
+        /**
+         * Render toàn bộ template: phần tĩnh trước, phần dynamic sau
+         */
+        public String render(Map<String, String> slots) {
+            String dynamic = renderDynamic(slots);
+            if (dynamic.isEmpty()) {
+                return staticPrefix;
+            }
+            return staticPrefix + "\n\n" + dynamic;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.kltn.scsms_api_service.core.entity.Booking;
 import com.kltn.scsms_api_service.core.entity.ServiceBay;
 import com.kltn.scsms_api_service.core.service.entityService.BookingService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceBayService;
+import com.kltn.scsms_api_service.core.service.entityService.ServiceDurationEstimator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -20,6 +21,7 @@ public class BayRecommendationService {
     
     private final ServiceBayService serviceBayService;
     private final BookingService bookingService;
+    private final ServiceDurationEstimator serviceDurationEstimator;
     
     /**
      * Đề xuất bay tốt nhất cho walk-in booking
@@ -53,10 +55,11 @@ public class BayRecommendationService {
         ServiceBay recommendedBay = bestBayScore.getBay();
         
         // 5. Lấy thông tin hàng chờ của bay được đề xuất trong ngày cụ thể
-        List<BookingQueueItem> queue = getBayQueue(recommendedBay.getBayId(), queueDate);
+        List<Booking> walkInBookings = bookingService.findWalkInBookingsByBayAndDate(recommendedBay.getBayId(), queueDate);
+        List<BookingQueueItem> queue = getBayQueue(walkInBookings);
         
-        // 6. Tính thời gian chờ ước tính
-        int estimatedWaitTime = calculateEstimatedWaitTime(queue, request.getServiceDurationMinutes());
+        // 6. Tính thời gian chờ ước tính (thời lượng thực tế p80 của từng booking trong hàng chờ)
+        int estimatedWaitTime = calculateEstimatedWaitTime(walkInBookings);
         
         // 7. Lấy các bay thay thế (top 3)
         List<ServiceBay> alternativeBays = bayScores.subList(1, Math.min(4, bayScores.size()))
@@ -208,6 +211,7 @@ public class BayRecommendationService {
     
     /**
      * Lấy thời gian hoàn thành dự kiến của bay trong ngày cụ thể
+     * Chạy lần lượt hàng chờ với thời lượng ước lượng từ dữ liệu thực tế (booking đang làm quá giờ vẫn được tính)
      */
     private LocalDateTime getEstimatedCompletionTime(UUID bayId, LocalDate queueDate) {
         List<Booking> walkInBookings = bookingService.findWalkInBookingsByBayAndDate(bayId, queueDate);
@@ -215,27 +219,13 @@ public class BayRecommendationService {
             return null;
         }
         
-        // Lấy thời gian hoàn thành của booking cuối cùng
-        return walkInBookings.stream()
-            .map(Booking::getScheduledEndAt)
-            .filter(Objects::nonNull)
-            .max(LocalDateTime::compareTo)
-            .orElse(null);
-    }
-    
-    /**
-     * Lấy thông tin hàng chờ của bay
-     */
-    private List<BookingQueueItem> getBayQueue(UUID bayId) {
-        return getBayQueue(bayId, LocalDate.now());
+        return serviceDurationEstimator.projectQueueEnd(walkInBookings, LocalDateTime.now());
     }
     
     /**
-     * Lấy thông tin hàng chờ của bay trong ngày cụ thể
+     * Lấy thông tin hàng chờ của bay từ các WALK_IN bookings đã load
      */
-    private List<BookingQueueItem> getBayQueue(UUID bayId, LocalDate queueDate) {
-        List<Booking> walkInBookings = bookingService.findWalkInBookingsByBayAndDate(bayId, queueDate);
-        
+    private List<BookingQueueItem> getBayQueue(List<Booking> walkInBookings) {
         return walkInBookings.stream()
             .map(this::convertToQueueItem)
             .collect(Collectors.toList());
@@ -313,25 +303,16 @@ public class BayRecommendationService {
     
     /**
      * Tính thời gian chờ ước tính
+     * Booking trong hàng chờ dùng thời lượng p80 học từ booking đã hoàn thành (cùng dịch vụ/loại xe/chi nhánh),
+     * chưa đủ dữ liệu thì dùng thời lượng cấu hình của dịch vụ
      */
-    private int calculateEstimatedWaitTime(List<BookingQueueItem> queue, int serviceDurationMinutes) {
-        if (queue.isEmpty()) {
+    private int calculateEstimatedWaitTime(List<Booking> walkInBookings) {
+        if (walkInBookings.isEmpty()) {
             return 0; // Không có hàng chờ
         }
         
-        // Tính thời gian chờ dựa trên thời gian làm việc của bay
         LocalDateTime currentTime = LocalDateTime.now();
-        LocalDateTime estimatedStartTime = currentTime;
-        
-        // Tính thời gian bắt đầu dự kiến dựa trên hàng chờ hiện tại
-        for (BookingQueueItem item : queue) {
-            if (item.getEstimatedCompletionTime() != null) {
-                estimatedStartTime = item.getEstimatedCompletionTime();
-            } else {
-                // Nếu không có thời gian hoàn thành, tính dựa trên thời gian dịch vụ trung bình
-                estimatedStartTime = estimatedStartTime.plusMinutes(60); // 60 phút mỗi booking
-            }
-        }
+        LocalDateTime estimatedStartTime = serviceDurationEstimator.projectQueueEnd(walkInBookings, currentTime);
         
         // Tính thời gian chờ (phút)
         long waitMinutes = java.time.Duration.between(currentTime, estimatedStartTime).toMinutes();
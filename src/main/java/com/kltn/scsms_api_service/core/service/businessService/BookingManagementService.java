@@ -5,6 +5,7 @@ import com.kltn.scsms_api_service.core.dto.bookingManagement.param.BookingFilter
 import com.kltn.scsms_api_service.core.dto.bookingManagement.request.ChangeScheduleRequest;
 import com.kltn.scsms_api_service.core.dto.bookingManagement.request.UpdateBookingRequest;
 import com.kltn.scsms_api_service.core.entity.*;
+import com.kltn.scsms_api_service.core.events.BookingCompletedEvent;
 import com.kltn.scsms_api_service.core.service.entityService.*;
 import com.kltn.scsms_api_service.core.service.websocket.WebSocketService;
 import com.kltn.scsms_api_service.exception.ClientSideException;
@@ -15,6 +16,7 @@ import com.kltn.scsms_api_service.core.dto.bookingManagement.request.CreateBooki
 import com.kltn.scsms_api_service.core.entity.BookingItem;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -47,6 +49,7 @@ public class BookingManagementService {
     private final PricingBusinessService pricingBusinessService;
     private final ServiceService serviceService;
     private final WebSocketService webSocketService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Lấy tất cả booking
@@ -311,15 +314,10 @@ public class BookingManagementService {
         // Bay will be automatically available when booking is deleted
         // No need to manually unassign bay
 
-        // Lưu booking info trước khi xóa để gửi event
-        UUID deletedBookingId = booking.getBookingId();
-        String deletedBookingCode = booking.getBookingCode();
-        
         bookingService.delete(bookingId);
 
-        // Gửi WebSocket notification với structured event
-        // Note: Booking đã bị xóa nên không có bookingData
-        webSocketService.notifyBookingDeleted(deletedBookingId, deletedBookingCode);
+        // Gửi WebSocket notification với structured event (soft delete → booking vẫn còn trong context)
+        webSocketService.notifyBookingDeleted(booking);
     }
 
     /**
@@ -430,6 +428,7 @@ public class BookingManagementService {
 
         // Gửi WebSocket notification với structured event
         webSocketService.notifyBookingCompleted(updatedBooking);
+        eventPublisher.publishEvent(BookingCompletedEvent.of(updatedBooking));
 
         // Bay will be automatically available when booking is completed
         // No need to manually unassign bay
@@ -1,8 +1,9 @@
 package com.kltn.scsms_api_service.core.service.businessService;
 
 import com.kltn.scsms_api_service.core.dto.bookingManagement.request.CreateBookingItemRequest;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.BatchPricingDto;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.request.BatchPricingRequest;
 import com.kltn.scsms_api_service.core.entity.BookingItem;
-import com.kltn.scsms_api_service.core.entity.PriceBook;
 import com.kltn.scsms_api_service.core.service.entityService.PriceBookEntityService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,9 +11,8 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -34,44 +34,72 @@ public class BookingPricingService {
      * @return Tổng giá của booking
      */
     public BigDecimal calculateBookingTotalPrice(List<CreateBookingItemRequest> bookingItems, UUID priceBookId) {
+        return calculateBookingTotalPrice(bookingItems, null, priceBookId);
+    }
+
+    /**
+     * Tính tổng giá cho booking từ bảng giá của chi nhánh
+     * @param branchId Chi nhánh (null = bảng giá chung)
+     */
+    public BigDecimal calculateBookingTotalPrice(List<CreateBookingItemRequest> bookingItems, UUID branchId,
+                                                 UUID priceBookId) {
         if (bookingItems == null || bookingItems.isEmpty()) {
             return BigDecimal.ZERO;
         }
 
-        log.info("Calculating booking total price for {} items, priceBook: {}", bookingItems.size(), priceBookId);
-
-        // Lấy price book
-        PriceBook priceBook = null;
-        if (priceBookId != null) {
-            priceBook = priceBookEntityService.require(priceBookId);
-        } else {
-            // Lấy active price book
-            Optional<PriceBook> activePriceBook = pricingBusinessService.resolveActivePriceBook(LocalDateTime.now());
-            if (activePriceBook.isPresent()) {
-                priceBook = activePriceBook.get();
-            }
-        }
-
-        BigDecimal totalPrice = BigDecimal.ZERO;
+        log.info("Calculating booking total price for {} items, branch: {}, priceBook: {}",
+                bookingItems.size(), branchId, priceBookId);
 
-        for (CreateBookingItemRequest itemRequest : bookingItems) {
-            BigDecimal itemPrice = calculateItemPrice(itemRequest, priceBook);
-            totalPrice = totalPrice.add(itemPrice);
-        }
+        BigDecimal totalPrice = priceBookingItems(bookingItems, branchId, priceBookId).stream()
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
 
         log.info("Calculated booking total price: {}", totalPrice);
         return totalPrice;
     }
 
+    /**
+     * Giá của từng booking item (cùng thứ tự với bookingItems), tính theo lô trong 1 lần resolve bảng giá
+     * Throw nếu có dịch vụ không có giá trong bảng giá
+     */
+    public List<BigDecimal> priceBookingItems(List<CreateBookingItemRequest> bookingItems, UUID branchId,
+                                              UUID priceBookId) {
+        BatchPricingDto pricing = pricingBusinessService.priceBatch(BatchPricingRequest.builder()
+                .branchId(branchId)
+                .priceBookId(priceBookId)
+                .lines(bookingItems.stream()
+                        .map(item -> BatchPricingRequest.PricingLine.builder()
+                                .serviceId(item.getServiceId())
+                                .quantity(1L)
+                                .build())
+                        .toList())
+                .build());
+
+        List<BigDecimal> unitPrices = new ArrayList<>(bookingItems.size());
+        for (int i = 0; i < bookingItems.size(); i++) {
+            CreateBookingItemRequest itemRequest = bookingItems.get(i);
+            BigDecimal unitPrice = pricing.getLines().get(i).getUnitPrice();
+
+            // Nếu không có trong bảng giá, throw exception
+            if (unitPrice == null || unitPrice.compareTo(BigDecimal.ZERO) == 0) {
+                log.error("No price found in price book {} for service: {}",
+                        pricing.getPriceBookCode(), itemRequest.getServiceId());
+                throw new RuntimeException("Could not determine price for service: " + itemRequest.getServiceName());
+            }
+
+            log.info("Service {}: unitPrice={}", itemRequest.getServiceName(), unitPrice);
+            unitPrices.add(unitPrice);
+        }
+        return unitPrices;
+    }
+
     /**
      * Tính giá cho một booking item từ bảng giá
      * @param itemRequest Booking item request
-     * @param priceBook Price book để lấy giá
+     * @param priceBookId Price book để lấy giá (null = active price book)
      * @return Giá của item (services are always quantity 1)
      */
-    private BigDecimal calculateItemPrice(CreateBookingItemRequest itemRequest, PriceBook priceBook) {
+    private BigDecimal calculateItemPrice(CreateBookingItemRequest itemRequest, UUID priceBookId) {
         BigDecimal unitPrice = BigDecimal.ZERO;
-        UUID priceBookId = priceBook != null ? priceBook.getId() : null;
 
         try {
             // Lấy giá service từ bảng giá
@@ -124,6 +152,6 @@ public class BookingPricingService {
                 .build();
 
         return calculateItemPrice(itemRequest, 
-                priceBookId != null ? priceBookEntityService.require(priceBookId) : null);
+                priceBookId != null ? priceBookEntityService.require(priceBookId).getId() : null);
     }
 }
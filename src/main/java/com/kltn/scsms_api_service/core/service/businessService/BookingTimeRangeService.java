@@ -4,14 +4,16 @@ import com.kltn.scsms_api_service.core.dto.bookingSchedule.AvailableTimeRangesRe
 import com.kltn.scsms_api_service.core.dto.bookingSchedule.BookingScheduleProjection;
 import com.kltn.scsms_api_service.core.dto.bookingSchedule.TimeRangeDto;
 import com.kltn.scsms_api_service.core.dto.bookingSchedule.WorkingHoursDto;
+import com.kltn.scsms_api_service.core.dto.centerBusinessHours.CenterBusinessHoursDto;
+import com.kltn.scsms_api_service.core.entity.Booking;
 import com.kltn.scsms_api_service.core.entity.Branch;
 import com.kltn.scsms_api_service.core.entity.Center;
-import com.kltn.scsms_api_service.core.entity.CenterBusinessHours;
 import com.kltn.scsms_api_service.core.entity.ServiceBay;
 import com.kltn.scsms_api_service.core.repository.BookingRepository;
 import com.kltn.scsms_api_service.core.service.entityService.BranchService;
 import com.kltn.scsms_api_service.core.service.entityService.CenterBusinessHoursService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceBayService;
+import com.kltn.scsms_api_service.core.service.entityService.ServiceDurationEstimator;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
 import lombok.RequiredArgsConstructor;
@@ -20,10 +22,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -41,6 +45,7 @@ public class BookingTimeRangeService {
     private final BranchService branchService;
     private final CenterBusinessHoursService centerBusinessHoursService;
     private final ServiceBayService serviceBayService;
+    private final ServiceDurationEstimator serviceDurationEstimator;
     
     /**
      * Lấy available time ranges cho bay và ngày cụ thể
@@ -58,6 +63,9 @@ public class BookingTimeRangeService {
         List<BookingScheduleProjection> bookings = bookingRepository
             .findScheduleProjectionsByBayAndDate(bayId, date);
         
+        // 3b. Booking đang làm: kéo dài tới thời điểm kết thúc dự kiến theo dữ liệu thực tế nếu muộn hơn lịch
+        extendInProgressBookings(bookings, date.atTime(workingHours.getEnd()));
+        
         // 4. Tính available time ranges
         List<TimeRangeDto> availableRanges = calculateAvailableTimeRanges(
             workingHours.getStart(),
@@ -75,6 +83,36 @@ public class BookingTimeRangeService {
             .build();
     }
     
+    /**
+     * Booking IN_PROGRESS chiếm bay tới max(scheduledEndAt, actualStartAt + p80 thời lượng thực tế)
+     * Chỉ kéo dài, không rút ngắn: khung giờ đã xếp cho booking khác vẫn giữ nguyên; cắt tại giờ đóng cửa
+     * Load booking + ước lượng theo lô (không query từng booking)
+     */
+    private void extendInProgressBookings(List<BookingScheduleProjection> bookings, LocalDateTime dayEnd) {
+        List<UUID> inProgressIds = bookings.stream()
+            .filter(projection -> projection.getStatus() == Booking.BookingStatus.IN_PROGRESS)
+            .map(BookingScheduleProjection::getBookingId)
+            .toList();
+        if (inProgressIds.isEmpty()) {
+            return;
+        }
+        Map<UUID, LocalDateTime> projectedEnds =
+            serviceDurationEstimator.projectedEndAt(bookingRepository.findAllByIdWithItems(inProgressIds));
+        
+        for (BookingScheduleProjection projection : bookings) {
+            LocalDateTime projectedEnd = projection.getStatus() == Booking.BookingStatus.IN_PROGRESS
+                ? projectedEnds.get(projection.getBookingId()) : null;
+            if (projectedEnd != null && projectedEnd.isAfter(projection.getScheduledEndAt())) {
+                LocalDateTime end = projectedEnd.isAfter(dayEnd) ? dayEnd : projectedEnd;
+                if (end.isAfter(projection.getScheduledEndAt())) {
+                    log.debug("Extending in-progress booking {} from {} to projected end {}",
+                        projection.getBookingId(), projection.getScheduledEndAt(), end);
+                    projection.setScheduledEndAt(end);
+                }
+            }
+        }
+    }
+    
     /**
      * Lấy working hours từ CenterBusinessHours (theo dayOfWeek)
      * Không lấy từ ServiceBay
@@ -95,9 +133,11 @@ public class BookingTimeRangeService {
         // 3. Tính dayOfWeek từ date
         String dayOfWeek = date.getDayOfWeek().name(); // MONDAY, TUESDAY, ...
         
-        // 4. Query CenterBusinessHours
-        CenterBusinessHours businessHours = centerBusinessHoursService
-            .findByCenterAndDayOfWeek(center.getCenterId(), dayOfWeek)
+        // 4. Lấy CenterBusinessHours (qua cache giờ làm việc của center)
+        CenterBusinessHoursDto businessHours = centerBusinessHoursService.findHoursByCenterId(center.getCenterId())
+            .stream()
+            .filter(hours -> dayOfWeek.equals(hours.getDayOfWeek()))
+            .findFirst()
             .orElseThrow(() -> new ClientSideException(ErrorCode.BUSINESS_HOURS_NOT_FOUND, 
                 "Business hours not configured for " + dayOfWeek));
         
@@ -163,8 +203,10 @@ public class BookingTimeRangeService {
                     .build());
             }
             
-            // Cập nhật currentStart = bookingEnd
-            currentStart = bookingEnd;
+            // Cập nhật currentStart = bookingEnd (booking kéo dài có thể phủ qua booking kế tiếp)
+            if (bookingEnd.isAfter(currentStart)) {
+                currentStart = bookingEnd;
+            }
         }
         
         // Khoảng trống cuối cùng (sau booking cuối cùng)
@@ -1,12 +1,14 @@
 package com.kltn.scsms_api_service.core.service.businessService;
 
 import com.kltn.scsms_api_service.core.entity.Booking;
+import com.kltn.scsms_api_service.core.events.BookingCompletedEvent;
 import com.kltn.scsms_api_service.core.service.entityService.BookingService;
 import com.kltn.scsms_api_service.core.service.websocket.WebSocketService;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +24,7 @@ public class BookingWorkflowService {
     private final BookingService bookingService;
     private final WebSocketService webSocketService;
     private final BookingInventoryService bookingInventoryService;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Workflow: PENDING → CONFIRMED → CHECKED_IN → IN_PROGRESS → COMPLETED
@@ -146,6 +149,7 @@ public class BookingWorkflowService {
         
         // Gửi WebSocket notification với structured event
         webSocketService.notifyBookingCompleted(updatedBooking);
+        eventPublisher.publishEvent(BookingCompletedEvent.of(updatedBooking));
         
         // Không cần xử lý slot nữa - chỉ cập nhật trạng thái booking
         // Slot logic đã được loại bỏ, chỉ dùng scheduledStartAt/scheduledEndAt
@@ -173,6 +177,7 @@ public class BookingWorkflowService {
         
         // Gửi WebSocket notification với structured event
         webSocketService.notifyBookingCompleted(updatedBooking);
+        eventPublisher.publishEvent(BookingCompletedEvent.of(updatedBooking));
         
         // Không cần xử lý slot nữa - chỉ cập nhật trạng thái booking
         // Slot logic đã được loại bỏ, chỉ dùng scheduledStartAt/scheduledEndAt
@@ -7,10 +7,12 @@ import com.kltn.scsms_api_service.core.dto.branchManagement.request.UpdateBranch
 import com.kltn.scsms_api_service.core.dto.branchManagement.request.UpdateBranchStatusRequest;
 import com.kltn.scsms_api_service.core.entity.Branch;
 import com.kltn.scsms_api_service.core.entity.Center;
+import com.kltn.scsms_api_service.core.entity.Media;
 import com.kltn.scsms_api_service.core.entity.User;
 import com.kltn.scsms_api_service.core.entity.ServiceBay;
 import com.kltn.scsms_api_service.core.service.entityService.BranchService;
 import com.kltn.scsms_api_service.core.service.entityService.CenterService;
+import com.kltn.scsms_api_service.core.service.entityService.MediaResolver;
 import com.kltn.scsms_api_service.core.service.entityService.UserService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceBayService;
 import com.kltn.scsms_api_service.exception.ClientSideException;
@@ -19,6 +21,7 @@ import com.kltn.scsms_api_service.mapper.BranchMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,12 +38,14 @@ public class BranchManagementService {
     private final CenterService centerService;
     private final UserService userService;
     private final ServiceBayService serviceBayService;
+    private final MediaResolver mediaResolver;
     
     public Page<BranchInfoDto> getAllBranches(BranchFilterParam branchFilterParam) {
         
         Page<Branch> branchPage = branchService.getAllBranchesWithFilters(branchFilterParam);
         
-        return branchPage.map(branchMapper::toBranchInfoDtoWithRelations);
+        return new PageImpl<>(branchMapper.toBranchInfoDtoListWithRelations(branchPage.getContent(), mediaResolver),
+            branchPage.getPageable(), branchPage.getTotalElements());
     }
     
     @Transactional
@@ -152,7 +157,9 @@ public class BranchManagementService {
         Branch branch = branchService.findByIdWithCenterAndManager(branchId).orElseThrow(() ->
             new ClientSideException(ErrorCode.NOT_FOUND, "Branch with ID " + branchId + " not found."));
         
-        return branchMapper.toBranchInfoDtoWithRelations(branch);
+        BranchInfoDto dto = branchMapper.toBranchInfoDtoWithRelations(branch);
+        dto.setMainImage(mediaResolver.resolve(Media.EntityType.BRANCH, branchId).mainImage());
+        return dto;
     }
     
     public List<BranchInfoDto> getBranchesByCenterId(UUID centerId) {
@@ -162,9 +169,7 @@ public class BranchManagementService {
         
         List<Branch> branches = branchService.findBranchesByCenterId(centerId);
         
-        return branches.stream()
-            .map(branchMapper::toBranchInfoDtoWithRelations)
-            .toList();
+        return branchMapper.toBranchInfoDtoListWithRelations(branches, mediaResolver);
     }
     
     public BranchInfoDto updateBranchStatus(UUID branchId, UpdateBranchStatusRequest updateBranchStatusRequest) {
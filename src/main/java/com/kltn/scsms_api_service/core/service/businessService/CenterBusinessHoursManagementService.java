@@ -16,7 +16,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -29,10 +28,7 @@ public class CenterBusinessHoursManagementService {
     
     public List<CenterBusinessHoursDto> getAllBusinessHoursByCenter(UUID centerId) {
         log.info("Getting all business hours for center: {}", centerId);
-        List<CenterBusinessHours> businessHours = centerBusinessHoursService.findByCenterId(centerId);
-        return businessHours.stream()
-            .map(centerBusinessHoursMapper::toDto)
-            .collect(Collectors.toList());
+        return centerBusinessHoursService.findHoursByCenterId(centerId);
     }
     
     
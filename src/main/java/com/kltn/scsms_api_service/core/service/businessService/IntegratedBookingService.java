@@ -3,6 +3,8 @@ package com.kltn.scsms_api_service.core.service.businessService;
 import com.kltn.scsms_api_service.core.dto.bookingManagement.BookingInfoDto;
 import com.kltn.scsms_api_service.core.dto.bookingManagement.request.CreateBookingWithScheduleRequest;
 import com.kltn.scsms_api_service.core.dto.bookingManagement.request.CreateBookingItemRequest;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.BatchPricingDto;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.request.BatchPricingRequest;
 import com.kltn.scsms_api_service.core.entity.*;
 import com.kltn.scsms_api_service.core.service.entityService.*;
 import com.kltn.scsms_api_service.exception.ClientSideException;
@@ -18,6 +20,7 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -337,6 +340,27 @@ public class IntegratedBookingService {
         int successCount = 0;
         int failCount = 0;
         
+        // Tính giá mọi dịch vụ trong 1 lần theo bảng giá của chi nhánh
+        Map<UUID, BigDecimal> servicePrices = new HashMap<>();
+        List<BatchPricingRequest.PricingLine> pricingLines = request.getBookingItems().stream()
+            .filter(item -> item.getServiceId() != null)
+            .map(item -> BatchPricingRequest.PricingLine.builder()
+                .serviceId(item.getServiceId())
+                .quantity(1L)
+                .build())
+            .toList();
+        if (!pricingLines.isEmpty()) {
+            BatchPricingDto pricing = pricingBusinessService.priceBatch(BatchPricingRequest.builder()
+                .branchId(request.getBranchId())
+                .lines(pricingLines)
+                .build());
+            for (BatchPricingDto.LinePrice linePrice : pricing.getLines()) {
+                if (linePrice.isFound()) {
+                    servicePrices.put(linePrice.getServiceId(), linePrice.getUnitPrice());
+                }
+            }
+        }
+        
         for (CreateBookingItemRequest itemRequest : request.getBookingItems()) {
             try {
                 log.info("Processing booking item - serviceId: {}, serviceName: '{}'", 
@@ -351,15 +375,13 @@ public class IntegratedBookingService {
                 
                 // Resolve price từ price book
                 BigDecimal unitPrice;
-                try {
-                    unitPrice = pricingBusinessService.resolveServicePrice(itemRequest.getServiceId(), null);
-                    log.info("Resolved price for service {}: {}", itemRequest.getServiceId(), unitPrice);
-                } catch (Exception e) {
-                    log.error("Price not found for service {}: {}. This should not happen.", 
-                            itemRequest.getServiceId(), e.getMessage());
+                unitPrice = servicePrices.get(itemRequest.getServiceId());
+                if (unitPrice == null) {
+                    log.error("Price not found for service {}. This should not happen.", itemRequest.getServiceId());
                     // Throw exception để đảm bảo booking không được tạo với giá sai
-                    throw new RuntimeException("Cannot resolve price for service: " + itemRequest.getServiceName(), e);
+                    throw new RuntimeException("Cannot resolve price for service: " + itemRequest.getServiceName());
                 }
+                log.info("Resolved price for service {}: {}", itemRequest.getServiceId(), unitPrice);
                 
                 // Get duration from Service entity
                 Integer durationMinutes = 60; // Default
@@ -1,13 +1,18 @@
 package com.kltn.scsms_api_service.core.service.businessService;
 
 import com.kltn.scsms_api_service.core.dto.mediaManagement.MediaInfoDto;
+import com.kltn.scsms_api_service.core.dto.mediaManagement.PresignedUploadDto;
 import com.kltn.scsms_api_service.core.dto.mediaManagement.param.MediaFilterParam;
 import com.kltn.scsms_api_service.core.dto.mediaManagement.request.*;
+import com.kltn.scsms_api_service.core.dto.token.LoginUserInfo;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.ImageVariant;
 import com.kltn.scsms_api_service.core.entity.Media;
 import com.kltn.scsms_api_service.core.entity.S3File;
 import com.kltn.scsms_api_service.core.service.entityService.MediaService;
+import com.kltn.scsms_api_service.core.service.entityService.ProductService;
 import com.kltn.scsms_api_service.core.service.entityService.S3FileService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceService;
+import com.kltn.scsms_api_service.core.utils.PermissionUtils;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
 import com.kltn.scsms_api_service.mapper.MediaMapper;
@@ -32,6 +37,7 @@ public class MediaManagementService {
     private final MediaMapper mediaMapper;
     private final S3FileService s3FileService;
     private final ServiceService serviceService;
+    private final ProductService productService;
 
     /**
      * Get all media with pagination and filtering
@@ -114,6 +120,13 @@ public class MediaManagementService {
 
         // Media URL uniqueness check removed - allow duplicate URLs
 
+        // Variants belong to the old image; clients fall back to media_url
+        if (updateRequest.getMediaUrl() != null
+                && !updateRequest.getMediaUrl().equals(existingMedia.getMediaUrl())) {
+            existingMedia.setThumbnailUrl(null);
+            existingMedia.setCardUrl(null);
+        }
+
         // Update media
         mediaMapper.updateEntityFromRequest(updateRequest, existingMedia);
 
@@ -351,46 +364,105 @@ public class MediaManagementService {
         serviceService.getById(serviceId);
 
         // Upload file to S3
-        S3File s3File = s3FileService.uploadAndSave(
+        S3File s3File = s3FileService.uploadImageAndSave(
                 file,
                 "services/" + serviceId,
                 null, // uploadedBy - can be set to current user if available
                 "SERVICE",
                 serviceId);
 
-        // If this is set as main, unset any existing main image
-        if (Boolean.TRUE.equals(isMain)) {
-            List<MediaInfoDto> existingImages = getMediaByEntity("SERVICE", serviceId);
-            existingImages.stream()
-                    .filter(MediaInfoDto::getIsMain)
-                    .forEach(img -> {
-                        UpdateMediaMainStatusRequest statusRequest = new UpdateMediaMainStatusRequest();
-                        statusRequest.setIsMain(false);
-                        updateMediaMainStatus(img.getMediaId(), statusRequest);
-                    });
+        return addUploadedImage(Media.EntityType.SERVICE, serviceId, s3File, altText, isMain);
+    }
+
+    /**
+     * Request a presigned PUT so the client uploads an image directly to storage
+     * Only product and service galleries are supported; the target entity must exist
+     */
+    @Transactional
+    public PresignedUploadDto presignImageUpload(PresignMediaUploadRequest request) {
+        Media.EntityType entityType = parseEntityType(request.getEntityType());
+        log.info("Presigning image upload for {} {}", entityType, request.getEntityId());
+
+        if (!request.getContentType().startsWith("image/")) {
+            throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                    "Only image files are allowed. Received content type: " + request.getContentType());
         }
 
-        // Get current max sort order
-        List<MediaInfoDto> existingImages = getMediaByEntity("SERVICE", serviceId);
-        int nextSortOrder = existingImages.stream()
-                .mapToInt(MediaInfoDto::getSortOrder)
-                .max()
-                .orElse(-1) + 1;
+        String folder = switch (entityType) {
+            case SERVICE -> {
+                serviceService.getById(request.getEntityId());
+                yield "services/" + request.getEntityId();
+            }
+            case PRODUCT -> {
+                productService.getById(request.getEntityId());
+                yield "products/" + request.getEntityId();
+            }
+            default -> throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                    "Direct upload is not supported for entity type: " + entityType);
+        };
+
+        S3FileService.PendingUpload pendingUpload = s3FileService.reserveDirectUpload(
+                request.getFileName(),
+                request.getContentType(),
+                request.getFileSize(),
+                folder,
+                currentUserId(),
+                entityType.name(),
+                request.getEntityId());
+
+        S3File s3File = pendingUpload.file();
+        return PresignedUploadDto.builder()
+                .uploadToken(s3File.getUploadToken())
+                .uploadUrl(pendingUpload.uploadUrl())
+                .method("PUT")
+                .contentType(s3File.getContentType())
+                .fileKey(s3File.getFileKey())
+                .urlExpiresAt(pendingUpload.urlExpiresAt())
+                .finalizeBefore(s3File.getExpiresAt())
+                .build();
+    }
 
-        // Create media request with uploaded file URL
+    /**
+     * Finalize a direct upload: verify the stored object and attach it to the entity gallery
+     */
+    @Transactional
+    public MediaInfoDto finalizeImageUpload(FinalizeMediaUploadRequest request) {
+        S3File s3File = s3FileService.finalizeDirectUpload(request.getUploadToken(), currentUserId());
+        log.info("Finalized direct upload {} for {} {}", s3File.getId(), s3File.getEntityType(), s3File.getEntityId());
+
+        return addUploadedImage(Media.EntityType.valueOf(s3File.getEntityType()), s3File.getEntityId(),
+                s3File, request.getAltText(), request.getIsMain());
+    }
+
+    /**
+     * Create the media record for an uploaded image, pointing at its variants
+     * MediaService.createMedia unsets the current main image in the same transaction and the sort order
+     * comes from a MAX query, so the existing gallery is not loaded here
+     */
+    @Transactional
+    public MediaInfoDto addUploadedImage(Media.EntityType entityType, UUID entityId, S3File s3File,
+            String altText, Boolean isMain) {
+        // Create media request with uploaded file URLs
         CreateMediaRequest createRequest = CreateMediaRequest.builder()
-                .entityType(Media.EntityType.SERVICE.name())
-                .entityId(serviceId)
-                .mediaUrl(s3File.getFileUrl())
+                .entityType(entityType.name())
+                .entityId(entityId)
+                .mediaUrl(s3FileService.getVariantUrl(s3File, ImageVariant.FULL))
+                .thumbnailUrl(s3FileService.getVariantUrl(s3File, ImageVariant.THUMB))
+                .cardUrl(s3FileService.getVariantUrl(s3File, ImageVariant.CARD))
                 .mediaType(Media.MediaType.IMAGE.name())
                 .isMain(Boolean.TRUE.equals(isMain))
-                .sortOrder(nextSortOrder)
+                .sortOrder(mediaService.getNextSortOrder(entityType, entityId)) // first image gets 0
                 .altText(altText)
                 .build();
 
         return createMedia(createRequest);
     }
 
+    private UUID currentUserId() {
+        LoginUserInfo currentUser = PermissionUtils.getCurrentUser();
+        return currentUser != null && currentUser.getSub() != null ? UUID.fromString(currentUser.getSub()) : null;
+    }
+
     // ===== STATISTICS DTO =====
 
     @lombok.Data
@@ -0,0 +1,347 @@
+package com.kltn.scsms_api_service.core.service.businessService;
+
+import com.kltn.scsms_api_service.core.entity.PriceBook;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.PricingPolicyType;
+import com.kltn.scsms_api_service.core.events.PriceBookUpdatedEvent;
+import com.kltn.scsms_api_service.core.repository.PriceBookItemRepository;
+import com.kltn.scsms_api_service.core.repository.PriceBookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Snapshot giá trong bộ nhớ, dựng từ timeline hiệu lực của các bảng giá
+ * - Mọi bảng giá active được load 1 lần thành Map productId/serviceId → chính sách giá (không giữ entity JPA)
+ * - Timeline: dãy thời điểm chuyển bảng giá (validFrom) đã sắp xếp, cho bảng giá chung và cho từng chi nhánh;
+ *   "bảng giá hiệu lực tại T" là binary search trên timeline, không query DB
+ * - Chọn bảng giá giống PricingBusinessService.resolveActivePriceBook: bảng giá active có validFrom mới nhất <= T,
+ *   bảng giá chi nhánh ưu tiên hơn bảng giá chung
+ * - Bảng giá đang áp dụng được tính sẵn; TaskScheduler hẹn đúng thời điểm chuyển kế tiếp để thay nguyên khối
+ * - Timeline build lại khi PriceBookUpdatedEvent được publish (sau commit) và định kỳ để nhận thay đổi sửa thẳng trong DB
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PriceBookSnapshotService {
+
+    private final PriceBookRepository priceBookRepository;
+    private final PriceBookItemRepository priceBookItemRepository;
+    private final TaskScheduler taskScheduler;
+
+    private final AtomicReference<PriceSnapshot> snapshot = new AtomicReference<>(PriceSnapshot.EMPTY);
+
+    private ScheduledFuture<?> nextSwitch;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Bảng giá thay đổi → build lại sau khi transaction commit (chạy ngay nếu không có transaction)
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPriceBookUpdated(PriceBookUpdatedEvent event) {
+        log.debug("Price book {} updated ({}), rebuilding price snapshot", event.getPriceBookId(), event.getUpdateType());
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.price-snapshot.refresh-interval-ms:600000}",
+            initialDelayString = "${app.price-snapshot.refresh-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Build timeline mới từ DB rồi thay nguyên khối; các build chạy tuần tự
+     */
+    public synchronized void rebuild() {
+        try {
+            long startNanos = System.nanoTime();
+            Timelines timelines = buildTimelines();
+            PriceSnapshot built = PriceSnapshot.of(snapshot.get().version() + 1, timelines, LocalDateTime.now());
+            snapshot.set(built);
+            scheduleNextSwitch(built);
+            log.info("Price snapshot rebuilt: version={}, books={}, branches={}, items={}, nextSwitch={}, took={}ms",
+                    built.version(), timelines.bookCount(), timelines.byBranch().size(), timelines.itemCount(),
+                    built.nextSwitchAt(), (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to rebuild price snapshot, keeping version {}: {}",
+                    snapshot.get().version(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tới thời điểm chuyển bảng giá: tính lại bảng giá đang áp dụng từ timeline hiện có (không đọc DB)
+     */
+    synchronized void advance() {
+        PriceSnapshot current = snapshot.get();
+        PriceSnapshot advanced = PriceSnapshot.of(current.version(), current.timelines(), LocalDateTime.now());
+        snapshot.set(advanced);
+        scheduleNextSwitch(advanced);
+        log.info("Price snapshot switched active price books: version={}, nextSwitch={}",
+                advanced.version(), advanced.nextSwitchAt());
+    }
+
+    private void scheduleNextSwitch(PriceSnapshot target) {
+        if (nextSwitch != null) {
+            nextSwitch.cancel(false);
+            nextSwitch = null;
+        }
+        if (target.nextSwitchAt() != null) {
+            nextSwitch = taskScheduler.schedule(this::advance,
+                    target.nextSwitchAt().atZone(ZoneId.systemDefault()).toInstant());
+        }
+    }
+
+    /**
+     * Snapshot đã build thành công ít nhất 1 lần
+     */
+    public boolean isReady() {
+        return current().version() > 0;
+    }
+
+    /**
+     * Bảng giá đang áp dụng cho chi nhánh (null = bảng giá chung), null nếu không có bảng giá nào hiệu lực
+     */
+    public ResolvedPriceBook activeBook(UUID branchId) {
+        PriceSnapshot current = current();
+        // Scheduler chưa kịp chạy khi đã qua thời điểm chuyển → tra timeline trực tiếp
+        if (current.nextSwitchAt() != null && !LocalDateTime.now().isBefore(current.nextSwitchAt())) {
+            return current.timelines().effectiveAt(branchId, LocalDateTime.now());
+        }
+        if (branchId != null) {
+            ResolvedPriceBook branchBook = current.activeByBranch().get(branchId);
+            if (branchBook != null) {
+                return branchBook;
+            }
+        }
+        return current.activeGlobal();
+    }
+
+    /**
+     * Bảng giá hiệu lực của chi nhánh (null = bảng giá chung) tại thời điểm bất kỳ, dùng cho tính lại giá quá khứ
+     */
+    public ResolvedPriceBook activeBookAt(UUID branchId, LocalDateTime at) {
+        return current().timelines().effectiveAt(branchId, at);
+    }
+
+    /**
+     * Bảng giá theo id nếu đang nằm trong snapshot, null nếu không (caller tự đọc DB)
+     */
+    public ResolvedPriceBook findBook(UUID priceBookId) {
+        return priceBookId != null ? current().timelines().byId().get(priceBookId) : null;
+    }
+
+    private PriceSnapshot current() {
+        PriceSnapshot current = snapshot.get();
+        // Lần đầu (chưa build được) → build đồng bộ, nhiều request cùng chờ chỉ build 1 lần
+        if (current.version() == 0) {
+            rebuildIfUnchanged(current);
+            current = snapshot.get();
+        }
+        return current;
+    }
+
+    private synchronized void rebuildIfUnchanged(PriceSnapshot observed) {
+        if (snapshot.get() == observed) {
+            rebuild();
+        }
+    }
+
+    private Timelines buildTimelines() {
+        List<PriceBook> books = priceBookRepository.findByIsActive(true).stream()
+                .filter(book -> book.getValidFrom() != null)
+                .sorted(Comparator.comparing(PriceBook::getValidFrom).thenComparing(PriceBook::getId))
+                .toList();
+        if (books.isEmpty()) {
+            return Timelines.EMPTY;
+        }
+
+        Map<UUID, List<Object[]>> rowsByBook = new HashMap<>();
+        List<UUID> bookIds = books.stream().map(PriceBook::getId).toList();
+        for (Object[] row : priceBookItemRepository.findPriceRowsByPriceBookIds(bookIds)) {
+            rowsByBook.computeIfAbsent((UUID) row[0], k -> new ArrayList<>()).add(row);
+        }
+
+        Map<UUID, ResolvedPriceBook> byId = new HashMap<>();
+        List<ResolvedPriceBook> all = new ArrayList<>(books.size());
+        Map<UUID, List<ResolvedPriceBook>> perBranch = new HashMap<>();
+        int itemCount = 0;
+        for (PriceBook book : books) {
+            ResolvedPriceBook resolved = ResolvedPriceBook.of(book, rowsByBook.getOrDefault(book.getId(), List.of()));
+            byId.put(book.getId(), resolved);
+            all.add(resolved);
+            itemCount += resolved.products().size() + resolved.services().size();
+            if (book.getBranchId() != null) {
+                perBranch.computeIfAbsent(book.getBranchId(), k -> new ArrayList<>()).add(resolved);
+            }
+        }
+
+        // Timeline chung xét mọi bảng giá active như resolveActivePriceBook(date)
+        Map<UUID, Timeline> byBranch = new HashMap<>();
+        perBranch.forEach((branchId, branchBooks) -> byBranch.put(branchId, Timeline.of(branchBooks)));
+
+        return new Timelines(Timeline.of(all), Map.copyOf(byBranch), Map.copyOf(byId), itemCount);
+    }
+
+    /**
+     * Chính sách giá của 1 item trong bảng giá
+     */
+    public record PriceEntry(PricingPolicyType policyType, BigDecimal fixedPrice, BigDecimal markupPercent) {
+    }
+
+    /**
+     * Bảng giá đã resolve: chỉ giữ giá trị thuần, không giữ entity JPA
+     * products/services: productId/serviceId → chính sách giá của item
+     */
+    public record ResolvedPriceBook(UUID id, String code, UUID branchId, LocalDateTime validFrom,
+                                    Map<UUID, PriceEntry> products,
+                                    Map<UUID, PriceEntry> services) {
+
+        /**
+         * Dựng từ các dòng của PriceBookItemRepository (price_book_id, product_id, service_id, policy_type,
+         * fixed_price, markup_percent)
+         */
+        public static ResolvedPriceBook of(PriceBook book, List<Object[]> rows) {
+            Map<UUID, PriceEntry> products = new HashMap<>();
+            Map<UUID, PriceEntry> services = new HashMap<>();
+            for (Object[] row : rows) {
+                PriceEntry entry = new PriceEntry((PricingPolicyType) row[3], (BigDecimal) row[4], (BigDecimal) row[5]);
+                if (row[1] != null) {
+                    products.put((UUID) row[1], entry);
+                } else if (row[2] != null) {
+                    services.put((UUID) row[2], entry);
+                }
+            }
+            return new ResolvedPriceBook(book.getId(), book.getCode(), book.getBranchId(), book.getValidFrom(),
+                    Map.copyOf(products), Map.copyOf(services));
+        }
+
+        public boolean hasProduct(UUID productId) {
+            return productId != null && products.containsKey(productId);
+        }
+
+        public PriceEntry productEntry(UUID productId) {
+            return productId != null ? products.get(productId) : null;
+        }
+
+        public PriceEntry serviceEntry(UUID serviceId) {
+            return serviceId != null ? services.get(serviceId) : null;
+        }
+
+        /**
+         * fixed_price của item sản phẩm (null nếu không có item hoặc item thiếu giá)
+         */
+        public BigDecimal productPrice(UUID productId) {
+            PriceEntry entry = productEntry(productId);
+            return entry != null ? entry.fixedPrice() : null;
+        }
+
+        /**
+         * Giá dịch vụ FIXED (null nếu không có item, item thiếu giá hoặc không phải FIXED)
+         */
+        public BigDecimal servicePrice(UUID serviceId) {
+            PriceEntry entry = serviceEntry(serviceId);
+            return entry != null && entry.policyType() == PricingPolicyType.FIXED ? entry.fixedPrice() : null;
+        }
+    }
+
+    /**
+     * Dãy thời điểm chuyển tăng dần; books[i] hiệu lực trong [switchAt[i], switchAt[i + 1])
+     */
+    private record Timeline(LocalDateTime[] switchAt, ResolvedPriceBook[] books) {
+
+        /**
+         * books đã sắp theo validFrom; nhiều bảng giá cùng validFrom thì bảng giá sau cùng thắng
+         */
+        static Timeline of(List<ResolvedPriceBook> sortedBooks) {
+            List<LocalDateTime> instants = new ArrayList<>(sortedBooks.size());
+            List<ResolvedPriceBook> effective = new ArrayList<>(sortedBooks.size());
+            for (ResolvedPriceBook book : sortedBooks) {
+                int last = instants.size() - 1;
+                if (last >= 0 && instants.get(last).equals(book.validFrom())) {
+                    effective.set(last, book);
+                } else {
+                    instants.add(book.validFrom());
+                    effective.add(book);
+                }
+            }
+            return new Timeline(instants.toArray(LocalDateTime[]::new), effective.toArray(ResolvedPriceBook[]::new));
+        }
+
+        ResolvedPriceBook effectiveAt(LocalDateTime at) {
+            int idx = floorIndex(at);
+            return idx >= 0 ? books[idx] : null;
+        }
+
+        LocalDateTime nextSwitchAfter(LocalDateTime at) {
+            int next = floorIndex(at) + 1;
+            return next < switchAt.length ? switchAt[next] : null;
+        }
+
+        /**
+         * Vị trí thời điểm chuyển lớn nhất <= at, -1 nếu at trước mọi bảng giá
+         */
+        private int floorIndex(LocalDateTime at) {
+            int idx = Arrays.binarySearch(switchAt, at);
+            return idx >= 0 ? idx : -idx - 2;
+        }
+    }
+
+    private record Timelines(Timeline global, Map<UUID, Timeline> byBranch,
+                             Map<UUID, ResolvedPriceBook> byId, int itemCount) {
+        static final Timelines EMPTY = new Timelines(
+                new Timeline(new LocalDateTime[0], new ResolvedPriceBook[0]), Map.of(), Map.of(), 0);
+
+        ResolvedPriceBook effectiveAt(UUID branchId, LocalDateTime at) {
+            if (branchId != null) {
+                Timeline branchTimeline = byBranch.get(branchId);
+                ResolvedPriceBook branchBook = branchTimeline != null ? branchTimeline.effectiveAt(at) : null;
+                if (branchBook != null) {
+                    return branchBook;
+                }
+            }
+            return global.effectiveAt(at);
+        }
+
+        int bookCount() {
+            return byId.size();
+        }
+    }
+
+    /**
+     * Bảng giá đang áp dụng tại thời điểm build/chuyển, kèm thời điểm chuyển kế tiếp
+     * Timeline chung chứa mọi bảng giá nên thời điểm chuyển kế tiếp của nó cũng là của mọi chi nhánh
+     */
+    private record PriceSnapshot(long version, Timelines timelines,
+                                 ResolvedPriceBook activeGlobal,
+                                 Map<UUID, ResolvedPriceBook> activeByBranch,
+                                 LocalDateTime nextSwitchAt) {
+        static final PriceSnapshot EMPTY = new PriceSnapshot(0, Timelines.EMPTY, null, Map.of(), null);
+
+        static PriceSnapshot of(long version, Timelines timelines, LocalDateTime now) {
+            Map<UUID, ResolvedPriceBook> activeByBranch = new HashMap<>();
+            timelines.byBranch().forEach((branchId, timeline) -> {
+                ResolvedPriceBook book = timeline.effectiveAt(now);
+                if (book != null) {
+                    activeByBranch.put(branchId, book);
+                }
+            });
+            return new PriceSnapshot(version, timelines, timelines.global().effectiveAt(now),
+                    Map.copyOf(activeByBranch), timelines.global().nextSwitchAfter(now));
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.kltn.scsms_api_service.core.service.businessService;
 
+import com.kltn.scsms_api_service.core.dto.pricingManagement.BatchPricingDto;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.request.BatchPricingRequest;
 import com.kltn.scsms_api_service.core.dto.response.ServicePriceDto;
 import com.kltn.scsms_api_service.core.entity.PriceBook;
 import com.kltn.scsms_api_service.core.entity.PriceBookItem;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.PricingPolicyType;
+import com.kltn.scsms_api_service.core.repository.InventoryLotRepository;
 import com.kltn.scsms_api_service.core.repository.PriceBookItemRepository;
 import com.kltn.scsms_api_service.core.service.entityService.PriceBookEntityService;
 import com.kltn.scsms_api_service.core.service.entityService.PriceBookItemEntityService;
@@ -13,6 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -21,11 +26,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class PricingBusinessService {
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final int MONEY_SCALE = 4;
+
     private final PriceBookEntityService priceBookEntityService;
     private final PriceBookItemEntityService priceBookItemES;
     private final PriceBookItemRepository priceBookItemRepository;
+    private final PriceBookSnapshotService priceBookSnapshotService;
+    private final InventoryLotRepository inventoryLotRepository;
 
     public Optional<PriceBook> resolveActivePriceBook(LocalDateTime date) {
+        if (priceBookSnapshotService.isReady()) {
+            return resolveFromTimeline(null, date);
+        }
+
         List<PriceBook> books = priceBookEntityService.getActivePriceInRange(
                 date, null);
         // Lấy PriceBook mới nhất (validFrom gần nhất)
@@ -41,6 +55,10 @@ public class PricingBusinessService {
      * @return Optional PriceBook
      */
     public Optional<PriceBook> resolveActivePriceBook(UUID branchId, LocalDateTime date) {
+        if (priceBookSnapshotService.isReady()) {
+            return resolveFromTimeline(branchId, date);
+        }
+
         List<PriceBook> books;
 
         if (branchId != null) {
@@ -57,6 +75,15 @@ public class PricingBusinessService {
         return resolveActivePriceBook(date);
     }
 
+    /**
+     * Tra bảng giá hiệu lực tại thời điểm date trên timeline trong bộ nhớ, chỉ load entity của bảng giá tìm được
+     */
+    private Optional<PriceBook> resolveFromTimeline(UUID branchId, LocalDateTime date) {
+        PriceBookSnapshotService.ResolvedPriceBook book = priceBookSnapshotService.activeBookAt(branchId,
+                date != null ? date : LocalDateTime.now());
+        return book != null ? Optional.of(priceBookEntityService.require(book.id())) : Optional.empty();
+    }
+
     public BigDecimal resolveUnitPrice(UUID productId) {
         return resolveUnitPrice(productId, null);
     }
@@ -82,6 +109,16 @@ public class PricingBusinessService {
      * @return Unit price
      */
     public BigDecimal resolveUnitPrice(UUID productId, UUID branchId, UUID priceBookId) {
+        // Tra giá trong snapshot bộ nhớ; chỉ đọc DB khi bảng giá không nằm trong snapshot
+        PriceBookSnapshotService.ResolvedPriceBook snapshotBook = priceBookId != null
+                ? priceBookSnapshotService.findBook(priceBookId)
+                : priceBookSnapshotService.activeBook(branchId);
+        if (snapshotBook != null) {
+            if (!snapshotBook.hasProduct(productId))
+                return BigDecimal.ONE;
+            return require(snapshotBook.productPrice(productId));
+        }
+
         LocalDateTime today = LocalDateTime.now();
         PriceBook book;
 
@@ -110,6 +147,16 @@ public class PricingBusinessService {
      * @return Unit price
      */
     public BigDecimal resolveServicePrice(UUID serviceId, UUID priceBookId) {
+        // Snapshot chỉ giữ giá FIXED; không có thì đọc DB để báo lỗi đúng như trước
+        PriceBookSnapshotService.ResolvedPriceBook snapshotBook = priceBookId != null
+                ? priceBookSnapshotService.findBook(priceBookId)
+                : priceBookSnapshotService.activeBook(null);
+        if (snapshotBook != null) {
+            BigDecimal price = snapshotBook.servicePrice(serviceId);
+            if (price != null)
+                return price;
+        }
+
         LocalDateTime today = LocalDateTime.now();
         PriceBook book;
 
@@ -155,6 +202,22 @@ public class PricingBusinessService {
 
         log.debug("Batch fetching prices for {} services", serviceIds.size());
 
+        PriceBookSnapshotService.ResolvedPriceBook snapshotBook = priceBookId != null
+                ? priceBookSnapshotService.findBook(priceBookId)
+                : priceBookSnapshotService.activeBook(null);
+        if (snapshotBook != null) {
+            Map<UUID, BigDecimal> priceMap = new HashMap<>();
+            for (UUID serviceId : serviceIds) {
+                BigDecimal price = snapshotBook.servicePrice(serviceId);
+                if (price != null) {
+                    priceMap.put(serviceId, price);
+                } else {
+                    log.warn("No price found for service {} in price book {}", serviceId, snapshotBook.code());
+                }
+            }
+            return priceMap;
+        }
+
         LocalDateTime today = LocalDateTime.now();
         PriceBook book;
 
@@ -231,6 +294,137 @@ public class PricingBusinessService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Tính giá theo lô cho các dòng sản phẩm/dịch vụ của 1 chi nhánh
+     * - Resolve bảng giá 1 lần (bảng giá chi nhánh, không có thì bảng giá chung); bảng giá có trong snapshot thì
+     *   không query, ngược lại đọc mọi item cần thiết trong 1 query IN
+     * - FIXED: fixed_price; MARKUP_ON_PEAK (chỉ sản phẩm): giá nhập cao nhất × (1 + markup_percent / 100),
+     *   giá nhập cao nhất lấy 1 query GROUP BY cho mọi sản phẩm markup
+     * - Dòng không có giá trả found = false, không tính vào tổng
+     */
+    public BatchPricingDto priceBatch(BatchPricingRequest request) {
+        List<BatchPricingRequest.PricingLine> lines = request.getLines() != null ? request.getLines() : List.of();
+        PriceBookSnapshotService.ResolvedPriceBook book = resolveBookForBatch(request, lines);
+
+        // Giá nhập cao nhất cho các sản phẩm tính theo markup
+        Set<UUID> markupProductIds = new HashSet<>();
+        for (BatchPricingRequest.PricingLine line : lines) {
+            PriceBookSnapshotService.PriceEntry entry = book.productEntry(line.getProductId());
+            if (entry != null && entry.policyType() == PricingPolicyType.MARKUP_ON_PEAK) {
+                markupProductIds.add(line.getProductId());
+            }
+        }
+        Map<UUID, BigDecimal> peakCosts = findPeakUnitCosts(markupProductIds, request.getBranchId());
+
+        List<BatchPricingDto.LinePrice> linePrices = new ArrayList<>(lines.size());
+        BigDecimal totalAmount = BigDecimal.ZERO;
+        int unpricedCount = 0;
+        for (BatchPricingRequest.PricingLine line : lines) {
+            long quantity = line.getQuantity() != null ? line.getQuantity() : 1L;
+            PriceBookSnapshotService.PriceEntry entry = line.getProductId() != null
+                    ? book.productEntry(line.getProductId())
+                    : book.serviceEntry(line.getServiceId());
+            BigDecimal unitPrice = applyPolicy(entry, line, peakCosts);
+
+            BatchPricingDto.LinePrice.LinePriceBuilder linePrice = BatchPricingDto.LinePrice.builder()
+                    .productId(line.getProductId())
+                    .serviceId(line.getServiceId())
+                    .quantity(quantity)
+                    .policyType(entry != null ? entry.policyType() : null);
+            if (unitPrice != null) {
+                BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+                linePrice.unitPrice(unitPrice).lineTotal(lineTotal).found(true);
+                totalAmount = totalAmount.add(lineTotal);
+            } else {
+                unpricedCount++;
+                log.warn("No price for product={} service={} in price book {}",
+                        line.getProductId(), line.getServiceId(), book.code());
+            }
+            linePrices.add(linePrice.build());
+        }
+
+        return BatchPricingDto.builder()
+                .branchId(request.getBranchId())
+                .priceBookId(book.id())
+                .priceBookCode(book.code())
+                .totalAmount(totalAmount)
+                .lines(linePrices)
+                .unpricedCount(unpricedCount)
+                .build();
+    }
+
+    private PriceBookSnapshotService.ResolvedPriceBook resolveBookForBatch(BatchPricingRequest request,
+            List<BatchPricingRequest.PricingLine> lines) {
+        PriceBookSnapshotService.ResolvedPriceBook book = request.getPriceBookId() != null
+                ? priceBookSnapshotService.findBook(request.getPriceBookId())
+                : priceBookSnapshotService.activeBook(request.getBranchId());
+        if (book != null) {
+            return book;
+        }
+
+        // Bảng giá không nằm trong snapshot (không active hoặc snapshot chưa build được) → đọc DB
+        LocalDateTime today = LocalDateTime.now();
+        PriceBook priceBook = request.getPriceBookId() != null
+                ? priceBookEntityService.require(request.getPriceBookId())
+                : resolveActivePriceBook(request.getBranchId(), today)
+                        .orElseThrow(() -> new ServerSideException(ErrorCode.ENTITY_NOT_FOUND,
+                                "No active PriceBook for branch " + request.getBranchId() + " and date " + today));
+
+        Set<UUID> productIds = new HashSet<>();
+        Set<UUID> serviceIds = new HashSet<>();
+        for (BatchPricingRequest.PricingLine line : lines) {
+            if (line.getProductId() != null) {
+                productIds.add(line.getProductId());
+            } else if (line.getServiceId() != null) {
+                serviceIds.add(line.getServiceId());
+            }
+        }
+        List<Object[]> rows = productIds.isEmpty() && serviceIds.isEmpty()
+                ? List.of()
+                : priceBookItemRepository.findPriceRowsByPriceBookIdAndTargets(priceBook.getId(), productIds, serviceIds);
+        return PriceBookSnapshotService.ResolvedPriceBook.of(priceBook, rows);
+    }
+
+    private Map<UUID, BigDecimal> findPeakUnitCosts(Set<UUID> productIds, UUID branchId) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<UUID, BigDecimal> peakCosts = new HashMap<>();
+        if (branchId != null) {
+            inventoryLotRepository.findPeakUnitCostsByBranch(productIds, branchId)
+                    .forEach(row -> peakCosts.put((UUID) row[0], (BigDecimal) row[1]));
+        }
+        // Chi nhánh chưa từng nhập sản phẩm → dùng giá nhập cao nhất toàn hệ thống
+        Set<UUID> missing = new HashSet<>(productIds);
+        missing.removeAll(peakCosts.keySet());
+        if (!missing.isEmpty()) {
+            inventoryLotRepository.findPeakUnitCosts(missing)
+                    .forEach(row -> peakCosts.put((UUID) row[0], (BigDecimal) row[1]));
+        }
+        return peakCosts;
+    }
+
+    private BigDecimal applyPolicy(PriceBookSnapshotService.PriceEntry entry, BatchPricingRequest.PricingLine line,
+            Map<UUID, BigDecimal> peakCosts) {
+        if (entry == null) {
+            return null;
+        }
+        // Item cũ chưa có policy_type → coi như giá cố định
+        PricingPolicyType policyType = entry.policyType() != null ? entry.policyType() : PricingPolicyType.FIXED;
+        return switch (policyType) {
+            case FIXED -> entry.fixedPrice();
+            case MARKUP_ON_PEAK -> {
+                // Dịch vụ không có giá nhập → không áp dụng markup
+                BigDecimal peakCost = line.getProductId() != null ? peakCosts.get(line.getProductId()) : null;
+                if (peakCost == null || entry.markupPercent() == null) {
+                    yield null;
+                }
+                yield peakCost.multiply(BigDecimal.ONE.add(entry.markupPercent().divide(HUNDRED, MONEY_SCALE + 2,
+                        RoundingMode.HALF_UP))).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+            }
+        };
+    }
+
     private BigDecimal require(BigDecimal fixedPrice) {
         if (fixedPrice == null)
             throw new IllegalStateException("Missing field: fixedPrice");
@@ -1,8 +1,10 @@
 package com.kltn.scsms_api_service.core.service.businessService;
 
+import com.kltn.scsms_api_service.core.dto.productManagement.ProductFacetSearchDto;
 import com.kltn.scsms_api_service.core.dto.productManagement.ProductInfoDto;
 import com.kltn.scsms_api_service.core.dto.productManagement.param.ProductFilterParam;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.CreateProductRequest;
+import com.kltn.scsms_api_service.core.dto.productManagement.request.ProductFacetSearchRequest;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.UpdateProductRequest;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.ProductStatusUpdateRequest;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.ProductAttributeValueRequest;
@@ -12,12 +14,15 @@ import com.kltn.scsms_api_service.core.dto.mediaManagement.MediaInfoDto;
 import com.kltn.scsms_api_service.core.dto.mediaManagement.request.CreateMediaRequest;
 import com.kltn.scsms_api_service.core.dto.mediaManagement.request.UpdateMediaRequest;
 import com.kltn.scsms_api_service.core.dto.mediaManagement.request.UpdateMediaMainStatusRequest;
+import com.kltn.scsms_api_service.core.dto.response.PaginatedResponse;
 import com.kltn.scsms_api_service.core.entity.S3File;
 import com.kltn.scsms_api_service.core.entity.Product;
 import com.kltn.scsms_api_service.core.entity.ProductType;
 import com.kltn.scsms_api_service.core.entity.ProductAttribute;
 import com.kltn.scsms_api_service.core.entity.ProductAttributeValue;
 import com.kltn.scsms_api_service.core.entity.Media;
+import com.kltn.scsms_api_service.core.service.entityService.MediaResolver;
+import com.kltn.scsms_api_service.core.service.entityService.ProductFacetIndex;
 import com.kltn.scsms_api_service.core.service.entityService.ProductService;
 import com.kltn.scsms_api_service.core.service.entityService.ProductTypeService;
 import com.kltn.scsms_api_service.core.service.entityService.ProductAttributeService;
@@ -30,6 +35,7 @@ import com.kltn.scsms_api_service.mapper.ProductAttributeValueMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -42,7 +48,6 @@ import jakarta.persistence.criteria.Predicate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -54,17 +59,17 @@ public class ProductManagementService {
     private final ProductTypeService productTypeService;
     private final ProductAttributeService productAttributeService;
     private final ProductAttributeValueService productAttributeValueService;
+    private final ProductFacetIndex productFacetIndex;
     private final MediaManagementService mediaManagementService;
     private final S3FileService s3FileService;
+    private final MediaResolver mediaResolver;
     private final ProductMapper productMapper;
     private final ProductAttributeValueMapper productAttributeValueMapper;
 
     public List<ProductInfoDto> getAllProducts() {
         log.info("Getting all products");
         List<Product> products = productService.findAll();
-        return products.stream()
-                .map(productMapper::toProductInfoDto)
-                .collect(Collectors.toList());
+        return productMapper.toProductInfoDtoList(products, mediaResolver);
     }
 
     public Page<ProductInfoDto> getAllProducts(ProductFilterParam filterParam) {
@@ -85,7 +90,60 @@ public class ProductManagementService {
         // Get products with specification
         Page<Product> productPage = productService.findAll(spec, pageable);
 
-        return productPage.map(productMapper::toProductInfoDto);
+        return productMapper.toProductInfoDtoPage(productPage, mediaResolver);
+    }
+
+    /**
+     * Lọc sản phẩm theo ProductFilterParam + bộ lọc thuộc tính, kèm số lượng theo từng giá trị facet
+     * Bộ lọc thuộc tính và đếm facet chạy trên ProductFacetIndex (BitSet trong bộ nhớ); DB chỉ lấy ID base và 1 trang
+     * - ID base được lấy theo đúng thứ tự sort, trang được cắt trong bộ nhớ nên query load sản phẩm chỉ bind
+     *   tối đa page size ID (không IN theo toàn bộ kết quả lọc)
+     */
+    public ProductFacetSearchDto searchProductsFaceted(ProductFilterParam filterParam, ProductFacetSearchRequest request) {
+        log.info("Faceted product search with filter: {}, attribute filters: {}",
+                filterParam, request.getAttributeFilters() != null ? request.getAttributeFilters().size() : 0);
+
+        filterParam.standardizeFilterRequest(filterParam);
+        Sort sort = Sort.by(
+                filterParam.getDirection().equalsIgnoreCase("DESC") ? Sort.Direction.DESC : Sort.Direction.ASC,
+                filterParam.getSort());
+        Pageable pageable = PageRequest.of(filterParam.getPage(), filterParam.getSize(), sort);
+
+        Specification<Product> spec = buildProductSpecification(filterParam);
+        // productId làm tie-breaker để thứ tự ổn định giữa các trang
+        List<UUID> baseIds = productService.findIds(spec, sort.and(Sort.by("productId")));
+        ProductFacetIndex.FacetResult facetResult = productFacetIndex.evaluate(
+                baseIds,
+                request.getAttributeFilters() != null ? request.getAttributeFilters() : List.of(),
+                request.getFacetAttributeIds(),
+                request.getMaxFacetValues());
+
+        Page<Product> productPage;
+        if (facetResult.productIds() == null) {
+            productPage = productService.findAll(spec, pageable);
+        } else {
+            List<UUID> matchedIds = baseIds.stream().filter(facetResult.productIds()::contains).toList();
+            int from = (int) Math.min(pageable.getOffset(), matchedIds.size());
+            int to = Math.min(from + pageable.getPageSize(), matchedIds.size());
+            productPage = new PageImpl<>(productService.findAllByIdsInOrder(matchedIds.subList(from, to)),
+                    pageable, matchedIds.size());
+        }
+        Page<ProductInfoDto> dtoPage = productMapper.toProductInfoDtoPage(productPage, mediaResolver);
+
+        return ProductFacetSearchDto.builder()
+                .products(PaginatedResponse.<ProductInfoDto>builder()
+                        .content(dtoPage.getContent())
+                        .page(dtoPage.getNumber())
+                        .size(dtoPage.getSize())
+                        .totalElements(dtoPage.getTotalElements())
+                        .totalPages(dtoPage.getTotalPages())
+                        .first(dtoPage.isFirst())
+                        .last(dtoPage.isLast())
+                        .hasNext(dtoPage.hasNext())
+                        .hasPrevious(dtoPage.hasPrevious())
+                        .build())
+                .facets(facetResult.facets())
+                .build();
     }
 
     private Specification<Product> buildProductSpecification(ProductFilterParam filterParam) {
@@ -136,6 +194,7 @@ public class ProductManagementService {
         log.info("Getting product by ID: {}", productId);
         Product product = productService.getById(productId);
         ProductInfoDto dto = productMapper.toProductInfoDto(product);
+        populateImages(dto, product.getProductId());
         
         // Fetch and populate attribute values
         List<ProductAttributeValue> attributeValues = productAttributeValueService.getProductAttributeValues(productId);
@@ -149,6 +208,7 @@ public class ProductManagementService {
         log.info("Getting product by URL: {}", productUrl);
         Product product = productService.getByProductUrl(productUrl);
         ProductInfoDto dto = productMapper.toProductInfoDto(product);
+        populateImages(dto, product.getProductId());
         
         // Fetch and populate attribute values
         List<ProductAttributeValue> attributeValues = productAttributeValueService.getProductAttributeValues(product.getProductId());
@@ -158,36 +218,37 @@ public class ProductManagementService {
         return dto;
     }
 
+    /**
+     * Ảnh chính + gallery cho trang chi tiết (1 truy vấn, qua cache của MediaResolver)
+     */
+    private void populateImages(ProductInfoDto dto, UUID productId) {
+        MediaResolver.EntityMedia media = mediaResolver.resolve(Media.EntityType.PRODUCT, productId);
+        dto.setMainImage(media.mainImage());
+        dto.setImages(media.gallery());
+    }
+
     public List<ProductInfoDto> getProductsByProductType(UUID productTypeId) {
         log.info("Getting products by product type ID: {}", productTypeId);
         List<Product> products = productService.findByProductTypeId(productTypeId);
-        return products.stream()
-                .map(productMapper::toProductInfoDto)
-                .collect(Collectors.toList());
+        return productMapper.toProductInfoDtoList(products, mediaResolver);
     }
 
     public List<ProductInfoDto> getProductsBySupplier(UUID supplierId) {
         log.info("Getting products by supplier ID: {}", supplierId);
         List<Product> products = productService.findBySupplierId(supplierId);
-        return products.stream()
-                .map(productMapper::toProductInfoDto)
-                .collect(Collectors.toList());
+        return productMapper.toProductInfoDtoList(products, mediaResolver);
     }
 
     public List<ProductInfoDto> searchProducts(String keyword) {
         log.info("Searching products by keyword: {}", keyword);
         List<Product> products = productService.searchByKeyword(keyword);
-        return products.stream()
-                .map(productMapper::toProductInfoDto)
-                .collect(Collectors.toList());
+        return productMapper.toProductInfoDtoList(products, mediaResolver);
     }
 
     public List<ProductInfoDto> getFeaturedProducts() {
         log.info("Getting featured products");
         List<Product> products = productService.findFeaturedProducts();
-        return products.stream()
-                .map(productMapper::toProductInfoDto)
-                .collect(Collectors.toList());
+        return productMapper.toProductInfoDtoList(products, mediaResolver);
     }
 
     @Transactional
@@ -415,44 +476,14 @@ public class ProductManagementService {
         productService.getById(productId);
 
         // Upload file to S3
-        S3File s3File = s3FileService.uploadAndSave(
+        S3File s3File = s3FileService.uploadImageAndSave(
                 file,
                 "products/" + productId,
                 null, // uploadedBy - can be set to current user if available
                 "PRODUCT",
                 productId);
 
-        // If this is set as main, unset any existing main image
-        if (Boolean.TRUE.equals(isMain)) {
-            List<MediaInfoDto> existingImages = getProductImages(productId);
-            existingImages.stream()
-                    .filter(MediaInfoDto::getIsMain)
-                    .forEach(img -> {
-                        UpdateMediaMainStatusRequest statusRequest = new UpdateMediaMainStatusRequest();
-                        statusRequest.setIsMain(false);
-                        mediaManagementService.updateMediaMainStatus(img.getMediaId(), statusRequest);
-                    });
-        }
-
-        // Get current max sort order
-        List<MediaInfoDto> existingImages = getProductImages(productId);
-        int nextSortOrder = existingImages.stream()
-                .mapToInt(MediaInfoDto::getSortOrder)
-                .max()
-                .orElse(-1) + 1;
-
-        // Create media request with uploaded file URL
-        CreateMediaRequest createRequest = CreateMediaRequest.builder()
-                .entityType(Media.EntityType.PRODUCT.name())
-                .entityId(productId)
-                .mediaUrl(s3File.getFileUrl())
-                .mediaType(Media.MediaType.IMAGE.name())
-                .isMain(Boolean.TRUE.equals(isMain))
-                .sortOrder(nextSortOrder)
-                .altText(altText)
-                .build();
-
-        return mediaManagementService.createMedia(createRequest);
+        return mediaManagementService.addUploadedImage(Media.EntityType.PRODUCT, productId, s3File, altText, isMain);
     }
 
     /**
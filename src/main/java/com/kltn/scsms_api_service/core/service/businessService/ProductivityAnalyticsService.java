@@ -0,0 +1,237 @@
+package com.kltn.scsms_api_service.core.service.businessService;
+
+import com.kltn.scsms_api_service.core.dto.dashboard.BayProductivityDto;
+import com.kltn.scsms_api_service.core.dto.dashboard.DailyThroughputDto;
+import com.kltn.scsms_api_service.core.dto.dashboard.StepProductivityDto;
+import com.kltn.scsms_api_service.core.dto.dashboard.TechnicianProductivityDto;
+import com.kltn.scsms_api_service.core.service.entityService.TrackingStepStatsService;
+import com.kltn.scsms_api_service.exception.ClientSideException;
+import com.kltn.scsms_api_service.exception.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Dashboard năng suất kỹ thuật viên / bay / bước dịch vụ
+ * Đọc từ tracking_step_daily_stats (cộng dồn khi bước hoàn thành), không quét service_process_tracking
+ * Kỹ thuật viên được tính qua các bay đang được phân công (tracking không ghi kỹ thuật viên)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class ProductivityAnalyticsService {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_STEP_ROWS = 200;
+
+    private final TrackingStepStatsService trackingStepStatsService;
+
+    /**
+     * Các bước chậm nhất so với dự kiến (bước nghẽn trước)
+     */
+    public List<StepProductivityDto> getStepBottlenecks(UUID branchId, LocalDate fromDate, LocalDate toDate, int limit) {
+        DateRange range = resolveRange(fromDate, toDate);
+        int rowLimit = Math.min(Math.max(limit, 1), MAX_STEP_ROWS);
+        log.info("Getting step bottlenecks for branch {} from {} to {}", branchId, range.from(), range.to());
+
+        return trackingStepStatsService.aggregateBySteps(branchId, range.from(), range.to(), rowLimit).stream()
+            .map(row -> {
+                Totals totals = Totals.from(row, 4);
+                return StepProductivityDto.builder()
+                    .serviceStepId((UUID) row[0])
+                    .stepName((String) row[1])
+                    .stepOrder(row[2] != null ? ((Number) row[2]).intValue() : null)
+                    .processId((UUID) row[3])
+                    .completedSteps(totals.completed())
+                    .totalActualMinutes(totals.totalActualMinutes())
+                    .averageActualMinutes(totals.averageActualMinutes())
+                    .averageEstimatedMinutes(totals.averageEstimatedMinutes())
+                    .efficiency(totals.efficiency())
+                    .overrunRate(totals.overrunRate())
+                    .shareOfProcessTime(toDouble(row[10]))
+                    .rankInProcess(toLong(row[11]))
+                    .build();
+            })
+            .toList();
+    }
+
+    /**
+     * Mức sử dụng (thời gian làm / giờ làm việc của bay) và số bước hoàn thành theo bay
+     */
+    public List<BayProductivityDto> getBayProductivity(UUID branchId, LocalDate fromDate, LocalDate toDate) {
+        DateRange range = resolveRange(fromDate, toDate);
+        log.info("Getting bay productivity for branch {} from {} to {}", branchId, range.from(), range.to());
+
+        return trackingStepStatsService.aggregateByBays(branchId, range.from(), range.to()).stream()
+            .map(row -> {
+                Totals totals = Totals.from(row, 4);
+                double availableSeconds = toDouble(row[3]) * range.days();
+                return BayProductivityDto.builder()
+                    .bayId((UUID) row[0])
+                    .bayName((String) row[1])
+                    .branchId((UUID) row[2])
+                    .completedSteps(totals.completed())
+                    .totalActualMinutes(totals.totalActualMinutes())
+                    .averageActualMinutes(totals.averageActualMinutes())
+                    .averageEstimatedMinutes(totals.averageEstimatedMinutes())
+                    .efficiency(totals.efficiency())
+                    .overrunRate(totals.overrunRate())
+                    .utilization(availableSeconds > 0 ? round(totals.actualSeconds() / availableSeconds) : null)
+                    .stepsPerDay(round((double) totals.completed() / range.days()))
+                    .throughputRank(toLong(row[10]))
+                    .build();
+            })
+            .toList();
+    }
+
+    /**
+     * Năng suất theo kỹ thuật viên (technicianId null → tất cả)
+     */
+    public List<TechnicianProductivityDto> getTechnicianProductivity(UUID branchId, UUID technicianId,
+                                                                     LocalDate fromDate, LocalDate toDate) {
+        DateRange range = resolveRange(fromDate, toDate);
+        log.info("Getting technician productivity for branch {}, technician {} from {} to {}",
+            branchId, technicianId, range.from(), range.to());
+
+        return trackingStepStatsService.aggregateByTechnicians(branchId, technicianId, range.from(), range.to()).stream()
+            .map(row -> {
+                Totals totals = Totals.from(row, 3);
+                return TechnicianProductivityDto.builder()
+                    .technicianId((UUID) row[0])
+                    .technicianName((String) row[1])
+                    .bayCount(toLong(row[2]))
+                    .completedSteps(totals.completed())
+                    .totalActualMinutes(totals.totalActualMinutes())
+                    .averageActualMinutes(totals.averageActualMinutes())
+                    .averageEstimatedMinutes(totals.averageEstimatedMinutes())
+                    .efficiency(totals.efficiency())
+                    .overrunRate(totals.overrunRate())
+                    .stepsPerDay(round((double) totals.completed() / range.days()))
+                    .efficiencyRank(toLong(row[9]))
+                    .build();
+            })
+            .toList();
+    }
+
+    /**
+     * Số bước hoàn thành theo ngày
+     */
+    public List<DailyThroughputDto> getDailyThroughput(UUID branchId, LocalDate fromDate, LocalDate toDate) {
+        DateRange range = resolveRange(fromDate, toDate);
+        log.info("Getting daily throughput for branch {} from {} to {}", branchId, range.from(), range.to());
+
+        return trackingStepStatsService.aggregateByDay(branchId, range.from(), range.to()).stream()
+            .map(row -> DailyThroughputDto.builder()
+                .date(toLocalDate(row[0]))
+                .completedSteps(toLong(row[1]))
+                .totalActualMinutes(round(toDouble(row[2]) / 60))
+                .movingAverageSteps(round(toDouble(row[3])))
+                .build())
+            .toList();
+    }
+
+    /**
+     * Tỷ lệ thời gian dự kiến / thực tế của kỹ thuật viên (0 nếu chưa có bước nào có thời gian dự kiến)
+     */
+    public Double getTechnicianEfficiency(UUID technicianId, LocalDate fromDate, LocalDate toDate) {
+        return getTechnicianProductivity(null, technicianId, fromDate, toDate).stream()
+            .findFirst()
+            .map(TechnicianProductivityDto::getEfficiency)
+            .orElse(0.0);
+    }
+
+    /**
+     * Tổng thời gian làm việc (phút) của kỹ thuật viên
+     */
+    public Long getTechnicianTotalWorkMinutes(UUID technicianId, LocalDate fromDate, LocalDate toDate) {
+        return getTechnicianProductivity(null, technicianId, fromDate, toDate).stream()
+            .findFirst()
+            .map(dto -> Math.round(dto.getTotalActualMinutes()))
+            .orElse(0L);
+    }
+
+    /**
+     * Tính lại số liệu tổng hợp từ lịch sử tracking (sau khi sửa thời gian dự kiến của dịch vụ)
+     */
+    @Transactional
+    public int rebuildStats() {
+        return trackingStepStatsService.rebuildStats();
+    }
+
+    private DateRange resolveRange(LocalDate fromDate, LocalDate toDate) {
+        LocalDate to = toDate != null ? toDate : LocalDate.now();
+        LocalDate from = fromDate != null ? fromDate : to.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (from.isAfter(to)) {
+            throw new ClientSideException(ErrorCode.BAD_REQUEST, "fromDate must not be after toDate");
+        }
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_RANGE_DAYS) {
+            throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                "Date range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        return new DateRange(from, to, days);
+    }
+
+    private record DateRange(LocalDate from, LocalDate to, long days) {
+    }
+
+    /**
+     * 6 cột tổng hợp liên tiếp trong 1 dòng: completed, actual, estimatedCount, estimatedActual, estimated, overrun
+     */
+    private record Totals(long completed, long actualSeconds, long estimatedCount, long estimatedActualSeconds,
+                          long estimatedSeconds, long overrunCount) {
+
+        static Totals from(Object[] row, int offset) {
+            return new Totals(toLong(row[offset]), toLong(row[offset + 1]), toLong(row[offset + 2]),
+                toLong(row[offset + 3]), toLong(row[offset + 4]), toLong(row[offset + 5]));
+        }
+
+        Double totalActualMinutes() {
+            return round(actualSeconds / 60.0);
+        }
+
+        Double averageActualMinutes() {
+            return completed > 0 ? round(actualSeconds / 60.0 / completed) : null;
+        }
+
+        Double averageEstimatedMinutes() {
+            return estimatedCount > 0 ? round(estimatedSeconds / 60.0 / estimatedCount) : null;
+        }
+
+        Double efficiency() {
+            return estimatedCount > 0 && estimatedActualSeconds > 0
+                ? round((double) estimatedSeconds / estimatedActualSeconds) : null;
+        }
+
+        Double overrunRate() {
+            return estimatedCount > 0 ? round((double) overrunCount / estimatedCount) : null;
+        }
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    private static Double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+}
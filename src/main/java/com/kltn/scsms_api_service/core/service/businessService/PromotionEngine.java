@@ -0,0 +1,606 @@
+package com.kltn.scsms_api_service.core.service.businessService;
+
+import com.kltn.scsms_api_service.core.dto.promotionManagement.PromotionEvaluationDto;
+import com.kltn.scsms_api_service.core.dto.promotionManagement.request.EvaluatePromotionRequest;
+import com.kltn.scsms_api_service.core.entity.Promotion;
+import com.kltn.scsms_api_service.core.entity.PromotionLine;
+import com.kltn.scsms_api_service.core.repository.ProductRepository;
+import com.kltn.scsms_api_service.core.repository.PromotionLineRepository;
+import com.kltn.scsms_api_service.core.repository.ServiceRepository;
+import com.kltn.scsms_api_service.core.service.entityService.PromotionRedemptionLedger;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Engine tính khuyến mãi phía server
+ * - Các PromotionLine còn hiệu lực được compile thành rule index bất biến (chỉ giữ giá trị thuần, không giữ entity JPA):
+ *   rule PRODUCT/SERVICE/CATEGORY index theo target id, rule ALL là rule cấp đơn (điều kiện min_order_value)
+ * - Branch và khung thời gian (giao của promotion và line) được compile sẵn, kiểm tra lúc tính giỏ hàng
+ * - Index được thay nguyên khối sau khi transaction thay đổi KM commit, và làm mới định kỳ để nhận
+ *   sản phẩm/dịch vụ mới gán vào danh mục có KM
+ * - Tính giỏ hàng chỉ đọc index và bảng giá trong bộ nhớ; chỉ query DB 1 lần để loại các KM có giới hạn
+ *   lượt dùng đã hết lượt (tổng hoặc theo khách) trước khi xếp hạng
+ * - Quà tặng FREE_PRODUCT: mỗi line KM tặng đúng 1 lần với số lượng của line, định giá theo bảng giá hiện hành
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PromotionEngine {
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final int MONEY_SCALE = 4;
+
+    // Thứ tự xét rule: priority của promotion (nhỏ = ưu tiên cao) → promotion → line_priority
+    private static final Comparator<CompiledRule> RULE_ORDER = Comparator
+            .comparingInt(CompiledRule::priority)
+            .thenComparing(CompiledRule::promotionId)
+            .thenComparingInt(CompiledRule::linePriority);
+
+    private final PromotionLineRepository promotionLineRepository;
+    private final ProductRepository productRepository;
+    private final ServiceRepository serviceRepository;
+    private final PriceBookSnapshotService priceBookSnapshotService;
+    private final PromotionRedemptionLedger promotionRedemptionLedger;
+
+    private final AtomicReference<RuleIndex> index = new AtomicReference<>(RuleIndex.EMPTY);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Làm mới định kỳ: bắt sản phẩm/dịch vụ mới được gán vào danh mục đang có KM
+     */
+    @Scheduled(fixedDelayString = "${app.promotion-engine.refresh-interval-ms:600000}",
+            initialDelayString = "${app.promotion-engine.refresh-interval-ms:600000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Build lại index sau khi transaction hiện tại commit (hoặc ngay nếu không có transaction)
+     */
+    public void requestRebuild() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    rebuild();
+                }
+            });
+        } else {
+            rebuild();
+        }
+    }
+
+    /**
+     * Build index mới từ DB rồi thay nguyên khối; các build chạy tuần tự nên index cuối cùng luôn từ dữ liệu mới nhất
+     */
+    public synchronized void rebuild() {
+        try {
+            long startNanos = System.nanoTime();
+            RuleIndex compiled = compile(index.get().version() + 1, LocalDateTime.now());
+            index.set(compiled);
+            log.info("Promotion rule index rebuilt: version={}, rules={}, took={}ms",
+                    compiled.version(), compiled.ruleCount(), (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (Exception e) {
+            log.error("Failed to rebuild promotion rule index, keeping version {}: {}",
+                    index.get().version(), e.getMessage(), e);
+        }
+    }
+
+    public PromotionEvaluationDto evaluate(EvaluatePromotionRequest request) {
+        return evaluate(request, LocalDateTime.now());
+    }
+
+    /**
+     * Tính tổ hợp KM tốt nhất cho giỏ hàng trong 1 lượt duyệt các dòng
+     * - Mỗi KM chỉ áp dụng 1 line (line_priority cao nhất) trên mỗi dòng hàng và 1 line cấp đơn
+     * - KM stackable cộng dồn theo thứ tự priority, giảm trên phần tiền còn lại của dòng/đơn
+     * - KM không stackable tính riêng; chọn phương án có tổng giảm (kể cả giá trị quà tặng) lớn nhất
+     */
+    public PromotionEvaluationDto evaluate(EvaluatePromotionRequest request, LocalDateTime at) {
+        RuleIndex idx = currentIndex();
+        List<EvaluatePromotionRequest.CartLine> lines = request.getLines() != null ? request.getLines() : List.of();
+        Set<UUID> allowed = request.getPromotionIds() != null ? new HashSet<>(request.getPromotionIds()) : null;
+        UUID branchId = request.getBranchId();
+        int n = lines.size();
+        Set<UUID> exhausted = findExhausted(idx, allowed, request.getCustomerId());
+        GiftPricer giftPricer = new GiftPricer(priceBookSnapshotService.activeBookAt(branchId, at));
+
+        // Tiền từng dòng và tạm tính (dòng quà tặng không tính tiền, không xét KM)
+        BigDecimal[] lineAmounts = new BigDecimal[n];
+        long[] quantities = new long[n];
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < n; i++) {
+            EvaluatePromotionRequest.CartLine line = lines.get(i);
+            quantities[i] = line.getQuantity() != null ? Math.max(0, line.getQuantity()) : 0;
+            lineAmounts[i] = isFreeItem(line) || line.getUnitPrice() == null
+                    ? BigDecimal.ZERO
+                    : line.getUnitPrice().multiply(BigDecimal.valueOf(quantities[i]));
+            subtotal = subtotal.add(lineAmounts[i]);
+        }
+
+        Map<UUID, Accumulator> accumulators = new LinkedHashMap<>();
+        BigDecimal[] stackRemaining = lineAmounts.clone();
+        List<CompiledRule> candidates = new ArrayList<>();
+
+        for (int i = 0; i < n; i++) {
+            EvaluatePromotionRequest.CartLine line = lines.get(i);
+            if (isFreeItem(line)) {
+                continue;
+            }
+
+            candidates.clear();
+            collectCandidates(candidates, rulesFor(idx.byProduct(), line.getProductId()), branchId, at, allowed, exhausted, quantities[i], subtotal);
+            collectCandidates(candidates, rulesFor(idx.byService(), line.getServiceId()), branchId, at, allowed, exhausted, quantities[i], subtotal);
+            collectCandidates(candidates, rulesFor(idx.byCategory(), idx.categoryOf(line)), branchId, at, allowed, exhausted, quantities[i], subtotal);
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            if (candidates.size() > 1) {
+                candidates.sort(RULE_ORDER);
+            }
+
+            UUID previousPromotionId = null;
+            for (CompiledRule rule : candidates) {
+                // Đã sort theo promotion → line_priority: chỉ lấy line đầu tiên của mỗi KM trên dòng này
+                if (rule.promotionId().equals(previousPromotionId)) {
+                    continue;
+                }
+                previousPromotionId = rule.promotionId();
+
+                BigDecimal discount = rule.itemDiscount(lineAmounts[i], line.getUnitPrice(), quantities[i]);
+                Accumulator acc = accumulators.computeIfAbsent(rule.promotionId(), id -> new Accumulator(rule, n));
+                if (rule.stackable()) {
+                    discount = discount.min(stackRemaining[i]);
+                    stackRemaining[i] = stackRemaining[i].subtract(discount);
+                } else {
+                    discount = discount.min(lineAmounts[i]);
+                }
+                acc.addLineDiscount(rule, i, discount);
+                acc.addGift(rule, giftPricer);
+            }
+        }
+
+        // Rule cấp đơn: tính trên phần tiền còn lại sau giảm cấp dòng
+        BigDecimal stackBase = sum(stackRemaining);
+        for (CompiledRule rule : idx.orderRules()) {
+            if (!rule.isApplicable(branchId, at, allowed, exhausted) || subtotal.compareTo(rule.minOrderValue()) < 0) {
+                continue;
+            }
+            Accumulator acc = accumulators.computeIfAbsent(rule.promotionId(), id -> new Accumulator(rule, n));
+            if (acc.orderRuleApplied) {
+                continue;
+            }
+            acc.orderRuleApplied = true;
+
+            BigDecimal base = rule.stackable() ? stackBase : subtotal.subtract(acc.itemDiscount);
+            BigDecimal discount = rule.orderDiscount(base).min(base);
+            if (rule.stackable()) {
+                stackBase = stackBase.subtract(discount);
+            }
+            acc.orderDiscount = discount;
+            acc.credit(rule, discount);
+            acc.addGift(rule, giftPricer);
+        }
+
+        List<Accumulator> chosen = chooseBestCombination(accumulators.values());
+        return buildResult(idx, lines, lineAmounts, subtotal, chosen, at);
+    }
+
+    /**
+     * KM có giới hạn lượt dùng (trong phạm vi được chọn) đã hết lượt, tổng hoặc của khách
+     * Chỉ query khi index có KM giới hạn; ledger vẫn giữ lượt nguyên tử lúc tạo đơn
+     */
+    private Set<UUID> findExhausted(RuleIndex idx, Set<UUID> allowed, UUID customerId) {
+        if (idx.limitedPromotionIds().isEmpty()) {
+            return Set.of();
+        }
+        List<UUID> limited = idx.limitedPromotionIds().stream()
+                .filter(promotionId -> allowed == null || allowed.contains(promotionId))
+                .toList();
+        return limited.isEmpty() ? Set.of() : promotionRedemptionLedger.findExhausted(limited, customerId);
+    }
+
+    private void collectCandidates(List<CompiledRule> candidates, List<CompiledRule> rules, UUID branchId,
+                                   LocalDateTime at, Set<UUID> allowed, Set<UUID> exhausted,
+                                   long quantity, BigDecimal subtotal) {
+        if (rules == null) {
+            return;
+        }
+        for (CompiledRule rule : rules) {
+            if (rule.isApplicable(branchId, at, allowed, exhausted)
+                    && quantity >= rule.minQuantity()
+                    && subtotal.compareTo(rule.minOrderValue()) >= 0) {
+                candidates.add(rule);
+            }
+        }
+    }
+
+    /**
+     * So sánh tổ hợp tất cả KM stackable với từng KM không stackable đứng riêng
+     */
+    private List<Accumulator> chooseBestCombination(Collection<Accumulator> accumulators) {
+        List<Accumulator> stackable = new ArrayList<>();
+        BigDecimal stackableValue = BigDecimal.ZERO;
+        Accumulator bestExclusive = null;
+
+        for (Accumulator acc : accumulators) {
+            if (acc.value().signum() <= 0 && acc.freeItems.isEmpty()) {
+                continue;
+            }
+            if (acc.rule.stackable()) {
+                stackable.add(acc);
+                stackableValue = stackableValue.add(acc.value());
+            } else if (bestExclusive == null || acc.value().compareTo(bestExclusive.value()) > 0
+                    || (acc.value().compareTo(bestExclusive.value()) == 0 && acc.rule.priority() < bestExclusive.rule.priority())) {
+                bestExclusive = acc;
+            }
+        }
+
+        if (bestExclusive != null && bestExclusive.value().compareTo(stackableValue) > 0) {
+            return List.of(bestExclusive);
+        }
+        stackable.sort(Comparator.comparing(acc -> acc.rule, RULE_ORDER));
+        return stackable;
+    }
+
+    private PromotionEvaluationDto buildResult(RuleIndex idx, List<EvaluatePromotionRequest.CartLine> lines,
+                                               BigDecimal[] lineAmounts, BigDecimal subtotal,
+                                               List<Accumulator> chosen, LocalDateTime at) {
+        BigDecimal totalDiscount = BigDecimal.ZERO;
+        BigDecimal[] lineDiscounts = new BigDecimal[lines.size()];
+        Arrays.fill(lineDiscounts, BigDecimal.ZERO);
+        List<PromotionEvaluationDto.AppliedPromotion> applied = new ArrayList<>();
+        List<PromotionEvaluationDto.FreeItem> freeItems = new ArrayList<>();
+
+        for (Accumulator acc : chosen) {
+            BigDecimal discount = acc.itemDiscount.add(acc.orderDiscount).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+            totalDiscount = totalDiscount.add(discount);
+            for (int i = 0; i < lineDiscounts.length; i++) {
+                lineDiscounts[i] = lineDiscounts[i].add(acc.lineDiscounts[i]);
+            }
+            applied.add(PromotionEvaluationDto.AppliedPromotion.builder()
+                    .promotionId(acc.rule.promotionId())
+                    .promotionCode(acc.rule.promotionCode())
+                    .promotionName(acc.rule.promotionName())
+                    .promotionLineId(acc.primaryLineId())
+                    .isStackable(acc.rule.stackable())
+                    .discountAmount(discount)
+                    .giftValue(acc.giftValue.setScale(MONEY_SCALE, RoundingMode.HALF_UP))
+                    .build());
+            freeItems.addAll(acc.freeItems);
+        }
+
+        totalDiscount = totalDiscount.min(subtotal);
+        List<PromotionEvaluationDto.LineDiscount> lineResults = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            lineResults.add(PromotionEvaluationDto.LineDiscount.builder()
+                    .lineIndex(i)
+                    .productId(lines.get(i).getProductId())
+                    .serviceId(lines.get(i).getServiceId())
+                    .originalAmount(lineAmounts[i])
+                    .discountAmount(lineDiscounts[i].setScale(MONEY_SCALE, RoundingMode.HALF_UP))
+                    .build());
+        }
+
+        BigDecimal discountPercentage = subtotal.signum() > 0
+                ? totalDiscount.multiply(HUNDRED).divide(subtotal, 2, RoundingMode.HALF_UP)
+                : BigDecimal.ZERO;
+
+        return PromotionEvaluationDto.builder()
+                .originalAmount(subtotal)
+                .totalDiscountAmount(totalDiscount)
+                .finalAmount(subtotal.subtract(totalDiscount))
+                .discountPercentage(discountPercentage)
+                .appliedPromotions(applied)
+                .lineDiscounts(lineResults)
+                .freeItems(freeItems)
+                .evaluatedAt(at)
+                .indexVersion(idx.version())
+                .build();
+    }
+
+    private RuleIndex currentIndex() {
+        RuleIndex current = index.get();
+        // Index chưa từng build thành công (DB lỗi lúc khởi động) → thử build lại thay vì tính với index rỗng
+        if (current.version() == 0) {
+            rebuild();
+            current = index.get();
+        }
+        return current;
+    }
+
+    private RuleIndex compile(long version, LocalDateTime now) {
+        Map<UUID, List<CompiledRule>> byProduct = new HashMap<>();
+        Map<UUID, List<CompiledRule>> byService = new HashMap<>();
+        Map<UUID, List<CompiledRule>> byCategory = new HashMap<>();
+        List<CompiledRule> orderRules = new ArrayList<>();
+        Set<UUID> limitedPromotionIds = new HashSet<>();
+        int ruleCount = 0;
+
+        for (PromotionLine line : promotionLineRepository.findCompilableLines(now)) {
+            CompiledRule rule = CompiledRule.of(line);
+            if (rule == null) {
+                continue;
+            }
+            if (line.getLineType() != PromotionLine.LineType.ALL && line.getTargetId() == null) {
+                log.warn("Skipping promotion line {} ({}) without target id", line.getPromotionLineId(), line.getLineType());
+                continue;
+            }
+            switch (line.getLineType()) {
+                case PRODUCT -> byProduct.computeIfAbsent(line.getTargetId(), k -> new ArrayList<>()).add(rule);
+                case SERVICE -> byService.computeIfAbsent(line.getTargetId(), k -> new ArrayList<>()).add(rule);
+                case CATEGORY -> byCategory.computeIfAbsent(line.getTargetId(), k -> new ArrayList<>()).add(rule);
+                case ALL -> orderRules.add(rule);
+            }
+            if (rule.limited()) {
+                limitedPromotionIds.add(rule.promotionId());
+            }
+            ruleCount++;
+        }
+
+        Map<UUID, UUID> productCategory = new HashMap<>();
+        Map<UUID, UUID> serviceCategory = new HashMap<>();
+        if (!byCategory.isEmpty()) {
+            for (Object[] pair : productRepository.findProductCategoryPairs(byCategory.keySet())) {
+                productCategory.put((UUID) pair[0], (UUID) pair[1]);
+            }
+            for (Object[] pair : serviceRepository.findServiceCategoryPairs(byCategory.keySet())) {
+                serviceCategory.put((UUID) pair[0], (UUID) pair[1]);
+            }
+        }
+
+        orderRules.sort(RULE_ORDER);
+        return new RuleIndex(version, ruleCount,
+                freeze(byProduct), freeze(byService), freeze(byCategory), List.copyOf(orderRules),
+                Map.copyOf(productCategory), Map.copyOf(serviceCategory), Set.copyOf(limitedPromotionIds));
+    }
+
+    private static Map<UUID, List<CompiledRule>> freeze(Map<UUID, List<CompiledRule>> rules) {
+        Map<UUID, List<CompiledRule>> frozen = new HashMap<>(rules.size() * 2);
+        rules.forEach((targetId, list) -> {
+            list.sort(RULE_ORDER);
+            frozen.put(targetId, List.copyOf(list));
+        });
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    private static List<CompiledRule> rulesFor(Map<UUID, List<CompiledRule>> rules, UUID targetId) {
+        return targetId != null ? rules.get(targetId) : null;
+    }
+
+    private static boolean isFreeItem(EvaluatePromotionRequest.CartLine line) {
+        return Boolean.TRUE.equals(line.getIsFreeItem());
+    }
+
+    private static BigDecimal sum(BigDecimal[] values) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal value : values) {
+            total = total.add(value);
+        }
+        return total;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static LocalDateTime earlier(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isBefore(b) ? a : b;
+    }
+
+    /**
+     * Index bất biến; categoryOf dùng map sản phẩm/dịch vụ → danh mục (chỉ các danh mục có rule CATEGORY)
+     * limitedPromotionIds: KM có usage_limit / per_customer_limit / coupon_redeem_once
+     */
+    private record RuleIndex(long version, int ruleCount,
+                             Map<UUID, List<CompiledRule>> byProduct,
+                             Map<UUID, List<CompiledRule>> byService,
+                             Map<UUID, List<CompiledRule>> byCategory,
+                             List<CompiledRule> orderRules,
+                             Map<UUID, UUID> productCategory,
+                             Map<UUID, UUID> serviceCategory,
+                             Set<UUID> limitedPromotionIds) {
+
+        static final RuleIndex EMPTY = new RuleIndex(0, 0, Map.of(), Map.of(), Map.of(), List.of(), Map.of(), Map.of(), Set.of());
+
+        UUID categoryOf(EvaluatePromotionRequest.CartLine line) {
+            if (line.getServiceId() != null) {
+                return serviceCategory.get(line.getServiceId());
+            }
+            return line.getProductId() != null ? productCategory.get(line.getProductId()) : null;
+        }
+    }
+
+    /**
+     * 1 PromotionLine đã compile cùng thông tin promotion cần để tính và so sánh
+     */
+    private record CompiledRule(UUID promotionId, UUID promotionLineId, String promotionCode, String promotionName,
+                                int priority, int linePriority, boolean stackable, boolean limited,
+                                UUID branchId, LocalDateTime startAt, LocalDateTime endAt,
+                                PromotionLine.DiscountType discountType, BigDecimal discountValue,
+                                BigDecimal maxDiscountAmount, BigDecimal minOrderValue, long minQuantity,
+                                int buyQty, int getQty, UUID freeProductId, int freeQuantity) {
+
+        static CompiledRule of(PromotionLine line) {
+            Promotion promotion = line.getPromotion();
+            LocalDateTime startAt = later(promotion.getStartAt(), line.getStartAt());
+            LocalDateTime endAt = earlier(promotion.getEndAt(), line.getEndAt());
+            if (startAt != null && endAt != null && endAt.isBefore(startAt)) {
+                return null;
+            }
+            // Branch của line override branch của promotion
+            UUID branchId = line.getBranch() != null
+                    ? line.getBranch().getBranchId()
+                    : promotion.getBranch() != null ? promotion.getBranch().getBranchId() : null;
+
+            return new CompiledRule(
+                    promotion.getPromotionId(),
+                    line.getPromotionLineId(),
+                    promotion.getPromotionCode(),
+                    promotion.getName(),
+                    promotion.getPriority() != null ? promotion.getPriority() : 100,
+                    line.getLinePriority() != null ? line.getLinePriority() : 100,
+                    Boolean.TRUE.equals(promotion.getIsStackable()),
+                    promotion.getUsageLimit() != null || promotion.getPerCustomerLimit() != null
+                            || Boolean.TRUE.equals(promotion.getCouponRedeemOnce()),
+                    branchId,
+                    startAt,
+                    endAt,
+                    line.getDiscountType(),
+                    orZero(line.getDiscountValue()),
+                    line.getMaxDiscountAmount(),
+                    orZero(line.getMinOrderValue()),
+                    line.getMinQuantity() != null ? line.getMinQuantity() : 0,
+                    line.getBuyQty() != null ? line.getBuyQty() : 0,
+                    line.getGetQty() != null ? line.getGetQty() : 0,
+                    line.getFreeProduct() != null ? line.getFreeProduct().getProductId() : null,
+                    line.getFreeQuantity() != null ? line.getFreeQuantity() : 1);
+        }
+
+        boolean isApplicable(UUID cartBranchId, LocalDateTime at, Set<UUID> allowed, Set<UUID> exhausted) {
+            if (allowed != null && !allowed.contains(promotionId)) return false;
+            if (exhausted.contains(promotionId)) return false;
+            if (branchId != null && !branchId.equals(cartBranchId)) return false;
+            if (startAt != null && at.isBefore(startAt)) return false;
+            return endAt == null || !at.isAfter(endAt);
+        }
+
+        /**
+         * Giảm giá cấp dòng (FIXED_PRICE là giá cố định cho mỗi đơn vị, FREE_PRODUCT là quà tặng nên không trừ vào dòng)
+         */
+        BigDecimal itemDiscount(BigDecimal amount, BigDecimal unitPrice, long quantity) {
+            return switch (discountType) {
+                case PERCENT, AMOUNT -> orderDiscount(amount);
+                case FIXED_PRICE -> amount.subtract(discountValue.multiply(BigDecimal.valueOf(quantity))).max(BigDecimal.ZERO);
+                case BUY_X_GET_Y -> {
+                    if (buyQty <= 0 || getQty <= 0 || unitPrice == null) yield BigDecimal.ZERO;
+                    long freeUnits = quantity / (buyQty + getQty) * getQty;
+                    yield unitPrice.multiply(BigDecimal.valueOf(freeUnits));
+                }
+                case FREE_PRODUCT -> BigDecimal.ZERO;
+            };
+        }
+
+        /**
+         * Giảm giá trên 1 khoản tiền (cả đơn hoặc 1 dòng); chỉ PERCENT/AMOUNT có nghĩa ở cấp đơn
+         */
+        BigDecimal orderDiscount(BigDecimal base) {
+            return switch (discountType) {
+                case PERCENT -> {
+                    BigDecimal discount = base.multiply(discountValue).divide(HUNDRED, MONEY_SCALE, RoundingMode.HALF_UP);
+                    yield maxDiscountAmount != null ? discount.min(maxDiscountAmount) : discount;
+                }
+                case AMOUNT -> discountValue.min(base);
+                default -> BigDecimal.ZERO;
+            };
+        }
+
+        boolean hasGift() {
+            return discountType == PromotionLine.DiscountType.FREE_PRODUCT && freeProductId != null;
+        }
+    }
+
+    /**
+     * Định giá quà tặng theo bảng giá hiệu lực của chi nhánh tại thời điểm tính (snapshot trong bộ nhớ)
+     * Sản phẩm không có giá trong bảng giá → quà vẫn được tặng nhưng không cộng giá trị khi so sánh KM
+     */
+    private record GiftPricer(PriceBookSnapshotService.ResolvedPriceBook priceBook) {
+
+        BigDecimal unitPrice(UUID productId) {
+            return priceBook != null ? orZero(priceBook.productPrice(productId)) : BigDecimal.ZERO;
+        }
+    }
+
+    /**
+     * Tổng giảm của 1 KM trên giỏ hàng (cấp dòng, cấp đơn, quà tặng)
+     */
+    private static final class Accumulator {
+        private final CompiledRule rule;
+        private final BigDecimal[] lineDiscounts;
+        private final List<PromotionEvaluationDto.FreeItem> freeItems = new ArrayList<>(0);
+        private final Set<UUID> giftedLines = new HashSet<>(2);
+        private final Map<UUID, BigDecimal> lineContributions = new LinkedHashMap<>(2);
+        private BigDecimal itemDiscount = BigDecimal.ZERO;
+        private BigDecimal orderDiscount = BigDecimal.ZERO;
+        private BigDecimal giftValue = BigDecimal.ZERO;
+        private boolean orderRuleApplied;
+
+        private Accumulator(CompiledRule rule, int lineCount) {
+            this.rule = rule;
+            this.lineDiscounts = new BigDecimal[lineCount];
+            Arrays.fill(lineDiscounts, BigDecimal.ZERO);
+        }
+
+        private void addLineDiscount(CompiledRule matched, int lineIndex, BigDecimal discount) {
+            lineDiscounts[lineIndex] = lineDiscounts[lineIndex].add(discount);
+            itemDiscount = itemDiscount.add(discount);
+            credit(matched, discount);
+        }
+
+        private void credit(CompiledRule matched, BigDecimal amount) {
+            lineContributions.merge(matched.promotionLineId(), amount, BigDecimal::add);
+        }
+
+        /**
+         * Line KM đóng góp nhiều nhất; hòa thì lấy line được xét trước (priority cao hơn)
+         */
+        private UUID primaryLineId() {
+            UUID primary = null;
+            BigDecimal best = null;
+            for (Map.Entry<UUID, BigDecimal> entry : lineContributions.entrySet()) {
+                if (best == null || entry.getValue().compareTo(best) > 0) {
+                    primary = entry.getKey();
+                    best = entry.getValue();
+                }
+            }
+            return primary;
+        }
+
+        /**
+         * Quà của 1 line KM chỉ tặng 1 lần dù line khớp nhiều dòng hàng
+         */
+        private void addGift(CompiledRule matched, GiftPricer giftPricer) {
+            if (!matched.hasGift() || !giftedLines.add(matched.promotionLineId())) {
+                return;
+            }
+            BigDecimal unitPrice = giftPricer.unitPrice(matched.freeProductId());
+            BigDecimal value = unitPrice.multiply(BigDecimal.valueOf(matched.freeQuantity()));
+            giftValue = giftValue.add(value);
+            credit(matched, value);
+            freeItems.add(PromotionEvaluationDto.FreeItem.builder()
+                    .promotionId(matched.promotionId())
+                    .productId(matched.freeProductId())
+                    .quantity(matched.freeQuantity())
+                    .unitPrice(unitPrice)
+                    .build());
+        }
+
+        private BigDecimal value() {
+            return itemDiscount.add(orderDiscount).add(giftValue);
+        }
+    }
+}
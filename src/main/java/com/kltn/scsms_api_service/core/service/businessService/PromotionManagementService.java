@@ -7,6 +7,7 @@ import com.kltn.scsms_api_service.core.entity.Branch;
 import com.kltn.scsms_api_service.core.entity.Product;
 import com.kltn.scsms_api_service.core.entity.Promotion;
 import com.kltn.scsms_api_service.core.entity.PromotionLine;
+import com.kltn.scsms_api_service.core.entity.PromotionUsageStats;
 import com.kltn.scsms_api_service.core.service.entityService.*;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
@@ -35,6 +36,7 @@ public class PromotionManagementService {
     private final PromotionUsageService promotionUsageService;
     private final BranchService branchService;
     private final ProductService productService;
+    private final PromotionEngine promotionEngine;
     private final com.kltn.scsms_api_service.core.repository.SalesOrderRepository salesOrderRepository;
 
     private final PromotionMapper promotionMapper;
@@ -118,6 +120,8 @@ public class PromotionManagementService {
                 savedPromotion.getPromotionId(),
                 savedPromotion.getPromotionLines().size());
 
+        promotionEngine.requestRebuild();
+
         return promotionMapper.toPromotionInfoDto(savedPromotion);
     }
 
@@ -165,6 +169,8 @@ public class PromotionManagementService {
                 updatedPromotion.getPromotionId(),
                 updatedPromotion.getPromotionLines().size());
 
+        promotionEngine.requestRebuild();
+
         return promotionMapper.toPromotionInfoDto(updatedPromotion);
     }
 
@@ -179,14 +185,18 @@ public class PromotionManagementService {
         Promotion existingPromotion = promotionService.getById(promotionId);
 
         // Check if promotion is being used
-        if (existingPromotion.getUsages() != null && !existingPromotion.getUsages().isEmpty()) {
+        PromotionUsageStats usageStats =
+                promotionUsageService.getUsageStats(List.of(promotionId)).get(promotionId);
+        if (usageStats != null && usageStats.getUsageCount() > 0) {
             throw new ClientSideException(ErrorCode.BAD_REQUEST,
-                    "Cannot delete promotion that has been used. Used count: " + existingPromotion.getUsages().size());
+                    "Cannot delete promotion that has been used. Used count: " + usageStats.getUsageCount());
         }
 
         // Soft delete promotion
         promotionService.deletePromotion(existingPromotion);
 
+        promotionEngine.requestRebuild();
+
         log.info("Deleted promotion with ID: {}", promotionId);
     }
 
@@ -199,6 +209,8 @@ public class PromotionManagementService {
 
         promotionService.updatePromotionStatus(promotionId, request.getIsActive());
 
+        promotionEngine.requestRebuild();
+
         log.info("Updated promotion status with ID: {} to active: {}", promotionId, request.getIsActive());
     }
 
@@ -235,6 +247,8 @@ public class PromotionManagementService {
 
         promotionService.restorePromotion(promotionId);
 
+        promotionEngine.requestRebuild();
+
         log.info("Restored promotion with ID: {}", promotionId);
     }
 
@@ -244,12 +258,13 @@ public class PromotionManagementService {
     public PromotionStatisticsDto getPromotionStatistics() {
         log.info("Getting promotion statistics");
 
+        PromotionService.PromotionCounts counts = promotionService.getPromotionCounts();
         return PromotionStatisticsDto.builder()
-                .totalPromotions(promotionService.getTotalPromotionsCount())
-                .activePromotions(promotionService.getActivePromotionsCount())
-                .visiblePromotions(promotionService.getVisiblePromotionsCount())
-                .autoApplyPromotions(promotionService.getAutoApplyPromotionsCount())
-                .stackablePromotions(promotionService.getStackablePromotionsCount())
+                .totalPromotions(counts.total())
+                .activePromotions(counts.active())
+                .visiblePromotions(counts.visible())
+                .autoApplyPromotions(counts.autoApply())
+                .stackablePromotions(counts.stackable())
                 .build();
     }
 
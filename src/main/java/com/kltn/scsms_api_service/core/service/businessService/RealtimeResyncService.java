@@ -0,0 +1,118 @@
+package com.kltn.scsms_api_service.core.service.businessService;
+
+import com.kltn.scsms_api_service.configs.security.WebSocketPrincipal;
+import com.kltn.scsms_api_service.core.dto.token.LoginUserInfo;
+import com.kltn.scsms_api_service.core.dto.websocket.EntityDeltaDto;
+import com.kltn.scsms_api_service.core.dto.websocket.RealtimeResyncResponse;
+import com.kltn.scsms_api_service.core.entity.Booking;
+import com.kltn.scsms_api_service.core.entity.ServiceProcessTracking;
+import com.kltn.scsms_api_service.core.repository.BookingRepository;
+import com.kltn.scsms_api_service.core.repository.ServiceProcessTrackingRepository;
+import com.kltn.scsms_api_service.core.service.websocket.RealtimeDeltaTracker;
+import com.kltn.scsms_api_service.core.utils.PermissionUtils;
+import com.kltn.scsms_api_service.exception.ClientSideException;
+import com.kltn.scsms_api_service.exception.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Resync cho client WebSocket khi mất delta (base_version không khớp, reconnect)
+ * Trả về trạng thái hiện tại (delta full) của booking/tracking thay đổi từ since trong đúng phạm vi client subscribe:
+ * chi nhánh, bay (nhân viên) hoặc booking của chính khách hàng
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class RealtimeResyncService {
+
+    private static final int MAX_ITEMS = 500;
+    private static final Duration MAX_WINDOW = Duration.ofHours(24);
+
+    private final BookingRepository bookingRepository;
+    private final ServiceProcessTrackingRepository trackingRepository;
+    private final RealtimeDeltaTracker deltaTracker;
+
+    public RealtimeResyncResponse resync(UUID branchId, UUID bayId, LocalDateTime since) {
+        LoginUserInfo currentUser = PermissionUtils.getCurrentUser();
+        if (currentUser == null || currentUser.getSub() == null) {
+            throw new ClientSideException(ErrorCode.UNAUTHORIZED, "Login required to resync real-time data");
+        }
+        if (since == null) {
+            throw new ClientSideException(ErrorCode.BAD_REQUEST, "since is required");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        // Khoảng quá dài → chỉ trả cờ truncated để client tải lại toàn bộ danh sách
+        if (since.isBefore(now.minus(MAX_WINDOW))) {
+            return RealtimeResyncResponse.builder()
+                    .bookings(List.of())
+                    .trackings(List.of())
+                    .serverTime(now)
+                    .truncated(true)
+                    .build();
+        }
+
+        Pageable limit = PageRequest.of(0, MAX_ITEMS + 1);
+        List<Booking> bookings;
+        List<ServiceProcessTracking> trackings;
+        if (branchId != null || bayId != null) {
+            if (WebSocketPrincipal.CUSTOMER_ROLE.equalsIgnoreCase(currentUser.getRole())) {
+                throw new ClientSideException(ErrorCode.FORBIDDEN, "Branch and bay feeds are only available to staff");
+            }
+            bookings = bayId != null
+                    ? bookingRepository.findChangedByBay(bayId, since, limit)
+                    : bookingRepository.findChangedByBranch(branchId, since, limit);
+            trackings = bayId != null
+                    ? trackingRepository.findChangedByBay(bayId, since, limit)
+                    : trackingRepository.findChangedByBranch(branchId, since, limit);
+        } else {
+            UUID customerId = UUID.fromString(currentUser.getSub());
+            bookings = bookingRepository.findChangedByCustomer(customerId, since, limit);
+            trackings = trackingRepository.findChangedByCustomer(customerId, since, limit);
+        }
+
+        boolean truncated = bookings.size() > MAX_ITEMS || trackings.size() > MAX_ITEMS;
+        log.debug("Realtime resync since {} (branch={}, bay={}): {} bookings, {} trackings, truncated={}",
+                since, branchId, bayId, bookings.size(), trackings.size(), truncated);
+
+        return RealtimeResyncResponse.builder()
+                .bookings(bookings.stream().limit(MAX_ITEMS).map(this::toDelta).toList())
+                .trackings(trackings.stream().limit(MAX_ITEMS).map(this::toDelta).toList())
+                .serverTime(now)
+                .truncated(truncated)
+                .build();
+    }
+
+    private EntityDeltaDto toDelta(Booking booking) {
+        EntityDeltaDto delta = deltaTracker.full(EntityDeltaDto.EntityType.BOOKING, booking.getBookingId(),
+                booking.getVersion(), deltaTracker.bookingFields(booking));
+        delta.setEventType("SNAPSHOT");
+        delta.setBookingId(booking.getBookingId());
+        delta.setBookingCode(booking.getBookingCode());
+        delta.setBranchId(booking.getBranch() != null ? booking.getBranch().getBranchId() : null);
+        delta.setBayId(booking.getServiceBay() != null ? booking.getServiceBay().getBayId() : null);
+        return delta;
+    }
+
+    private EntityDeltaDto toDelta(ServiceProcessTracking tracking) {
+        Booking booking = tracking.getBooking();
+        EntityDeltaDto delta = deltaTracker.full(EntityDeltaDto.EntityType.TRACKING, tracking.getTrackingId(),
+                tracking.getVersion(), deltaTracker.trackingFields(tracking));
+        delta.setEventType("SNAPSHOT");
+        delta.setBookingId(booking.getBookingId());
+        delta.setBookingCode(booking.getBookingCode());
+        delta.setBranchId(booking.getBranch() != null ? booking.getBranch().getBranchId() : null);
+        delta.setBayId(tracking.getBay() != null ? tracking.getBay().getBayId() : null);
+        return delta;
+    }
+}
@@ -1,5 +1,7 @@
 package com.kltn.scsms_api_service.core.service.businessService;
 
+import com.kltn.scsms_api_service.core.dto.pricingManagement.BatchPricingDto;
+import com.kltn.scsms_api_service.core.dto.pricingManagement.request.BatchPricingRequest;
 import com.kltn.scsms_api_service.core.entity.SalesOrder;
 import com.kltn.scsms_api_service.core.entity.SalesOrderLine;
 import com.kltn.scsms_api_service.core.entity.SalesReturn;
@@ -18,6 +20,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -34,6 +37,7 @@ public class SalesBusinessService {
     private final PricingBusinessService pricingBS;
     private final ProductService productES;
     private final UserService userES;
+    private final PromotionRedemptionLedger promotionRedemptionLedger;
 
     @Transactional
     public SalesOrder createDraft(SalesOrder so) {
@@ -41,6 +45,34 @@ public class SalesBusinessService {
         return salesOrderEntityService.create(so);
     }
 
+    /**
+     * Giá của các sản phẩm chưa có unitPrice trong đơn (productId → giá), tính theo lô
+     * Sản phẩm không có trong bảng giá không có trong map (caller từ chối dòng đó)
+     */
+    private Map<UUID, BigDecimal> resolveMissingUnitPrices(SalesOrder so, List<SalesOrderLine> lines) {
+        List<BatchPricingRequest.PricingLine> pricingLines = lines.stream()
+            .filter(line -> line.isProductItem() && line.getProduct() != null && line.getUnitPrice() == null)
+            .map(line -> line.getProduct().getProductId())
+            .distinct()
+            .map(productId -> BatchPricingRequest.PricingLine.builder().productId(productId).quantity(1L).build())
+            .toList();
+        if (pricingLines.isEmpty()) {
+            return Map.of();
+        }
+        
+        BatchPricingDto pricing = pricingBS.priceBatch(BatchPricingRequest.builder()
+            .branchId(so.getBranch() != null ? so.getBranch().getBranchId() : null)
+            .lines(pricingLines)
+            .build());
+        Map<UUID, BigDecimal> prices = new HashMap<>();
+        for (BatchPricingDto.LinePrice linePrice : pricing.getLines()) {
+            if (linePrice.isFound()) {
+                prices.put(linePrice.getProductId(), linePrice.getUnitPrice());
+            }
+        }
+        return prices;
+    }
+    
     /**
      * Confirm sales order và reserve stock
      * 
@@ -76,13 +108,21 @@ public class SalesBusinessService {
                 soId);
         }
         
+        // Resolve giá cho mọi product line chưa có giá trong 1 lần theo bảng giá của chi nhánh
+        Map<UUID, BigDecimal> resolvedPrices = resolveMissingUnitPrices(so, allLines);
+        
         // Price resolution + reservation (chỉ cho sales order thông thường)
         for (SalesOrderLine line : allLines) {
             // Only process product items (skip service items)
             if (line.isProductItem() && line.getProduct() != null) {
                 // Resolve price nếu chưa có
                 if (line.getUnitPrice() == null) {
-                    line.setUnitPrice(pricingBS.resolveUnitPrice(line.getProduct().getProductId()));
+                    BigDecimal resolvedPrice = resolvedPrices.get(line.getProduct().getProductId());
+                    if (resolvedPrice == null) {
+                        throw new ClientSideException(ErrorCode.BAD_REQUEST,
+                            "No price in the active price book for product " + line.getProduct().getProductId());
+                    }
+                    line.setUnitPrice(resolvedPrice);
                     solES.update(line);
                 }
                 
@@ -220,6 +260,8 @@ public class SalesBusinessService {
         }
 
         // Update sales order status and final_amount
+        // Lượt KM chỉ hoàn 1 lần, ở lần trả hàng đầu tiên của đơn
+        boolean firstReturn = so.getStatus() != SalesStatus.RETURNED;
         so.setStatus(SalesStatus.RETURNED);
 
         // If final_amount exists, reduce it by return amount
@@ -235,6 +277,9 @@ public class SalesBusinessService {
         }
 
         salesOrderEntityService.update(so);
+        if (firstReturn) {
+            promotionRedemptionLedger.releaseForOrder(so.getId());
+        }
 
         // 4.5 Reverse customer statistics when return (decrease total_orders,
         // total_spent, and potentially accumulated_points)
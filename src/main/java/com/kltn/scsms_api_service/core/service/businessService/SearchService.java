@@ -0,0 +1,120 @@
+package com.kltn.scsms_api_service.core.service.businessService;
+
+import com.kltn.scsms_api_service.configs.SearchSchemaInitializer;
+import com.kltn.scsms_api_service.core.dto.bookingManagement.BookingInfoDto;
+import com.kltn.scsms_api_service.core.dto.categoryManagement.CategoryInfoDto;
+import com.kltn.scsms_api_service.core.dto.productManagement.ProductInfoDto;
+import com.kltn.scsms_api_service.core.dto.serviceManagement.ServiceInfoDto;
+import com.kltn.scsms_api_service.core.repository.BookingRepository;
+import com.kltn.scsms_api_service.core.repository.CategoryRepository;
+import com.kltn.scsms_api_service.core.repository.ProductRepository;
+import com.kltn.scsms_api_service.core.repository.ServiceRepository;
+import com.kltn.scsms_api_service.core.service.entityService.MediaResolver;
+import com.kltn.scsms_api_service.mapper.BookingMapper;
+import com.kltn.scsms_api_service.mapper.CategoryMapper;
+import com.kltn.scsms_api_service.mapper.ProductMapper;
+import com.kltn.scsms_api_service.mapper.ServiceMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Tìm kiếm có xếp hạng cho sản phẩm, dịch vụ, danh mục và booking
+ * - Dùng tsvector + GIN và trigram (không dấu) khi SearchSchemaInitializer đã chuẩn bị xong schema
+ * - Ngược lại rơi về các query ILIKE có phân trang (không xếp hạng)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional(readOnly = true)
+public class SearchService {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final SearchSchemaInitializer searchSchema;
+    private final ProductRepository productRepository;
+    private final ServiceRepository serviceRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookingRepository bookingRepository;
+    private final MediaResolver mediaResolver;
+    private final ProductMapper productMapper;
+    private final ServiceMapper serviceMapper;
+    private final CategoryMapper categoryMapper;
+    private final BookingMapper bookingMapper;
+
+    public Page<ProductInfoDto> searchProducts(String keyword, int page, int size) {
+        String term = normalize(keyword);
+        Pageable pageable = pageable(page, size);
+        String tsQuery = toPrefixTsQuery(term);
+        if (!searchSchema.isReady() || tsQuery.isEmpty()) {
+            return productMapper.toProductInfoDtoPage(productRepository.searchByKeyword(term, pageable), mediaResolver);
+        }
+        return productMapper.toProductInfoDtoPage(
+                productRepository.searchRanked(tsQuery, escapeLike(term), pageable), mediaResolver);
+    }
+
+    public Page<ServiceInfoDto> searchServices(String keyword, int page, int size) {
+        String term = normalize(keyword);
+        Pageable pageable = pageable(page, size);
+        String tsQuery = toPrefixTsQuery(term);
+        if (!searchSchema.isReady() || tsQuery.isEmpty()) {
+            return serviceMapper.toServiceInfoDtoPage(serviceRepository.searchByKeyword(term, pageable), mediaResolver);
+        }
+        return serviceMapper.toServiceInfoDtoPage(
+                serviceRepository.searchRanked(tsQuery, escapeLike(term), pageable), mediaResolver);
+    }
+
+    public Page<CategoryInfoDto> searchCategories(String keyword, int page, int size) {
+        String term = normalize(keyword);
+        Pageable pageable = pageable(page, size);
+        String tsQuery = toPrefixTsQuery(term);
+        if (!searchSchema.isReady() || tsQuery.isEmpty()) {
+            return categoryRepository.searchByName(term, pageable).map(categoryMapper::toInfoDto);
+        }
+        return categoryRepository.searchRanked(tsQuery, escapeLike(term), pageable)
+                .map(categoryMapper::toInfoDto);
+    }
+
+    public Page<BookingInfoDto> searchBookings(String keyword, int page, int size) {
+        String term = normalize(keyword);
+        Pageable pageable = pageable(page, size);
+        if (!searchSchema.isReady()) {
+            return bookingRepository.searchByKeyword(term, pageable).map(bookingMapper::toBookingInfoDto);
+        }
+        return bookingRepository.searchRanked(escapeLike(term), pageable).map(bookingMapper::toBookingInfoDto);
+    }
+
+    private static String normalize(String keyword) {
+        return keyword == null ? "" : keyword.trim();
+    }
+
+    private static Pageable pageable(int page, int size) {
+        return PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+    }
+
+    /**
+     * "Thay dầu  xe" → "thay:* & dầu:* & xe:*" (chỉ giữ chữ/số nên không thể chèn toán tử tsquery)
+     * Chuỗi rỗng nếu từ khóa không có token nào
+     */
+    private static String toPrefixTsQuery(String term) {
+        return Arrays.stream(term.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{M}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .map(token -> token + ":*")
+                .collect(Collectors.joining(" & "));
+    }
+
+    /**
+     * Escape ký tự đặc biệt của LIKE (escape mặc định của PostgreSQL là '\')
+     */
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
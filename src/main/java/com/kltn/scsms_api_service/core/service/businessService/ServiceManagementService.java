@@ -7,12 +7,14 @@ import com.kltn.scsms_api_service.core.dto.serviceManagement.request.CreateServi
 import com.kltn.scsms_api_service.core.dto.serviceManagement.request.UpdateServiceRequest;
 import com.kltn.scsms_api_service.core.dto.serviceProcessManagement.ServiceProcessInfoDto;
 import com.kltn.scsms_api_service.core.entity.Category;
+import com.kltn.scsms_api_service.core.entity.Media;
 import com.kltn.scsms_api_service.core.entity.Product;
 import com.kltn.scsms_api_service.core.entity.Service;
 import com.kltn.scsms_api_service.core.entity.ServiceProcess;
 import com.kltn.scsms_api_service.core.entity.ServiceProcessStep;
 import com.kltn.scsms_api_service.core.entity.ServiceProduct;
 import com.kltn.scsms_api_service.core.service.entityService.CategoryService;
+import com.kltn.scsms_api_service.core.service.entityService.MediaResolver;
 import com.kltn.scsms_api_service.core.service.entityService.ProductService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceProcessService;
@@ -56,6 +58,7 @@ public class ServiceManagementService {
     private final ServiceProductService serviceProductService;
     private final ProductService productService;
     private final ServiceTypeService serviceTypeService;
+    private final MediaResolver mediaResolver;
     private final ServiceMapper serviceMapper;
     private final ServiceProductMapper serviceProductMapper;
     private final ServiceProcessMapper serviceProcessMapper;
@@ -64,8 +67,10 @@ public class ServiceManagementService {
     public List<ServiceInfoDto> getAllServices() {
         log.info("Getting all services");
         List<Service> services = serviceService.findAll();
+        MediaResolver.Batch media = mediaResolver.prefetch(Media.EntityType.SERVICE,
+                services.stream().map(Service::getServiceId).toList());
         return services.stream()
-                .map(this::enrichServiceWithDetails)
+                .map(service -> enrichServiceWithDetails(service, media))
                 .collect(Collectors.toList());
     }
 
@@ -87,7 +92,9 @@ public class ServiceManagementService {
         // Get services with specification and pagination
         Page<Service> servicePage = serviceService.findAll(spec, pageable);
 
-        return servicePage.map(this::enrichServiceWithDetails);
+        MediaResolver.Batch media = mediaResolver.prefetch(Media.EntityType.SERVICE,
+                servicePage.getContent().stream().map(Service::getServiceId).toList());
+        return servicePage.map(service -> enrichServiceWithDetails(service, media));
     }
     
     /**
@@ -173,48 +180,38 @@ public class ServiceManagementService {
     public ServiceInfoDto getServiceById(UUID serviceId) {
         log.info("Getting service by ID: {}", serviceId);
         Service service = serviceService.getById(serviceId);
-        return enrichServiceWithDetails(service);
+        return enrichServiceWithGallery(service);
     }
 
     public ServiceInfoDto getServiceByUrl(String serviceUrl) {
         log.info("Getting service by URL: {}", serviceUrl);
         Service service = serviceService.getByServiceUrl(serviceUrl);
-        return enrichServiceWithDetails(service);
+        return enrichServiceWithGallery(service);
     }
 
     public List<ServiceInfoDto> getServicesByCategory(UUID categoryId) {
         List<Service> services = serviceService.findByCategoryId(categoryId);
-        return services.stream()
-                .map(serviceMapper::toServiceInfoDto)
-                .collect(Collectors.toList());
+        return serviceMapper.toServiceInfoDtoList(services, mediaResolver);
     }
 
     public List<ServiceInfoDto> getServicesByTypeId(UUID serviceTypeId) {
         List<Service> services = serviceService.findByServiceTypeId(serviceTypeId);
-        return services.stream()
-                .map(serviceMapper::toServiceInfoDto)
-                .collect(Collectors.toList());
+        return serviceMapper.toServiceInfoDtoList(services, mediaResolver);
     }
 
     public List<ServiceInfoDto> getServicesBySkillLevel(Service.SkillLevel skillLevel) {
         List<Service> services = serviceService.findBySkillLevel(skillLevel);
-        return services.stream()
-                .map(serviceMapper::toServiceInfoDto)
-                .collect(Collectors.toList());
+        return serviceMapper.toServiceInfoDtoList(services, mediaResolver);
     }
 
     public List<ServiceInfoDto> searchServices(String keyword) {
         List<Service> services = serviceService.searchByKeyword(keyword);
-        return services.stream()
-                .map(serviceMapper::toServiceInfoDto)
-                .collect(Collectors.toList());
+        return serviceMapper.toServiceInfoDtoList(services, mediaResolver);
     }
 
     public List<ServiceInfoDto> getFeaturedServices() {
         List<Service> services = serviceService.findFeaturedServices();
-        return services.stream()
-                .map(serviceMapper::toServiceInfoDto)
-                .collect(Collectors.toList());
+        return serviceMapper.toServiceInfoDtoList(services, mediaResolver);
     }
 
     @Transactional
@@ -429,6 +426,26 @@ public class ServiceManagementService {
 
     // ========== HELPER METHODS ==========
 
+    /**
+     * Trang danh sách: chi tiết + ảnh chính lấy từ batch đã prefetch cho cả trang
+     */
+    private ServiceInfoDto enrichServiceWithDetails(Service service, MediaResolver.Batch media) {
+        ServiceInfoDto dto = enrichServiceWithDetails(service);
+        dto.setMainImage(media.mainImage(service.getServiceId()));
+        return dto;
+    }
+
+    /**
+     * Trang chi tiết: chi tiết + ảnh chính + gallery (1 truy vấn media)
+     */
+    private ServiceInfoDto enrichServiceWithGallery(Service service) {
+        ServiceInfoDto dto = enrichServiceWithDetails(service);
+        MediaResolver.EntityMedia media = mediaResolver.resolve(Media.EntityType.SERVICE, service.getServiceId());
+        dto.setMainImage(media.mainImage());
+        dto.setImages(media.gallery());
+        return dto;
+    }
+
     /**
      * Enrich service with full details (products and process)
      */
@@ -38,6 +38,8 @@ public class ServiceProcessTrackingManagementService {
     private final ServiceProcessTrackingMapper serviceProcessTrackingMapper;
     private final ServiceService serviceService;
     private final WebSocketService webSocketService;
+    private final TrackingStepStatsService trackingStepStatsService;
+    private final ProductivityAnalyticsService productivityAnalyticsService;
     
     /**
      * Tạo tracking mới cho booking
@@ -91,11 +93,8 @@ public class ServiceProcessTrackingManagementService {
         
         ServiceProcessTracking savedTracking = serviceProcessTrackingService.save(tracking);
         
-        // Reload tracking với relationships để gửi WebSocket event
-        ServiceProcessTracking trackingWithDetails = serviceProcessTrackingService.getById(savedTracking.getTrackingId());
-        
-        // Gửi WebSocket notification
-        webSocketService.notifyTrackingCreated(trackingWithDetails);
+        // Gửi WebSocket notification (publish sau commit, dispatcher tự load tracking)
+        webSocketService.notifyTrackingCreated(savedTracking);
         
         return populateCarServiceName(serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(savedTracking));
     }
@@ -123,11 +122,8 @@ public class ServiceProcessTrackingManagementService {
         
         ServiceProcessTracking updatedTracking = serviceProcessTrackingService.update(tracking);
         
-        // Reload tracking với relationships để gửi WebSocket event
-        ServiceProcessTracking trackingWithDetails = serviceProcessTrackingService.getById(updatedTracking.getTrackingId());
-        
-        // Gửi WebSocket notification
-        webSocketService.notifyTrackingStarted(trackingWithDetails);
+        // Gửi WebSocket notification (publish sau commit, dispatcher tự load tracking)
+        webSocketService.notifyTrackingStarted(updatedTracking);
         
         return serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(updatedTracking);
     }
@@ -156,11 +152,8 @@ public class ServiceProcessTrackingManagementService {
         
         ServiceProcessTracking updatedTracking = serviceProcessTrackingService.update(tracking);
         
-        // Reload tracking với relationships để gửi WebSocket event
-        ServiceProcessTracking trackingWithDetails = serviceProcessTrackingService.getById(updatedTracking.getTrackingId());
-        
-        // Gửi WebSocket notification
-        webSocketService.notifyTrackingUpdated(trackingWithDetails);
+        // Gửi WebSocket notification (publish sau commit, dispatcher tự load tracking)
+        webSocketService.notifyTrackingUpdated(updatedTracking);
         
         return serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(updatedTracking);
     }
@@ -207,11 +200,11 @@ public class ServiceProcessTrackingManagementService {
         
         ServiceProcessTracking updatedTracking = serviceProcessTrackingService.update(tracking);
         
-        // Reload tracking với relationships để gửi WebSocket event
-        ServiceProcessTracking trackingWithDetails = serviceProcessTrackingService.getById(updatedTracking.getTrackingId());
+        // Cộng dồn số liệu năng suất (cùng transaction)
+        trackingStepStatsService.recordCompletion(updatedTracking.getTrackingId());
         
-        // Gửi WebSocket notification
-        webSocketService.notifyTrackingCompleted(trackingWithDetails);
+        // Gửi WebSocket notification (publish sau commit, dispatcher tự load tracking)
+        webSocketService.notifyTrackingCompleted(updatedTracking);
         
         return serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(updatedTracking);
     }
@@ -239,11 +232,8 @@ public class ServiceProcessTrackingManagementService {
         
         ServiceProcessTracking updatedTracking = serviceProcessTrackingService.update(tracking);
         
-        // Reload tracking với relationships để gửi WebSocket event
-        ServiceProcessTracking trackingWithDetails = serviceProcessTrackingService.getById(updatedTracking.getTrackingId());
-        
-        // Gửi WebSocket notification
-        webSocketService.notifyTrackingCancelled(trackingWithDetails);
+        // Gửi WebSocket notification (publish sau commit, dispatcher tự load tracking)
+        webSocketService.notifyTrackingCancelled(updatedTracking);
         
         return serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(updatedTracking);
     }
@@ -328,15 +318,21 @@ public class ServiceProcessTrackingManagementService {
         log.info("Updating tracking: {}", trackingId);
         
         ServiceProcessTracking tracking = serviceProcessTrackingService.getById(trackingId);
+        boolean wasCompleted = tracking.isCompleted();
+        if (wasCompleted && request.getStatus() != null
+                && request.getStatus() != ServiceProcessTracking.TrackingStatus.COMPLETED) {
+            // Trừ khỏi số liệu năng suất trước khi đổi trạng thái (câu lệnh đọc trạng thái hiện tại trong DB)
+            trackingStepStatsService.removeCompletion(trackingId);
+        }
         serviceProcessTrackingMapper.updateEntity(tracking, request);
         
         ServiceProcessTracking updatedTracking = serviceProcessTrackingService.update(tracking);
+        if (!wasCompleted && updatedTracking.isCompleted()) {
+            trackingStepStatsService.recordCompletion(trackingId);
+        }
         
-        // Reload tracking với relationships để gửi WebSocket event
-        ServiceProcessTracking trackingWithDetails = serviceProcessTrackingService.getById(updatedTracking.getTrackingId());
-        
-        // Gửi WebSocket notification
-        webSocketService.notifyTrackingUpdated(trackingWithDetails);
+        // Gửi WebSocket notification (publish sau commit, dispatcher tự load tracking)
+        webSocketService.notifyTrackingUpdated(updatedTracking);
         
         return serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(updatedTracking);
     }
@@ -354,30 +350,36 @@ public class ServiceProcessTrackingManagementService {
             throw new ServerSideException(ErrorCode.SERVICE_PROCESS_TRACKING_DELETE_FAILED,
                 "Cannot delete tracking that is in progress");
         }
+        if (tracking.isCompleted()) {
+            trackingStepStatsService.removeCompletion(trackingId);
+        }
         
         serviceProcessTrackingService.delete(trackingId);
     }
     
     /**
-     * Lấy thống kê hiệu suất theo kỹ thuật viên (deprecated - efficiency tracking removed)
+     * Hiệu suất của kỹ thuật viên = thời gian dự kiến / thực tế của các bước trên bay được phân công
      */
     @Transactional(readOnly = true)
     public BigDecimal getTechnicianEfficiency(UUID technicianId, LocalDateTime startDate, LocalDateTime endDate) {
-        log.warn("getTechnicianEfficiency is deprecated - efficiency tracking has been removed from simplified tracking system.");
+        log.info("Getting efficiency for technician: {}", technicianId);
         
-        // Return zero since efficiency tracking is no longer supported
-        return BigDecimal.ZERO;
+        Double efficiency = productivityAnalyticsService.getTechnicianEfficiency(technicianId,
+                startDate != null ? startDate.toLocalDate() : null,
+                endDate != null ? endDate.toLocalDate() : null);
+        return efficiency != null ? BigDecimal.valueOf(efficiency) : BigDecimal.ZERO;
     }
     
     /**
-     * Lấy tổng thời gian làm việc theo kỹ thuật viên (deprecated - actual duration tracking removed)
+     * Tổng thời gian làm việc (phút) của kỹ thuật viên trên bay được phân công
      */
     @Transactional(readOnly = true)
     public Long getTechnicianTotalWorkTime(UUID technicianId, LocalDateTime startDate, LocalDateTime endDate) {
-        log.warn("getTechnicianTotalWorkTime is deprecated - actual duration tracking has been removed from simplified tracking system.");
+        log.info("Getting total work time for technician: {}", technicianId);
         
-        // Return zero since actual duration tracking is no longer supported
-        return 0L;
+        return productivityAnalyticsService.getTechnicianTotalWorkMinutes(technicianId,
+                startDate != null ? startDate.toLocalDate() : null,
+                endDate != null ? endDate.toLocalDate() : null);
     }
     
     /**
@@ -5,6 +5,8 @@ import com.kltn.scsms_api_service.core.dto.serviceTypeManagement.param.ServiceTy
 import com.kltn.scsms_api_service.core.dto.serviceTypeManagement.request.CreateServiceTypeRequest;
 import com.kltn.scsms_api_service.core.dto.serviceTypeManagement.request.UpdateServiceTypeRequest;
 import com.kltn.scsms_api_service.core.entity.ServiceType;
+import com.kltn.scsms_api_service.core.service.entityService.ReferenceCacheRegions;
+import com.kltn.scsms_api_service.core.service.entityService.ReferenceDataCache;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceTypeService;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
@@ -33,6 +35,7 @@ public class ServiceTypeManagementService {
     
     private final ServiceTypeService serviceTypeService;
     private final ServiceTypeMapper serviceTypeMapper;
+    private final ReferenceDataCache referenceDataCache;
     
     /**
      * Get all service types
@@ -95,10 +98,10 @@ public class ServiceTypeManagementService {
      */
     public List<ServiceTypeInfoDto> getActiveServiceTypes() {
         log.info("Getting active service types");
-        List<ServiceType> serviceTypes = serviceTypeService.findActiveServiceTypesOrdered();
-        return serviceTypes.stream()
-                .map(serviceTypeMapper::toServiceTypeInfoDto)
-                .collect(Collectors.toList());
+        return referenceDataCache.get(ReferenceCacheRegions.ACTIVE_SERVICE_TYPES, () ->
+                serviceTypeService.findActiveServiceTypesOrdered().stream()
+                        .map(serviceTypeMapper::toServiceTypeInfoDto)
+                        .collect(Collectors.toList()));
     }
     
     /**
@@ -7,6 +7,7 @@ import com.kltn.scsms_api_service.core.dto.userManagement.request.UpdateUserRequ
 import com.kltn.scsms_api_service.core.entity.Role;
 import com.kltn.scsms_api_service.core.entity.User;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.CustomerRank;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.ImageVariant;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.UserType;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
@@ -264,7 +265,7 @@ public class UserManagementService {
         
         try {
             // Upload file to S3
-            S3File s3File = s3FileService.uploadAndSave(
+            S3File s3File = s3FileService.uploadImageAndSave(
                 file,
                 "users/" + userId,
                 userId, // uploadedBy
@@ -272,12 +273,12 @@ public class UserManagementService {
                 userId
             );
             
-            // Update user avatar URL
-            user.setAvatarUrl(s3File.getFileUrl());
+            // Update user avatar URL (card variant is large enough for every avatar slot)
+            user.setAvatarUrl(s3FileService.getVariantUrl(s3File, ImageVariant.CARD));
             User updatedUser = userService.saveUser(user);
             
             log.info("Successfully uploaded avatar for user ID: {}. New avatar URL: {}", 
-                userId, s3File.getFileUrl());
+                userId, user.getAvatarUrl());
             
             // TODO: Optional - Delete old avatar from S3 if exists
             // if (oldAvatarUrl != null && !oldAvatarUrl.isEmpty()) {
@@ -42,6 +42,7 @@ public class VehicleTemplateManagementService {
     private final VehicleModelService vehicleModelService;
     private final VehicleBrandService vehicleBrandService;
     private final VehicleTypeService vehicleTypeService;
+    private final ReferenceDataCache referenceDataCache;
     
     public Page<VehicleBrandInfoDto> getAllVehicleBrands(VehicleBrandFilterParam vehicleBrandFilterParam) {
         Page<VehicleBrand> vehicleBrandPage = vehicleBrandService.getAllVehicleBrandsWithFilters(vehicleBrandFilterParam);
@@ -50,10 +51,10 @@ public class VehicleTemplateManagementService {
     }
     
     public List<VehicleBrandDropdownResponse> getAllVehicleBrandsForDropdown() {
-        List<VehicleBrand> vehicleBrands = vehicleBrandService.getAllActiveVehicleBrands(true, false);
-        
-        return vehicleBrands.stream().map(vehicleBrandMapper::toVehicleBrandDropdownResponse)
-            .toList();
+        return referenceDataCache.get(ReferenceCacheRegions.VEHICLE_BRAND_DROPDOWN, () ->
+            vehicleBrandService.getAllActiveVehicleBrands(true, false).stream()
+                .map(vehicleBrandMapper::toVehicleBrandDropdownResponse)
+                .toList());
     }
     
     public VehicleBrandInfoDto getVehicleBrandById(UUID brandId) {
@@ -109,10 +110,10 @@ public class VehicleTemplateManagementService {
     }
     
     public List<VehicleTypeDropdownResponse> getAllVehicleTypesForDropdown() {
-        List<VehicleType> vehicleTypes = vehicleTypeService.getAllActiveVehicleTypes(true, false);
-        
-        return vehicleTypes.stream().map(vehicleTypeMapper::toVehicleTypeDropdownResponse)
-            .toList();
+        return referenceDataCache.get(ReferenceCacheRegions.VEHICLE_TYPE_DROPDOWN, () ->
+            vehicleTypeService.getAllActiveVehicleTypes(true, false).stream()
+                .map(vehicleTypeMapper::toVehicleTypeDropdownResponse)
+                .toList());
     }
     
     public VehicleTypeInfoDto getVehicleTypeById(UUID typeId) {
@@ -167,10 +168,7 @@ public class VehicleTemplateManagementService {
     }
     
     public List<VehicleModelDropdownResponse> getAllVehicleModelsForDropdown() {
-        List<VehicleModel> vehicleModels = vehicleModelService.getAllActiveVehicleModels(true, false);
-        
-        return vehicleModels.stream().map(vehicleModelMapper::toVehicleModelDropdownResponse)
-            .toList();
+        return getAllVehicleModelsForDropdown(null, null);
     }
     
     /**
@@ -181,11 +179,14 @@ public class VehicleTemplateManagementService {
      * @return List of filtered vehicle model dropdown responses
      */
     public List<VehicleModelDropdownResponse> getAllVehicleModelsForDropdown(UUID brandId, UUID typeId) {
-        List<VehicleModel> vehicleModels = vehicleModelService.getAllActiveVehicleModelsWithFilters(
-            brandId, typeId, true, false);
-        
-        return vehicleModels.stream().map(vehicleModelMapper::toVehicleModelDropdownResponse)
-            .toList();
+        String cacheKey = (brandId != null ? brandId : "*") + ":" + (typeId != null ? typeId : "*");
+        return referenceDataCache.get(ReferenceCacheRegions.VEHICLE_MODEL_DROPDOWN, cacheKey, () -> {
+            List<VehicleModel> vehicleModels = brandId == null && typeId == null
+                ? vehicleModelService.getAllActiveVehicleModels(true, false)
+                : vehicleModelService.getAllActiveVehicleModelsWithFilters(brandId, typeId, true, false);
+            return vehicleModels.stream().map(vehicleModelMapper::toVehicleModelDropdownResponse)
+                .toList();
+        });
     }
     
     public VehicleModelInfoDto getVehicleModelById(UUID modelId) {
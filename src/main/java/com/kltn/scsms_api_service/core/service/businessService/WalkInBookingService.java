@@ -9,6 +9,7 @@ import com.kltn.scsms_api_service.core.entity.User;
 import com.kltn.scsms_api_service.core.entity.VehicleProfile;
 import com.kltn.scsms_api_service.core.service.entityService.BookingService;
 import com.kltn.scsms_api_service.core.service.entityService.ServiceBayService;
+import com.kltn.scsms_api_service.core.service.entityService.ServiceDurationEstimator;
 import com.kltn.scsms_api_service.core.service.entityService.UserService;
 import com.kltn.scsms_api_service.core.service.entityService.VehicleProfileService;
 import com.kltn.scsms_api_service.core.service.websocket.WebSocketService;
@@ -41,6 +42,7 @@ public class WalkInBookingService {
     private final VehicleProfileService vehicleProfileService;
     private final WebSocketService webSocketService;
     private final BookingInventoryService bookingInventoryService;
+    private final ServiceDurationEstimator serviceDurationEstimator;
 
     /**
      * Tạo walk-in booking
@@ -133,11 +135,8 @@ public class WalkInBookingService {
                 // Stock reservation có thể được xử lý sau hoặc admin có thể xử lý thủ công
             }
 
-            // 8. Load booking với details để gửi WebSocket notification
-            Booking bookingWithDetails = bookingService.getByIdWithDetails(booking.getBookingId());
-
-            // 9. Gửi WebSocket notification với structured event
-            webSocketService.notifyBookingCreated(bookingWithDetails);
+            // 8-9. Gửi WebSocket notification với structured event (publish sau commit, dispatcher tự load booking)
+            webSocketService.notifyBookingCreated(booking);
 
             // 10. Tính queue position (dựa trên số booking trước đó)
             int queuePosition = calculateQueuePosition(request.getAssignedBayId(), bookingDate, scheduledStartAt);
@@ -177,6 +176,7 @@ public class WalkInBookingService {
     /**
      * Tính scheduledStartAt cho WALK_IN booking
      * Logic: max(scheduledEndAt của các booking trước) (hoặc NOW() nếu không có)
+     * Nếu hàng chờ chạy theo thời lượng thực tế (p80) kết thúc muộn hơn → lấy thời điểm đó, tránh chồng lịch khi quá giờ
      */
     private LocalDateTime calculateScheduledStartAt(UUID bayId, LocalDate date) {
         LocalDateTime now = LocalDateTime.now();
@@ -184,14 +184,22 @@ public class WalkInBookingService {
         // Query các WALK_IN bookings chưa kết thúc của bay trong ngày
         LocalDateTime maxScheduledEndAt = bookingService.findMaxScheduledEndAtForWalkInBookings(bayId, date);
         
-        if (maxScheduledEndAt == null) {
+        List<Booking> walkInBookings = bookingService.findWalkInBookingsByBayAndDate(bayId, date);
+        
+        if (maxScheduledEndAt == null && walkInBookings.isEmpty()) {
             // Không có booking nào → scheduledStartAt = NOW()
             log.info("No existing walk-in bookings found, using current time: {}", now);
             return now;
         }
         
-        // Có booking trước đó → scheduledStartAt = max(scheduledEndAt)
-        LocalDateTime scheduledStartAt = maxScheduledEndAt;
+        // Có booking trước đó → scheduledStartAt = max(scheduledEndAt, kết thúc dự kiến theo dữ liệu thực tế)
+        LocalDateTime scheduledStartAt = maxScheduledEndAt != null ? maxScheduledEndAt : now;
+        LocalDateTime projectedQueueEnd = serviceDurationEstimator.projectQueueEnd(walkInBookings, now);
+        if (projectedQueueEnd.isAfter(scheduledStartAt)) {
+            log.info("Projected queue end {} is after max scheduledEndAt {}, using projected time",
+                    projectedQueueEnd, maxScheduledEndAt);
+            scheduledStartAt = projectedQueueEnd;
+        }
         
         // Đảm bảo scheduledStartAt >= NOW()
         if (scheduledStartAt.isBefore(now)) {
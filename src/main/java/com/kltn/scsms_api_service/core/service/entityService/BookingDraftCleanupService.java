@@ -1,5 +1,6 @@
 package com.kltn.scsms_api_service.core.service.entityService;
 
+import com.kltn.scsms_api_service.configs.property.BookingDraftProperties;
 import com.kltn.scsms_api_service.core.entity.BookingDraft;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.DraftStatus;
 import com.kltn.scsms_api_service.core.repository.BookingDraftRepository;
@@ -22,14 +23,21 @@ import java.util.List;
 public class BookingDraftCleanupService {
     
     private final BookingDraftRepository draftRepository;
+    private final BookingDraftProperties draftProperties;
     
     /**
      * Cleanup job chạy mỗi giờ
      * Tìm và mark các draft bị abandoned (không có activity > 24h hoặc hết hạn)
+     * REDIS mode: bỏ qua vì draft tự hết hạn theo TTL của Redis
      */
     @Scheduled(cron = "0 0 * * * ?") // Mỗi giờ
     @Transactional
     public void cleanupAbandonedDrafts() {
+        if (draftProperties.isRedisMode()) {
+            log.debug("Draft store is REDIS, abandoned drafts expire by TTL - skipping cleanup");
+            return;
+        }
+        
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime expiredThreshold = now.minusHours(24);
         
@@ -1,5 +1,6 @@
 package com.kltn.scsms_api_service.core.service.entityService;
 
+import com.kltn.scsms_api_service.configs.property.BookingDraftProperties;
 import com.kltn.scsms_api_service.core.entity.BookingDraft;
 import com.kltn.scsms_api_service.core.entity.DraftService;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.DraftStatus;
@@ -19,6 +20,7 @@ import java.util.stream.Collectors;
 /**
  * Service quản lý booking drafts
  * Xử lý tạo, cập nhật, và cleanup các draft
+ * Nơi lưu draft phụ thuộc app.booking-draft.store: Postgres (DATABASE) hoặc Redis + write-behind (REDIS)
  */
 @Service
 @RequiredArgsConstructor
@@ -29,6 +31,8 @@ public class BookingDraftService {
     private final BookingDraftRepository draftRepository;
     private final BookingDraftServiceRepository draftServiceRepository;
     private final ServiceService serviceService;
+    private final BookingDraftProperties draftProperties;
+    private final RedisBookingDraftStore redisDraftStore;
     
     /**
      * Tạo draft mới hoặc lấy draft hiện có của session
@@ -37,10 +41,7 @@ public class BookingDraftService {
     @Transactional
     public BookingDraft getOrCreateDraft(String sessionId, UUID customerId) {
         // Tìm draft hiện có của session
-        Optional<BookingDraft> existingDraft = draftRepository.findBySessionIdAndStatus(
-            sessionId, 
-            DraftStatus.IN_PROGRESS
-        );
+        Optional<BookingDraft> existingDraft = getDraftBySession(sessionId);
         
         if (existingDraft.isPresent()) {
             log.info("Found existing draft: draft_id={}, session_id={}, current_step={}", 
@@ -49,7 +50,18 @@ public class BookingDraftService {
         }
         
         // Nếu có customerId, tìm và mark old drafts as ABANDONED
-        if (customerId != null) {
+        if (customerId != null && draftProperties.isRedisMode()) {
+            // Redis: draft cũ của customer được ghi ABANDONED xuống DB (write-behind) rồi bỏ khỏi store
+            redisDraftStore.findDraftIdByCustomer(customerId)
+                .flatMap(redisDraftStore::find)
+                .filter(draft -> draft.getStatus() == DraftStatus.IN_PROGRESS)
+                .ifPresent(draft -> {
+                    log.info("Abandoning old IN_PROGRESS draft_id={} for customer_id={}", draft.getDraftId(), customerId);
+                    draft.setStatus(DraftStatus.ABANDONED);
+                    persistDraft(draft);
+                    redisDraftStore.delete(draft.getDraftId());
+                });
+        } else if (customerId != null) {
             List<BookingDraft> oldDrafts = draftRepository.findByCustomerIdAndStatus(
                 customerId, 
                 DraftStatus.IN_PROGRESS
@@ -77,7 +89,7 @@ public class BookingDraftService {
             .lastActivityAt(LocalDateTime.now())
             .build();
         
-        BookingDraft saved = draftRepository.save(newDraft);
+        BookingDraft saved = saveDraft(newDraft);
         
         log.info("Created new draft: draft_id={}, session_id={}, customer_id={}", 
                 saved.getDraftId(), sessionId, customerId);
@@ -89,7 +101,10 @@ public class BookingDraftService {
      * Lấy draft theo ID
      */
     public BookingDraft getDraft(UUID draftId) {
-        return draftRepository.findById(draftId)
+        Optional<BookingDraft> draft = draftProperties.isRedisMode()
+            ? redisDraftStore.find(draftId)
+            : draftRepository.findById(draftId);
+        return draft
             .orElseThrow(() -> new RuntimeException("Draft not found: " + draftId));
     }
     
@@ -123,13 +138,12 @@ public class BookingDraftService {
         draft.setExpiresAt(LocalDateTime.now().plusHours(24)); // Reset TTL
         
         // Xóa tất cả services trong bảng quan hệ
-        List<DraftService> draftServices = draftServiceRepository.findByDraftId(draftId);
-        if (!draftServices.isEmpty()) {
-            draftServiceRepository.deleteAll(draftServices);
-            log.info("Deleted {} draft services", draftServices.size());
+        int deletedServices = deleteAllDraftServices(draftId);
+        if (deletedServices > 0) {
+            log.info("Deleted {} draft services", deletedServices);
         }
         
-        BookingDraft saved = draftRepository.save(draft);
+        BookingDraft saved = saveDraft(draft);
         
         log.info("Draft reset successfully: draft_id={}, current_step={}, status={}", 
                 saved.getDraftId(), saved.getCurrentStep(), saved.getStatus());
@@ -141,6 +155,11 @@ public class BookingDraftService {
      * Lấy draft theo session ID
      */
     public Optional<BookingDraft> getDraftBySession(String sessionId) {
+        if (draftProperties.isRedisMode()) {
+            return redisDraftStore.findDraftIdBySession(sessionId)
+                .flatMap(redisDraftStore::find)
+                .filter(draft -> draft.getStatus() == DraftStatus.IN_PROGRESS);
+        }
         return draftRepository.findBySessionIdAndStatus(sessionId, DraftStatus.IN_PROGRESS);
     }
     
@@ -209,19 +228,9 @@ public class BookingDraftService {
         // Xử lý dịch vụ: Thêm vào bảng quan hệ (nếu có serviceId và serviceType)
         if (updates.getServiceId() != null && updates.getServiceType() != null) {
             // Kiểm tra xem dịch vụ đã tồn tại chưa
-            if (!draftServiceRepository.existsByDraftIdAndServiceId(draftId, updates.getServiceId())) {
-                // Load Service entity từ database (cần thiết vì serviceId có insertable=false)
-                com.kltn.scsms_api_service.core.entity.Service service = serviceService.findById(updates.getServiceId())
-                    .orElseThrow(() -> new RuntimeException("Service not found: " + updates.getServiceId()));
-                
+            if (!hasDraftService(draftId, updates.getServiceId())) {
                 // Thêm dịch vụ mới vào bảng quan hệ
-                DraftService draftService = DraftService.builder()
-                    .draft(draft)
-                    .service(service) // Set service object để JPA tự động set service_id
-                    .serviceName(updates.getServiceType())
-                    .createdDate(LocalDateTime.now())
-                    .build();
-                draftServiceRepository.save(draftService);
+                saveDraftService(draft, updates.getServiceId(), updates.getServiceType());
                 log.info("Added service to draft: service_id={}, service_name={}", 
                         updates.getServiceId(), updates.getServiceType());
             } else {
@@ -297,7 +306,7 @@ public class BookingDraftService {
             draft.updateCurrentStep();
             draft.updateActivity();
             
-            BookingDraft saved = draftRepository.save(draft);
+            BookingDraft saved = saveDraft(draft);
             
             log.info("DRAFT AFTER UPDATE:");
             logDraftState(saved);
@@ -335,10 +344,9 @@ public class BookingDraftService {
                 draft.setDateTime(null);
                 
                 // Xóa tất cả services trong bảng quan hệ
-                List<DraftService> draftServices = draftServiceRepository.findByDraftId(draftId);
-                if (!draftServices.isEmpty()) {
-                    draftServiceRepository.deleteAll(draftServices);
-                    log.info("Deleted {} draft services due to branch change", draftServices.size());
+                int deletedServices = deleteAllDraftServices(draftId);
+                if (deletedServices > 0) {
+                    log.info("Deleted {} draft services due to branch change", deletedServices);
                 }
                 break;
                 
@@ -354,10 +362,9 @@ public class BookingDraftService {
                 draft.setTimeSlot(null);
                 
                 // Xóa tất cả services trong bảng quan hệ
-                draftServices = draftServiceRepository.findByDraftId(draftId);
-                if (!draftServices.isEmpty()) {
-                    draftServiceRepository.deleteAll(draftServices);
-                    log.info("Deleted {} draft services due to date change", draftServices.size());
+                deletedServices = deleteAllDraftServices(draftId);
+                if (deletedServices > 0) {
+                    log.info("Deleted {} draft services due to date change", deletedServices);
                 }
                 break;
                 
@@ -369,10 +376,9 @@ public class BookingDraftService {
                 draft.setTimeSlot(null);
                 
                 // Xóa tất cả services trong bảng quan hệ (sẽ được thêm lại sau)
-                draftServices = draftServiceRepository.findByDraftId(draftId);
-                if (!draftServices.isEmpty()) {
-                    draftServiceRepository.deleteAll(draftServices);
-                    log.info("Deleted {} draft services due to service change", draftServices.size());
+                deletedServices = deleteAllDraftServices(draftId);
+                if (deletedServices > 0) {
+                    log.info("Deleted {} draft services due to service change", deletedServices);
                 }
                 break;
                 
@@ -411,12 +417,12 @@ public class BookingDraftService {
         log.info("   │ branch_id: {} | branch_name: {}", 
                 draft.getBranchId(), draft.getBranchName());
         // Hiển thị tất cả dịch vụ từ bảng quan hệ (ưu tiên)
-        List<DraftService> draftServices = draftServiceRepository.findByDraftId(draft.getDraftId());
+        List<DraftService> draftServices = getDraftServices(draft.getDraftId());
         if (!draftServices.isEmpty()) {
             log.info("   │ services ({}):", draftServices.size());
             for (DraftService ds : draftServices) {
                 // Lấy service_id từ service relationship vì serviceId có insertable=false
-                UUID serviceId = ds.getService() != null ? ds.getService().getServiceId() : null;
+                UUID serviceId = ds.getService() != null ? ds.getService().getServiceId() : ds.getServiceId();
                 log.info("   │   → service_id: {}, service_name: {}", 
                         serviceId, ds.getServiceName());
             }
@@ -446,7 +452,7 @@ public class BookingDraftService {
     public void completeDraft(UUID draftId) {
         BookingDraft draft = getDraft(draftId);
         draft.setStatus(DraftStatus.COMPLETED);
-        draftRepository.save(draft);
+        persistDraft(saveDraft(draft));
         
         log.info("Marked draft as COMPLETED: draft_id={}", draftId);
     }
@@ -458,7 +464,7 @@ public class BookingDraftService {
     public void abandonDraft(UUID draftId) {
         BookingDraft draft = getDraft(draftId);
         draft.setStatus(DraftStatus.ABANDONED);
-        draftRepository.save(draft);
+        persistDraft(saveDraft(draft));
         
         log.info("Marked draft as ABANDONED: draft_id={}", draftId);
     }
@@ -472,6 +478,17 @@ public class BookingDraftService {
     public void deleteDraft(UUID draftId) {
         log.info("Deleting draft (hard delete): draft_id={}", draftId);
         
+        if (draftProperties.isRedisMode()) {
+            // Xóa khỏi Redis, kèm bản đã persist (nếu có) để giữ ngữ nghĩa hard delete
+            Optional<UUID> persistedId = redisDraftStore.delete(draftId);
+            persistedId.ifPresent(id -> {
+                draftServiceRepository.deleteByDraftId(id);
+                draftRepository.deleteById(id);
+            });
+            log.info("Successfully deleted draft: draft_id={}, persisted_draft_id={}", draftId, persistedId.orElse(null));
+            return;
+        }
+        
         // Xóa tất cả DraftService records liên quan trước (để tránh foreign key constraint)
         draftServiceRepository.deleteByDraftId(draftId);
         log.info("Deleted all DraftService records for draft: draft_id={}", draftId);
@@ -505,25 +522,13 @@ public class BookingDraftService {
      */
     @Transactional
     public void addServiceToDraft(UUID draftId, UUID serviceId, String serviceName) {
-        if (draftServiceRepository.existsByDraftIdAndServiceId(draftId, serviceId)) {
+        if (hasDraftService(draftId, serviceId)) {
             log.info("Service already exists in draft: draft_id={}, service_id={}", draftId, serviceId);
             return;
         }
         
         BookingDraft draft = getDraft(draftId);
-        
-        // Load Service entity từ database (cần thiết vì serviceId có insertable=false)
-        com.kltn.scsms_api_service.core.entity.Service service = serviceService.findById(serviceId)
-            .orElseThrow(() -> new RuntimeException("Service not found: " + serviceId));
-        
-        DraftService draftService = DraftService.builder()
-            .draft(draft)
-            .service(service) // Set service object để JPA tự động set service_id
-            .serviceName(serviceName)
-            .createdDate(LocalDateTime.now())
-            .build();
-        
-        draftServiceRepository.save(draftService);
+        saveDraftService(draft, serviceId, serviceName);
         log.info("Added service to draft: draft_id={}, service_id={}, service_name={}", 
                 draftId, serviceId, serviceName);
     }
@@ -533,7 +538,11 @@ public class BookingDraftService {
      */
     @Transactional
     public void removeServiceFromDraft(UUID draftId, UUID serviceId) {
-        draftServiceRepository.deleteByDraftIdAndServiceId(draftId, serviceId);
+        if (draftProperties.isRedisMode()) {
+            redisDraftStore.removeService(draftId, serviceId);
+        } else {
+            draftServiceRepository.deleteByDraftIdAndServiceId(draftId, serviceId);
+        }
         log.info("Removed service from draft: draft_id={}, service_id={}", draftId, serviceId);
     }
     
@@ -541,6 +550,9 @@ public class BookingDraftService {
      * Lấy tất cả dịch vụ của draft
      */
     public List<DraftService> getDraftServices(UUID draftId) {
+        if (draftProperties.isRedisMode()) {
+            return redisDraftStore.getServices(draftId);
+        }
         return draftServiceRepository.findByDraftId(draftId);
     }
     
@@ -548,7 +560,7 @@ public class BookingDraftService {
      * Lấy danh sách service_id của draft
      */
     public List<UUID> getDraftServiceIds(UUID draftId) {
-        return draftServiceRepository.findByDraftId(draftId).stream()
+        return getDraftServices(draftId).stream()
             .map(DraftService::getServiceId)
             .collect(Collectors.toList());
     }
@@ -557,7 +569,7 @@ public class BookingDraftService {
      * Lấy danh sách service_name của draft
      */
     public List<String> getDraftServiceNames(UUID draftId) {
-        return draftServiceRepository.findByDraftId(draftId).stream()
+        return getDraftServices(draftId).stream()
             .map(DraftService::getServiceName)
             .collect(Collectors.toList());
     }
@@ -567,10 +579,87 @@ public class BookingDraftService {
      */
     @Transactional
     public void clearDraftServices(UUID draftId) {
-        draftServiceRepository.deleteByDraftId(draftId);
+        deleteAllDraftServices(draftId);
         log.info("Cleared all services from draft: draft_id={}", draftId);
     }
     
+    /**
+     * Xử lý draft sau khi tạo booking thành công
+     * - DATABASE: xóa draft (giữ hành vi cũ)
+     * - REDIS: mark COMPLETED, ghi write-behind xuống Postgres cho analytics rồi bỏ khỏi Redis
+     */
+    @Transactional
+    public void finishDraftAfterBooking(UUID draftId) {
+        if (!draftProperties.isRedisMode()) {
+            deleteDraft(draftId);
+            return;
+        }
+        
+        BookingDraft draft = getDraft(draftId);
+        draft.setStatus(DraftStatus.COMPLETED);
+        draft.updateActivity();
+        persistDraft(draft);
+        redisDraftStore.delete(draftId);
+        
+        log.info("Completed draft and queued for write-behind: draft_id={}", draftId);
+    }
+    
+    /**
+     * Persist draft đang ở Redis xuống Postgres (write-behind) khi draft kết thúc: hoàn thành, bị bỏ, bị thay bằng draft mới
+     * DATABASE mode: draft vốn đã nằm trong Postgres nên không làm gì
+     */
+    private void persistDraft(BookingDraft draft) {
+        if (!draftProperties.isRedisMode()) {
+            return;
+        }
+        redisDraftStore.enqueueWriteBehind(draft);
+    }
+    
+    // ========== Store helpers (DATABASE / REDIS) ==========
+    
+    private BookingDraft saveDraft(BookingDraft draft) {
+        return draftProperties.isRedisMode() ? redisDraftStore.save(draft) : draftRepository.save(draft);
+    }
+    
+    private boolean hasDraftService(UUID draftId, UUID serviceId) {
+        return draftProperties.isRedisMode()
+            ? redisDraftStore.hasService(draftId, serviceId)
+            : draftServiceRepository.existsByDraftIdAndServiceId(draftId, serviceId);
+    }
+    
+    private void saveDraftService(BookingDraft draft, UUID serviceId, String serviceName) {
+        // Load Service entity từ database (cần thiết vì serviceId có insertable=false)
+        com.kltn.scsms_api_service.core.entity.Service service = serviceService.findById(serviceId)
+            .orElseThrow(() -> new RuntimeException("Service not found: " + serviceId));
+        
+        if (draftProperties.isRedisMode()) {
+            redisDraftStore.addService(draft.getDraftId(), service.getServiceId(), serviceName);
+            return;
+        }
+        
+        DraftService draftService = DraftService.builder()
+            .draft(draft)
+            .service(service) // Set service object để JPA tự động set service_id
+            .serviceName(serviceName)
+            .createdDate(LocalDateTime.now())
+            .build();
+        draftServiceRepository.save(draftService);
+    }
+    
+    /**
+     * @return số dịch vụ đã xóa
+     */
+    private int deleteAllDraftServices(UUID draftId) {
+        if (draftProperties.isRedisMode()) {
+            return redisDraftStore.clearServices(draftId);
+        }
+        List<DraftService> draftServices = draftServiceRepository.findByDraftId(draftId);
+        if (!draftServices.isEmpty()) {
+            draftServiceRepository.deleteAll(draftServices);
+        }
+        return draftServices.size();
+    }
+    
     /**
      * Inner class để chứa dữ liệu cập nhật
      */
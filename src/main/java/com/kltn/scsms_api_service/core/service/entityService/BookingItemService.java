@@ -12,6 +12,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -35,6 +36,16 @@ public class BookingItemService {
         return bookingItemRepository.findAll();
     }
     
+    /**
+     * Giá item của các booking (1 query): dòng gồm bookingId, customerId, branchId, serviceId, unitPrice
+     */
+    public List<Object[]> findItemPricesByBookingIds(Collection<UUID> bookingIds) {
+        if (bookingIds == null || bookingIds.isEmpty()) {
+            return List.of();
+        }
+        return bookingItemRepository.findItemPricesByBookingIds(bookingIds);
+    }
+    
     @Transactional
     public BookingItem save(BookingItem bookingItem) {
         return bookingItemRepository.save(bookingItem);
@@ -1,10 +1,12 @@
 package com.kltn.scsms_api_service.core.service.entityService;
 
+import com.kltn.scsms_api_service.core.dto.branchManagement.BranchFlatDto;
 import com.kltn.scsms_api_service.core.dto.branchManagement.param.BranchFilterParam;
 import com.kltn.scsms_api_service.core.entity.Branch;
 import com.kltn.scsms_api_service.core.entity.Center;
 import com.kltn.scsms_api_service.core.entity.User;
 import com.kltn.scsms_api_service.core.repository.BranchRepository;
+import com.kltn.scsms_api_service.mapper.BranchMapper;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
@@ -28,6 +30,8 @@ public class BranchService {
     
     private final BranchRepository branchRepository;
     private final EntityManager entityManager;
+    private final BranchMapper branchMapper;
+    private final ReferenceDataCache referenceDataCache;
     
     public Optional<Branch> findById(UUID branchId) {
         return branchRepository.findById(branchId);
@@ -45,8 +49,14 @@ public class BranchService {
         return branchRepository.findByIdWithCenterAndManager(branchId);
     }
     
+    public List<UUID> findBranchIdsByManagerId(UUID managerId) {
+        return branchRepository.findBranchIdsByManagerId(managerId);
+    }
+    
     public Branch saveBranch(Branch branch) {
-        return branchRepository.save(branch);
+        Branch saved = branchRepository.save(branch);
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_BRANCHES);
+        return saved;
     }
     
     /**
@@ -56,6 +66,17 @@ public class BranchService {
         return branchRepository.findByIsActiveTrueAndIsDeletedFalse();
     }
     
+    /**
+     * Danh sách chi nhánh active dạng DTO (đọc qua ReferenceDataCache)
+     * Dùng cho các luồng chỉ cần thông tin hiển thị (gợi ý chi nhánh, dropdown)
+     */
+    public List<BranchFlatDto> findAllActiveBranchSummaries() {
+        return referenceDataCache.get(ReferenceCacheRegions.ACTIVE_BRANCHES, () ->
+            branchRepository.findByIsActiveTrueAndIsDeletedFalse().stream()
+                .map(branchMapper::toBranchFlatDto)
+                .toList());
+    }
+    
     public Page<Branch> getAllBranchesWithFilters(BranchFilterParam filterParam) {
         log.info("Getting branches with filters: {}", filterParam);
         
@@ -264,6 +285,7 @@ public class BranchService {
     public void deleteBranch(Branch existingBranch) {
         existingBranch.setIsDeleted(true);
         branchRepository.save(existingBranch);
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_BRANCHES);
     }
     
     public Optional<Branch> findByBranchName(String branchName) {
@@ -0,0 +1,125 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.kltn.scsms_api_service.core.dto.categoryManagement.CategoryHierarchyDto;
+import com.kltn.scsms_api_service.core.entity.Category;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.CategoryType;
+import com.kltn.scsms_api_service.core.repository.CategoryRepository;
+import com.kltn.scsms_api_service.mapper.CategoryMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache cây danh mục đã build sẵn theo CategoryType (và 1 cây cho tất cả loại)
+ * - Cây được build O(n) bởi CategoryMapper.buildHierarchyTree rồi đóng băng (children không sửa được)
+ * - Mọi thay đổi danh mục gọi invalidate(); cache bị xóa sau khi transaction commit
+ * - Generation counter tránh ghi đè cache bằng cây build từ dữ liệu cũ trong lúc đang invalidate
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryHierarchyCache {
+
+    private static final String ALL_TYPES = "ALL";
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryMapper categoryMapper;
+
+    private final Map<String, HierarchySnapshot> snapshots = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Cây gốc của 1 loại danh mục (null = tất cả loại)
+     */
+    @Transactional(readOnly = true)
+    public List<CategoryHierarchyDto> getTree(CategoryType type) {
+        return snapshot(type).roots();
+    }
+
+    /**
+     * Các cây con trực tiếp của 1 danh mục
+     */
+    @Transactional(readOnly = true)
+    public Optional<List<CategoryHierarchyDto>> getChildren(UUID parentId) {
+        return getNode(parentId).map(CategoryHierarchyDto::getChildren);
+    }
+
+    /**
+     * Node (kèm toàn bộ cây con) của 1 danh mục trong cây tất cả loại
+     */
+    @Transactional(readOnly = true)
+    public Optional<CategoryHierarchyDto> getNode(UUID categoryId) {
+        return Optional.ofNullable(snapshot(null).nodes().get(categoryId));
+    }
+
+    /**
+     * Xóa cache sau khi transaction hiện tại commit (hoặc ngay nếu không có transaction)
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAll();
+                }
+            });
+        } else {
+            evictAll();
+        }
+    }
+
+    private void evictAll() {
+        generation.incrementAndGet();
+        snapshots.clear();
+        log.debug("Category hierarchy cache invalidated");
+    }
+
+    private HierarchySnapshot snapshot(CategoryType type) {
+        String key = type != null ? type.name() : ALL_TYPES;
+        HierarchySnapshot cached = snapshots.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long buildGeneration = generation.get();
+        List<Category> categories = type != null
+                ? categoryRepository.findByCategoryType(type)
+                : categoryRepository.findAll();
+
+        Map<UUID, CategoryHierarchyDto> nodes = new HashMap<>();
+        List<CategoryHierarchyDto> roots = freeze(categoryMapper.buildHierarchyTree(categories), nodes);
+        HierarchySnapshot snapshot = new HierarchySnapshot(roots, Map.copyOf(nodes));
+
+        // Chỉ cache nếu không có invalidate nào xảy ra trong lúc build
+        if (generation.get() == buildGeneration) {
+            snapshots.put(key, snapshot);
+        }
+        log.debug("Built category hierarchy: type={}, categories={}", key, categories.size());
+        return snapshot;
+    }
+
+    /**
+     * Thay children bằng list bất biến và index mọi node theo id
+     */
+    private List<CategoryHierarchyDto> freeze(List<CategoryHierarchyDto> level, Map<UUID, CategoryHierarchyDto> nodes) {
+        for (CategoryHierarchyDto node : level) {
+            nodes.put(node.getCategoryId(), node);
+            node.setChildren(freeze(node.getChildren(), nodes));
+        }
+        return List.copyOf(level);
+    }
+
+    private record HierarchySnapshot(List<CategoryHierarchyDto> roots, Map<UUID, CategoryHierarchyDto> nodes) {
+    }
+}
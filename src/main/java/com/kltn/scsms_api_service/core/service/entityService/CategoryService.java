@@ -36,6 +36,8 @@ public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final EntityManager entityManager;
+    private final CategoryHierarchyCache categoryHierarchyCache;
+    private final ReferenceDataCache referenceDataCache;
 
     /**
      * Get all categories with filters and pagination
@@ -97,26 +99,14 @@ public class CategoryService {
     public List<CategoryHierarchyDto> getCategoryHierarchy(String type, UUID parentId, int maxDepth) {
         log.debug("Getting category hierarchy - type: {}, parentId: {}, maxDepth: {}", type, parentId, maxDepth);
 
-        List<Category> categories;
-
         if (parentId != null) {
-            // Get all categories under the parent to build proper hierarchy
-            categoryRepository.findById(parentId)
+            // Subtrees under the parent, served from the cached hierarchy
+            return categoryHierarchyCache.getChildren(parentId)
                     .orElseThrow(() -> new EntityNotFoundException("Parent category not found: " + parentId));
-            categories = categoryRepository.findAll();
-            return categoryMapper.buildHierarchyTree(categories).stream()
-                    .filter(dto -> dto.getParentId().equals(parentId))
-                    .collect(Collectors.toList());
-        } else if (type != null) {
-            // Get categories of specific type
-            CategoryType categoryType = CategoryType.valueOf(type.toUpperCase());
-            categories = categoryRepository.findByCategoryType(categoryType);
-        } else {
-            // Get all categories
-            categories = categoryRepository.findAll();
         }
 
-        return categoryMapper.buildHierarchyTree(categories);
+        CategoryType categoryType = type != null ? CategoryType.valueOf(type.toUpperCase()) : null;
+        return categoryHierarchyCache.getTree(categoryType);
     }
 
     /**
@@ -255,6 +245,7 @@ public class CategoryService {
         }
 
         Category savedCategory = categoryRepository.save(category);
+        invalidateCaches();
         return categoryMapper.toDetailedInfoDto(savedCategory);
     }
 
@@ -304,6 +295,7 @@ public class CategoryService {
         }
 
         Category updatedCategory = categoryRepository.save(existingCategory);
+        invalidateCaches();
         return categoryMapper.toDetailedInfoDto(updatedCategory);
     }
 
@@ -321,6 +313,7 @@ public class CategoryService {
         category.setIsDeleted(true);
         category.setIsActive(false); // Also deactivate when deleted
         categoryRepository.save(category);
+        invalidateCaches();
     }
 
     /**
@@ -341,6 +334,7 @@ public class CategoryService {
 
         category.setParentCategory(newParent);
         Category movedCategory = categoryRepository.save(category);
+        invalidateCaches();
 
         return categoryMapper.toDetailedInfoDto(movedCategory);
     }
@@ -497,6 +491,7 @@ public class CategoryService {
                 .collect(Collectors.toList());
 
         List<Category> savedCategories = categoryRepository.saveAll(categories);
+        invalidateCaches();
 
         return savedCategories.stream()
                 .map(categoryMapper::toDetailedInfoDto)
@@ -510,13 +505,20 @@ public class CategoryService {
     public List<CategoryInfoDto> reorderCategories(UUID parentId, List<UUID> categoryIds) {
         log.info("Reordering categories under parent: {}", parentId);
 
-        // This would require an order field in Category entity
-        // For now, return the categories in the requested order
+        // Persist the requested order into sortOrder (siblings are sorted by it in the hierarchy)
+        Map<UUID, Category> categoriesById = categoryRepository.findAllById(categoryIds).stream()
+                .collect(Collectors.toMap(Category::getCategoryId, c -> c));
         List<Category> categories = categoryIds.stream()
-                .map(id -> categoryRepository.findById(id).orElse(null))
+                .map(categoriesById::get)
                 .filter(Objects::nonNull)
                 .toList();
 
+        for (int i = 0; i < categories.size(); i++) {
+            categories.get(i).setSortOrder(i);
+        }
+        categoryRepository.saveAll(categories);
+        invalidateCaches();
+
         return categories.stream()
                 .map(categoryMapper::toDetailedInfoDto)
                 .collect(Collectors.toList());
@@ -722,7 +724,9 @@ public class CategoryService {
      */
     @Transactional
     public Category saveCategory(Category category) {
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        invalidateCaches();
+        return saved;
     }
 
     /**
@@ -817,12 +821,8 @@ public class CategoryService {
      * Get category tree starting from a specific category
      */
     public CategoryHierarchyDto getCategoryTree(UUID categoryId, int maxDepth) {
-        Category category = categoryRepository.findById(categoryId)
+        return categoryHierarchyCache.getNode(categoryId)
                 .orElseThrow(() -> new EntityNotFoundException("Category not found: " + categoryId));
-
-        // Get all categories to build the tree properly
-        List<Category> allCategories = categoryRepository.findAll();
-        return categoryMapper.buildHierarchyNode(category, allCategories, 0);
     }
 
     /**
@@ -925,8 +925,17 @@ public class CategoryService {
 
         existingCategory.setIsActive(isActive);
         Category updatedCategory = categoryRepository.save(existingCategory);
+        invalidateCaches();
 
         return categoryMapper.toDetailedInfoDto(updatedCategory);
     }
 
+    /**
+     * Cây danh mục + danh sách loại sản phẩm đã cache (DTO có category_name) sau khi commit
+     */
+    private void invalidateCaches() {
+        categoryHierarchyCache.invalidate();
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_PRODUCT_TYPES,
+                ReferenceCacheRegions.PRODUCT_TYPES_BY_CATEGORY);
+    }
 }
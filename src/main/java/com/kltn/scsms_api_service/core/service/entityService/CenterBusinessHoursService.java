@@ -1,11 +1,13 @@
 package com.kltn.scsms_api_service.core.service.entityService;
 
+import com.kltn.scsms_api_service.core.dto.centerBusinessHours.CenterBusinessHoursDto;
 import com.kltn.scsms_api_service.core.entity.Center;
 import com.kltn.scsms_api_service.core.entity.CenterBusinessHours;
 import com.kltn.scsms_api_service.core.repository.CenterBusinessHoursRepository;
 import com.kltn.scsms_api_service.core.repository.CenterRepository;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
+import com.kltn.scsms_api_service.mapper.CenterBusinessHoursMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -22,12 +24,25 @@ public class CenterBusinessHoursService {
     
     private final CenterBusinessHoursRepository centerBusinessHoursRepository;
     private final CenterRepository centerRepository;
+    private final CenterBusinessHoursMapper centerBusinessHoursMapper;
+    private final ReferenceDataCache referenceDataCache;
     
     public List<CenterBusinessHours> findByCenterId(UUID centerId) {
         log.info("Finding business hours for center: {}", centerId);
         return centerBusinessHoursRepository.findByCenter_CenterIdAndIsDeletedFalse(centerId);
     }
     
+    /**
+     * Giờ làm việc (chưa xóa) của center dưới dạng DTO, đọc qua ReferenceDataCache
+     * Dùng cho các luồng đọc nhiều (tính khung giờ trống, hiển thị giờ mở cửa)
+     */
+    public List<CenterBusinessHoursDto> findHoursByCenterId(UUID centerId) {
+        return referenceDataCache.get(ReferenceCacheRegions.CENTER_BUSINESS_HOURS, centerId, () ->
+            centerBusinessHoursRepository.findByCenter_CenterIdAndIsDeletedFalse(centerId).stream()
+                .map(centerBusinessHoursMapper::toDto)
+                .toList());
+    }
+    
     public List<CenterBusinessHours> findOpenByCenterId(UUID centerId) {
         log.info("Finding open business hours for center: {}", centerId);
         return centerBusinessHoursRepository.findByCenter_CenterIdAndIsClosedFalseAndIsDeletedFalse(centerId);
@@ -70,7 +85,9 @@ public class CenterBusinessHoursService {
                 "Business hours for " + centerBusinessHours.getDayOfWeek() + " already exists for this center");
         }
         
-        return centerBusinessHoursRepository.save(centerBusinessHours);
+        CenterBusinessHours saved = centerBusinessHoursRepository.save(centerBusinessHours);
+        invalidateCachedHours();
+        return saved;
     }
     
     @Transactional
@@ -79,6 +96,7 @@ public class CenterBusinessHoursService {
         CenterBusinessHours centerBusinessHours = findById(id);
         centerBusinessHours.setIsDeleted(true);
         centerBusinessHoursRepository.save(centerBusinessHours);
+        invalidateCachedHours();
     }
     
     @Transactional
@@ -86,7 +104,9 @@ public class CenterBusinessHoursService {
         log.info("Updating isClosed status for business hours ID: {} to {}", id, isClosed);
         CenterBusinessHours centerBusinessHours = findById(id);
         centerBusinessHours.setIsClosed(isClosed);
-        return centerBusinessHoursRepository.save(centerBusinessHours);
+        CenterBusinessHours saved = centerBusinessHoursRepository.save(centerBusinessHours);
+        invalidateCachedHours();
+        return saved;
     }
     
     @Transactional
@@ -94,6 +114,12 @@ public class CenterBusinessHoursService {
         log.info("Updating isActive status for business hours ID: {} to {}", id, isActive);
         CenterBusinessHours centerBusinessHours = findById(id);
         centerBusinessHours.setIsActive(isActive);
-        return centerBusinessHoursRepository.save(centerBusinessHours);
+        CenterBusinessHours saved = centerBusinessHoursRepository.save(centerBusinessHours);
+        invalidateCachedHours();
+        return saved;
+    }
+    
+    private void invalidateCachedHours() {
+        referenceDataCache.invalidate(ReferenceCacheRegions.CENTER_BUSINESS_HOURS);
     }
 }
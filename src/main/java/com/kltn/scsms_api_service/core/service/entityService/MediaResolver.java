@@ -0,0 +1,221 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.kltn.scsms_api_service.configs.property.MediaResolverProperties;
+import com.kltn.scsms_api_service.core.dto.mediaManagement.MediaInfoDto;
+import com.kltn.scsms_api_service.core.entity.Media;
+import com.kltn.scsms_api_service.core.repository.MediaRepository;
+import com.kltn.scsms_api_service.mapper.MediaMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Tra ảnh (ảnh chính + gallery) cho nhiều entity cùng lúc
+ * - Các cặp (entityType, entityId) còn thiếu trong cache được load bằng query IN theo loại entity (chia lô loadBatchSize)
+ *   → map 1 trang DTO không còn N+1 query / N request getMainMediaByEntity từ client
+ * - Cache local TTL ngắn (app.media.resolver), cả entity không có ảnh cũng được cache
+ * - Thay đổi media gọi invalidate(); xóa cache sau khi transaction commit, generation chặn ghi đè bằng dữ liệu cũ
+ * - Ảnh chính: media is_main, không có thì ảnh đầu tiên theo sort_order (giống getMainMediaByEntity)
+ */
+@Service
+@Slf4j
+public class MediaResolver {
+
+    private final MediaRepository mediaRepository;
+    private final MediaMapper mediaMapper;
+    private final MediaResolverProperties properties;
+
+    private final Map<EntityRef, CachedMedia> cache = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public MediaResolver(MediaRepository mediaRepository,
+                         MediaMapper mediaMapper,
+                         MediaResolverProperties properties,
+                         MeterRegistry meterRegistry) {
+        this.mediaRepository = mediaRepository;
+        this.mediaMapper = mediaMapper;
+        this.properties = properties;
+        this.hitCounter = Counter.builder("media.resolver.gets").tag("result", "hit").register(meterRegistry);
+        this.missCounter = Counter.builder("media.resolver.gets").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("media.resolver.cache.size", cache, Map::size).register(meterRegistry);
+    }
+
+    public record EntityRef(Media.EntityType entityType, UUID entityId) {
+    }
+
+    /**
+     * Ảnh của 1 entity: mainImage null nếu entity chưa có ảnh
+     */
+    public record EntityMedia(MediaInfoDto mainImage, List<MediaInfoDto> gallery) {
+        public static final EntityMedia EMPTY = new EntityMedia(null, List.of());
+    }
+
+    /**
+     * Kết quả prefetch cho 1 trang entity cùng loại
+     */
+    public record Batch(Map<UUID, EntityMedia> media) {
+        public MediaInfoDto mainImage(UUID entityId) {
+            return media.getOrDefault(entityId, EntityMedia.EMPTY).mainImage();
+        }
+
+        public List<MediaInfoDto> gallery(UUID entityId) {
+            return media.getOrDefault(entityId, EntityMedia.EMPTY).gallery();
+        }
+    }
+
+    private record CachedMedia(EntityMedia media, long expiresAtNanos) {
+    }
+
+    /**
+     * Prefetch ảnh cho danh sách entity cùng loại (VD: 1 trang sản phẩm)
+     */
+    public Batch prefetch(Media.EntityType entityType, Collection<UUID> entityIds) {
+        List<EntityRef> refs = entityIds.stream()
+                .filter(Objects::nonNull)
+                .map(entityId -> new EntityRef(entityType, entityId))
+                .toList();
+        Map<UUID, EntityMedia> media = new HashMap<>();
+        resolve(refs).forEach((ref, entityMedia) -> media.put(ref.entityId(), entityMedia));
+        return new Batch(media);
+    }
+
+    public EntityMedia resolve(Media.EntityType entityType, UUID entityId) {
+        EntityRef ref = new EntityRef(entityType, entityId);
+        return resolve(List.of(ref)).getOrDefault(ref, EntityMedia.EMPTY);
+    }
+
+    /**
+     * Ảnh của nhiều entity; mọi entity được hỏi đều có trong kết quả (EMPTY nếu không có ảnh)
+     */
+    public Map<EntityRef, EntityMedia> resolve(Collection<EntityRef> refs) {
+        Map<EntityRef, EntityMedia> result = new HashMap<>();
+        Set<EntityRef> missing = new LinkedHashSet<>();
+        long now = System.nanoTime();
+        for (EntityRef ref : refs) {
+            CachedMedia cached = properties.isCacheEnabled() ? cache.get(ref) : null;
+            if (cached != null && cached.expiresAtNanos() - now > 0) {
+                result.put(ref, cached.media());
+            } else {
+                missing.add(ref);
+            }
+        }
+        hitCounter.increment(result.size());
+        missCounter.increment(missing.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long loadGeneration = generation.get();
+        Map<EntityRef, EntityMedia> loaded = load(missing);
+        result.putAll(loaded);
+
+        // Chỉ cache nếu không có invalidate nào xảy ra trong lúc load
+        if (properties.isCacheEnabled() && generation.get() == loadGeneration) {
+            long expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getTtlMs());
+            loaded.forEach((ref, media) -> put(ref, new CachedMedia(media, expiresAt)));
+        }
+        return result;
+    }
+
+    /**
+     * Xóa cache ảnh của 1 entity sau khi transaction hiện tại commit (hoặc ngay nếu không có transaction)
+     */
+    public void invalidate(Media.EntityType entityType, UUID entityId) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.remove(new EntityRef(entityType, entityId));
+        });
+    }
+
+    public void invalidateAll() {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.clear();
+        });
+    }
+
+    /**
+     * 1 query cho mỗi loại entity, chia lô theo loadBatchSize; kết quả đã sắp theo entity + sort_order
+     */
+    private Map<EntityRef, EntityMedia> load(Set<EntityRef> refs) {
+        Map<Media.EntityType, List<UUID>> idsByType = refs.stream()
+                .collect(Collectors.groupingBy(EntityRef::entityType,
+                        Collectors.mapping(EntityRef::entityId, Collectors.toList())));
+
+        Map<EntityRef, List<MediaInfoDto>> galleries = new HashMap<>();
+        int batchSize = Math.max(properties.getLoadBatchSize(), 1);
+        idsByType.forEach((entityType, entityIds) -> {
+            for (int from = 0; from < entityIds.size(); from += batchSize) {
+                List<UUID> chunk = entityIds.subList(from, Math.min(from + batchSize, entityIds.size()));
+                for (Media media : mediaRepository.findActiveByEntityIds(entityType, chunk)) {
+                    galleries.computeIfAbsent(new EntityRef(entityType, media.getEntityId()), key -> new ArrayList<>())
+                            .add(mediaMapper.toInfoDto(media));
+                }
+            }
+        });
+        log.debug("Media resolver loaded {} entities ({} with media)", refs.size(), galleries.size());
+
+        Map<EntityRef, EntityMedia> loaded = new HashMap<>();
+        for (EntityRef ref : refs) {
+            List<MediaInfoDto> gallery = galleries.get(ref);
+            if (gallery == null) {
+                loaded.put(ref, EntityMedia.EMPTY);
+                continue;
+            }
+            MediaInfoDto mainImage = gallery.stream()
+                    .filter(media -> Boolean.TRUE.equals(media.getIsMain()))
+                    .findFirst()
+                    .orElse(gallery.get(0));
+            loaded.put(ref, new EntityMedia(mainImage, List.copyOf(gallery)));
+        }
+        return loaded;
+    }
+
+    private void put(EntityRef ref, CachedMedia value) {
+        int maxEntries = Math.max(properties.getMaxEntries(), 1);
+        if (cache.size() >= maxEntries && !cache.containsKey(ref)) {
+            long now = System.nanoTime();
+            cache.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+            Iterator<EntityRef> keys = cache.keySet().iterator();
+            while (cache.size() >= maxEntries && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        cache.put(ref, value);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
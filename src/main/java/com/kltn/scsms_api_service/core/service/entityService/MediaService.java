@@ -31,6 +31,7 @@ public class MediaService {
     
     private final MediaRepository mediaRepository;
     private final MediaMapper mediaMapper;
+    private final MediaResolver mediaResolver;
     private final EntityManager entityManager;
     
     /**
@@ -181,8 +182,7 @@ public class MediaService {
     public List<MediaInfoDto> getMediaByEntity(Media.EntityType entityType, UUID entityId) {
         log.debug("Fetching media by entity: {} - {}", entityType, entityId);
         
-        List<Media> mediaList = mediaRepository.findByEntityTypeAndEntityIdAndIsDeletedFalseOrderBySortOrderAsc(entityType, entityId);
-        return mediaMapper.toInfoDtoList(mediaList);
+        return mediaResolver.resolve(entityType, entityId).gallery();
     }
     
     /**
@@ -193,23 +193,12 @@ public class MediaService {
     public MediaInfoDto getMainMediaByEntity(Media.EntityType entityType, UUID entityId) {
         log.debug("Fetching main media by entity: {} - {}", entityType, entityId);
         
-        // First, try to find main media
-        Optional<Media> mainMedia = mediaRepository.findByEntityTypeAndEntityIdAndIsMainTrueAndIsDeletedFalse(entityType, entityId);
-        
-        if (mainMedia.isPresent()) {
-            return mediaMapper.toInfoDto(mainMedia.get());
-        }
-        
-        // If no main media, fallback to first media by sort order
-        log.debug("Main media not found for entity: {} - {}, falling back to first media", entityType, entityId);
-        List<Media> mediaList = mediaRepository.findByEntityTypeAndEntityIdAndIsDeletedFalseOrderBySortOrderAsc(entityType, entityId);
-        
-        if (mediaList.isEmpty()) {
+        MediaInfoDto mainMedia = mediaResolver.resolve(entityType, entityId).mainImage();
+        if (mainMedia == null) {
             throw new EntityNotFoundException("No media found for entity: " + entityType + " - " + entityId);
         }
         
-        // Return first media as fallback
-        return mediaMapper.toInfoDto(mediaList.get(0));
+        return mainMedia;
     }
     
     /**
@@ -246,6 +235,7 @@ public class MediaService {
         }
         
         Media savedMedia = mediaRepository.save(media);
+        mediaResolver.invalidate(savedMedia.getEntityType(), savedMedia.getEntityId());
         return mediaMapper.toInfoDto(savedMedia);
     }
     
@@ -262,6 +252,7 @@ public class MediaService {
         }
         
         Media savedMedia = mediaRepository.save(media);
+        mediaResolver.invalidate(savedMedia.getEntityType(), savedMedia.getEntityId());
         return mediaMapper.toInfoDto(savedMedia);
     }
     
@@ -277,6 +268,7 @@ public class MediaService {
         
         media.setIsDeleted(true);
         mediaRepository.save(media);
+        mediaResolver.invalidate(media.getEntityType(), media.getEntityId());
     }
     
     /**
@@ -296,6 +288,7 @@ public class MediaService {
         
         media.setIsMain(isMain);
         Media savedMedia = mediaRepository.save(media);
+        mediaResolver.invalidate(media.getEntityType(), media.getEntityId());
         return mediaMapper.toInfoDto(savedMedia);
     }
     
@@ -307,6 +300,7 @@ public class MediaService {
         log.debug("Updating media sort order: {} to {}", mediaId, sortOrder);
         
         mediaRepository.updateSortOrder(mediaId, sortOrder);
+        mediaResolver.invalidateAll();
     }
     
     /**
@@ -323,6 +317,14 @@ public class MediaService {
         for (int i = 0; i < mediaIds.size(); i++) {
             mediaRepository.updateSortOrder(mediaIds.get(i), sortOrders.get(i));
         }
+        mediaResolver.invalidate(entityType, entityId);
+    }
+    
+    /**
+     * Sort order cho media mới của entity: 0 nếu entity chưa có media, ngược lại max + 1
+     */
+    public int getNextSortOrder(Media.EntityType entityType, UUID entityId) {
+        return mediaRepository.getNextSortOrderByEntity(entityType, entityId);
     }
     
     /**
@@ -1,13 +1,17 @@
 package com.kltn.scsms_api_service.core.service.entityService;
 
 import com.kltn.scsms_api_service.core.entity.PriceBook;
+import com.kltn.scsms_api_service.core.entity.PriceBookItem;
+import com.kltn.scsms_api_service.core.events.PriceBookUpdatedEvent;
 import com.kltn.scsms_api_service.core.repository.PriceBookRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 @Service
@@ -16,6 +20,7 @@ import java.util.UUID;
 public class PriceBookEntityService {
     
     private final PriceBookRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
     
     /**
      * Get active price books in the given time range.
@@ -38,7 +43,9 @@ public class PriceBookEntityService {
     }
     
     public PriceBook create(PriceBook priceBook) {
-        return repo.save(priceBook);
+        PriceBook saved = repo.save(priceBook);
+        publishUpdated(saved, "PRICE_CHANGE");
+        return saved;
     }
     
     public PriceBook require(UUID bookId) {
@@ -98,7 +105,9 @@ public class PriceBookEntityService {
             });
         }
         
-        return repo.save(book);
+        PriceBook saved = repo.save(book);
+        publishUpdated(saved, updates.getItems() != null ? "PRICE_CHANGE" : "POLICY_CHANGE");
+        return saved;
     }
     
     public List<PriceBook> getPriceBooksInRange(LocalDateTime from, LocalDateTime to) {
@@ -107,4 +116,23 @@ public class PriceBookEntityService {
         if (to == null) return repo.findByValidFromLessThanEqual(from);
         return repo.findByValidFromLessThanEqualAndValidToGreaterThanEqual(from, to);
     }
+    
+    /**
+     * Báo bảng giá đã thay đổi (listener xử lý sau khi transaction commit)
+     */
+    private void publishUpdated(PriceBook book, String updateType) {
+        eventPublisher.publishEvent(PriceBookUpdatedEvent.builder()
+            .priceBookId(book.getId())
+            .priceBookName(book.getName())
+            .affectedProductIds(book.getItems().stream()
+                .map(PriceBookItem::getProduct).filter(Objects::nonNull)
+                .map(product -> product.getProductId()).toList())
+            .affectedServiceIds(book.getItems().stream()
+                .map(PriceBookItem::getService).filter(Objects::nonNull)
+                .map(service -> service.getServiceId()).toList())
+            .updatedAt(LocalDateTime.now())
+            .updatedBy(book.getModifiedBy() != null ? book.getModifiedBy() : book.getCreatedBy())
+            .updateType(updateType)
+            .build());
+    }
 }
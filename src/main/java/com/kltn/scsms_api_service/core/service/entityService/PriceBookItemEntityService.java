@@ -1,13 +1,17 @@
 package com.kltn.scsms_api_service.core.service.entityService;
 
 import com.kltn.scsms_api_service.core.entity.PriceBookItem;
+import com.kltn.scsms_api_service.core.events.PriceBookUpdatedEvent;
 import com.kltn.scsms_api_service.core.repository.PriceBookItemRepository;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,6 +20,7 @@ import java.util.UUID;
 @Slf4j
 public class PriceBookItemEntityService {
     private final PriceBookItemRepository repo;
+    private final ApplicationEventPublisher eventPublisher;
     
     public Optional<PriceBookItem> findByPriceBookIdAndProductId(UUID id, UUID productId) {
         return repo.findByPriceBookIdAndProductProductId(id, productId);
@@ -27,7 +32,9 @@ public class PriceBookItemEntityService {
     
     
     public PriceBookItem create(PriceBookItem item) {
-        return repo.save(item);
+        PriceBookItem saved = repo.save(item);
+        publishUpdated(saved, "PRODUCT_ADDED");
+        return saved;
     }
     
     public PriceBookItem update(PriceBookItem item, PriceBookItem updates) {
@@ -36,11 +43,16 @@ public class PriceBookItemEntityService {
         if (updates.getMarkupPercent() != null) item.setMarkupPercent(updates.getMarkupPercent());
         if (updates.getProduct() != null) item.setProduct(updates.getProduct());
         if (updates.getService() != null) item.setService(updates.getService());
-        return repo.save(item);
+        PriceBookItem saved = repo.save(item);
+        publishUpdated(saved, "PRICE_CHANGE");
+        return saved;
     }
     
     public void delete(UUID id) {
-        repo.deleteById(id);
+        repo.findById(id).ifPresent(item -> {
+            repo.delete(item);
+            publishUpdated(item, "PRODUCT_REMOVED");
+        });
     }
     
     public Optional<PriceBookItem> findById(UUID id) {
@@ -52,4 +64,18 @@ public class PriceBookItemEntityService {
             new ClientSideException(ErrorCode.NOT_FOUND, "PriceBookItem not found: " + itemId)
         );
     }
+    
+    /**
+     * Báo bảng giá chứa item đã thay đổi (listener xử lý sau khi transaction commit)
+     * priceBook có thể là reference chưa load nên chỉ lấy id
+     */
+    private void publishUpdated(PriceBookItem item, String updateType) {
+        eventPublisher.publishEvent(PriceBookUpdatedEvent.builder()
+            .priceBookId(item.getPriceBook() != null ? item.getPriceBook().getId() : null)
+            .affectedProductIds(item.getProduct() != null ? List.of(item.getProduct().getProductId()) : List.of())
+            .affectedServiceIds(item.getService() != null ? List.of(item.getService().getServiceId()) : List.of())
+            .updatedAt(LocalDateTime.now())
+            .updateType(updateType)
+            .build());
+    }
 }
@@ -31,6 +31,7 @@ public class ProductAttributeService {
     
     private final ProductAttributeRepository productAttributeRepository;
     private final ProductAttributeMapper productAttributeMapper;
+    private final ProductFacetIndex productFacetIndex;
     private final EntityManager entityManager;
     
     /**
@@ -249,6 +250,7 @@ public class ProductAttributeService {
         }
         
         ProductAttribute savedProductAttribute = productAttributeRepository.save(productAttribute);
+        productFacetIndex.invalidate();
         return productAttributeMapper.toInfoDto(savedProductAttribute);
     }
     
@@ -265,6 +267,7 @@ public class ProductAttributeService {
         productAttribute.setIsDeleted(true);
         productAttribute.setIsActive(false);
         productAttributeRepository.save(productAttribute);
+        productFacetIndex.invalidate();
     }
     
     /**
@@ -279,6 +282,7 @@ public class ProductAttributeService {
         
         productAttribute.setIsActive(isActive);
         ProductAttribute savedProductAttribute = productAttributeRepository.save(productAttribute);
+        productFacetIndex.invalidate();
         return productAttributeMapper.toInfoDto(savedProductAttribute);
     }
     
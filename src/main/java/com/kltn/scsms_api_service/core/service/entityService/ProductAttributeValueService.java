@@ -24,6 +24,7 @@ public class ProductAttributeValueService {
     private final ProductAttributeValueRepository productAttributeValueRepository;
     private final ProductRepository productRepository;
     private final ProductAttributeRepository productAttributeRepository;
+    private final ProductFacetIndex productFacetIndex;
 
     @Transactional
     public ProductAttributeValue createProductAttributeValue(UUID productId, UUID attributeId, String valueText,
@@ -58,6 +59,7 @@ public class ProductAttributeValueService {
                 .isDeleted(false)
                 .build();
 
+        productFacetIndex.invalidate();
         return productAttributeValueRepository.save(attributeValue);
     }
 
@@ -94,18 +96,21 @@ public class ProductAttributeValueService {
         attributeValue.setValueText(valueText);
         attributeValue.setValueNumber(valueNumber);
 
+        productFacetIndex.invalidate();
         return productAttributeValueRepository.save(attributeValue);
     }
 
     @Transactional
     public ProductAttributeValue save(ProductAttributeValue attributeValue) {
         log.debug("Saving product attribute value: {}", attributeValue);
+        productFacetIndex.invalidate();
         return productAttributeValueRepository.save(attributeValue);
     }
 
     @Transactional
     public ProductAttributeValue update(ProductAttributeValue attributeValue) {
         log.debug("Updating product attribute value: {}", attributeValue);
+        productFacetIndex.invalidate();
         return productAttributeValueRepository.save(attributeValue);
     }
 
@@ -122,6 +127,7 @@ public class ProductAttributeValueService {
         attributeValue.setIsDeleted(true);
         attributeValue.setIsActive(false);
         productAttributeValueRepository.save(attributeValue);
+        productFacetIndex.invalidate();
     }
 
     @Transactional
@@ -130,6 +136,7 @@ public class ProductAttributeValueService {
         log.info("Bulk updating attribute values for {} products and attribute: {}", productIds.size(), attributeId);
 
         List<ProductAttributeValue> updatedValues = new java.util.ArrayList<>();
+        productFacetIndex.invalidate();
 
         for (UUID productId : productIds) {
             try {
@@ -194,6 +201,7 @@ public class ProductAttributeValueService {
                         "Product not found with ID: " + productId));
 
         List<ProductAttributeValue> updatedValues = new java.util.ArrayList<>();
+        productFacetIndex.invalidate();
 
         for (com.kltn.scsms_api_service.core.dto.productManagement.request.BulkUpdateProductAttributeValuesRequest.ProductAttributeValueUpdateRequest request : attributeValueRequests) {
             try {
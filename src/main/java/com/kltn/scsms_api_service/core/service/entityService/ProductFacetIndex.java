@@ -0,0 +1,359 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.kltn.scsms_api_service.core.dto.productManagement.ProductFacetSearchDto;
+import com.kltn.scsms_api_service.core.dto.productManagement.request.ProductFacetSearchRequest.AttributeFilter;
+import com.kltn.scsms_api_service.core.entity.ProductAttribute;
+import com.kltn.scsms_api_service.core.repository.ProductAttributeRepository;
+import com.kltn.scsms_api_service.core.repository.ProductAttributeValueRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Inverted index thuộc tính sản phẩm trong bộ nhớ: thuộc tính → giá trị → BitSet sản phẩm
+ * - Mỗi sản phẩm có thuộc tính được gán 1 ordinal; lọc/đếm facet là phép AND/OR/cardinality trên BitSet
+ * - Thuộc tính số có thêm mảng giá trị đã sắp xếp để lọc theo khoảng bằng binary search
+ * - Mọi thay đổi giá trị thuộc tính/thuộc tính gọi invalidate(); index bị xóa sau khi transaction commit
+ *   và được build lại ở lần truy vấn tiếp theo (generation counter như CategoryHierarchyCache)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+
+    private final ProductAttributeRepository productAttributeRepository;
+    private final ProductAttributeValueRepository productAttributeValueRepository;
+
+    private final AtomicReference<FacetSnapshot> snapshot = new AtomicReference<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Lọc các sản phẩm base theo bộ lọc thuộc tính và đếm facet
+     * - productIds: null nếu không có bộ lọc thuộc tính (giữ nguyên tập base)
+     * - Số đếm của 1 thuộc tính tính trên base ∩ các bộ lọc của thuộc tính khác
+     */
+    @Transactional(readOnly = true)
+    public FacetResult evaluate(Collection<UUID> baseProductIds, List<AttributeFilter> filters,
+                                List<UUID> facetAttributeIds, int maxFacetValues) {
+        FacetSnapshot index = snapshot();
+
+        BitSet base = new BitSet(index.products().length);
+        for (UUID productId : baseProductIds) {
+            Integer ordinal = index.ordinals().get(productId);
+            if (ordinal != null) {
+                base.set(ordinal);
+            }
+        }
+
+        Map<UUID, BitSet> filterBits = new LinkedHashMap<>();
+        for (AttributeFilter filter : filters) {
+            BitSet bits = index.match(filter);
+            filterBits.merge(filter.getAttributeId(), bits, (a, b) -> {
+                a.and(b);
+                return a;
+            });
+        }
+
+        Set<UUID> productIds = null;
+        if (!filterBits.isEmpty()) {
+            BitSet matched = (BitSet) base.clone();
+            filterBits.values().forEach(matched::and);
+            productIds = new HashSet<>(matched.cardinality() * 2);
+            for (int i = matched.nextSetBit(0); i >= 0; i = matched.nextSetBit(i + 1)) {
+                productIds.add(index.products()[i]);
+            }
+        }
+
+        Collection<AttributeIndex> facetAttributes = facetAttributeIds == null || facetAttributeIds.isEmpty()
+                ? index.attributes().values()
+                : facetAttributeIds.stream().map(index.attributes()::get).filter(Objects::nonNull).toList();
+
+        List<ProductFacetSearchDto.AttributeFacet> facets = new ArrayList<>();
+        for (AttributeIndex attribute : facetAttributes) {
+            BitSet mask = (BitSet) base.clone();
+            filterBits.forEach((attributeId, bits) -> {
+                if (!attributeId.equals(attribute.attributeId())) {
+                    mask.and(bits);
+                }
+            });
+            facets.add(attribute.facet(mask, Math.max(maxFacetValues, 1)));
+        }
+        return new FacetResult(productIds, facets);
+    }
+
+    /**
+     * Xóa index sau khi transaction hiện tại commit (hoặc ngay nếu không có transaction)
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict();
+                }
+            });
+        } else {
+            evict();
+        }
+    }
+
+    private void evict() {
+        generation.incrementAndGet();
+        snapshot.set(null);
+        log.debug("Product facet index invalidated");
+    }
+
+    private FacetSnapshot snapshot() {
+        FacetSnapshot cached = snapshot.get();
+        if (cached != null) {
+            return cached;
+        }
+
+        long buildGeneration = generation.get();
+        Map<UUID, AttributeBuilder> builders = new HashMap<>();
+        for (ProductAttribute attribute : productAttributeRepository.findByIsActiveTrue()) {
+            if (!Boolean.TRUE.equals(attribute.getIsDeleted())) {
+                builders.put(attribute.getAttributeId(), new AttributeBuilder(attribute));
+            }
+        }
+
+        List<UUID> products = new ArrayList<>();
+        Map<UUID, Integer> ordinals = new HashMap<>();
+        List<Object[]> rows = productAttributeValueRepository.findFacetRows();
+        for (Object[] row : rows) {
+            AttributeBuilder builder = builders.get((UUID) row[1]);
+            if (builder == null) {
+                continue;
+            }
+            UUID productId = (UUID) row[0];
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal == null) {
+                ordinal = products.size();
+                ordinals.put(productId, ordinal);
+                products.add(productId);
+            }
+            builder.add(ordinal, (String) row[2], (BigDecimal) row[3]);
+        }
+
+        Map<UUID, AttributeIndex> attributes = new LinkedHashMap<>();
+        builders.values().stream()
+                .sorted(Comparator.comparing(AttributeBuilder::name, Comparator.nullsLast(String::compareToIgnoreCase)))
+                .forEach(builder -> attributes.put(builder.attributeId(), builder.build()));
+
+        FacetSnapshot built = new FacetSnapshot(products.toArray(UUID[]::new), Map.copyOf(ordinals),
+                Collections.unmodifiableMap(attributes));
+
+        // Chỉ cache nếu không có invalidate nào xảy ra trong lúc build
+        if (generation.get() == buildGeneration) {
+            snapshot.compareAndSet(null, built);
+        }
+        log.debug("Built product facet index: products={}, attributes={}, values={}",
+                products.size(), attributes.size(), rows.size());
+        return built;
+    }
+
+    /**
+     * Khóa so khớp của 1 giá trị: số → dạng chuẩn (bỏ số 0 thừa), text → trim + lowercase
+     */
+    private static String valueKey(String valueText, BigDecimal valueNumber) {
+        if (valueNumber != null) {
+            return valueNumber.stripTrailingZeros().toPlainString();
+        }
+        if (valueText == null || valueText.isBlank()) {
+            return null;
+        }
+        return valueText.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String filterKey(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.trim()).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            return value.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public record FacetResult(Set<UUID> productIds, List<ProductFacetSearchDto.AttributeFacet> facets) {
+    }
+
+    private record FacetSnapshot(UUID[] products, Map<UUID, Integer> ordinals, Map<UUID, AttributeIndex> attributes) {
+
+        BitSet match(AttributeFilter filter) {
+            AttributeIndex attribute = attributes.get(filter.getAttributeId());
+            return attribute != null ? attribute.match(filter) : new BitSet();
+        }
+    }
+
+    private record ValueBucket(String display, BitSet products) {
+    }
+
+    /**
+     * @param numericValues   giá trị số tăng dần; numericOrdinals[i] là sản phẩm có giá trị numericValues[i]
+     */
+    private record AttributeIndex(UUID attributeId, String code, String name, String unit, String dataType,
+                                  Map<String, ValueBucket> values, BitSet present,
+                                  BigDecimal[] numericValues, int[] numericOrdinals) {
+
+        BitSet match(AttributeFilter filter) {
+            BitSet bits;
+            if (filter.getValues() != null && !filter.getValues().isEmpty()) {
+                bits = new BitSet();
+                for (String value : filter.getValues()) {
+                    ValueBucket bucket = values.get(filterKey(value));
+                    if (bucket != null) {
+                        bits.or(bucket.products());
+                    }
+                }
+            } else {
+                bits = (BitSet) present.clone();
+            }
+            if (filter.getMinValue() != null || filter.getMaxValue() != null) {
+                bits.and(range(filter.getMinValue(), filter.getMaxValue()));
+            }
+            return bits;
+        }
+
+        private BitSet range(BigDecimal min, BigDecimal max) {
+            int from = min != null ? lowerBound(min) : 0;
+            int to = max != null ? upperBound(max) : numericValues.length;
+            BitSet bits = new BitSet();
+            for (int i = from; i < to; i++) {
+                bits.set(numericOrdinals[i]);
+            }
+            return bits;
+        }
+
+        // Vị trí đầu tiên có giá trị >= min
+        private int lowerBound(BigDecimal min) {
+            int lo = 0, hi = numericValues.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (numericValues[mid].compareTo(min) < 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        // Vị trí đầu tiên có giá trị > max
+        private int upperBound(BigDecimal max) {
+            int lo = 0, hi = numericValues.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (numericValues[mid].compareTo(max) <= 0) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo;
+        }
+
+        ProductFacetSearchDto.AttributeFacet facet(BitSet mask, int maxValues) {
+            List<ProductFacetSearchDto.FacetValue> counts = new ArrayList<>();
+            for (ValueBucket bucket : values.values()) {
+                BitSet hits = (BitSet) bucket.products().clone();
+                hits.and(mask);
+                int count = hits.cardinality();
+                if (count > 0) {
+                    counts.add(ProductFacetSearchDto.FacetValue.builder()
+                            .value(bucket.display())
+                            .count(count)
+                            .build());
+                }
+            }
+            counts.sort(Comparator.comparingInt(ProductFacetSearchDto.FacetValue::getCount).reversed()
+                    .thenComparing(ProductFacetSearchDto.FacetValue::getValue, String.CASE_INSENSITIVE_ORDER));
+
+            BigDecimal minValue = null, maxValue = null;
+            for (int i = 0; i < numericOrdinals.length; i++) {
+                if (mask.get(numericOrdinals[i])) {
+                    minValue = numericValues[i];
+                    break;
+                }
+            }
+            for (int i = numericOrdinals.length - 1; i >= 0; i--) {
+                if (mask.get(numericOrdinals[i])) {
+                    maxValue = numericValues[i];
+                    break;
+                }
+            }
+
+            return ProductFacetSearchDto.AttributeFacet.builder()
+                    .attributeId(attributeId)
+                    .attributeCode(code)
+                    .attributeName(name)
+                    .unit(unit)
+                    .dataType(dataType)
+                    .minValue(minValue)
+                    .maxValue(maxValue)
+                    .values(List.copyOf(counts.subList(0, Math.min(maxValues, counts.size()))))
+                    .build();
+        }
+    }
+
+    private static final class AttributeBuilder {
+        private final UUID attributeId;
+        private final String code;
+        private final String name;
+        private final String unit;
+        private final String dataType;
+        private final Map<String, ValueBucket> values = new HashMap<>();
+        private final BitSet present = new BitSet();
+        private final List<BigDecimal> numericValues = new ArrayList<>();
+        private final List<Integer> numericOrdinals = new ArrayList<>();
+
+        AttributeBuilder(ProductAttribute attribute) {
+            this.attributeId = attribute.getAttributeId();
+            this.code = attribute.getAttributeCode();
+            this.name = attribute.getAttributeName();
+            this.unit = attribute.getUnit();
+            this.dataType = attribute.getDataType() != null ? attribute.getDataType().name() : null;
+        }
+
+        UUID attributeId() {
+            return attributeId;
+        }
+
+        String name() {
+            return name;
+        }
+
+        void add(int ordinal, String valueText, BigDecimal valueNumber) {
+            String key = valueKey(valueText, valueNumber);
+            if (key == null) {
+                return;
+            }
+            String display = valueNumber != null ? key : valueText.trim();
+            values.computeIfAbsent(key, k -> new ValueBucket(display, new BitSet())).products().set(ordinal);
+            present.set(ordinal);
+            if (valueNumber != null) {
+                numericValues.add(valueNumber);
+                numericOrdinals.add(ordinal);
+            }
+        }
+
+        AttributeIndex build() {
+            Integer[] order = new Integer[numericValues.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(numericValues::get));
+            BigDecimal[] sortedValues = new BigDecimal[order.length];
+            int[] sortedOrdinals = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                sortedValues[i] = numericValues.get(order[i]);
+                sortedOrdinals[i] = numericOrdinals.get(order[i]);
+            }
+            return new AttributeIndex(attributeId, code, name, unit, dataType, Map.copyOf(values), present,
+                    sortedValues, sortedOrdinals);
+        }
+    }
+}
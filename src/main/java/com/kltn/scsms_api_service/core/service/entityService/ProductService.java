@@ -4,15 +4,25 @@ import com.kltn.scsms_api_service.core.entity.Product;
 import com.kltn.scsms_api_service.core.repository.ProductRepository;
 import com.kltn.scsms_api_service.exception.ClientSideException;
 import com.kltn.scsms_api_service.exception.ErrorCode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,6 +33,7 @@ import java.util.UUID;
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final EntityManager entityManager;
 
     public List<Product> findAll() {
         log.info("Finding all products");
@@ -39,6 +50,45 @@ public class ProductService {
         return productRepository.findAll(spec, pageable);
     }
 
+    /**
+     * Chỉ lấy ID các sản phẩm thỏa specification (không load entity) - dùng cho đếm facet
+     */
+    public List<UUID> findIds(Specification<Product> spec) {
+        return findIds(spec, Sort.unsorted());
+    }
+
+    /**
+     * Như findIds nhưng theo thứ tự sort (để cắt trang trong bộ nhớ mà không bind danh sách ID lớn vào query)
+     */
+    public List<UUID> findIds(Specification<Product> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<Product> root = query.from(Product.class);
+        query.select(root.get("productId"));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Load sản phẩm theo danh sách ID (đã giới hạn theo trang), giữ đúng thứ tự của ids
+     */
+    public List<Product> findAllByIdsInOrder(List<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        Map<UUID, Product> byId = new HashMap<>();
+        for (Product product : productRepository.findAllById(productIds)) {
+            byId.put(product.getProductId(), product);
+        }
+        return productIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
     public Optional<Product> findById(UUID productId) {
         log.info("Finding product by ID: {}", productId);
         return productRepository.findById(productId);
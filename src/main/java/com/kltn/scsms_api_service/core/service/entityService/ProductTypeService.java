@@ -35,6 +35,7 @@ public class ProductTypeService {
     private final CategoryRepository categoryRepository;
     private final ProductTypeMapper productTypeMapper;
     private final EntityManager entityManager;
+    private final ReferenceDataCache referenceDataCache;
     
     /**
      * Get all product types with pagination and filtering
@@ -181,8 +182,8 @@ public class ProductTypeService {
     public List<ProductTypeInfoDto> getProductTypesByCategory(UUID categoryId) {
         log.debug("Fetching product types by category ID: {}", categoryId);
         
-        List<ProductType> productTypes = productTypeRepository.findByCategoryCategoryId(categoryId);
-        return productTypeMapper.toInfoDtoList(productTypes);
+        return referenceDataCache.get(ReferenceCacheRegions.PRODUCT_TYPES_BY_CATEGORY, categoryId, () ->
+            productTypeMapper.toInfoDtoList(productTypeRepository.findByCategoryCategoryId(categoryId)));
     }
     
     /**
@@ -191,8 +192,8 @@ public class ProductTypeService {
     public List<ProductTypeInfoDto> getActiveProductTypes() {
         log.debug("Fetching active product types");
         
-        List<ProductType> productTypes = productTypeRepository.findByIsActiveTrue();
-        return productTypeMapper.toInfoDtoList(productTypes);
+        return referenceDataCache.get(ReferenceCacheRegions.ACTIVE_PRODUCT_TYPES, () ->
+            productTypeMapper.toInfoDtoList(productTypeRepository.findByIsActiveTrue()));
     }
     
     /**
@@ -211,6 +212,7 @@ public class ProductTypeService {
         }
         
         ProductType savedProductType = productTypeRepository.save(productType);
+        invalidateCachedProductTypes();
         return productTypeMapper.toInfoDto(savedProductType);
     }
     
@@ -230,6 +232,7 @@ public class ProductTypeService {
         }
         
         ProductType savedProductType = productTypeRepository.save(productType);
+        invalidateCachedProductTypes();
         return productTypeMapper.toInfoDto(savedProductType);
     }
     
@@ -246,6 +249,7 @@ public class ProductTypeService {
         productType.setIsDeleted(true);
         productType.setIsActive(false);
         productTypeRepository.save(productType);
+        invalidateCachedProductTypes();
     }
     
     /**
@@ -260,6 +264,7 @@ public class ProductTypeService {
         
         productType.setIsActive(isActive);
         ProductType savedProductType = productTypeRepository.save(productType);
+        invalidateCachedProductTypes();
         return productTypeMapper.toInfoDto(savedProductType);
     }
     
@@ -301,4 +306,12 @@ public class ProductTypeService {
     public long getActiveProductTypesCount() {
         return productTypeRepository.getActiveProductTypesCount();
     }
+    
+    /**
+     * Xóa cache danh sách loại sản phẩm (active + theo danh mục) sau khi commit
+     */
+    private void invalidateCachedProductTypes() {
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_PRODUCT_TYPES,
+            ReferenceCacheRegions.PRODUCT_TYPES_BY_CATEGORY);
+    }
 }
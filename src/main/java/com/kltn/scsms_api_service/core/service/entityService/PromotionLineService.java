@@ -21,4 +21,11 @@ public class PromotionLineService {
     public void deleteAllByIds(List<UUID> existingLineIds) {
         promotionLineRepository.deleteAllById(existingLineIds);
     }
+    
+    /**
+     * Get promotion line reference by ID (for lazy loading)
+     */
+    public PromotionLine getReferenceById(UUID promotionLineId) {
+        return promotionLineRepository.getReferenceById(promotionLineId);
+    }
 }
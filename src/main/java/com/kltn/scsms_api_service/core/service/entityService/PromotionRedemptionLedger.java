@@ -0,0 +1,193 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.kltn.scsms_api_service.core.entity.PromotionUsage;
+import com.kltn.scsms_api_service.core.repository.PromotionCustomerRedemptionRepository;
+import com.kltn.scsms_api_service.core.repository.PromotionRedemptionCounterRepository;
+import com.kltn.scsms_api_service.core.repository.PromotionUsageRepository;
+import com.kltn.scsms_api_service.exception.ClientSideException;
+import com.kltn.scsms_api_service.exception.ErrorCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ledger giữ lượt dùng khuyến mãi bằng bộ đếm nguyên tử trong Postgres
+ * - Mỗi lần giữ lượt là 1 UPDATE có điều kiện (used_count < limit) trên đúng 1 dòng đếm, không COUNT promotion_usages
+ * - Giữ lượt chạy trong transaction riêng nên khóa dòng đếm chỉ giữ trong vài ms, không kéo dài theo transaction đơn hàng
+ * - Transaction đơn hàng rollback → các lượt đã giữ được hoàn lại (reservation/rollback)
+ * - Đơn bị hủy/trả hàng → hoàn lại lượt của các KM đã dùng sau khi transaction hủy/trả commit
+ * - Bộ đếm được tạo lười từ số PromotionUsage đã có ở lần dùng đầu tiên
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromotionRedemptionLedger {
+
+    private final PromotionRedemptionCounterRepository counterRepository;
+    private final PromotionCustomerRedemptionRepository customerRedemptionRepository;
+    private final PromotionUsageRepository promotionUsageRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Giữ 1 lượt cho mỗi khuyến mãi (và cho khách nếu có)
+     * Hết lượt ở bất kỳ khuyến mãi nào → không giữ lượt nào và ném lỗi
+     */
+    public void reserve(Collection<UUID> promotionIds, UUID customerId) {
+        if (promotionIds == null || promotionIds.isEmpty()) {
+            return;
+        }
+        // Thứ tự cố định để 2 đơn dùng cùng nhiều KM không deadlock
+        List<UUID> ordered = promotionIds.stream().distinct().sorted().toList();
+
+        requiresNew().executeWithoutResult(status -> {
+            for (UUID promotionId : ordered) {
+                if (!incrementTotal(promotionId)) {
+                    throw new ClientSideException(ErrorCode.PROMOTION_USAGE_LIMIT_REACHED,
+                            "Promotion " + promotionId + " has reached its usage limit");
+                }
+                if (customerId != null && !incrementForCustomer(promotionId, customerId)) {
+                    throw new ClientSideException(ErrorCode.PROMOTION_CUSTOMER_LIMIT_REACHED,
+                            "Customer has reached the usage limit of promotion " + promotionId);
+                }
+            }
+        });
+        log.debug("Reserved promotion redemptions: promotions={}, customer={}", ordered, customerId);
+
+        releaseOnRollback(ordered, customerId);
+    }
+
+    /**
+     * Hoàn lại lượt đã giữ (đơn bị hủy trước khi hoàn tất)
+     */
+    public void release(Collection<UUID> promotionIds, UUID customerId) {
+        if (promotionIds == null || promotionIds.isEmpty()) {
+            return;
+        }
+        List<UUID> ordered = promotionIds.stream().distinct().sorted().toList();
+        requiresNew().executeWithoutResult(status -> {
+            for (UUID promotionId : ordered) {
+                counterRepository.decrement(promotionId);
+                if (customerId != null) {
+                    customerRedemptionRepository.decrement(promotionId, customerId);
+                }
+            }
+        });
+        log.info("Released promotion redemptions: promotions={}, customer={}", ordered, customerId);
+    }
+
+    /**
+     * Hoàn lại lượt của mọi KM đã ghi PromotionUsage cho đơn (hủy đơn, trả hàng)
+     * Chạy sau khi transaction hiện tại commit để lượt không bị hoàn khi thao tác hủy/trả thất bại
+     */
+    public void releaseForOrder(UUID orderId) {
+        if (orderId == null) {
+            return;
+        }
+        List<PromotionUsage> usages = promotionUsageRepository.findByOrderId(orderId);
+        if (usages.isEmpty()) {
+            return;
+        }
+        // Lượt theo khách được giữ theo customer của usage (null = khách vãng lai, chỉ hoàn bộ đếm tổng)
+        Map<UUID, List<UUID>> promotionsByCustomer = new LinkedHashMap<>();
+        for (PromotionUsage usage : usages) {
+            UUID customerId = usage.getCustomer() != null ? usage.getCustomer().getUserId() : null;
+            promotionsByCustomer.computeIfAbsent(customerId, k -> new ArrayList<>())
+                    .add(usage.getPromotion().getPromotionId());
+        }
+        log.info("Releasing promotion redemptions of order {}: {}", orderId, promotionsByCustomer);
+        promotionsByCustomer.forEach((customerId, promotionIds) -> releaseAfterCommit(promotionIds, customerId));
+    }
+
+    /**
+     * KM đã hết lượt (tổng, hoặc của khách nếu có customerId) - chỉ đọc, dùng để loại KM trước khi xếp hạng
+     */
+    public Set<UUID> findExhausted(Collection<UUID> promotionIds, UUID customerId) {
+        if (promotionIds == null || promotionIds.isEmpty()) {
+            return Set.of();
+        }
+        Set<UUID> exhausted = new HashSet<>(counterRepository.findExhausted(promotionIds));
+        if (customerId != null) {
+            exhausted.addAll(customerRedemptionRepository.findExhausted(promotionIds, customerId));
+        }
+        return exhausted;
+    }
+
+    private boolean incrementTotal(UUID promotionId) {
+        if (counterRepository.tryIncrement(promotionId) == 1) {
+            return true;
+        }
+        if (counterRepository.existsById(promotionId)) {
+            return false;
+        }
+        counterRepository.seedFromUsages(promotionId);
+        return counterRepository.tryIncrement(promotionId) == 1;
+    }
+
+    private boolean incrementForCustomer(UUID promotionId, UUID customerId) {
+        if (customerRedemptionRepository.tryIncrement(promotionId, customerId) == 1) {
+            return true;
+        }
+        if (customerRedemptionRepository.existsByPromotionIdAndCustomerId(promotionId, customerId)) {
+            return false;
+        }
+        customerRedemptionRepository.seedFromUsages(promotionId, customerId);
+        return customerRedemptionRepository.tryIncrement(promotionId, customerId) == 1;
+    }
+
+    private void releaseOnRollback(List<UUID> promotionIds, UUID customerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    try {
+                        release(promotionIds, customerId);
+                    } catch (Exception e) {
+                        log.error("Failed to release promotion redemptions {} for customer {}: {}",
+                                promotionIds, customerId, e.getMessage(), e);
+                    }
+                }
+            }
+        });
+    }
+
+    private void releaseAfterCommit(List<UUID> promotionIds, UUID customerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            release(promotionIds, customerId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    release(promotionIds, customerId);
+                } catch (Exception e) {
+                    log.error("Failed to release promotion redemptions {} for customer {}: {}",
+                            promotionIds, customerId, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private TransactionTemplate requiresNew() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
@@ -4,10 +4,12 @@ import com.kltn.scsms_api_service.core.dto.promotionManagement.param.PromotionFi
 import com.kltn.scsms_api_service.core.entity.Promotion;
 import com.kltn.scsms_api_service.core.repository.PromotionRepository;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -17,6 +19,7 @@ import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -121,7 +124,7 @@ public class PromotionService {
         log.info("Getting promotions with filters: {}", filterParam);
 
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Promotion> query = cb.createQuery(Promotion.class);
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
         Root<Promotion> promotionRoot = query.from(Promotion.class);
 
         // Join with Branch entity for branch-based filtering
@@ -151,17 +154,31 @@ public class PromotionService {
         }
         query.orderBy(order);
 
-        TypedQuery<Promotion> typedQuery = entityManager.createQuery(query);
+        // Total count trả về cùng trang dữ liệu qua COUNT(*) OVER () thay vì query count riêng
+        Expression<Long> totalCount = ((HibernateCriteriaBuilder) cb)
+                .count(promotionRoot, ((HibernateCriteriaBuilder) cb).createWindow());
+        query.multiselect(promotionRoot, totalCount);
 
-        // Get total count for pagination
-        long totalElements = getTotalCount(filterParam);
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
 
         // Apply pagination
         int offset = filterParam.getPage() * filterParam.getSize();
         typedQuery.setFirstResult(offset);
         typedQuery.setMaxResults(filterParam.getSize());
 
-        List<Promotion> promotions = typedQuery.getResultList();
+        List<Tuple> rows = typedQuery.getResultList();
+        List<Promotion> promotions = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            promotions.add(row.get(0, Promotion.class));
+        }
+
+        // Trang rỗng không mang theo total → chỉ khi đó mới cần query count riêng
+        long totalElements;
+        if (!rows.isEmpty()) {
+            totalElements = rows.get(0).get(1, Long.class);
+        } else {
+            totalElements = offset == 0 ? 0 : getTotalCount(filterParam);
+        }
 
         PageRequest pageRequest = PageRequest.of(filterParam.getPage(), filterParam.getSize());
         return new PageImpl<>(promotions, pageRequest, totalElements);
@@ -368,7 +385,7 @@ public class PromotionService {
     }
 
     /**
-     * Get total count for pagination
+     * Get total count for pagination (khi trang yêu cầu nằm ngoài kết quả)
      */
     private long getTotalCount(PromotionFilterParam filterParam) {
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
@@ -447,8 +464,18 @@ public class PromotionService {
     }
 
     /**
-     * Get promotion statistics
+     * Get promotion statistics - 1 query conditional aggregation cho tất cả số liệu
      */
+    public PromotionCounts getPromotionCounts() {
+        Object[] row = promotionRepository.getPromotionCounts().get(0);
+        return new PromotionCounts(
+                ((Number) row[0]).longValue(),
+                ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue(),
+                ((Number) row[3]).longValue(),
+                ((Number) row[4]).longValue());
+    }
+
     public long getTotalPromotionsCount() {
         return promotionRepository.getTotalPromotionsCount();
     }
@@ -472,4 +499,11 @@ public class PromotionService {
     public List<Promotion> findAll(Specification<Promotion> spec) {
         return promotionRepository.findAll(spec);
     }
+    
+    public List<Promotion> findAllByIds(Collection<UUID> promotionIds) {
+        return promotionRepository.findAllById(promotionIds);
+    }
+
+    public record PromotionCounts(long total, long active, long visible, long autoApply, long stackable) {
+    }
 }
@@ -1,20 +1,136 @@
 package com.kltn.scsms_api_service.core.service.entityService;
 
+import com.kltn.scsms_api_service.core.entity.PromotionLineUsageStats;
 import com.kltn.scsms_api_service.core.entity.PromotionUsage;
+import com.kltn.scsms_api_service.core.entity.PromotionUsageStats;
+import com.kltn.scsms_api_service.core.repository.PromotionLineUsageStatsRepository;
 import com.kltn.scsms_api_service.core.repository.PromotionUsageRepository;
+import com.kltn.scsms_api_service.core.repository.PromotionUsageStatsRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class PromotionUsageService {
     
+    // Khóa advisory Postgres cho backfill, cố định để mọi node dùng chung
+    private static final long BACKFILL_LOCK_KEY = 0x50524f4d4f555345L;
+    
     private final PromotionUsageRepository promotionUsageRepository;
+    private final PromotionUsageStatsRepository promotionUsageStatsRepository;
+    private final PromotionLineUsageStatsRepository promotionLineUsageStatsRepository;
+    private final PlatformTransactionManager transactionManager;
     
     public Page<PromotionUsage> findAll(Specification<PromotionUsage> spec, Pageable pageable) {
         return promotionUsageRepository.findAll(spec, pageable);
     }
+    
+    /**
+     * Ghi 1 lượt dùng khuyến mãi và cộng dồn số liệu tổng hợp (promotion + line) trong cùng transaction
+     */
+    @Transactional
+    public PromotionUsage recordUsage(PromotionUsage usage) {
+        PromotionUsage saved = promotionUsageRepository.save(usage);
+        
+        UUID promotionId = saved.getPromotion().getPromotionId();
+        BigDecimal discount = saved.getDiscountAmount() != null ? saved.getDiscountAmount() : BigDecimal.ZERO;
+        promotionUsageStatsRepository.increment(promotionId, discount, saved.getUsedAt());
+        if (saved.getPromotionLine() != null) {
+            promotionLineUsageStatsRepository.increment(
+                saved.getPromotionLine().getPromotionLineId(), promotionId, discount, saved.getUsedAt());
+        }
+        return saved;
+    }
+    
+    /**
+     * Số liệu tổng hợp (toàn thời gian) theo promotionId
+     */
+    public Map<UUID, PromotionUsageStats> getUsageStats(Collection<UUID> promotionIds) {
+        if (promotionIds == null || promotionIds.isEmpty()) {
+            return Map.of();
+        }
+        return promotionUsageStatsRepository.findByPromotionIdIn(promotionIds).stream()
+            .collect(Collectors.toMap(PromotionUsageStats::getPromotionId, Function.identity()));
+    }
+    
+    /**
+     * Số liệu tổng hợp (toàn thời gian) theo promotionLineId của các promotion cho trước
+     */
+    public Map<UUID, PromotionLineUsageStats> getLineUsageStats(Collection<UUID> promotionIds) {
+        if (promotionIds == null || promotionIds.isEmpty()) {
+            return Map.of();
+        }
+        return promotionLineUsageStatsRepository.findByPromotionIdIn(promotionIds).stream()
+            .collect(Collectors.toMap(PromotionLineUsageStats::getPromotionLineId, Function.identity()));
+    }
+    
+    /**
+     * Số liệu tổng hợp trong khoảng thời gian (1 query GROUP BY trên promotion_usages)
+     */
+    public Map<UUID, PromotionUsageStats> getUsageStatsBetween(LocalDateTime fromDate, LocalDateTime toDate) {
+        Map<UUID, PromotionUsageStats> result = new LinkedHashMap<>();
+        for (Object[] row : promotionUsageRepository.aggregateByPromotionBetween(fromDate, toDate)) {
+            UUID promotionId = (UUID) row[0];
+            result.put(promotionId, PromotionUsageStats.builder()
+                .promotionId(promotionId)
+                .usageCount(((Number) row[1]).longValue())
+                .totalDiscount((BigDecimal) row[2])
+                .lastUsedAt((LocalDateTime) row[3])
+                .build());
+        }
+        return result;
+    }
+    
+    /**
+     * Backfill số liệu tổng hợp từ lịch sử usage nếu bảng tổng hợp còn trống (lần đầu deploy)
+     * Nhiều node khởi động cùng lúc: chỉ node giữ được advisory lock chạy, node sau kiểm tra lại trong lock
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillStatsIfEmpty() {
+        try {
+            if (promotionUsageStatsRepository.count() > 0 || promotionUsageRepository.count() == 0) {
+                return;
+            }
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                if (!promotionUsageStatsRepository.tryAdvisoryXactLock(BACKFILL_LOCK_KEY)) {
+                    log.info("Promotion usage stats backfill is running on another node, skipping");
+                    return;
+                }
+                if (promotionUsageStatsRepository.count() > 0) {
+                    return;
+                }
+                rebuildStats();
+            });
+        } catch (Exception e) {
+            log.error("Failed to backfill promotion usage stats: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Tính lại toàn bộ số liệu tổng hợp từ promotion_usages
+     */
+    @Transactional
+    public void rebuildStats() {
+        promotionUsageStatsRepository.deleteAllStats();
+        promotionLineUsageStatsRepository.deleteAllStats();
+        int promotions = promotionUsageStatsRepository.rebuildFromUsages();
+        int lines = promotionLineUsageStatsRepository.rebuildFromUsages();
+        log.info("Rebuilt promotion usage stats: promotions={}, lines={}", promotions, lines);
+    }
 }
@@ -0,0 +1,561 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kltn.scsms_api_service.configs.property.BookingDraftProperties;
+import com.kltn.scsms_api_service.core.entity.BookingDraft;
+import com.kltn.scsms_api_service.core.entity.DraftService;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.DraftStatus;
+import com.kltn.scsms_api_service.core.repository.BookingDraftRepository;
+import com.kltn.scsms_api_service.core.repository.BookingDraftServiceRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Lưu booking draft trong Redis (store mode REDIS)
+ * - Mỗi draft: 1 key JSON cho dữ liệu draft + 1 hash serviceId → JSON cho danh sách dịch vụ, TTL trượt theo hoạt động
+ *   (thêm/xóa dịch vụ là 1 lệnh HSETNX/HDEL nguyên tử, không đọc-sửa-ghi cả danh sách)
+ * - Index session → draft_id và customer → draft_id để thay các query findBySessionIdAndStatus/findByCustomerIdAndStatus
+ * - Draft hết hạn tự biến mất theo TTL, không cần cron cleanup
+ * - Write-behind: snapshot draft nằm trong Redis (hash pending + list hàng đợi) cho tới khi ghi xuống Postgres xong,
+ *   nên restart/flush lỗi không làm mất; mỗi draft chỉ giữ snapshot mới nhất, 1 node flush tại 1 thời điểm (lock)
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RedisBookingDraftStore {
+
+    /**
+     * Thêm snapshot vào pending; draft chưa có trong pending mới được đẩy vào hàng đợi (draft đang flush sẽ được
+     * đẩy lại khi flush xong vì snapshot đã đổi)
+     * KEYS: pending, queue | ARGV: draftId, snapshot
+     */
+    private static final RedisScript<Long> ENQUEUE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) == 1 then "
+                    + "redis.call('LPUSH', KEYS[2], ARGV[1]) end "
+                    + "return 1", Long.class);
+
+    /**
+     * Kết thúc 1 snapshot đã ghi xuống Postgres
+     * - Snapshot trong pending không đổi → xóa khỏi pending; đã đổi → giữ id row Postgres cho lần flush sau và xếp lại hàng
+     * - Draft còn trong Redis → ghi key persisted theo TTL còn lại của draft (draft đã xóa thì không tạo lại key)
+     * - Draft bị xóa trong lúc flush (có tombstone) → dọn pending/dbIds, trả 0 để caller xóa row vừa ghi
+     * KEYS: pending, queue, processing, dbIds, draftKey, persistedKey, deletedKey | ARGV: draftId, snapshot, dbDraftId
+     */
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[7]) == 1 then "
+                    + "redis.call('HDEL', KEYS[1], ARGV[1]) redis.call('HDEL', KEYS[4], ARGV[1]) "
+                    + "redis.call('LREM', KEYS[3], 1, ARGV[1]) return 0 end "
+                    + "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then "
+                    + "redis.call('HDEL', KEYS[1], ARGV[1]) redis.call('HDEL', KEYS[4], ARGV[1]) "
+                    + "else redis.call('HSET', KEYS[4], ARGV[1], ARGV[3]) redis.call('LPUSH', KEYS[2], ARGV[1]) end "
+                    + "local ttl = redis.call('PTTL', KEYS[5]) "
+                    + "if ttl > 0 then redis.call('SET', KEYS[6], ARGV[3], 'PX', ttl) end "
+                    + "redis.call('LREM', KEYS[3], 1, ARGV[1]) "
+                    + "return 1", Long.class);
+
+    /**
+     * Hard delete nguyên tử: xóa draft + dịch vụ + key persisted, gỡ snapshot khỏi pending/hàng đợi/dbIds
+     * và đặt tombstone để flush đang chạy không ghi lại draft
+     * KEYS: pending, queue, dbIds, attempts, deletedKey, draftKey, servicesKey, persistedKey | ARGV: draftId, tombstoneTtlMs
+     * Trả draft_id trong Postgres nếu đã từng persist
+     */
+    private static final RedisScript<String> DELETE_SCRIPT = new DefaultRedisScript<>(
+            "local dbId = redis.call('GET', KEYS[8]) or redis.call('HGET', KEYS[3], ARGV[1]) "
+                    + "redis.call('HDEL', KEYS[1], ARGV[1]) redis.call('LREM', KEYS[2], 0, ARGV[1]) "
+                    + "redis.call('HDEL', KEYS[3], ARGV[1]) redis.call('HDEL', KEYS[4], ARGV[1]) "
+                    + "redis.call('SET', KEYS[5], '1', 'PX', ARGV[2]) "
+                    + "redis.call('DEL', KEYS[6], KEYS[7], KEYS[8]) "
+                    + "return dbId", String.class);
+
+    /**
+     * Trả id đang xử lý về đầu hàng đợi (flush lỗi hoặc node chết giữa chừng)
+     * KEYS: processing, queue
+     */
+    private static final RedisScript<Long> REQUEUE_SCRIPT = new DefaultRedisScript<>(
+            "local count = 0 "
+                    + "local id = redis.call('RPOP', KEYS[1]) "
+                    + "while id do redis.call('RPUSH', KEYS[2], id) count = count + 1 id = redis.call('RPOP', KEYS[1]) end "
+                    + "return count", Long.class);
+
+    /**
+     * Nhả lock flush nếu còn là của mình
+     */
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end return 0",
+            Long.class);
+
+    private static final Duration FLUSH_LOCK_TTL = Duration.ofMinutes(5);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final BookingDraftProperties draftProperties;
+    private final BookingDraftRepository draftRepository;
+    private final BookingDraftServiceRepository draftServiceRepository;
+    private final ServiceService serviceService;
+    private final PlatformTransactionManager transactionManager;
+
+    // ========== Draft ==========
+
+    public Optional<BookingDraft> find(UUID draftId) {
+        String json = redisTemplate.opsForValue().get(draftKey(draftId));
+        if (json == null) {
+            return Optional.empty();
+        }
+        return Optional.of(readJson(json, DraftSnapshot.class).toEntity());
+    }
+
+    /**
+     * Lưu draft và làm mới TTL của draft, danh sách dịch vụ và các index
+     * Draft mới (chưa có id) được cấp UUID tại đây
+     */
+    public BookingDraft save(BookingDraft draft) {
+        if (draft.getDraftId() == null) {
+            draft.setDraftId(UUID.randomUUID());
+        }
+        if (draft.getCreatedDate() == null) {
+            draft.setCreatedDate(LocalDateTime.now());
+        }
+        draft.setModifiedDate(LocalDateTime.now());
+
+        Duration ttl = draftProperties.getTtl();
+        draft.setExpiresAt(LocalDateTime.now().plus(ttl));
+
+        UUID draftId = draft.getDraftId();
+        redisTemplate.opsForValue().set(draftKey(draftId), writeJson(DraftSnapshot.from(draft, null)), ttl);
+        redisTemplate.expire(servicesKey(draftId), ttl);
+        redisTemplate.expire(persistedKey(draftId), ttl);
+        if (draft.getSessionId() != null) {
+            redisTemplate.opsForValue().set(sessionKey(draft.getSessionId()), draftId.toString(), ttl);
+        }
+        if (draft.getCustomerId() != null) {
+            redisTemplate.opsForValue().set(customerKey(draft.getCustomerId()), draftId.toString(), ttl);
+        }
+        return draft;
+    }
+
+    public Optional<UUID> findDraftIdBySession(String sessionId) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(sessionKey(sessionId))).map(UUID::fromString);
+    }
+
+    public Optional<UUID> findDraftIdByCustomer(UUID customerId) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(customerKey(customerId))).map(UUID::fromString);
+    }
+
+    /**
+     * Xóa draft khỏi Redis (kèm index nếu đang trỏ tới draft này) và khỏi write-behind
+     * - Snapshot chờ ghi bị gỡ nên flush sau không tạo lại draft trong Postgres
+     * - Flush đang ghi đúng draft này thấy tombstone và tự xóa row vừa ghi
+     *
+     * @return draft_id trong Postgres nếu draft đã từng được persist
+     */
+    public Optional<UUID> delete(UUID draftId) {
+        Optional<BookingDraft> draft = find(draftId);
+
+        draft.ifPresent(d -> {
+            if (d.getSessionId() != null) {
+                deleteIfPointsTo(sessionKey(d.getSessionId()), draftId);
+            }
+            if (d.getCustomerId() != null) {
+                deleteIfPointsTo(customerKey(d.getCustomerId()), draftId);
+            }
+        });
+        String persistedId = redisTemplate.execute(DELETE_SCRIPT,
+                List.of(pendingKey(), queueKey(), dbIdsKey(), attemptsKey(), deletedKey(draftId),
+                        draftKey(draftId), servicesKey(draftId), persistedKey(draftId)),
+                draftId.toString(), String.valueOf(FLUSH_LOCK_TTL.toMillis()));
+        return Optional.ofNullable(persistedId).map(UUID::fromString);
+    }
+
+    private Optional<UUID> findPersistedDraftId(UUID draftId) {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(persistedKey(draftId))).map(UUID::fromString);
+    }
+
+    private void deleteIfPointsTo(String indexKey, UUID draftId) {
+        String current = redisTemplate.opsForValue().get(indexKey);
+        if (draftId.toString().equals(current)) {
+            redisTemplate.delete(indexKey);
+        }
+    }
+
+    // ========== Draft services ==========
+
+    public List<DraftService> getServices(UUID draftId) {
+        List<DraftService> result = new ArrayList<>();
+        for (ServiceEntry entry : readServices(draftId)) {
+            result.add(DraftService.builder()
+                    .draftId(draftId)
+                    .serviceId(entry.getServiceId())
+                    .serviceName(entry.getServiceName())
+                    .createdDate(entry.getCreatedDate())
+                    .build());
+        }
+        return result;
+    }
+
+    public boolean hasService(UUID draftId, UUID serviceId) {
+        return redisTemplate.opsForHash().hasKey(servicesKey(draftId), serviceId.toString());
+    }
+
+    public void addService(UUID draftId, UUID serviceId, String serviceName) {
+        String key = servicesKey(draftId);
+        ServiceEntry entry = new ServiceEntry(serviceId, serviceName, LocalDateTime.now());
+        if (redisTemplate.opsForHash().putIfAbsent(key, serviceId.toString(), writeJson(entry))) {
+            redisTemplate.expire(key, draftProperties.getTtl());
+        }
+    }
+
+    public void removeService(UUID draftId, UUID serviceId) {
+        redisTemplate.opsForHash().delete(servicesKey(draftId), serviceId.toString());
+    }
+
+    /**
+     * @return số dịch vụ đã xóa
+     */
+    public int clearServices(UUID draftId) {
+        String key = servicesKey(draftId);
+        int count = redisTemplate.opsForHash().size(key).intValue();
+        redisTemplate.delete(key);
+        return count;
+    }
+
+    /**
+     * Dịch vụ theo thứ tự thêm vào
+     */
+    private List<ServiceEntry> readServices(UUID draftId) {
+        List<ServiceEntry> services = new ArrayList<>();
+        for (Object json : redisTemplate.opsForHash().values(servicesKey(draftId))) {
+            services.add(readJson((String) json, ServiceEntry.class));
+        }
+        services.sort(Comparator.comparing(ServiceEntry::getCreatedDate, Comparator.nullsLast(Comparator.naturalOrder())));
+        return services;
+    }
+
+    // ========== Write-behind ==========
+
+    /**
+     * Đưa snapshot hiện tại của draft (kèm dịch vụ) vào hàng đợi ghi xuống Postgres (lưu trong Redis)
+     * Draft đã có snapshot chờ ghi → thay bằng snapshot mới nhất
+     */
+    public void enqueueWriteBehind(BookingDraft draft) {
+        UUID draftId = draft.getDraftId();
+        DraftSnapshot snapshot = DraftSnapshot.from(draft, readServices(draftId));
+        snapshot.setPersistedDraftId(findPersistedDraftId(draftId).orElse(null));
+        redisTemplate.execute(ENQUEUE_SCRIPT, List.of(pendingKey(), queueKey()), draftId.toString(), writeJson(snapshot));
+        log.info("Queued draft for write-behind: draft_id={}, status={}", draftId, draft.getStatus());
+    }
+
+    @Scheduled(fixedDelayString = "${app.booking-draft.write-behind-flush-interval-ms:5000}")
+    public void flushWriteBehind() {
+        if (!draftProperties.isRedisMode()) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(lockKey(), token, FLUSH_LOCK_TTL))) {
+            return;
+        }
+
+        try {
+            // Lần flush trước bị ngắt giữa chừng (node chết) → trả id đang xử lý về hàng đợi
+            redisTemplate.execute(REQUEUE_SCRIPT, List.of(processingKey(), queueKey()));
+
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            int flushed = 0;
+            while (flushed < draftProperties.getWriteBehindBatchSize()) {
+                String draftId = redisTemplate.opsForList().rightPopAndLeftPush(queueKey(), processingKey());
+                if (draftId == null) {
+                    break;
+                }
+                Object json = redisTemplate.opsForHash().get(pendingKey(), draftId);
+                if (json == null) {
+                    redisTemplate.opsForList().remove(processingKey(), 1, draftId);
+                    continue;
+                }
+
+                DraftSnapshot snapshot = readJson((String) json, DraftSnapshot.class);
+                try {
+                    UUID dbDraftId = transactionTemplate.execute(status -> persistSnapshot(snapshot));
+                    Long completed = redisTemplate.execute(COMPLETE_SCRIPT,
+                            List.of(pendingKey(), queueKey(), processingKey(), dbIdsKey(),
+                                    draftKey(snapshot.getDraftId()), persistedKey(snapshot.getDraftId()),
+                                    deletedKey(snapshot.getDraftId())),
+                            draftId, (String) json, String.valueOf(dbDraftId));
+                    if (Long.valueOf(0).equals(completed)) {
+                        // Draft bị hard delete trong lúc ghi → xóa row vừa ghi
+                        transactionTemplate.executeWithoutResult(status -> {
+                            draftServiceRepository.deleteByDraftId(dbDraftId);
+                            draftRepository.deleteById(dbDraftId);
+                        });
+                        log.info("Draft deleted during write-behind, removed persisted row: draft_id={}, db_draft_id={}",
+                                draftId, dbDraftId);
+                    }
+                    redisTemplate.opsForHash().delete(attemptsKey(), draftId);
+                    flushed++;
+                } catch (Exception e) {
+                    log.error("Error writing draft to database: draft_id={}, error={}", draftId, e.getMessage(), e);
+                    handleFailedFlush(draftId, (String) json);
+                    // Giữ thứ tự: snapshot lỗi nằm lại đầu hàng đợi, thử lại ở lần flush sau
+                    break;
+                }
+            }
+            if (flushed > 0) {
+                log.info("Flushed {} drafts to database", flushed);
+            }
+        } catch (Exception e) {
+            log.error("Error flushing draft write-behind queue: {}", e.getMessage(), e);
+        } finally {
+            redisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey()), token);
+        }
+    }
+
+    /**
+     * Snapshot lỗi quá write-behind-max-attempts lần → chuyển sang list failed để xử lý tay, không chặn hàng đợi
+     */
+    private void handleFailedFlush(String draftId, String json) {
+        Long attempts = redisTemplate.opsForHash().increment(attemptsKey(), draftId, 1);
+        if (attempts != null && attempts >= draftProperties.getWriteBehindMaxAttempts()) {
+            redisTemplate.opsForList().leftPush(failedKey(), json);
+            redisTemplate.opsForHash().delete(pendingKey(), draftId);
+            redisTemplate.opsForHash().delete(dbIdsKey(), draftId);
+            redisTemplate.opsForHash().delete(attemptsKey(), draftId);
+            redisTemplate.opsForList().remove(processingKey(), 1, draftId);
+            log.error("Draft write-behind gave up after {} attempts, moved to {}: draft_id={}",
+                    attempts, failedKey(), draftId);
+            return;
+        }
+        redisTemplate.execute(REQUEUE_SCRIPT, List.of(processingKey(), queueKey()));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushWriteBehind();
+    }
+
+    /**
+     * Ghi snapshot xuống Postgres. Draft trong Redis có id riêng; id của row Postgres lấy từ snapshot, từ hash dbIds
+     * (snapshot trước của cùng draft vừa được ghi) hoặc từ key persisted
+     * để các lần persist sau cập nhật cùng một row thay vì tạo row mới
+     *
+     * @return draft_id của row trong Postgres
+     */
+    private UUID persistSnapshot(DraftSnapshot snapshot) {
+        UUID persistedId = snapshot.getPersistedDraftId();
+        if (persistedId == null) {
+            Object dbId = redisTemplate.opsForHash().get(dbIdsKey(), snapshot.getDraftId().toString());
+            persistedId = dbId != null
+                    ? UUID.fromString((String) dbId)
+                    : findPersistedDraftId(snapshot.getDraftId()).orElse(null);
+        }
+        BookingDraft entity = persistedId != null ? draftRepository.findById(persistedId).orElse(null) : null;
+
+        if (entity == null) {
+            entity = BookingDraft.builder().build();
+        } else {
+            draftServiceRepository.deleteByDraftId(entity.getDraftId());
+        }
+        snapshot.copyTo(entity);
+        BookingDraft saved = draftRepository.save(entity);
+
+        if (snapshot.getServices() != null) {
+            for (ServiceEntry entry : snapshot.getServices()) {
+                draftServiceRepository.save(DraftService.builder()
+                        .draft(saved)
+                        .service(serviceService.getRefById(entry.getServiceId()))
+                        .serviceName(entry.getServiceName())
+                        .createdDate(entry.getCreatedDate() != null ? entry.getCreatedDate() : LocalDateTime.now())
+                        .build());
+            }
+        }
+
+        log.debug("Persisted draft: redis_draft_id={}, db_draft_id={}", snapshot.getDraftId(), saved.getDraftId());
+        return saved.getDraftId();
+    }
+
+    // ========== Keys & JSON ==========
+
+    private String draftKey(UUID draftId) {
+        return draftProperties.getKeyPrefix() + draftId;
+    }
+
+    private String servicesKey(UUID draftId) {
+        return draftProperties.getKeyPrefix() + draftId + ":service-map";
+    }
+
+    private String persistedKey(UUID draftId) {
+        return draftProperties.getKeyPrefix() + draftId + ":persisted";
+    }
+
+    private String deletedKey(UUID draftId) {
+        return draftProperties.getKeyPrefix() + draftId + ":deleted";
+    }
+
+    private String sessionKey(String sessionId) {
+        return draftProperties.getKeyPrefix() + "session:" + sessionId;
+    }
+
+    private String customerKey(UUID customerId) {
+        return draftProperties.getKeyPrefix() + "customer:" + customerId;
+    }
+
+    private String queueKey() {
+        return draftProperties.getKeyPrefix() + "write-behind:queue";
+    }
+
+    private String processingKey() {
+        return draftProperties.getKeyPrefix() + "write-behind:processing";
+    }
+
+    private String pendingKey() {
+        return draftProperties.getKeyPrefix() + "write-behind:pending";
+    }
+
+    private String dbIdsKey() {
+        return draftProperties.getKeyPrefix() + "write-behind:db-ids";
+    }
+
+    private String attemptsKey() {
+        return draftProperties.getKeyPrefix() + "write-behind:attempts";
+    }
+
+    private String failedKey() {
+        return draftProperties.getKeyPrefix() + "write-behind:failed";
+    }
+
+    private String lockKey() {
+        return draftProperties.getKeyPrefix() + "write-behind:lock";
+    }
+
+    private String writeJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize booking draft", e);
+        }
+    }
+
+    private <T> T readJson(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize booking draft", e);
+        }
+    }
+
+    /**
+     * Dịch vụ trong draft (tương ứng DraftService)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ServiceEntry {
+        private UUID serviceId;
+        private String serviceName;
+        private LocalDateTime createdDate;
+    }
+
+    /**
+     * Bản chụp dữ liệu của BookingDraft để lưu JSON (tránh serialize trực tiếp JPA entity)
+     */
+    @Data
+    @NoArgsConstructor
+    public static class DraftSnapshot {
+        private UUID draftId;
+        private UUID customerId;
+        private String sessionId;
+        private String conversationId;
+        private UUID vehicleId;
+        private String vehicleLicensePlate;
+        private LocalDateTime dateTime;
+        private UUID branchId;
+        private String branchName;
+        private UUID serviceId;
+        private String serviceType;
+        private UUID bayId;
+        private String bayName;
+        private String timeSlot;
+        private DraftStatus status;
+        private Integer currentStep;
+        private LocalDateTime expiresAt;
+        private LocalDateTime lastActivityAt;
+        private LocalDateTime createdDate;
+        private LocalDateTime modifiedDate;
+        private List<ServiceEntry> services;
+        private UUID persistedDraftId;
+
+        static DraftSnapshot from(BookingDraft draft, List<ServiceEntry> services) {
+            DraftSnapshot snapshot = new DraftSnapshot();
+            snapshot.setDraftId(draft.getDraftId());
+            snapshot.setCustomerId(draft.getCustomerId());
+            snapshot.setSessionId(draft.getSessionId());
+            snapshot.setConversationId(draft.getConversationId());
+            snapshot.setVehicleId(draft.getVehicleId());
+            snapshot.setVehicleLicensePlate(draft.getVehicleLicensePlate());
+            snapshot.setDateTime(draft.getDateTime());
+            snapshot.setBranchId(draft.getBranchId());
+            snapshot.setBranchName(draft.getBranchName());
+            snapshot.setServiceId(draft.getServiceId());
+            snapshot.setServiceType(draft.getServiceType());
+            snapshot.setBayId(draft.getBayId());
+            snapshot.setBayName(draft.getBayName());
+            snapshot.setTimeSlot(draft.getTimeSlot());
+            snapshot.setStatus(draft.getStatus());
+            snapshot.setCurrentStep(draft.getCurrentStep());
+            snapshot.setExpiresAt(draft.getExpiresAt());
+            snapshot.setLastActivityAt(draft.getLastActivityAt());
+            snapshot.setCreatedDate(draft.getCreatedDate());
+            snapshot.setModifiedDate(draft.getModifiedDate());
+            snapshot.setServices(services);
+            return snapshot;
+        }
+
+        BookingDraft toEntity() {
+            BookingDraft draft = BookingDraft.builder().draftId(draftId).build();
+            copyTo(draft);
+            draft.setCreatedDate(createdDate);
+            draft.setModifiedDate(modifiedDate);
+            return draft;
+        }
+
+        /**
+         * Copy dữ liệu (trừ id) sang entity
+         */
+        void copyTo(BookingDraft draft) {
+            draft.setCustomerId(customerId);
+            draft.setSessionId(sessionId);
+            draft.setConversationId(conversationId);
+            draft.setVehicleId(vehicleId);
+            draft.setVehicleLicensePlate(vehicleLicensePlate);
+            draft.setDateTime(dateTime);
+            draft.setBranchId(branchId);
+            draft.setBranchName(branchName);
+            draft.setServiceId(serviceId);
+            draft.setServiceType(serviceType);
+            draft.setBayId(bayId);
+            draft.setBayName(bayName);
+            draft.setTimeSlot(timeSlot);
+            draft.setStatus(status != null ? status : DraftStatus.IN_PROGRESS);
+            draft.setCurrentStep(currentStep != null ? currentStep : 1);
+            draft.setExpiresAt(expiresAt);
+            draft.setLastActivityAt(lastActivityAt);
+        }
+    }
+}
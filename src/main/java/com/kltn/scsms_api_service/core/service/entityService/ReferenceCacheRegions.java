@@ -0,0 +1,58 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.kltn.scsms_api_service.core.dto.branchManagement.BranchFlatDto;
+import com.kltn.scsms_api_service.core.dto.centerBusinessHours.CenterBusinessHoursDto;
+import com.kltn.scsms_api_service.core.dto.productTypeManagement.ProductTypeInfoDto;
+import com.kltn.scsms_api_service.core.dto.serviceTypeManagement.ServiceTypeInfoDto;
+import com.kltn.scsms_api_service.core.dto.vehicleManagement.response.VehicleBrandDropdownResponse;
+import com.kltn.scsms_api_service.core.dto.vehicleManagement.response.VehicleModelDropdownResponse;
+import com.kltn.scsms_api_service.core.dto.vehicleManagement.response.VehicleTypeDropdownResponse;
+import com.kltn.scsms_api_service.core.service.entityService.ReferenceDataCache.Region;
+
+import java.util.List;
+
+/**
+ * Các region của ReferenceDataCache: tên region (dùng trong key Redis và cấu hình TTL) + kiểu giá trị
+ * Giá trị cache là DTO (không cache entity) và phải được coi là bất biến sau khi trả về
+ */
+public final class ReferenceCacheRegions {
+
+    private ReferenceCacheRegions() {
+    }
+
+    public static final Region<List<VehicleBrandDropdownResponse>> VEHICLE_BRAND_DROPDOWN =
+            new Region<>("vehicle-brand-dropdown", new TypeReference<>() {
+            });
+
+    public static final Region<List<VehicleTypeDropdownResponse>> VEHICLE_TYPE_DROPDOWN =
+            new Region<>("vehicle-type-dropdown", new TypeReference<>() {
+            });
+
+    // Key: "{brandId|*}:{typeId|*}"
+    public static final Region<List<VehicleModelDropdownResponse>> VEHICLE_MODEL_DROPDOWN =
+            new Region<>("vehicle-model-dropdown", new TypeReference<>() {
+            });
+
+    public static final Region<List<ServiceTypeInfoDto>> ACTIVE_SERVICE_TYPES =
+            new Region<>("active-service-types", new TypeReference<>() {
+            });
+
+    public static final Region<List<ProductTypeInfoDto>> ACTIVE_PRODUCT_TYPES =
+            new Region<>("active-product-types", new TypeReference<>() {
+            });
+
+    // Key: categoryId
+    public static final Region<List<ProductTypeInfoDto>> PRODUCT_TYPES_BY_CATEGORY =
+            new Region<>("product-types-by-category", new TypeReference<>() {
+            });
+
+    // Key: centerId
+    public static final Region<List<CenterBusinessHoursDto>> CENTER_BUSINESS_HOURS =
+            new Region<>("center-business-hours", new TypeReference<>() {
+            });
+
+    public static final Region<List<BranchFlatDto>> ACTIVE_BRANCHES =
+            new Region<>("active-branches", new TypeReference<>() {
+            });
+}
@@ -0,0 +1,326 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kltn.scsms_api_service.configs.property.ReferenceCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache read-through 2 tầng cho dữ liệu tham chiếu (dropdown, loại dịch vụ/sản phẩm, giờ làm việc, chi nhánh)
+ * - Tầng 1: map local mỗi node (TTL ngắn, giới hạn số entry) → không tốn network cho request lặp lại
+ * - Tầng 2: Redis (app.reference-cache.remote=true) → node mới khởi động/ vừa bị evict không phải query DB
+ * - Key có version: {prefix}{keyVersion}:{region}:g{generation}:{key}. Invalidate 1 region = tăng generation
+ *   (INCR trong Redis) nên mọi key cũ tự động bị bỏ qua và hết hạn theo TTL, không cần SCAN/DEL
+ * - Invalidation chạy sau khi transaction commit và được publish qua Redis pub/sub cho các node khác;
+ *   generation còn được đồng bộ định kỳ từ Redis phòng khi mất message
+ * - Redis lỗi → log + metric, rơi về local/DB (cache không bao giờ làm hỏng request)
+ * - Metrics: reference.cache.gets{region,tier,result}, reference.cache.loads, reference.cache.invalidations,
+ *   reference.cache.errors, reference.cache.local.size (xem qua /actuator/metrics)
+ */
+@Service
+@Slf4j
+public class ReferenceDataCache {
+
+    private static final String DEFAULT_KEY = "all";
+
+    private final ReferenceCacheProperties properties;
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, LocalRegion> localRegions = new ConcurrentHashMap<>();
+
+    public ReferenceDataCache(ReferenceCacheProperties properties,
+                              ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redisTemplateProvider = redisTemplateProvider;
+        // DTO có thể có getter tính toán → bỏ qua field lạ khi đọc lại từ Redis
+        this.objectMapper = objectMapper.copy().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Region có kiểu giá trị cố định, dùng để (de)serialize giá trị trong Redis
+     */
+    public record Region<T>(String name, TypeReference<T> type) {
+    }
+
+    public <T> T get(Region<T> region, Supplier<T> loader) {
+        return get(region, DEFAULT_KEY, loader);
+    }
+
+    /**
+     * Đọc local → Redis → loader; giá trị null không được cache
+     */
+    public <T> T get(Region<T> region, Object key, Supplier<T> loader) {
+        if (!properties.isEnabled()) {
+            return loader.get();
+        }
+
+        LocalRegion local = localRegion(region.name());
+        long generation = local.generation.get();
+        String entryKey = generation + ":" + key;
+
+        LocalEntry cached = local.entries.get(entryKey);
+        if (cached != null && cached.expiresAtNanos() - System.nanoTime() > 0) {
+            count(region, "local", "hit");
+            @SuppressWarnings("unchecked")
+            T value = (T) cached.value();
+            return value;
+        }
+        count(region, "local", "miss");
+
+        String redisKey = redisKey(region.name(), generation, key);
+        T value = readRemote(region, redisKey);
+        if (value == null) {
+            value = loader.get();
+            Counter.builder("reference.cache.loads").tag("region", region.name())
+                    .register(meterRegistry).increment();
+            if (value != null) {
+                writeRemote(region, redisKey, value);
+            }
+        }
+
+        // Chỉ giữ local nếu region không bị invalidate trong lúc load
+        if (value != null && local.generation.get() == generation) {
+            local.put(entryKey, value, System.nanoTime() + properties.localTtlFor(region.name()).toNanos());
+        }
+        return value;
+    }
+
+    /**
+     * Invalidate các region sau khi transaction hiện tại commit (hoặc ngay nếu không có transaction)
+     */
+    public void invalidate(Region<?>... regions) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateNow(regions);
+                }
+            });
+        } else {
+            invalidateNow(regions);
+        }
+    }
+
+    private void invalidateNow(Region<?>... regions) {
+        StringRedisTemplate redis = remote();
+        for (Region<?> region : regions) {
+            LocalRegion local = localRegion(region.name());
+            long generation;
+            if (redis != null) {
+                // Generation chỉ lấy từ Redis: bump local khi INCR lỗi làm local vượt Redis,
+                // advance() không bao giờ lùi nên các invalidation sau từ node khác sẽ bị bỏ qua
+                try {
+                    Long remoteGeneration = redis.opsForValue().increment(generationKey(region.name()));
+                    generation = remoteGeneration != null ? advance(local, remoteGeneration) : local.generation.get();
+                    redis.convertAndSend(properties.getInvalidationChannel(),
+                            region.name() + "|" + generation + "|" + nodeId);
+                } catch (RuntimeException e) {
+                    remoteError(region.name(), "invalidate", e);
+                    generation = local.generation.get();
+                }
+            } else {
+                generation = local.generation.incrementAndGet();
+            }
+            local.entries.clear();
+            Counter.builder("reference.cache.invalidations").tag("region", region.name())
+                    .register(meterRegistry).increment();
+            log.debug("Reference cache region {} invalidated (generation={})", region.name(), generation);
+        }
+    }
+
+    /**
+     * Message invalidation từ node khác: "{region}|{generation}|{nodeId}"
+     */
+    public void onInvalidationMessage(String message) {
+        String[] parts = message.split("\\|");
+        if (parts.length != 3 || nodeId.equals(parts[2])) {
+            return;
+        }
+        try {
+            LocalRegion local = localRegion(parts[0]);
+            advance(local, Long.parseLong(parts[1]));
+            log.debug("Reference cache region {} invalidated by node {}", parts[0], parts[2]);
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed cache invalidation message: {}", message);
+        }
+    }
+
+    /**
+     * Đồng bộ generation từ Redis (bù cho message pub/sub bị mất khi node mất kết nối tạm thời)
+     */
+    @Scheduled(fixedDelayString = "${app.reference-cache.generation-sync-interval-ms:60000}")
+    public void syncGenerations() {
+        StringRedisTemplate redis = remote();
+        if (redis == null || localRegions.isEmpty()) {
+            return;
+        }
+        List<String> names = new ArrayList<>(localRegions.keySet());
+        try {
+            List<String> generations = redis.opsForValue().multiGet(names.stream().map(this::generationKey).toList());
+            if (generations == null) {
+                return;
+            }
+            for (int i = 0; i < names.size(); i++) {
+                if (generations.get(i) != null) {
+                    advance(localRegions.get(names.get(i)), Long.parseLong(generations.get(i)));
+                }
+            }
+        } catch (RuntimeException e) {
+            log.debug("Failed to sync reference cache generations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Nâng generation local lên giá trị mới hơn (không bao giờ lùi) và xóa entry local nếu có thay đổi
+     */
+    private long advance(LocalRegion local, long generation) {
+        long current;
+        do {
+            current = local.generation.get();
+            if (generation <= current) {
+                return current;
+            }
+        } while (!local.generation.compareAndSet(current, generation));
+        local.entries.clear();
+        return generation;
+    }
+
+    private LocalRegion localRegion(String name) {
+        LocalRegion local = localRegions.get(name);
+        if (local != null) {
+            return local;
+        }
+        LocalRegion created = new LocalRegion(properties.localMaxEntriesFor(name));
+        LocalRegion existing = localRegions.putIfAbsent(name, created);
+        if (existing != null) {
+            return existing;
+        }
+        Gauge.builder("reference.cache.local.size", created.entries, Map::size)
+                .tag("region", name)
+                .register(meterRegistry);
+        StringRedisTemplate redis = remote();
+        if (redis != null) {
+            try {
+                String generation = redis.opsForValue().get(generationKey(name));
+                if (generation != null) {
+                    advance(created, Long.parseLong(generation));
+                }
+            } catch (RuntimeException e) {
+                remoteError(name, "generation", e);
+            }
+        }
+        return created;
+    }
+
+    private <T> T readRemote(Region<T> region, String redisKey) {
+        StringRedisTemplate redis = remote();
+        if (redis == null) {
+            return null;
+        }
+        try {
+            String json = redis.opsForValue().get(redisKey);
+            if (json == null) {
+                count(region, "remote", "miss");
+                return null;
+            }
+            count(region, "remote", "hit");
+            JavaType type = objectMapper.getTypeFactory().constructType(region.type());
+            return objectMapper.readValue(json, type);
+        } catch (Exception e) {
+            remoteError(region.name(), "read", e);
+            return null;
+        }
+    }
+
+    private void writeRemote(Region<?> region, String redisKey, Object value) {
+        StringRedisTemplate redis = remote();
+        if (redis == null) {
+            return;
+        }
+        try {
+            redis.opsForValue().set(redisKey, objectMapper.writeValueAsString(value), properties.ttlFor(region.name()));
+        } catch (Exception e) {
+            remoteError(region.name(), "write", e);
+        }
+    }
+
+    private StringRedisTemplate remote() {
+        return properties.isRemote() ? redisTemplateProvider.getIfAvailable() : null;
+    }
+
+    private String redisKey(String region, long generation, Object key) {
+        return properties.getKeyPrefix() + properties.getKeyVersion() + ":" + region + ":g" + generation + ":" + key;
+    }
+
+    private String generationKey(String region) {
+        return properties.getKeyPrefix() + properties.getKeyVersion() + ":" + region + ":generation";
+    }
+
+    private void count(Region<?> region, String tier, String result) {
+        Counter.builder("reference.cache.gets")
+                .tag("region", region.name())
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private void remoteError(String region, String operation, Exception e) {
+        Counter.builder("reference.cache.errors").tag("region", region).tag("operation", operation)
+                .register(meterRegistry).increment();
+        log.warn("Reference cache {} failed for region {}: {}", operation, region, e.getMessage());
+    }
+
+    private record LocalEntry(Object value, long expiresAtNanos) {
+    }
+
+    private static final class LocalRegion {
+        private final AtomicLong generation = new AtomicLong();
+        private final Map<String, LocalEntry> entries = new ConcurrentHashMap<>();
+        private final int maxEntries;
+
+        LocalRegion(int maxEntries) {
+            this.maxEntries = Math.max(maxEntries, 1);
+        }
+
+        void put(String key, Object value, long expiresAtNanos) {
+            if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+                long now = System.nanoTime();
+                entries.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0);
+                Iterator<String> keys = entries.keySet().iterator();
+                while (entries.size() >= maxEntries && keys.hasNext()) {
+                    keys.next();
+                    keys.remove();
+                }
+            }
+            entries.put(Objects.requireNonNull(key), new LocalEntry(value, expiresAtNanos));
+        }
+    }
+}
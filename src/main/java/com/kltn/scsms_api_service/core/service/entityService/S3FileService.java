@@ -1,20 +1,35 @@
 package com.kltn.scsms_api_service.core.service.entityService;
 
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.kltn.scsms_api_service.configs.property.DirectUploadProperties;
 import com.kltn.scsms_api_service.core.entity.S3File;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.FileStatus;
 import com.kltn.scsms_api_service.core.entity.enumAttribute.FileType;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.ImageVariant;
 import com.kltn.scsms_api_service.core.repository.S3FileRepository;
+import com.kltn.scsms_api_service.core.utils.ImageVariantGenerator;
 import com.kltn.scsms_api_service.core.utils.S3Utils;
+import com.kltn.scsms_api_service.exception.ClientSideException;
+import com.kltn.scsms_api_service.exception.ErrorCode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.OutputStream;
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -24,6 +39,16 @@ public class S3FileService {
     
     private final S3FileRepository s3FileRepository;
     private final S3Utils s3Utils;
+    private final ImageVariantGenerator imageVariantGenerator;
+    private final DirectUploadProperties directUploadProperties;
+    
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+    
+    /**
+     * Upload trực tiếp đã đặt chỗ: bản ghi PROCESSING + presigned PUT URL
+     */
+    public record PendingUpload(S3File file, String uploadUrl, LocalDateTime urlExpiresAt) {
+    }
     
     /**
      * Upload file và lưu thông tin vào database
@@ -36,25 +61,7 @@ public class S3FileService {
             String fileUrl = s3Utils.uploadFile(file, folder);
             String fileKey = s3Utils.extractKeyFromUrl(fileUrl);
             
-            // Determine file type
-            FileType fileType = determineFileType(file.getContentType());
-            
-            // Create S3File entity
-            S3File s3File = S3File.builder()
-                .fileKey(fileKey)
-                .fileUrl(fileUrl)
-                .originalName(file.getOriginalFilename())
-                .fileType(fileType)
-                .contentType(file.getContentType())
-                .fileSize(file.getSize())
-                .folder(folder)
-                .uploadedBy(uploadedBy)
-                .entityType(entityType)
-                .entityId(entityId)
-                .status(FileStatus.ACTIVE)
-                .isTemporary(false)
-                .accessCount(0)
-                .build();
+            S3File s3File = buildActiveFile(file, fileUrl, fileKey, folder, uploadedBy, entityType, entityId);
             
             S3File savedFile = s3FileRepository.save(s3File);
             log.info("File saved to database with ID: {}", savedFile.getId());
@@ -67,6 +74,162 @@ public class S3FileService {
         }
     }
     
+    /**
+     * Upload ảnh kèm các variant thumb/card/full
+     * Ảnh gốc được upload song song với việc sinh variant; variant upload song song dưới key suy ra từ key ảnh gốc.
+     * Không sinh/upload được variant → vẫn lưu ảnh gốc, getVariantUrl trả về URL ảnh gốc
+     */
+    @Transactional
+    public S3File uploadImageAndSave(MultipartFile file, String folder, UUID uploadedBy,
+                                     String entityType, UUID entityId) {
+        try {
+            CompletableFuture<String> originalUpload = s3Utils.uploadFileAsync(file, folder);
+            CompletableFuture<Optional<ImageVariantGenerator.VariantSet>> generation =
+                imageVariantGenerator.generateAsync(file);
+            
+            String fileUrl = originalUpload.join();
+            String fileKey = s3Utils.extractKeyFromUrl(fileUrl);
+            
+            S3File s3File = buildActiveFile(file, fileUrl, fileKey, folder, uploadedBy, entityType, entityId);
+            generation.join().ifPresent(variantSet -> uploadVariants(s3File, variantSet));
+            
+            S3File savedFile = s3FileRepository.save(s3File);
+            log.info("Image saved to database with ID: {} ({} variants)", savedFile.getId(),
+                savedFile.getVariantKeys().size());
+            
+            return savedFile;
+            
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            log.error("Error uploading and saving image: {}", cause.getMessage(), cause);
+            throw new RuntimeException("Failed to upload and save file", cause);
+        }
+    }
+    
+    /**
+     * URL của variant ảnh; file chưa có variant → URL file gốc
+     */
+    public String getVariantUrl(S3File s3File, ImageVariant variant) {
+        String key = s3File.getVariantKey(variant);
+        return key != null ? s3Utils.getFileUrl(key) : s3File.getFileUrl();
+    }
+    
+    /**
+     * Giai đoạn 1 của upload trực tiếp: validate, đặt trước key và cấp presigned PUT URL
+     * Bản ghi ở trạng thái PROCESSING + tạm thời tới khi finalize; quá pendingTtlMinutes → sweeper xóa
+     */
+    @Transactional
+    public PendingUpload reserveDirectUpload(String fileName, String contentType, long fileSize, String folder,
+                                             UUID uploadedBy, String entityType, UUID entityId) {
+        String fileKey;
+        try {
+            fileKey = s3Utils.generateUploadKey(folder, fileName, fileSize);
+        } catch (IllegalArgumentException e) {
+            throw new ClientSideException(ErrorCode.BAD_REQUEST, e.getMessage());
+        }
+        
+        S3File s3File = S3File.builder()
+            .fileKey(fileKey)
+            .fileUrl(s3Utils.getFileUrl(fileKey))
+            .originalName(fileName)
+            .fileType(determineFileType(contentType))
+            .contentType(contentType)
+            .fileSize(fileSize)
+            .folder(folder)
+            .uploadedBy(uploadedBy)
+            .entityType(entityType)
+            .entityId(entityId)
+            .status(FileStatus.PROCESSING)
+            .isTemporary(true)
+            .expiresAt(LocalDateTime.now().plusMinutes(directUploadProperties.getPendingTtlMinutes()))
+            .uploadToken(generateUploadToken())
+            .accessCount(0)
+            .build();
+        S3File savedFile = s3FileRepository.save(s3File);
+        
+        int urlExpirationMinutes = directUploadProperties.getUrlExpirationMinutes();
+        String uploadUrl = s3Utils.generatePresignedUploadUrl(fileKey, contentType, urlExpirationMinutes);
+        log.info("Direct upload reserved: {} (file ID: {})", fileKey, savedFile.getId());
+        
+        return new PendingUpload(savedFile, uploadUrl, LocalDateTime.now().plusMinutes(urlExpirationMinutes));
+    }
+    
+    /**
+     * Giai đoạn 2 của upload trực tiếp: kiểm tra object trên S3 (tồn tại, không lớn hơn kích thước đã khai báo),
+     * cập nhật kích thước/content type thật, sinh variant rồi chuyển file sang ACTIVE
+     * - Khóa dòng theo token tới hết transaction của caller: finalize đồng thời không tạo Media trùng
+     */
+    @Transactional
+    public S3File finalizeDirectUpload(String uploadToken, UUID uploadedBy) {
+        S3File s3File = s3FileRepository.findByUploadTokenForUpdate(uploadToken)
+            .orElseThrow(() -> new ClientSideException(ErrorCode.NOT_FOUND,
+                "Upload not found or already finalized"));
+        
+        if (s3File.getUploadedBy() != null && !s3File.getUploadedBy().equals(uploadedBy)) {
+            throw new ClientSideException(ErrorCode.FORBIDDEN, "Upload belongs to another user");
+        }
+        if (s3File.getStatus() != FileStatus.PROCESSING || s3File.isExpired()) {
+            throw new ClientSideException(ErrorCode.BAD_REQUEST, "Upload has expired, please request a new upload URL");
+        }
+        
+        String fileKey = s3File.getFileKey();
+        if (!s3Utils.doesFileExist(fileKey)) {
+            throw new ClientSideException(ErrorCode.BAD_REQUEST, "File has not been uploaded to storage yet");
+        }
+        ObjectMetadata metadata = s3Utils.getFileMetadata(fileKey);
+        if (metadata.getContentLength() > s3File.getFileSize()) {
+            // Presigned PUT không giới hạn được kích thước → object vượt khai báo bị xóa ngay
+            s3Utils.deleteFile(fileKey);
+            throw new ClientSideException(ErrorCode.BAD_REQUEST, String.format(
+                "Uploaded file size (%d bytes) exceeds declared size (%d bytes)",
+                metadata.getContentLength(), s3File.getFileSize()));
+        }
+        
+        s3File.setFileSize(metadata.getContentLength());
+        if (metadata.getContentType() != null) {
+            s3File.setContentType(metadata.getContentType());
+        }
+        s3File.setStatus(FileStatus.ACTIVE);
+        s3File.setIsTemporary(false);
+        s3File.setExpiresAt(null);
+        s3File.setUploadToken(null);
+        
+        imageVariantGenerator.generateAsync(() -> s3Utils.openFileStream(fileKey),
+                s3File.getOriginalName(), s3File.getContentType())
+            .join()
+            .ifPresent(variantSet -> uploadVariants(s3File, variantSet));
+        
+        S3File savedFile = s3FileRepository.save(s3File);
+        log.info("Direct upload finalized: {} ({} variants)", fileKey, savedFile.getVariantKeys().size());
+        return savedFile;
+    }
+    
+    /**
+     * Xóa các upload trực tiếp bị bỏ dở (không finalize trước khi hết hạn): object trên S3 (nếu có) + bản ghi
+     */
+    @Transactional
+    public int cleanupAbandonedUploads() {
+        List<S3File> abandoned = s3FileRepository.findExpiredPendingUploads(LocalDateTime.now(),
+            PageRequest.of(0, Math.max(directUploadProperties.getSweepBatchSize(), 1)));
+        
+        List<S3File> removable = new ArrayList<>(abandoned.size());
+        for (S3File file : abandoned) {
+            try {
+                s3Utils.deleteFile(file.getFileKey());
+                removable.add(file);
+            } catch (Exception e) {
+                // Giữ bản ghi để lần sweep sau thử lại
+                log.error("Error deleting abandoned upload {}: {}", file.getFileKey(), e.getMessage());
+            }
+        }
+        s3FileRepository.deleteAll(removable);
+        
+        if (!removable.isEmpty()) {
+            log.info("Cleaned up {} abandoned direct uploads", removable.size());
+        }
+        return removable.size();
+    }
+    
     /**
      * Upload temporary file (with expiration)
      */
@@ -105,13 +268,26 @@ public class S3FileService {
     
     /**
      * Upload multiple files
+     * Các file được upload song song lên S3, sau đó lưu thông tin một lần
      */
     @Transactional
     public List<S3File> uploadMultiple(List<MultipartFile> files, String folder, UUID uploadedBy,
                                        String entityType, UUID entityId) {
-        return files.stream()
-            .map(file -> uploadAndSave(file, folder, uploadedBy, entityType, entityId))
-            .collect(Collectors.toList());
+        List<CompletableFuture<String>> uploads = s3Utils.uploadFilesAsync(files, folder);
+        try {
+            CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            log.error("Error uploading multiple files: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to upload and save file", e.getCause() != null ? e.getCause() : e);
+        }
+        
+        List<S3File> s3Files = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            String fileUrl = uploads.get(i).join();
+            s3Files.add(buildActiveFile(files.get(i), fileUrl, s3Utils.extractKeyFromUrl(fileUrl),
+                folder, uploadedBy, entityType, entityId));
+        }
+        return s3FileRepository.saveAll(s3Files);
     }
     
     /**
@@ -146,6 +322,29 @@ public class S3FileService {
         return s3Utils.downloadFile(s3File.getFileKey());
     }
     
+    /**
+     * Kiểm tra file trước khi stream và tăng access count
+     */
+    @Transactional
+    public S3File prepareDownload(Long fileId) {
+        S3File s3File = s3FileRepository.findById(fileId)
+            .orElseThrow(() -> new ClientSideException(ErrorCode.NOT_FOUND, "File not found with id: " + fileId));
+        
+        if (!s3File.isActive()) {
+            throw new ClientSideException(ErrorCode.NOT_FOUND, "File is not active or has expired");
+        }
+        
+        s3File.incrementAccessCount();
+        return s3FileRepository.save(s3File);
+    }
+    
+    /**
+     * Stream nội dung file thẳng vào OutputStream (không buffer cả file trong bộ nhớ)
+     */
+    public long streamFile(S3File s3File, OutputStream outputStream) {
+        return s3Utils.downloadFileTo(s3File.getFileKey(), outputStream);
+    }
+    
     /**
      * Generate presigned URL for file access
      */
@@ -190,6 +389,11 @@ public class S3FileService {
         boolean deleted = s3Utils.deleteFile(s3File.getFileKey());
         
         if (deleted) {
+            // Delete generated variants (best effort)
+            if (!s3File.getVariantKeys().isEmpty()) {
+                s3Utils.deleteMultipleFiles(s3File.getVariantKeys());
+            }
+            
             // Delete from database
             s3FileRepository.delete(s3File);
             log.info("File hard deleted: {}", fileId);
@@ -313,10 +517,8 @@ public class S3FileService {
      */
     @Transactional
     public int cleanupExpiredFiles() {
-        // This method should be called by a scheduled job
-        List<S3File> expiredFiles = s3FileRepository.findAll().stream()
-            .filter(S3File::isExpired)
-            .collect(Collectors.toList());
+        // Called by TemporaryUploadCleanupScheduler
+        List<S3File> expiredFiles = s3FileRepository.findExpiredTemporaryFiles(LocalDateTime.now());
         
         int deletedCount = 0;
         for (S3File file : expiredFiles) {
@@ -332,6 +534,60 @@ public class S3FileService {
         return deletedCount;
     }
     
+    /**
+     * Token direct upload: 256 bit ngẫu nhiên, base64url không padding
+     */
+    private String generateUploadToken() {
+        byte[] bytes = new byte[32];
+        TOKEN_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+    
+    /**
+     * Upload các variant song song, ghi key từng variant và kích thước ảnh gốc vào S3File
+     * - Variant lỗi chỉ bị bỏ qua (đọc lại sẽ fallback về ảnh gốc)
+     */
+    private void uploadVariants(S3File s3File, ImageVariantGenerator.VariantSet variantSet) {
+        Map<ImageVariant, CompletableFuture<String>> uploads = new EnumMap<>(ImageVariant.class);
+        for (ImageVariantGenerator.EncodedVariant variant : variantSet.variants()) {
+            String key = imageVariantGenerator.variantKey(s3File.getFileKey(), variant);
+            uploads.put(variant.variant(),
+                s3Utils.uploadBytesAsync(key, variant.data(), variant.contentType()).thenApply(url -> key));
+        }
+        
+        uploads.forEach((variant, upload) -> {
+            try {
+                s3File.setVariantKey(variant, upload.join());
+            } catch (CompletionException e) {
+                log.warn("Failed to upload {} variant of {}: {}", variant, s3File.getFileKey(), e.getMessage());
+            }
+        });
+        s3File.setMetadata(String.format("{\"width\": %d, \"height\": %d}",
+            variantSet.sourceWidth(), variantSet.sourceHeight()));
+    }
+    
+    /**
+     * Dựng S3File ACTIVE (chưa lưu) cho file đã upload qua server
+     */
+    private S3File buildActiveFile(MultipartFile file, String fileUrl, String fileKey, String folder,
+                                   UUID uploadedBy, String entityType, UUID entityId) {
+        return S3File.builder()
+            .fileKey(fileKey)
+            .fileUrl(fileUrl)
+            .originalName(file.getOriginalFilename())
+            .fileType(determineFileType(file.getContentType()))
+            .contentType(file.getContentType())
+            .fileSize(file.getSize())
+            .folder(folder)
+            .uploadedBy(uploadedBy)
+            .entityType(entityType)
+            .entityId(entityId)
+            .status(FileStatus.ACTIVE)
+            .isTemporary(false)
+            .accessCount(0)
+            .build();
+    }
+    
     /**
      * Determine file type from content type
      */
@@ -305,4 +305,18 @@ public class ServiceBayService {
     public List<ServiceBay> findByTechnician(User technician) {
         return serviceBayRepository.findByTechniciansContaining(technician);
     }
+    
+    /**
+     * Lấy branchId của bay
+     */
+    public Optional<UUID> findBranchIdByBayId(UUID bayId) {
+        return serviceBayRepository.findBranchIdByBayId(bayId);
+    }
+    
+    /**
+     * Các chi nhánh có bay mà kỹ thuật viên được phân công
+     */
+    public List<UUID> findBranchIdsByTechnicianId(UUID technicianId) {
+        return serviceBayRepository.findBranchIdsByTechnicianId(technicianId);
+    }
 }
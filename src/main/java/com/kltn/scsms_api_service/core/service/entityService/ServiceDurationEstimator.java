@@ -0,0 +1,530 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.kltn.scsms_api_service.configs.property.ServiceDurationEstimatorProperties;
+import com.kltn.scsms_api_service.core.entity.Booking;
+import com.kltn.scsms_api_service.core.entity.BookingItem;
+import com.kltn.scsms_api_service.core.entity.ServiceDurationSketch;
+import com.kltn.scsms_api_service.core.entity.ServiceProcessTracking;
+import com.kltn.scsms_api_service.core.entity.compositId.ServiceDurationSketchId;
+import com.kltn.scsms_api_service.core.events.BookingCompletedEvent;
+import com.kltn.scsms_api_service.core.repository.BookingRepository;
+import com.kltn.scsms_api_service.core.repository.ServiceDurationSketchRepository;
+import com.kltn.scsms_api_service.core.repository.ServiceProcessTrackingRepository;
+import com.kltn.scsms_api_service.core.utils.DurationSketch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ước lượng thời lượng dịch vụ từ dữ liệu thực tế (service_duration_sketches)
+ * - BookingCompletedEvent → lấy thời lượng từng dịch vụ từ tracking (bước đầu → bước cuối của dịch vụ),
+ *   booking 1 dịch vụ không có tracking thì dùng actualStartAt → actualEndAt; ghi vào 4 phạm vi
+ *   (loại xe + chi nhánh, loại xe, chi nhánh, toàn hệ thống) sau khi commit, trên pool riêng
+ * - Đọc p50/p80/p90 theo phạm vi hẹp nhất đủ min-samples, thiếu dữ liệu thì dùng thời lượng cấu hình tĩnh
+ * - Metrics: duration.estimator.samples, duration.estimator.rejected, duration.estimator.lookups{source}
+ */
+@Slf4j
+@Service
+public class ServiceDurationEstimator {
+
+    private static final int BACKFILL_PAGE_SIZE = 200;
+
+    private final ServiceDurationSketchRepository sketchRepository;
+    private final BookingRepository bookingRepository;
+    private final ServiceProcessTrackingRepository trackingRepository;
+    private final ServiceDurationEstimatorProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private final ThreadPoolExecutor executor;
+    private final Counter samplesCounter;
+    private final Counter rejectedCounter;
+
+    public ServiceDurationEstimator(ServiceDurationSketchRepository sketchRepository,
+                                    BookingRepository bookingRepository,
+                                    ServiceProcessTrackingRepository trackingRepository,
+                                    ServiceDurationEstimatorProperties properties,
+                                    PlatformTransactionManager transactionManager,
+                                    MeterRegistry meterRegistry) {
+        this.sketchRepository = sketchRepository;
+        this.bookingRepository = bookingRepository;
+        this.trackingRepository = trackingRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Luôn transaction mới: khi hàng đợi đầy, CallerRunsPolicy chạy trên thread AFTER_COMMIT -
+        // REQUIRED sẽ join transaction đã commit và mọi ghi bị mất
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.meterRegistry = meterRegistry;
+        int poolSize = Math.max(properties.getPoolSize(), 1);
+        // Hàng đợi đầy → thread gọi tự ghi: chậm lại thay vì mất mẫu
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(properties.getQueueCapacity(), 1)),
+            daemonThreads("duration-estimator-"), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.samplesCounter = Counter.builder("duration.estimator.samples").register(meterRegistry);
+        this.rejectedCounter = Counter.builder("duration.estimator.rejected").register(meterRegistry);
+        Gauge.builder("duration.estimator.queued", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+    }
+
+    /**
+     * Nguồn của 1 ước lượng, từ hẹp đến rộng
+     */
+    public enum Source { VEHICLE_TYPE_BRANCH, VEHICLE_TYPE, BRANCH, SERVICE, STATIC }
+
+    /**
+     * Thời lượng ước lượng (phút) của 1 dịch vụ; minutes = phân vị được yêu cầu (mặc định planning-quantile)
+     * STATIC → mọi phân vị bằng thời lượng cấu hình
+     */
+    public record DurationEstimate(UUID serviceId, double p50Minutes, double p80Minutes, double p90Minutes,
+                                   double minutes, long sampleCount, Source source) {
+    }
+
+    // ===== Ghi mẫu =====
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingCompleted(BookingCompletedEvent event) {
+        if (!properties.isEnabled() || event.getBookingId() == null) {
+            return;
+        }
+        UUID bookingId = event.getBookingId();
+        executor.execute(() -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> recordBooking(bookingId));
+            } catch (Exception e) {
+                log.error("Failed to record service durations for booking {}: {}", bookingId, e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Cộng mẫu của 1 booking đã hoàn thành vào các sketch (khóa dòng theo thứ tự cố định để tránh deadlock)
+     */
+    private void recordBooking(UUID bookingId) {
+        Booking booking = bookingRepository.findByIdWithDetails(bookingId).orElse(null);
+        if (booking == null || booking.getStatus() != Booking.BookingStatus.COMPLETED) {
+            return;
+        }
+        Map<ServiceDurationSketchId, DurationSketch> samples = new HashMap<>();
+        collectSamples(booking, samples);
+        if (samples.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        samples.entrySet().stream()
+            .sorted(Comparator.comparing((Map.Entry<ServiceDurationSketchId, DurationSketch> entry) -> entry.getKey().getServiceId())
+                .thenComparing(entry -> entry.getKey().getVehicleTypeId())
+                .thenComparing(entry -> entry.getKey().getBranchId()))
+            .forEach(entry -> {
+                ServiceDurationSketchId id = entry.getKey();
+                sketchRepository.insertIfMissing(id.getServiceId(), id.getVehicleTypeId(), id.getBranchId());
+                sketchRepository.findForUpdate(id.getServiceId(), id.getVehicleTypeId(), id.getBranchId())
+                    .ifPresent(row -> {
+                        DurationSketch sketch = row.toSketch();
+                        sketch.merge(entry.getValue());
+                        decayIfNeeded(sketch);
+                        row.applySketch(sketch);
+                        row.setUpdatedAt(now);
+                    });
+            });
+        log.debug("Recorded service durations for booking {} ({} sketches)", bookingId, samples.size());
+    }
+
+    /**
+     * Backfill từ booking đã hoàn thành trong backfill-days khi bảng còn trống (lần đầu deploy)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            if (sketchRepository.count() > 0) {
+                return;
+            }
+            Integer rows = transactionTemplate.execute(status -> rebuild());
+            log.info("Backfilled service duration sketches: {} rows", rows);
+        } catch (Exception e) {
+            log.error("Failed to backfill service duration sketches: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Tính lại toàn bộ sketch từ booking đã hoàn thành (gọi trong transaction)
+     */
+    public int rebuild() {
+        LocalDateTime since = LocalDateTime.now().minusDays(Math.max(properties.getBackfillDays(), 1));
+        Map<ServiceDurationSketchId, DurationSketch> sketches = new HashMap<>();
+        int page = 0;
+        List<UUID> bookingIds;
+        do {
+            bookingIds = bookingRepository.findCompletedBookingIdsSince(since, PageRequest.of(page++, BACKFILL_PAGE_SIZE));
+            for (UUID bookingId : bookingIds) {
+                Map<ServiceDurationSketchId, DurationSketch> samples = new HashMap<>();
+                bookingRepository.findByIdWithDetails(bookingId).ifPresent(booking -> collectSamples(booking, samples));
+                // Cộng theo thứ tự thời gian để decay giữ đúng ý nghĩa "gần đây"
+                samples.forEach((id, sample) -> {
+                    DurationSketch sketch = sketches.computeIfAbsent(id, key -> DurationSketch.empty());
+                    sketch.merge(sample);
+                    decayIfNeeded(sketch);
+                });
+            }
+        } while (bookingIds.size() == BACKFILL_PAGE_SIZE);
+
+        sketchRepository.deleteAllSketches();
+        LocalDateTime now = LocalDateTime.now();
+        List<ServiceDurationSketch> rows = sketches.entrySet().stream()
+            .map(entry -> {
+                ServiceDurationSketch row = ServiceDurationSketch.builder()
+                    .serviceId(entry.getKey().getServiceId())
+                    .vehicleTypeId(entry.getKey().getVehicleTypeId())
+                    .branchId(entry.getKey().getBranchId())
+                    .updatedAt(now)
+                    .build();
+                row.applySketch(entry.getValue());
+                return row;
+            })
+            .toList();
+        sketchRepository.saveAll(rows);
+        return rows.size();
+    }
+
+    /**
+     * Thời lượng từng dịch vụ của booking → sketch 1 mẫu cho mỗi phạm vi
+     */
+    private void collectSamples(Booking booking, Map<ServiceDurationSketchId, DurationSketch> samples) {
+        UUID vehicleTypeId = vehicleTypeOf(booking);
+        UUID branchId = branchOf(booking);
+        serviceMinutes(booking).forEach((serviceId, minutes) -> {
+            if (minutes < 1 || minutes > properties.getMaxDurationMinutes()) {
+                rejectedCounter.increment();
+                return;
+            }
+            samplesCounter.increment();
+            for (ServiceDurationSketchId id : scopes(serviceId, vehicleTypeId, branchId)) {
+                samples.computeIfAbsent(id, key -> DurationSketch.empty()).add(minutes);
+            }
+        });
+    }
+
+    /**
+     * Ưu tiên tracking: dịch vụ có đủ bước COMPLETED (không bước nào chưa xong) → bước đầu bắt đầu → bước cuối kết thúc
+     * Không có tracking: chỉ booking 1 dịch vụ mới quy được actualStartAt → actualEndAt cho dịch vụ đó
+     */
+    private Map<UUID, Double> serviceMinutes(Booking booking) {
+        Map<UUID, Double> result = new HashMap<>();
+        List<ServiceProcessTracking> trackings =
+            trackingRepository.findByBooking_BookingIdOrderByCreatedDateAsc(booking.getBookingId());
+
+        Map<UUID, List<ServiceProcessTracking>> byService = new HashMap<>();
+        for (ServiceProcessTracking tracking : trackings) {
+            if (tracking.getCarServiceId() != null) {
+                byService.computeIfAbsent(tracking.getCarServiceId(), key -> new ArrayList<>()).add(tracking);
+            }
+        }
+        byService.forEach((serviceId, steps) -> {
+            boolean complete = steps.stream().allMatch(step ->
+                step.getStatus() == ServiceProcessTracking.TrackingStatus.COMPLETED
+                    && step.getStartTime() != null && step.getEndTime() != null);
+            if (!complete) {
+                return;
+            }
+            LocalDateTime start = steps.stream().map(ServiceProcessTracking::getStartTime).min(LocalDateTime::compareTo).orElseThrow();
+            LocalDateTime end = steps.stream().map(ServiceProcessTracking::getEndTime).max(LocalDateTime::compareTo).orElseThrow();
+            result.put(serviceId, Duration.between(start, end).toSeconds() / 60.0);
+        });
+
+        if (byService.isEmpty() && booking.getActualStartAt() != null && booking.getActualEndAt() != null) {
+            Set<UUID> serviceIds = new HashSet<>();
+            for (BookingItem item : itemsOf(booking)) {
+                serviceIds.add(item.getServiceId());
+            }
+            if (serviceIds.size() == 1) {
+                result.put(serviceIds.iterator().next(),
+                    Duration.between(booking.getActualStartAt(), booking.getActualEndAt()).toSeconds() / 60.0);
+            }
+        }
+        return result;
+    }
+
+    private void decayIfNeeded(DurationSketch sketch) {
+        if (properties.getMaxSamples() > 0 && sketch.getCount() > properties.getMaxSamples()) {
+            sketch.decay();
+        }
+    }
+
+    // ===== Đọc ước lượng =====
+
+    /**
+     * Ước lượng 1 dịch vụ; fallbackMinutes = thời lượng cấu hình khi chưa đủ dữ liệu
+     */
+    public DurationEstimate estimate(UUID serviceId, UUID vehicleTypeId, UUID branchId, int fallbackMinutes) {
+        return estimateServices(Map.of(serviceId, fallbackMinutes), vehicleTypeId, branchId,
+            properties.getPlanningQuantile()).get(serviceId);
+    }
+
+    /**
+     * Ước lượng theo lô (1 query cho mọi dịch vụ và phạm vi); key = serviceId, value = thời lượng cấu hình
+     */
+    public Map<UUID, DurationEstimate> estimateServices(Map<UUID, Integer> fallbackMinutes,
+                                                        UUID vehicleTypeId, UUID branchId, double quantile) {
+        Map<UUID, DurationEstimate> result = new HashMap<>();
+        if (fallbackMinutes.isEmpty()) {
+            return result;
+        }
+        Map<ServiceDurationSketchId, ServiceDurationSketch> rows = loadRows(fallbackMinutes.keySet(),
+            Set.of(scopeKey(vehicleTypeId)), Set.of(scopeKey(branchId)));
+        fallbackMinutes.forEach((serviceId, staticMinutes) -> result.put(serviceId,
+            resolveEstimate(serviceId, staticMinutes, vehicleTypeId, branchId, quantile, rows)));
+        return result;
+    }
+
+    /**
+     * Sketch của mọi dịch vụ × (loại xe, chi nhánh) được hỏi, kèm phạm vi ALL, trong 1 query
+     */
+    private Map<ServiceDurationSketchId, ServiceDurationSketch> loadRows(Set<UUID> serviceIds,
+                                                                         Set<UUID> vehicleTypeIds, Set<UUID> branchIds) {
+        Map<ServiceDurationSketchId, ServiceDurationSketch> rows = new HashMap<>();
+        if (!properties.isEnabled() || serviceIds.isEmpty()) {
+            return rows;
+        }
+        Set<UUID> vehicleTypes = new HashSet<>(vehicleTypeIds);
+        vehicleTypes.add(ServiceDurationSketch.ALL);
+        Set<UUID> branches = new HashSet<>(branchIds);
+        branches.add(ServiceDurationSketch.ALL);
+        sketchRepository.findByServiceIdInAndVehicleTypeIdInAndBranchIdIn(serviceIds, vehicleTypes, branches)
+            .forEach(row -> rows.put(new ServiceDurationSketchId(row.getServiceId(), row.getVehicleTypeId(),
+                row.getBranchId()), row));
+        return rows;
+    }
+
+    /**
+     * Phạm vi hẹp nhất đủ min-samples, không có thì thời lượng cấu hình (STATIC)
+     */
+    private DurationEstimate resolveEstimate(UUID serviceId, Integer staticMinutes, UUID vehicleTypeId, UUID branchId,
+                                             double quantile, Map<ServiceDurationSketchId, ServiceDurationSketch> rows) {
+        DurationEstimate estimate = null;
+        List<ServiceDurationSketchId> scopes = scopes(serviceId, vehicleTypeId, branchId);
+        for (int i = 0; i < scopes.size() && estimate == null; i++) {
+            ServiceDurationSketch row = rows.get(scopes.get(i));
+            if (row != null && row.getSampleCount() != null && row.getSampleCount() >= Math.max(properties.getMinSamples(), 1)) {
+                estimate = toEstimate(serviceId, row.toSketch(), quantile, scopeSource(scopes.get(i)));
+            }
+        }
+        if (estimate == null) {
+            double minutes = staticMinutes != null ? staticMinutes : 0;
+            estimate = new DurationEstimate(serviceId, minutes, minutes, minutes, minutes, 0, Source.STATIC);
+        }
+        meterRegistry.counter("duration.estimator.lookups", "source", estimate.source().name()).increment();
+        return estimate;
+    }
+
+    /**
+     * Tổng thời lượng (phút) của booking theo phân vị q; item chưa đủ dữ liệu dùng durationMinutes đã snapshot
+     * Booking không có item → estimatedDurationMinutes, rồi tới khoảng scheduledStartAt → scheduledEndAt
+     */
+    public int estimateBookingMinutes(Booking booking, double quantile) {
+        return estimateBookingMinutes(List.of(booking), quantile).get(booking.getBookingId());
+    }
+
+    /**
+     * estimateBookingMinutes cho nhiều booking với 1 query sketch (key = bookingId)
+     */
+    public Map<UUID, Integer> estimateBookingMinutes(Collection<Booking> bookings, double quantile) {
+        Set<UUID> serviceIds = new HashSet<>();
+        Set<UUID> vehicleTypeIds = new HashSet<>();
+        Set<UUID> branchIds = new HashSet<>();
+        for (Booking booking : bookings) {
+            itemsOf(booking).forEach(item -> serviceIds.add(item.getServiceId()));
+            vehicleTypeIds.add(scopeKey(vehicleTypeOf(booking)));
+            branchIds.add(scopeKey(branchOf(booking)));
+        }
+        Map<ServiceDurationSketchId, ServiceDurationSketch> rows = loadRows(serviceIds, vehicleTypeIds, branchIds);
+
+        Map<UUID, Integer> result = new HashMap<>();
+        for (Booking booking : bookings) {
+            List<BookingItem> items = itemsOf(booking);
+            if (items.isEmpty()) {
+                result.put(booking.getBookingId(), staticBookingMinutes(booking));
+                continue;
+            }
+            Map<UUID, DurationEstimate> estimates = new HashMap<>();
+            double total = 0;
+            for (BookingItem item : items) {
+                int staticMinutes = item.getDurationMinutes() != null ? item.getDurationMinutes() : 0;
+                DurationEstimate estimate = estimates.computeIfAbsent(item.getServiceId(), serviceId ->
+                    resolveEstimate(serviceId, staticMinutes, vehicleTypeOf(booking), branchOf(booking), quantile, rows));
+                total += estimate.source() == Source.STATIC ? staticMinutes : estimate.minutes();
+            }
+            result.put(booking.getBookingId(), (int) Math.ceil(total));
+        }
+        return result;
+    }
+
+    /**
+     * Thời điểm kết thúc dự kiến theo planning-quantile
+     * - IN_PROGRESS: actualStartAt + ước lượng, không sớm hơn bây giờ (đang chạy quá giờ vẫn chiếm bay)
+     * - Chưa bắt đầu: scheduledStartAt + ước lượng
+     */
+    public LocalDateTime projectedEndAt(Booking booking) {
+        return projectedEndAt(booking, estimateBookingMinutes(booking, properties.getPlanningQuantile()));
+    }
+
+    /**
+     * projectedEndAt cho nhiều booking với 1 query sketch (key = bookingId, bỏ booking không xác định được)
+     */
+    public Map<UUID, LocalDateTime> projectedEndAt(Collection<Booking> bookings) {
+        Map<UUID, Integer> minutes = estimateBookingMinutes(bookings, properties.getPlanningQuantile());
+        Map<UUID, LocalDateTime> result = new HashMap<>();
+        for (Booking booking : bookings) {
+            LocalDateTime end = projectedEndAt(booking, minutes.get(booking.getBookingId()));
+            if (end != null) {
+                result.put(booking.getBookingId(), end);
+            }
+        }
+        return result;
+    }
+
+    private LocalDateTime projectedEndAt(Booking booking, int minutes) {
+        if (booking.getStatus() == Booking.BookingStatus.IN_PROGRESS && booking.getActualStartAt() != null) {
+            LocalDateTime end = booking.getActualStartAt().plusMinutes(minutes);
+            LocalDateTime now = LocalDateTime.now();
+            return end.isBefore(now) ? now : end;
+        }
+        if (booking.getScheduledStartAt() != null) {
+            return booking.getScheduledStartAt().plusMinutes(minutes);
+        }
+        return booking.getScheduledEndAt();
+    }
+
+    /**
+     * Thời điểm hàng chờ tuần tự của 1 bay xong hết (walk-in): booking sau bắt đầu khi booking trước xong
+     * (không sớm hơn scheduledStartAt của nó), thời lượng theo planning-quantile; cả hàng chờ ước lượng bằng 1 query
+     */
+    public LocalDateTime projectQueueEnd(List<Booking> queue, LocalDateTime now) {
+        LocalDateTime cursor = now;
+        List<Booking> sorted = queue.stream()
+            .sorted(Comparator.comparing(Booking::getScheduledStartAt, Comparator.nullsLast(Comparator.naturalOrder())))
+            .toList();
+        Map<UUID, Integer> minutes = estimateBookingMinutes(sorted, properties.getPlanningQuantile());
+        for (Booking booking : sorted) {
+            int bookingMinutes = minutes.get(booking.getBookingId());
+            LocalDateTime end;
+            if (booking.getStatus() == Booking.BookingStatus.IN_PROGRESS && booking.getActualStartAt() != null) {
+                end = projectedEndAt(booking, bookingMinutes);
+            } else {
+                LocalDateTime start = booking.getScheduledStartAt() != null && booking.getScheduledStartAt().isAfter(cursor)
+                    ? booking.getScheduledStartAt() : cursor;
+                end = start.plusMinutes(bookingMinutes);
+            }
+            if (end.isAfter(cursor)) {
+                cursor = end;
+            }
+        }
+        return cursor;
+    }
+
+    private static DurationEstimate toEstimate(UUID serviceId, DurationSketch sketch, double quantile, Source source) {
+        return new DurationEstimate(serviceId, round(sketch.quantile(0.5)), round(sketch.quantile(0.8)),
+            round(sketch.quantile(0.9)), round(sketch.quantile(quantile)), sketch.getCount(), source);
+    }
+
+    private int staticBookingMinutes(Booking booking) {
+        if (booking.getEstimatedDurationMinutes() != null) {
+            return booking.getEstimatedDurationMinutes();
+        }
+        if (booking.getScheduledStartAt() != null && booking.getScheduledEndAt() != null) {
+            return (int) Duration.between(booking.getScheduledStartAt(), booking.getScheduledEndAt()).toMinutes();
+        }
+        return 0;
+    }
+
+    /**
+     * 4 phạm vi theo thứ tự ưu tiên khi đọc (bỏ trùng khi thiếu loại xe/chi nhánh)
+     */
+    private static List<ServiceDurationSketchId> scopes(UUID serviceId, UUID vehicleTypeId, UUID branchId) {
+        UUID vehicleType = scopeKey(vehicleTypeId);
+        UUID branch = scopeKey(branchId);
+        LinkedHashSet<ServiceDurationSketchId> scopes = new LinkedHashSet<>();
+        scopes.add(new ServiceDurationSketchId(serviceId, vehicleType, branch));
+        scopes.add(new ServiceDurationSketchId(serviceId, vehicleType, ServiceDurationSketch.ALL));
+        scopes.add(new ServiceDurationSketchId(serviceId, ServiceDurationSketch.ALL, branch));
+        scopes.add(new ServiceDurationSketchId(serviceId, ServiceDurationSketch.ALL, ServiceDurationSketch.ALL));
+        return new ArrayList<>(scopes);
+    }
+
+    private static UUID scopeKey(UUID id) {
+        return id != null ? id : ServiceDurationSketch.ALL;
+    }
+
+    private static Source scopeSource(ServiceDurationSketchId id) {
+        boolean allVehicleTypes = ServiceDurationSketch.ALL.equals(id.getVehicleTypeId());
+        boolean allBranches = ServiceDurationSketch.ALL.equals(id.getBranchId());
+        if (!allVehicleTypes) {
+            return allBranches ? Source.VEHICLE_TYPE : Source.VEHICLE_TYPE_BRANCH;
+        }
+        return allBranches ? Source.SERVICE : Source.BRANCH;
+    }
+
+    private static UUID vehicleTypeOf(Booking booking) {
+        return booking.getVehicle() != null ? booking.getVehicle().getVehicleTypeId() : null;
+    }
+
+    private static UUID branchOf(Booking booking) {
+        return booking.getBranch() != null ? booking.getBranch().getBranchId() : null;
+    }
+
+    private static List<BookingItem> itemsOf(Booking booking) {
+        if (booking.getBookingItems() == null) {
+            return List.of();
+        }
+        return booking.getBookingItems().stream()
+            .filter(item -> item.getServiceId() != null)
+            .toList();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
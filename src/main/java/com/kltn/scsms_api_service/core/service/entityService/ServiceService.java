@@ -11,6 +11,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -43,6 +44,11 @@ public class ServiceService {
         return serviceRepository.findById(serviceId);
     }
     
+    public List<Service> findAllByIds(Collection<UUID> serviceIds) {
+        log.info("Finding services by {} ids", serviceIds.size());
+        return serviceRepository.findAllById(serviceIds);
+    }
+    
     public Service getById(UUID serviceId) {
         log.info("Getting service by ID: {}", serviceId);
         return findById(serviceId)
@@ -25,6 +25,7 @@ import java.util.UUID;
 public class ServiceTypeService {
     
     private final ServiceTypeRepository serviceTypeRepository;
+    private final ReferenceDataCache referenceDataCache;
     
     /**
      * Save service type
@@ -32,7 +33,9 @@ public class ServiceTypeService {
     @Transactional
     public ServiceType save(ServiceType serviceType) {
         log.debug("Saving service type: {}", serviceType.getCode());
-        return serviceTypeRepository.save(serviceType);
+        ServiceType saved = serviceTypeRepository.save(serviceType);
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_SERVICE_TYPES);
+        return saved;
     }
     
     /**
@@ -41,7 +44,9 @@ public class ServiceTypeService {
     @Transactional
     public ServiceType update(ServiceType serviceType) {
         log.debug("Updating service type: {}", serviceType.getCode());
-        return serviceTypeRepository.save(serviceType);
+        ServiceType saved = serviceTypeRepository.save(serviceType);
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_SERVICE_TYPES);
+        return saved;
     }
     
     /**
@@ -162,6 +167,7 @@ public class ServiceTypeService {
         serviceType.setIsDeleted(true);
         serviceType.setIsActive(false);
         serviceTypeRepository.save(serviceType);
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_SERVICE_TYPES);
         log.info("Soft deleted service type: {}", serviceType.getCode());
     }
     
@@ -173,6 +179,7 @@ public class ServiceTypeService {
         serviceType.setIsDeleted(true);
         serviceType.setIsActive(false);
         serviceTypeRepository.save(serviceType);
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_SERVICE_TYPES);
         log.info("Soft deleted service type: {}", serviceType.getCode());
     }
     
@@ -184,6 +191,7 @@ public class ServiceTypeService {
         ServiceType serviceType = getById(serviceTypeId);
         serviceType.setIsDeleted(false);
         serviceTypeRepository.save(serviceType);
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_SERVICE_TYPES);
         log.info("Restored service type: {}", serviceType.getCode());
     }
     
@@ -195,6 +203,7 @@ public class ServiceTypeService {
         ServiceType serviceType = getById(serviceTypeId);
         serviceType.setIsActive(isActive);
         serviceTypeRepository.save(serviceType);
+        referenceDataCache.invalidate(ReferenceCacheRegions.ACTIVE_SERVICE_TYPES);
         log.info("Updated service type status: {} to {}", serviceType.getCode(), isActive);
     }
     
@@ -0,0 +1,96 @@
+package com.kltn.scsms_api_service.core.service.entityService;
+
+import com.kltn.scsms_api_service.core.entity.ServiceProcessTracking;
+import com.kltn.scsms_api_service.core.repository.ServiceProcessTrackingRepository;
+import com.kltn.scsms_api_service.core.repository.TrackingStepDailyStatsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Số liệu tổng hợp thời gian thực hiện bước (tracking_step_daily_stats)
+ * Cộng dồn/trừ trong cùng transaction với thay đổi trạng thái tracking; backfill từ lịch sử lần đầu deploy
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TrackingStepStatsService {
+    
+    private final TrackingStepDailyStatsRepository statsRepository;
+    private final ServiceProcessTrackingRepository trackingRepository;
+    private final PlatformTransactionManager transactionManager;
+    
+    /**
+     * Cộng dồn tracking vừa hoàn thành (bỏ qua nếu thiếu start_time/end_time)
+     */
+    @Transactional
+    public void recordCompletion(UUID trackingId) {
+        if (statsRepository.recordCompletion(trackingId) == 0) {
+            log.debug("Tracking {} has no measurable duration, skipped in step stats", trackingId);
+        }
+    }
+    
+    /**
+     * Trừ tracking COMPLETED khỏi số liệu; gọi trước khi xóa hoặc đổi trạng thái tracking
+     */
+    @Transactional
+    public void removeCompletion(UUID trackingId) {
+        statsRepository.removeCompletion(trackingId);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Object[]> aggregateBySteps(UUID branchId, LocalDate fromDate, LocalDate toDate, int limit) {
+        return statsRepository.aggregateBySteps(branchId, fromDate, toDate, limit);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Object[]> aggregateByBays(UUID branchId, LocalDate fromDate, LocalDate toDate) {
+        return statsRepository.aggregateByBays(branchId, fromDate, toDate);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Object[]> aggregateByTechnicians(UUID branchId, UUID technicianId, LocalDate fromDate, LocalDate toDate) {
+        return statsRepository.aggregateByTechnicians(branchId, technicianId, fromDate, toDate);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Object[]> aggregateByDay(UUID branchId, LocalDate fromDate, LocalDate toDate) {
+        return statsRepository.aggregateByDay(branchId, fromDate, toDate);
+    }
+    
+    /**
+     * Backfill số liệu tổng hợp từ lịch sử tracking nếu bảng tổng hợp còn trống (lần đầu deploy)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillStatsIfEmpty() {
+        try {
+            if (statsRepository.count() > 0
+                    || trackingRepository.countByStatus(ServiceProcessTracking.TrackingStatus.COMPLETED) == 0) {
+                return;
+            }
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> rebuildStats());
+        } catch (Exception e) {
+            log.error("Failed to backfill tracking step stats: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Tính lại toàn bộ số liệu tổng hợp từ service_process_tracking
+     */
+    @Transactional
+    public int rebuildStats() {
+        statsRepository.deleteAllStats();
+        int rows = statsRepository.rebuildFromTrackings();
+        log.info("Rebuilt tracking step stats: {} rows", rows);
+        return rows;
+    }
+}
@@ -30,6 +30,7 @@ public class VehicleBrandService {
     
     private final VehicleBrandRepository vehicleBrandRepository;
     private final EntityManager entityManager;
+    private final ReferenceDataCache referenceDataCache;
     
     public Page<VehicleBrand> getAllVehicleBrandsWithFilters(VehicleBrandFilterParam filterParam) {
         log.info("Getting vehicle brands with filters: {}", filterParam);
@@ -82,7 +83,9 @@ public class VehicleBrandService {
     }
     
     public VehicleBrand saveVehicleBrand(VehicleBrand vehicleBrand) {
-        return vehicleBrandRepository.save(vehicleBrand);
+        VehicleBrand saved = vehicleBrandRepository.save(vehicleBrand);
+        invalidateDropdowns();
+        return saved;
     }
     
     public Optional<VehicleBrand> getOtpVehicleBrandById(UUID brandId) {
@@ -93,9 +96,18 @@ public class VehicleBrandService {
         VehicleBrand existingBrand = getVehicleBrandById(brandId);
         existingBrand.setIsDeleted(true);
         vehicleBrandRepository.save(existingBrand);
+        invalidateDropdowns();
         log.info("Soft deleted vehicle brand with ID: {}", brandId);
     }
     
+    /**
+     * Dropdown model cũng chứa tên hãng nên phải invalidate cùng
+     */
+    private void invalidateDropdowns() {
+        referenceDataCache.invalidate(ReferenceCacheRegions.VEHICLE_BRAND_DROPDOWN,
+            ReferenceCacheRegions.VEHICLE_MODEL_DROPDOWN);
+    }
+    
     public VehicleBrand getVehicleBrandRefById(UUID brandId) {
         return vehicleBrandRepository.getReferenceById(brandId);
     }
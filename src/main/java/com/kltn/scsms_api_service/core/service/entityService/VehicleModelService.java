@@ -28,6 +28,7 @@ public class VehicleModelService {
     
     private final VehicleModelRepository vehicleModelRepository;
     private final EntityManager entityManager;
+    private final ReferenceDataCache referenceDataCache;
     
     public Page<VehicleModel> getAllVehicleModelsWithFilters(VehicleModelFilterParam filterParam) {
         log.info("Getting vehicle models with filters: {}", filterParam);
@@ -122,7 +123,9 @@ public class VehicleModelService {
     }
     
     public VehicleModel saveVehicleModel(VehicleModel vehicleModel) {
-        return vehicleModelRepository.save(vehicleModel);
+        VehicleModel saved = vehicleModelRepository.save(vehicleModel);
+        referenceDataCache.invalidate(ReferenceCacheRegions.VEHICLE_MODEL_DROPDOWN);
+        return saved;
     }
     
     public Optional<VehicleModel> getOtpVehicleModelById(UUID modelId) {
@@ -133,6 +136,7 @@ public class VehicleModelService {
         VehicleModel existingBrand = getVehicleModelById(modelId);
         existingBrand.setIsDeleted(true);
         vehicleModelRepository.save(existingBrand);
+        referenceDataCache.invalidate(ReferenceCacheRegions.VEHICLE_MODEL_DROPDOWN);
         log.info("Soft deleted vehicle model with ID: {}", modelId);
     }
     
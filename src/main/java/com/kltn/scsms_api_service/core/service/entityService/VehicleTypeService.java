@@ -30,6 +30,7 @@ public class VehicleTypeService {
     
     private final VehicleTypeRepository vehicleTypeRepository;
     private final EntityManager entityManager;
+    private final ReferenceDataCache referenceDataCache;
     
     public Page<VehicleType> getAllVehicleTypesWithFilters(VehicleTypeFilterParam filterParam) {
         log.info("Getting vehicle types with filters: {}", filterParam);
@@ -83,7 +84,9 @@ public class VehicleTypeService {
     }
     
     public VehicleType saveVehicleType(VehicleType vehicleType) {
-        return vehicleTypeRepository.save(vehicleType);
+        VehicleType saved = vehicleTypeRepository.save(vehicleType);
+        invalidateDropdowns();
+        return saved;
     }
     
     public Optional<VehicleType> getOtpVehicleTypeById(UUID typeId) {
@@ -95,9 +98,18 @@ public class VehicleTypeService {
         vehicleType.setIsDeleted(true);
         
         vehicleTypeRepository.save(vehicleType);
+        invalidateDropdowns();
         log.info("Soft deleted vehicle type with ID: {}", typeId);
     }
     
+    /**
+     * Dropdown model cũng chứa tên loại xe nên phải invalidate cùng
+     */
+    private void invalidateDropdowns() {
+        referenceDataCache.invalidate(ReferenceCacheRegions.VEHICLE_TYPE_DROPDOWN,
+            ReferenceCacheRegions.VEHICLE_MODEL_DROPDOWN);
+    }
+    
     public VehicleType getVehicleTypeRefById(UUID typeId) {
         return vehicleTypeRepository.getReferenceById(typeId);
     }
@@ -0,0 +1,121 @@
+package com.kltn.scsms_api_service.core.service.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kltn.scsms_api_service.configs.property.WebSocketBrokerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Điểm gửi duy nhất tới STOMP broker
+ * - SIMPLE: gửi thẳng qua SimpMessagingTemplate
+ * - REDIS: giao cho broker local + publish envelope lên Redis; node khác nhận (RealtimeBroadcastConfig)
+ *   và giao cho client của mình. Redis lỗi → chỉ mất phần node khác (client resync qua /realtime/resync)
+ */
+@Slf4j
+@Component
+public class RealtimeBroadcaster {
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketBrokerProperties properties;
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final ObjectMapper objectMapper;
+    private final Counter publishErrors;
+    private final Counter remoteDeliveries;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public RealtimeBroadcaster(SimpMessagingTemplate messagingTemplate,
+                               WebSocketBrokerProperties properties,
+                               ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.properties = properties;
+        this.redisTemplateProvider = redisTemplateProvider;
+        this.objectMapper = objectMapper;
+        this.publishErrors = Counter.builder("websocket.broadcast.errors").register(meterRegistry);
+        this.remoteDeliveries = Counter.builder("websocket.broadcast.remote.deliveries").register(meterRegistry);
+    }
+
+    /**
+     * Envelope trên Redis; user != null → user destination (convertAndSendToUser)
+     */
+    private record Envelope(String origin, String destination, String user, JsonNode payload) {
+    }
+
+    public void send(String destination, Object payload) {
+        messagingTemplate.convertAndSend(destination, payload);
+        broadcast(destination, null, payload);
+    }
+
+    public void sendToUser(String user, String destination, Object payload) {
+        messagingTemplate.convertAndSendToUser(user, destination, payload);
+        broadcast(destination, user, payload);
+    }
+
+    private void broadcast(String destination, String user, Object payload) {
+        if (properties.getMode() != WebSocketBrokerProperties.Mode.REDIS) {
+            return;
+        }
+        StringRedisTemplate redis = redisTemplateProvider.getIfAvailable();
+        if (redis == null) {
+            return;
+        }
+        try {
+            Envelope envelope = new Envelope(nodeId, destination, user, objectMapper.valueToTree(payload));
+            redis.convertAndSend(properties.getRedis().getChannel(), objectMapper.writeValueAsString(envelope));
+        } catch (Exception e) {
+            publishErrors.increment();
+            log.warn("WebSocket: Failed to broadcast {} via Redis: {}", destination, e.getMessage());
+        }
+    }
+
+    /**
+     * Message từ node khác → giao cho client đang kết nối vào node này
+     * Payload JSON được gửi nguyên bytes với content-type application/json (không deserialize lại về DTO);
+     * chuỗi thuần (RELOAD_BOOKING, ...) giữ dạng text
+     */
+    public void onBroadcastMessage(String json) {
+        Envelope envelope;
+        try {
+            envelope = objectMapper.readValue(json, Envelope.class);
+        } catch (Exception e) {
+            log.warn("WebSocket: Ignoring malformed broadcast message: {}", e.getMessage());
+            return;
+        }
+        if (nodeId.equals(envelope.origin()) || envelope.destination() == null) {
+            return;
+        }
+
+        String destination = envelope.user() != null
+                ? messagingTemplate.getUserDestinationPrefix() + envelope.user() + envelope.destination()
+                : envelope.destination();
+        try {
+            if (envelope.payload() != null && envelope.payload().isTextual()) {
+                messagingTemplate.convertAndSend(destination, envelope.payload().asText());
+            } else {
+                SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+                accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+                accessor.setLeaveMutable(true);
+                byte[] body = String.valueOf(envelope.payload()).getBytes(StandardCharsets.UTF_8);
+                messagingTemplate.send(destination, MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+            }
+            remoteDeliveries.increment();
+        } catch (Exception e) {
+            log.error("WebSocket: Failed to deliver broadcast to {}: {}", envelope.destination(), e.getMessage(), e);
+        }
+    }
+}
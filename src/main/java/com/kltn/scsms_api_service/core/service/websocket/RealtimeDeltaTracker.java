@@ -0,0 +1,137 @@
+package com.kltn.scsms_api_service.core.service.websocket;
+
+import com.kltn.scsms_api_service.core.dto.websocket.EntityDeltaDto;
+import com.kltn.scsms_api_service.core.dto.websocket.EntityDeltaDto.EntityType;
+import com.kltn.scsms_api_service.core.entity.Booking;
+import com.kltn.scsms_api_service.core.entity.ServiceProcessTracking;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Tạo delta gọn cho booking/tracking
+ * - Giữ snapshot (version + field gọn) của lần publish gần nhất trong LRU giới hạn kích thước
+ * - Gửi diff so với snapshot cũ hơn (base_version); client có version khác base_version phải resync
+ *   (event bị gộp, node khác đã publish version giữa chừng...). Chưa có snapshot → gửi full
+ * - Snapshot không bao giờ lùi version (event gửi song song trên nhiều thread có thể tới lệch thứ tự)
+ */
+@Component
+public class RealtimeDeltaTracker {
+
+    private static final int MAX_SNAPSHOTS = 10_000;
+
+    private final Map<String, Snapshot> snapshots = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                    return size() > MAX_SNAPSHOTS;
+                }
+            });
+
+    /**
+     * Field gọn của booking (đủ cho danh sách/lịch của lễ tân và màn hình khách hàng)
+     * Phải gọi trong transaction vì đọc id của các quan hệ lazy
+     */
+    public Map<String, Object> bookingFields(Booking booking) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("status", booking.getStatus() != null ? booking.getStatus().name() : null);
+        fields.put("payment_status", booking.getPaymentStatus() != null ? booking.getPaymentStatus().name() : null);
+        fields.put("bay_id", booking.getServiceBay() != null ? booking.getServiceBay().getBayId() : null);
+        fields.put("scheduled_start_at", booking.getScheduledStartAt());
+        fields.put("scheduled_end_at", booking.getScheduledEndAt());
+        fields.put("estimated_duration_minutes", booking.getEstimatedDurationMinutes());
+        fields.put("total_price", booking.getTotalPrice());
+        fields.put("customer_name", booking.getCustomerName());
+        fields.put("customer_phone", booking.getCustomerPhone());
+        fields.put("vehicle_license_plate", booking.getVehicleLicensePlate());
+        fields.put("actual_check_in_at", booking.getActualCheckInAt());
+        fields.put("actual_start_at", booking.getActualStartAt());
+        fields.put("actual_end_at", booking.getActualEndAt());
+        fields.put("cancellation_reason", booking.getCancellationReason());
+        fields.put("notes", booking.getNotes());
+        fields.put("is_deleted", booking.getIsDeleted());
+        return fields;
+    }
+
+    /**
+     * Field gọn của tracking; phải gọi trong transaction
+     */
+    public Map<String, Object> trackingFields(ServiceProcessTracking tracking) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("status", tracking.getStatus() != null ? tracking.getStatus().name() : null);
+        fields.put("bay_id", tracking.getBay() != null ? tracking.getBay().getBayId() : null);
+        fields.put("service_step_id", tracking.getServiceStep() != null ? tracking.getServiceStep().getId() : null);
+        fields.put("service_step_name", tracking.getServiceStep() != null ? tracking.getServiceStep().getName() : null);
+        fields.put("car_service_id", tracking.getCarServiceId());
+        fields.put("start_time", tracking.getStartTime());
+        fields.put("end_time", tracking.getEndTime());
+        fields.put("notes", tracking.getNotes());
+        fields.put("last_updated_at", tracking.getLastUpdatedAt());
+        fields.put("is_deleted", tracking.getIsDeleted());
+        return fields;
+    }
+
+    /**
+     * Tính delta so với snapshot trước đó và lưu snapshot mới
+     */
+    public EntityDeltaDto delta(EntityType entityType, UUID id, Long version, Map<String, Object> fields) {
+        String key = entityType.name() + ":" + id;
+        Snapshot previous;
+        synchronized (snapshots) {
+            previous = snapshots.get(key);
+            if (version != null && (previous == null || previous.version() <= version)) {
+                snapshots.put(key, new Snapshot(version, fields));
+            }
+        }
+
+        EntityDeltaDto.EntityDeltaDtoBuilder delta = EntityDeltaDto.builder()
+                .entityType(entityType)
+                .id(id)
+                .version(version)
+                .status((String) fields.get("status"))
+                .timestamp(LocalDateTime.now());
+
+        if (previous == null || version == null || previous.version() >= version) {
+            return delta.full(true).changes(fields).build();
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        fields.forEach((name, value) -> {
+            if (!Objects.equals(previous.fields().get(name), value)) {
+                changes.put(name, value);
+            }
+        });
+        return delta.full(false).baseVersion(previous.version()).changes(changes).build();
+    }
+
+    /**
+     * Giá trị field trong snapshot gần nhất (null nếu chưa có)
+     */
+    public Object lastField(EntityType entityType, UUID id, String name) {
+        Snapshot snapshot = snapshots.get(entityType.name() + ":" + id);
+        return snapshot != null ? snapshot.fields().get(name) : null;
+    }
+
+    /**
+     * Delta full (không so sánh, không lưu snapshot) - dùng cho API resync
+     */
+    public EntityDeltaDto full(EntityType entityType, UUID id, Long version, Map<String, Object> fields) {
+        return EntityDeltaDto.builder()
+                .entityType(entityType)
+                .id(id)
+                .version(version)
+                .status((String) fields.get("status"))
+                .full(true)
+                .changes(fields)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private record Snapshot(long version, Map<String, Object> fields) {
+    }
+}
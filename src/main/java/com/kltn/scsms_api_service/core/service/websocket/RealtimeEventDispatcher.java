@@ -0,0 +1,158 @@
+package com.kltn.scsms_api_service.core.service.websocket;
+
+import com.kltn.scsms_api_service.configs.property.RealtimeEventProperties;
+import com.kltn.scsms_api_service.core.dto.websocket.TrackingEventDto;
+import com.kltn.scsms_api_service.core.events.BookingRealtimeEvent;
+import com.kltn.scsms_api_service.core.events.TrackingRealtimeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * Dispatcher event real-time booking/tracking
+ * - Chỉ nhận event sau khi transaction commit (rollback → không có event "ma" trên WebSocket)
+ * - Gộp event của cùng 1 entity trong app.websocket.events.coalesce-window-ms: 1 lần load + 1 delta cho cả loạt
+ *   (event chuyển trạng thái được giữ thay vì UPDATED đến sau)
+ * - Load entity + build payload + fan-out chạy trên pool riêng có giới hạn → không tính vào latency của request
+ */
+@Slf4j
+@Component
+public class RealtimeEventDispatcher {
+
+    private final WebSocketService webSocketService;
+    private final RealtimeEventProperties properties;
+
+    private final Map<UUID, BookingRealtimeEvent> pendingBookings = new ConcurrentHashMap<>();
+    private final Map<UUID, TrackingRealtimeEvent> pendingTrackings = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor executor;
+    private final Counter receivedCounter;
+    private final Counter coalescedCounter;
+
+    public RealtimeEventDispatcher(WebSocketService webSocketService,
+                                   RealtimeEventProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.webSocketService = webSocketService;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreads("realtime-coalesce-"));
+        int poolSize = Math.max(properties.getPoolSize(), 1);
+        // Hàng đợi đầy → thread scheduler tự gửi: chậm lại thay vì mất event
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(properties.getQueueCapacity(), 1)),
+                daemonThreads("realtime-dispatch-"), new ThreadPoolExecutor.CallerRunsPolicy());
+
+        this.receivedCounter = Counter.builder("realtime.events.received").register(meterRegistry);
+        this.coalescedCounter = Counter.builder("realtime.events.coalesced").register(meterRegistry);
+        Gauge.builder("realtime.events.pending", this, dispatcher ->
+                        dispatcher.pendingBookings.size() + dispatcher.pendingTrackings.size())
+                .register(meterRegistry);
+        Gauge.builder("realtime.events.queued", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingEvent(BookingRealtimeEvent event) {
+        coalesce(pendingBookings, event.getBookingId(), event,
+                (existing, incoming) -> "UPDATED".equals(incoming.getEventName())
+                        && !"UPDATED".equals(existing.getEventName()) ? existing : incoming,
+                webSocketService::publishBooking);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTrackingEvent(TrackingRealtimeEvent event) {
+        coalesce(pendingTrackings, event.getTrackingId(), event,
+                (existing, incoming) -> incoming.getEventType() == TrackingEventDto.TrackingEventType.UPDATED
+                        && existing.getEventType() != TrackingEventDto.TrackingEventType.UPDATED ? existing : incoming,
+                webSocketService::publishTracking);
+    }
+
+    /**
+     * Event đầu tiên của entity lên lịch flush sau cửa sổ gộp; các event đến trong cửa sổ chỉ merge vào pending
+     */
+    private <E> void coalesce(Map<UUID, E> pending, UUID id, E event, BinaryOperator<E> merge, Consumer<E> publish) {
+        if (id == null) {
+            log.warn("Realtime: Dropping event without entity id {}", event);
+            return;
+        }
+        receivedCounter.increment();
+        boolean[] first = {false};
+        pending.compute(id, (key, existing) -> {
+            if (existing == null) {
+                first[0] = true;
+                return event;
+            }
+            coalescedCounter.increment();
+            return merge.apply(existing, event);
+        });
+        if (first[0]) {
+            try {
+                scheduler.schedule(() -> flush(pending, id, publish),
+                        Math.max(properties.getCoalesceWindowMs(), 0), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // App đang tắt → bỏ event, client resync khi kết nối lại
+                pending.remove(id);
+                log.debug("Realtime: Dispatcher stopped, dropping event {}", event);
+            }
+        }
+    }
+
+    private <E> void flush(Map<UUID, E> pending, UUID id, Consumer<E> publish) {
+        E event = pending.remove(id);
+        if (event == null) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                publish.accept(event);
+            } catch (Exception ex) {
+                log.error("Realtime: Failed to dispatch event {}: {}", event, ex.getMessage(), ex);
+            }
+        });
+    }
+
+    /**
+     * Tắt app: flush nốt event đang chờ rồi đợi pool gửi xong (tối đa vài giây)
+     */
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(Math.max(properties.getCoalesceWindowMs(), 0) + 1000, TimeUnit.MILLISECONDS);
+            executor.shutdown();
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -1,19 +1,28 @@
 package com.kltn.scsms_api_service.core.service.websocket;
 
-import com.kltn.scsms_api_service.core.dto.bookingManagement.BookingInfoDto;
-import com.kltn.scsms_api_service.core.dto.serviceProcessTrackingManagement.ServiceProcessTrackingInfoDto;
 import com.kltn.scsms_api_service.core.dto.websocket.BookingEventDto;
+import com.kltn.scsms_api_service.core.dto.websocket.EntityDeltaDto;
 import com.kltn.scsms_api_service.core.dto.websocket.TrackingEventDto;
 import com.kltn.scsms_api_service.core.entity.Booking;
 import com.kltn.scsms_api_service.core.entity.ServiceProcessTracking;
+import com.kltn.scsms_api_service.core.events.BookingRealtimeEvent;
+import com.kltn.scsms_api_service.core.events.TrackingRealtimeEvent;
+import com.kltn.scsms_api_service.core.repository.BookingRepository;
+import com.kltn.scsms_api_service.core.repository.ServiceProcessTrackingRepository;
 import com.kltn.scsms_api_service.core.service.businessService.BookingInfoService;
 import com.kltn.scsms_api_service.mapper.ServiceProcessTrackingMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
 
 @Slf4j
@@ -21,9 +30,21 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class WebSocketService {
 
-    private final SimpMessagingTemplate messagingTemplate;
+    private final RealtimeBroadcaster broadcaster;
     private final BookingInfoService bookingInfoService;
     private final ServiceProcessTrackingMapper serviceProcessTrackingMapper;
+    private final RealtimeDeltaTracker deltaTracker;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final BookingRepository bookingRepository;
+    private final ServiceProcessTrackingRepository trackingRepository;
+
+    /**
+     * true = vẫn gửi event kèm full DTO lên /topic/bookings, /topic/trackings cho client cũ
+     * (tốn DTO build + fan-out tới mọi client); false khi tất cả client đã chuyển sang topic theo chi nhánh/bay
+     */
+    @Value("${app.websocket.legacy-global-topics:true}")
+    private boolean legacyGlobalTopics;
 
     // Topic constants
     public static final String TOPIC_BOOKINGS = "/topic/bookings";
@@ -32,6 +53,16 @@ public class WebSocketService {
     public static final String TOPIC_TRACKINGS = "/topic/trackings";
     public static final String TOPIC_AUTH = "/topic/auth";
 
+    // Topic theo phạm vi (delta gọn) - quyền subscribe được kiểm tra trong WebSocketChannelInterceptor
+    public static final String TOPIC_BRANCHES_PREFIX = "/topic/branches/";
+    public static final String TOPIC_BAYS_PREFIX = "/topic/bays/";
+    public static final String BOOKINGS_SUFFIX = "/bookings";
+    public static final String TRACKINGS_SUFFIX = "/trackings";
+    // User destination: client subscribe /user/queue/bookings, /user/queue/trackings
+    public static final String USER_QUEUE_BOOKINGS = "/queue/bookings";
+    public static final String USER_QUEUE_TRACKINGS = "/queue/trackings";
+    public static final String QUEUE_NOTIFICATIONS_PREFIX = "/queue/notifications/";
+
     // Message constants
     public static final String MESSAGE_RELOAD_BOOKING = "RELOAD_BOOKING";
     public static final String MESSAGE_RELOAD_VEHICLE_PROFILE = "RELOAD_VEHICLE_PROFILE";
@@ -44,9 +75,8 @@ public class WebSocketService {
      */
     public void notifyBookingReload() {
         try {
-            log.info("WebSocket: Sending booking reload notification to {}", TOPIC_BOOKINGS);
-            messagingTemplate.convertAndSend(TOPIC_BOOKINGS, MESSAGE_RELOAD_BOOKING);
-            log.debug("WebSocket: Booking reload notification sent successfully");
+            log.debug("WebSocket: Sending booking reload notification to {}", TOPIC_BOOKINGS);
+            broadcaster.send(TOPIC_BOOKINGS, MESSAGE_RELOAD_BOOKING);
         } catch (Exception ex) {
             log.error("WebSocket: Failed to send booking reload notification: {}", ex.getMessage(), ex);
         }
@@ -58,9 +88,8 @@ public class WebSocketService {
      */
     public void notifyVehicleProfileReload() {
         try {
-            log.info("WebSocket: Sending vehicle profile reload notification to {}", TOPIC_VEHICLE_PROFILES);
-            messagingTemplate.convertAndSend(TOPIC_VEHICLE_PROFILES, MESSAGE_RELOAD_VEHICLE_PROFILE);
-            log.debug("WebSocket: Vehicle profile reload notification sent successfully");
+            log.debug("WebSocket: Sending vehicle profile reload notification to {}", TOPIC_VEHICLE_PROFILES);
+            broadcaster.send(TOPIC_VEHICLE_PROFILES, MESSAGE_RELOAD_VEHICLE_PROFILE);
         } catch (Exception ex) {
             log.error("WebSocket: Failed to send vehicle profile reload notification: {}", ex.getMessage(), ex);
         }
@@ -72,9 +101,8 @@ public class WebSocketService {
      */
     public void notifyCustomerReload() {
         try {
-            log.info("WebSocket: Sending customer reload notification to {}", TOPIC_CUSTOMERS);
-            messagingTemplate.convertAndSend(TOPIC_CUSTOMERS, MESSAGE_RELOAD_CUSTOMER);
-            log.debug("WebSocket: Customer reload notification sent successfully");
+            log.debug("WebSocket: Sending customer reload notification to {}", TOPIC_CUSTOMERS);
+            broadcaster.send(TOPIC_CUSTOMERS, MESSAGE_RELOAD_CUSTOMER);
         } catch (Exception ex) {
             log.error("WebSocket: Failed to send customer reload notification: {}", ex.getMessage(), ex);
         }
@@ -86,10 +114,9 @@ public class WebSocketService {
      */
     public void sendNotificationToUser(String userId, String message) {
         try {
-            String destination = "/queue/notifications/" + userId;
-            log.info("WebSocket: Sending notification to user {} at {}", userId, destination);
-            messagingTemplate.convertAndSend(destination, message);
-            log.debug("WebSocket: Notification sent to user {} successfully", userId);
+            String destination = QUEUE_NOTIFICATIONS_PREFIX + userId;
+            log.debug("WebSocket: Sending notification to user {} at {}", userId, destination);
+            broadcaster.send(destination, message);
         } catch (Exception ex) {
             log.error("WebSocket: Failed to send notification to user {}: {}", userId, ex.getMessage(), ex);
         }
@@ -102,303 +129,351 @@ public class WebSocketService {
      */
     public void notifyPasswordChanged(String userId) {
         try {
-            log.info("WebSocket: Sending password changed notification to user {}", userId);
+            log.debug("WebSocket: Sending password changed notification to user {}", userId);
             // Send to user-specific topic so all their devices receive it
             String destination = "/topic/auth/" + userId;
-            messagingTemplate.convertAndSend(destination, MESSAGE_PASSWORD_CHANGED);
-            log.debug("WebSocket: Password changed notification sent to user {} successfully", userId);
+            broadcaster.send(destination, MESSAGE_PASSWORD_CHANGED);
         } catch (Exception ex) {
             log.error("WebSocket: Failed to send password changed notification to user {}: {}", userId, ex.getMessage(), ex);
         }
     }
 
     // ========== Structured Booking Event Methods ==========
+    // notify* chỉ publish event nhẹ (id + loại); RealtimeEventDispatcher nhận sau commit, gộp theo entity
+    // rồi gọi publishBooking/publishTracking trên pool riêng
 
-    /**
-     * Gửi structured booking event với thông tin chi tiết
-     * Frontend có thể update specific booking thay vì reload toàn bộ
-     */
-    private void sendBookingEvent(BookingEventDto event) {
-        try {
-            log.info("WebSocket: Sending booking event {} for booking {} to {}", 
-                event.getEventType(), event.getBookingId(), TOPIC_BOOKINGS);
-            messagingTemplate.convertAndSend(TOPIC_BOOKINGS, event);
-            log.debug("WebSocket: Booking event sent successfully");
-        } catch (Exception ex) {
-            log.error("WebSocket: Failed to send booking event: {}", ex.getMessage(), ex);
+    private void publishBookingEvent(Booking booking, BookingEventDto.BookingEventType legacyType,
+                                     String eventName, String customMessage) {
+        if (booking == null || booking.getBookingId() == null) {
+            // Booking chưa persist → không có id để gộp/gửi; ghi log để lộ chỗ gọi sai thứ tự
+            log.warn("WebSocket: Skipping {} booking event without bookingId", eventName);
+            return;
         }
+        eventPublisher.publishEvent(BookingRealtimeEvent.builder()
+            .bookingId(booking.getBookingId())
+            .eventName(eventName)
+            .legacyType(legacyType)
+            .message(customMessage)
+            .build());
     }
 
     /**
      * Notify booking created
      */
     public void notifyBookingCreated(Booking booking) {
-        BookingInfoDto bookingData = bookingInfoService.toBookingInfoDto(booking);
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.CREATED)
-            .bookingId(booking.getBookingId())
-            .bookingCode(booking.getBookingCode())
-            .bookingData(bookingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Booking #%s đã được tạo", booking.getBookingCode()))
-            .build();
-        sendBookingEvent(event);
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.CREATED, "CREATED", null);
     }
 
     /**
      * Notify booking confirmed (PENDING → CONFIRMED)
      */
     public void notifyBookingConfirmed(Booking booking) {
-        BookingInfoDto bookingData = bookingInfoService.toBookingInfoDto(booking);
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.CONFIRMED)
-            .bookingId(booking.getBookingId())
-            .bookingCode(booking.getBookingCode())
-            .bookingData(bookingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Booking #%s đã được xác nhận", booking.getBookingCode()))
-            .build();
-        sendBookingEvent(event);
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.CONFIRMED, "CONFIRMED", null);
     }
 
     /**
      * Notify booking cancelled
      */
     public void notifyBookingCancelled(Booking booking) {
-        BookingInfoDto bookingData = bookingInfoService.toBookingInfoDto(booking);
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.CANCELLED)
-            .bookingId(booking.getBookingId())
-            .bookingCode(booking.getBookingCode())
-            .bookingData(bookingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Booking #%s đã bị hủy", booking.getBookingCode()))
-            .build();
-        sendBookingEvent(event);
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.CANCELLED, "CANCELLED", null);
     }
 
     /**
      * Notify booking checked in (CONFIRMED → CHECKED_IN)
      */
     public void notifyBookingCheckedIn(Booking booking) {
-        BookingInfoDto bookingData = bookingInfoService.toBookingInfoDto(booking);
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.CHECKED_IN)
-            .bookingId(booking.getBookingId())
-            .bookingCode(booking.getBookingCode())
-            .bookingData(bookingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Booking #%s đã được check-in", booking.getBookingCode()))
-            .build();
-        sendBookingEvent(event);
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.CHECKED_IN, "CHECKED_IN", null);
     }
 
     /**
      * Notify booking started (CHECKED_IN → IN_PROGRESS)
      */
     public void notifyBookingStarted(Booking booking) {
-        BookingInfoDto bookingData = bookingInfoService.toBookingInfoDto(booking);
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.STARTED)
-            .bookingId(booking.getBookingId())
-            .bookingCode(booking.getBookingCode())
-            .bookingData(bookingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Dịch vụ cho booking #%s đã bắt đầu", booking.getBookingCode()))
-            .build();
-        sendBookingEvent(event);
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.STARTED, "STARTED", null);
     }
 
     /**
      * Notify booking completed (IN_PROGRESS → COMPLETED)
      */
     public void notifyBookingCompleted(Booking booking) {
-        BookingInfoDto bookingData = bookingInfoService.toBookingInfoDto(booking);
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.COMPLETED)
-            .bookingId(booking.getBookingId())
-            .bookingCode(booking.getBookingCode())
-            .bookingData(bookingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Dịch vụ cho booking #%s đã hoàn thành", booking.getBookingCode()))
-            .build();
-        sendBookingEvent(event);
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.COMPLETED, "COMPLETED", null);
     }
 
     /**
      * Notify booking updated (thông tin, schedule, items, etc.)
      */
     public void notifyBookingUpdated(Booking booking) {
-        BookingInfoDto bookingData = bookingInfoService.toBookingInfoDto(booking);
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.UPDATED)
-            .bookingId(booking.getBookingId())
-            .bookingCode(booking.getBookingCode())
-            .bookingData(bookingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Booking #%s đã được cập nhật", booking.getBookingCode()))
-            .build();
-        sendBookingEvent(event);
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.UPDATED, "UPDATED", null);
     }
 
     /**
      * Notify booking updated với custom message
      */
     public void notifyBookingUpdated(Booking booking, String customMessage) {
-        BookingInfoDto bookingData = bookingInfoService.toBookingInfoDto(booking);
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.UPDATED)
-            .bookingId(booking.getBookingId())
-            .bookingCode(booking.getBookingCode())
-            .bookingData(bookingData)
-            .timestamp(LocalDateTime.now())
-            .message(customMessage)
-            .build();
-        sendBookingEvent(event);
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.UPDATED, "UPDATED", customMessage);
     }
 
     /**
-     * Notify booking deleted
-     * Note: Booking đã bị xóa nên không có bookingData
+     * Notify booking deleted (soft delete)
+     * Note: event cũ trên /topic/bookings dùng type CANCELLED và không có bookingData
      */
-    public void notifyBookingDeleted(UUID bookingId, String bookingCode) {
-        BookingEventDto event = BookingEventDto.builder()
-            .eventType(BookingEventDto.BookingEventType.CANCELLED) // Use CANCELLED type for deleted
-            .bookingId(bookingId)
-            .bookingCode(bookingCode)
-            .bookingData(null) // Booking đã bị xóa
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Booking #%s đã bị xóa", bookingCode))
-            .build();
-        sendBookingEvent(event);
+    public void notifyBookingDeleted(Booking booking) {
+        publishBookingEvent(booking, BookingEventDto.BookingEventType.CANCELLED, "DELETED", null);
     }
 
-    // ========== Structured Tracking Event Methods ==========
-
     /**
-     * Gửi structured tracking event với thông tin chi tiết
-     * Frontend có thể update specific tracking thay vì reload toàn bộ
+     * Gửi booking event (gọi bởi RealtimeEventDispatcher, sau commit)
+     * - Load booking mới nhất + build delta/DTO trong transaction read-only, gửi sau khi đóng transaction
+     * - Delta gọn → /topic/branches/{branchId}/bookings, /topic/bays/{bayId}/bookings và /user/queue/bookings của khách
      */
-    private void sendTrackingEvent(TrackingEventDto event) {
-        try {
-            log.info("WebSocket: Sending tracking event {} for tracking {} to {}", 
-                event.getEventType(), event.getTrackingId(), TOPIC_TRACKINGS);
-            messagingTemplate.convertAndSend(TOPIC_TRACKINGS, event);
-            log.debug("WebSocket: Tracking event sent successfully");
-        } catch (Exception ex) {
-            log.error("WebSocket: Failed to send tracking event: {}", ex.getMessage(), ex);
+    public void publishBooking(BookingRealtimeEvent event) {
+        List<Outbound> messages = readOnlyTransaction().execute(status ->
+            bookingRepository.findByIdWithDetails(event.getBookingId())
+                .map(booking -> bookingMessages(booking, event))
+                .orElseGet(List::of));
+        if (messages == null || messages.isEmpty()) {
+            log.debug("WebSocket: Booking {} not found, skipping {} event", event.getBookingId(), event.getEventName());
+            return;
         }
+        messages.forEach(this::deliver);
+    }
+
+    private List<Outbound> bookingMessages(Booking booking, BookingRealtimeEvent event) {
+        UUID bookingId = booking.getBookingId();
+        String bookingCode = booking.getBookingCode();
+        UUID branchId = booking.getBranch() != null ? booking.getBranch().getBranchId() : null;
+        UUID bayId = booking.getServiceBay() != null ? booking.getServiceBay().getBayId() : null;
+        UUID customerId = booking.getCustomer() != null ? booking.getCustomer().getUserId() : null;
+        String message = event.getMessage() != null ? event.getMessage() : bookingMessage(event.getEventName(), bookingCode);
+
+        UUID previousBayId = (UUID) deltaTracker.lastField(EntityDeltaDto.EntityType.BOOKING, bookingId, "bay_id");
+        EntityDeltaDto delta = deltaTracker.delta(
+            EntityDeltaDto.EntityType.BOOKING, bookingId, booking.getVersion(), deltaTracker.bookingFields(booking));
+        delta.setEventType(event.getEventName());
+        delta.setBookingId(bookingId);
+        delta.setBookingCode(bookingCode);
+        delta.setBranchId(branchId);
+        delta.setBayId(bayId);
+        delta.setMessage(message);
+
+        log.debug("WebSocket: Publishing booking {} {} (branch={}, bay={}, full={})",
+            event.getEventName(), bookingCode, branchId, bayId, delta.isFull());
+        List<Outbound> messages = new ArrayList<>();
+        if (branchId != null) {
+            messages.add(Outbound.topic(TOPIC_BRANCHES_PREFIX + branchId + BOOKINGS_SUFFIX, delta));
+        }
+        if (bayId != null) {
+            messages.add(Outbound.topic(TOPIC_BAYS_PREFIX + bayId + BOOKINGS_SUFFIX, delta));
+        }
+        // Booking chuyển bay → bay cũ cũng cần biết để bỏ booking khỏi lịch
+        if (previousBayId != null && !Objects.equals(previousBayId, bayId)) {
+            messages.add(Outbound.topic(TOPIC_BAYS_PREFIX + previousBayId + BOOKINGS_SUFFIX, delta));
+        }
+        if (customerId != null) {
+            messages.add(Outbound.user(customerId, USER_QUEUE_BOOKINGS, delta));
+        }
+        if (legacyGlobalTopics) {
+            messages.add(Outbound.topic(TOPIC_BOOKINGS, BookingEventDto.builder()
+                .eventType(event.getLegacyType())
+                .bookingId(bookingId)
+                .bookingCode(bookingCode)
+                .bookingData("DELETED".equals(event.getEventName()) ? null : bookingInfoService.toBookingInfoDto(booking))
+                .timestamp(LocalDateTime.now())
+                .message(message)
+                .build()));
+        }
+        return messages;
+    }
+
+    private static String bookingMessage(String eventName, String bookingCode) {
+        return switch (eventName) {
+            case "CREATED" -> String.format("Booking #%s đã được tạo", bookingCode);
+            case "CONFIRMED" -> String.format("Booking #%s đã được xác nhận", bookingCode);
+            case "CANCELLED" -> String.format("Booking #%s đã bị hủy", bookingCode);
+            case "CHECKED_IN" -> String.format("Booking #%s đã được check-in", bookingCode);
+            case "STARTED" -> String.format("Dịch vụ cho booking #%s đã bắt đầu", bookingCode);
+            case "COMPLETED" -> String.format("Dịch vụ cho booking #%s đã hoàn thành", bookingCode);
+            case "DELETED" -> String.format("Booking #%s đã bị xóa", bookingCode);
+            default -> String.format("Booking #%s đã được cập nhật", bookingCode);
+        };
+    }
+
+    // ========== Structured Tracking Event Methods ==========
+
+    private void publishTrackingEvent(ServiceProcessTracking tracking, TrackingEventDto.TrackingEventType eventType,
+                                      String customMessage) {
+        eventPublisher.publishEvent(TrackingRealtimeEvent.builder()
+            .trackingId(tracking.getTrackingId())
+            .eventType(eventType)
+            .message(customMessage)
+            .build());
     }
 
     /**
      * Notify tracking created
      */
     public void notifyTrackingCreated(ServiceProcessTracking tracking) {
-        ServiceProcessTrackingInfoDto trackingData = serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(tracking);
-        String bookingCode = tracking.getBooking() != null ? tracking.getBooking().getBookingCode() : "N/A";
-        TrackingEventDto event = TrackingEventDto.builder()
-            .eventType(TrackingEventDto.TrackingEventType.CREATED)
-            .trackingId(tracking.getTrackingId())
-            .bookingId(tracking.getBooking() != null ? tracking.getBooking().getBookingId() : null)
-            .bookingCode(bookingCode)
-            .trackingData(trackingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Tracking mới đã được tạo cho booking #%s", bookingCode))
-            .build();
-        sendTrackingEvent(event);
+        publishTrackingEvent(tracking, TrackingEventDto.TrackingEventType.CREATED, null);
     }
 
     /**
      * Notify tracking started (PENDING → IN_PROGRESS)
      */
     public void notifyTrackingStarted(ServiceProcessTracking tracking) {
-        ServiceProcessTrackingInfoDto trackingData = serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(tracking);
-        String bookingCode = tracking.getBooking() != null ? tracking.getBooking().getBookingCode() : "N/A";
-        String stepName = tracking.getServiceStep() != null ? tracking.getServiceStep().getName() : "N/A";
-        TrackingEventDto event = TrackingEventDto.builder()
-            .eventType(TrackingEventDto.TrackingEventType.STARTED)
-            .trackingId(tracking.getTrackingId())
-            .bookingId(tracking.getBooking() != null ? tracking.getBooking().getBookingId() : null)
-            .bookingCode(bookingCode)
-            .trackingData(trackingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Bước '%s' đã bắt đầu cho booking #%s", stepName, bookingCode))
-            .build();
-        sendTrackingEvent(event);
+        publishTrackingEvent(tracking, TrackingEventDto.TrackingEventType.STARTED, null);
     }
 
     /**
      * Notify tracking updated (notes, progress, etc.)
      */
     public void notifyTrackingUpdated(ServiceProcessTracking tracking) {
-        ServiceProcessTrackingInfoDto trackingData = serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(tracking);
-        String bookingCode = tracking.getBooking() != null ? tracking.getBooking().getBookingCode() : "N/A";
-        TrackingEventDto event = TrackingEventDto.builder()
-            .eventType(TrackingEventDto.TrackingEventType.UPDATED)
-            .trackingId(tracking.getTrackingId())
-            .bookingId(tracking.getBooking() != null ? tracking.getBooking().getBookingId() : null)
-            .bookingCode(bookingCode)
-            .trackingData(trackingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Tracking đã được cập nhật cho booking #%s", bookingCode))
-            .build();
-        sendTrackingEvent(event);
+        publishTrackingEvent(tracking, TrackingEventDto.TrackingEventType.UPDATED, null);
     }
 
     /**
      * Notify tracking updated với custom message
      */
     public void notifyTrackingUpdated(ServiceProcessTracking tracking, String customMessage) {
-        ServiceProcessTrackingInfoDto trackingData = serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(tracking);
-        String bookingCode = tracking.getBooking() != null ? tracking.getBooking().getBookingCode() : "N/A";
-        TrackingEventDto event = TrackingEventDto.builder()
-            .eventType(TrackingEventDto.TrackingEventType.UPDATED)
-            .trackingId(tracking.getTrackingId())
-            .bookingId(tracking.getBooking() != null ? tracking.getBooking().getBookingId() : null)
-            .bookingCode(bookingCode)
-            .trackingData(trackingData)
-            .timestamp(LocalDateTime.now())
-            .message(customMessage)
-            .build();
-        sendTrackingEvent(event);
+        publishTrackingEvent(tracking, TrackingEventDto.TrackingEventType.UPDATED, customMessage);
     }
 
     /**
      * Notify tracking completed (IN_PROGRESS → COMPLETED)
      */
     public void notifyTrackingCompleted(ServiceProcessTracking tracking) {
-        ServiceProcessTrackingInfoDto trackingData = serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(tracking);
-        String bookingCode = tracking.getBooking() != null ? tracking.getBooking().getBookingCode() : "N/A";
-        String stepName = tracking.getServiceStep() != null ? tracking.getServiceStep().getName() : "N/A";
-        TrackingEventDto event = TrackingEventDto.builder()
-            .eventType(TrackingEventDto.TrackingEventType.COMPLETED)
-            .trackingId(tracking.getTrackingId())
-            .bookingId(tracking.getBooking() != null ? tracking.getBooking().getBookingId() : null)
-            .bookingCode(bookingCode)
-            .trackingData(trackingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Bước '%s' đã hoàn thành cho booking #%s", stepName, bookingCode))
-            .build();
-        sendTrackingEvent(event);
+        publishTrackingEvent(tracking, TrackingEventDto.TrackingEventType.COMPLETED, null);
     }
 
     /**
      * Notify tracking cancelled
      */
     public void notifyTrackingCancelled(ServiceProcessTracking tracking) {
-        ServiceProcessTrackingInfoDto trackingData = serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(tracking);
-        String bookingCode = tracking.getBooking() != null ? tracking.getBooking().getBookingCode() : "N/A";
-        String stepName = tracking.getServiceStep() != null ? tracking.getServiceStep().getName() : "N/A";
-        TrackingEventDto event = TrackingEventDto.builder()
-            .eventType(TrackingEventDto.TrackingEventType.CANCELLED)
-            .trackingId(tracking.getTrackingId())
-            .bookingId(tracking.getBooking() != null ? tracking.getBooking().getBookingId() : null)
-            .bookingCode(bookingCode)
-            .trackingData(trackingData)
-            .timestamp(LocalDateTime.now())
-            .message(String.format("Bước '%s' đã bị hủy cho booking #%s", stepName, bookingCode))
-            .build();
-        sendTrackingEvent(event);
+        publishTrackingEvent(tracking, TrackingEventDto.TrackingEventType.CANCELLED, null);
     }
-}
 
+    /**
+     * Gửi tracking event (gọi bởi RealtimeEventDispatcher, sau commit)
+     * - Delta gọn → /topic/branches/{branchId}/trackings, /topic/bays/{bayId}/trackings và /user/queue/trackings của khách
+     */
+    public void publishTracking(TrackingRealtimeEvent event) {
+        List<Outbound> messages = readOnlyTransaction().execute(status ->
+            trackingRepository.findById(event.getTrackingId())
+                .map(tracking -> trackingMessages(tracking, event))
+                .orElseGet(List::of));
+        if (messages == null || messages.isEmpty()) {
+            log.debug("WebSocket: Tracking {} not found, skipping {} event", event.getTrackingId(), event.getEventType());
+            return;
+        }
+        messages.forEach(this::deliver);
+    }
+
+    private List<Outbound> trackingMessages(ServiceProcessTracking tracking, TrackingRealtimeEvent event) {
+        UUID trackingId = tracking.getTrackingId();
+        Booking booking = tracking.getBooking();
+        UUID bookingId = booking != null ? booking.getBookingId() : null;
+        String bookingCode = booking != null ? booking.getBookingCode() : "N/A";
+        UUID branchId = booking != null && booking.getBranch() != null ? booking.getBranch().getBranchId() : null;
+        UUID customerId = booking != null && booking.getCustomer() != null ? booking.getCustomer().getUserId() : null;
+        UUID bayId = tracking.getBay() != null ? tracking.getBay().getBayId() : null;
+        String message = event.getMessage() != null ? event.getMessage() : trackingMessage(event.getEventType(), tracking);
+
+        EntityDeltaDto delta = deltaTracker.delta(
+            EntityDeltaDto.EntityType.TRACKING, trackingId, tracking.getVersion(), deltaTracker.trackingFields(tracking));
+        delta.setEventType(event.getEventType().name());
+        delta.setBookingId(bookingId);
+        delta.setBookingCode(bookingCode);
+        delta.setBranchId(branchId);
+        delta.setBayId(bayId);
+        delta.setMessage(message);
+
+        log.debug("WebSocket: Publishing tracking {} {} for booking {} (branch={}, bay={}, full={})",
+            event.getEventType(), trackingId, bookingCode, branchId, bayId, delta.isFull());
+        List<Outbound> messages = new ArrayList<>();
+        if (branchId != null) {
+            messages.add(Outbound.topic(TOPIC_BRANCHES_PREFIX + branchId + TRACKINGS_SUFFIX, delta));
+        }
+        if (bayId != null) {
+            messages.add(Outbound.topic(TOPIC_BAYS_PREFIX + bayId + TRACKINGS_SUFFIX, delta));
+        }
+        if (customerId != null) {
+            messages.add(Outbound.user(customerId, USER_QUEUE_TRACKINGS, delta));
+        }
+        if (legacyGlobalTopics) {
+            messages.add(Outbound.topic(TOPIC_TRACKINGS, TrackingEventDto.builder()
+                .eventType(event.getEventType())
+                .trackingId(trackingId)
+                .bookingId(bookingId)
+                .bookingCode(bookingCode)
+                .trackingData(serviceProcessTrackingMapper.toServiceProcessTrackingInfoDto(tracking))
+                .timestamp(LocalDateTime.now())
+                .message(message)
+                .build()));
+        }
+        return messages;
+    }
+
+    private static String trackingMessage(TrackingEventDto.TrackingEventType eventType, ServiceProcessTracking tracking) {
+        return switch (eventType) {
+            case CREATED -> String.format("Tracking mới đã được tạo cho booking #%s", bookingCode(tracking));
+            case STARTED -> String.format("Bước '%s' đã bắt đầu cho booking #%s", stepName(tracking), bookingCode(tracking));
+            case COMPLETED -> String.format("Bước '%s' đã hoàn thành cho booking #%s", stepName(tracking), bookingCode(tracking));
+            case CANCELLED -> String.format("Bước '%s' đã bị hủy cho booking #%s", stepName(tracking), bookingCode(tracking));
+            default -> String.format("Tracking đã được cập nhật cho booking #%s", bookingCode(tracking));
+        };
+    }
+
+    private static String stepName(ServiceProcessTracking tracking) {
+        return tracking.getServiceStep() != null ? tracking.getServiceStep().getName() : "N/A";
+    }
+
+    private static String bookingCode(ServiceProcessTracking tracking) {
+        return tracking.getBooking() != null ? tracking.getBooking().getBookingCode() : "N/A";
+    }
+
+    // ========== Helpers ==========
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private void deliver(Outbound outbound) {
+        if (outbound.userId() != null) {
+            sendToUser(outbound.userId(), outbound.destination(), outbound.payload());
+        } else {
+            send(outbound.destination(), outbound.payload());
+        }
+    }
+
+    private void send(String destination, Object payload) {
+        try {
+            broadcaster.send(destination, payload);
+            log.debug("WebSocket: Sent to {}", destination);
+        } catch (Exception ex) {
+            log.error("WebSocket: Failed to send to {}: {}", destination, ex.getMessage(), ex);
+        }
+    }
+
+    private void sendToUser(UUID userId, String destination, Object payload) {
+        try {
+            broadcaster.sendToUser(userId.toString(), destination, payload);
+            log.debug("WebSocket: Sent to user {} at {}", userId, destination);
+        } catch (Exception ex) {
+            log.error("WebSocket: Failed to send to user {} at {}: {}", userId, destination, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Message đã build xong, gửi sau khi đóng transaction (không giữ connection DB trong lúc fan-out)
+     */
+    private record Outbound(String destination, UUID userId, Object payload) {
+        static Outbound topic(String destination, Object payload) {
+            return new Outbound(destination, null, payload);
+        }
+
+        static Outbound user(UUID userId, String destination, Object payload) {
+            return new Outbound(destination, userId, payload);
+        }
+    }
+}
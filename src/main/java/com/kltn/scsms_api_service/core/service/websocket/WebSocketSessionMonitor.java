@@ -0,0 +1,148 @@
+package com.kltn.scsms_api_service.core.service.websocket;
+
+import com.kltn.scsms_api_service.configs.property.WebSocketTransportProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Theo dõi và giới hạn từng session WebSocket
+ * - Buffer riêng của session chính là decorator của SubProtocolWebSocketHandler (xem WebSocketBrokerConfiguration),
+ *   theo app.websocket.transport: client chậm chỉ làm đầy buffer của chính nó;
+ *   DROP → bỏ message mới khi buffer đầy, TERMINATE → đóng session (client reconnect + resync)
+ * - Metrics: websocket.sessions, websocket.users, websocket.session.buffer.bytes, websocket.send.latency,
+ *   websocket.messages.dropped, websocket.sessions.terminated, websocket.channel.queue{channel}
+ */
+@Slf4j
+@Component
+public class WebSocketSessionMonitor {
+
+    private final WebSocketTransportProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, MonitoredSession> sessions = new ConcurrentHashMap<>();
+    private final Timer sendLatency;
+    private final Counter droppedMessages;
+    private final Counter terminatedSessions;
+
+    public WebSocketSessionMonitor(WebSocketTransportProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.sendLatency = Timer.builder("websocket.send.latency").register(meterRegistry);
+        this.droppedMessages = Counter.builder("websocket.messages.dropped").register(meterRegistry);
+        this.terminatedSessions = Counter.builder("websocket.sessions.terminated").register(meterRegistry);
+        Gauge.builder("websocket.sessions", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("websocket.session.buffer.bytes", sessions, map -> map.values().stream()
+                        .mapToLong(ConcurrentWebSocketSessionDecorator::getBufferSize).sum())
+                .register(meterRegistry);
+    }
+
+    /**
+     * SubProtocolWebSocketHandler dùng MonitoredSession làm buffer thật của session (thay decorator mặc định)
+     */
+    public SubProtocolWebSocketHandler createHandler(MessageChannel clientInboundChannel,
+                                                     SubscribableChannel clientOutboundChannel) {
+        return new SubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel) {
+            @Override
+            protected WebSocketSession decorateSession(WebSocketSession session) {
+                MonitoredSession monitored = new MonitoredSession(session, getSendTimeLimit(), getSendBufferSizeLimit());
+                sessions.put(session.getId(), monitored);
+                return monitored;
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                if (CloseStatus.SESSION_NOT_RELIABLE.equals(closeStatus)) {
+                    terminatedSessions.increment();
+                    log.debug("WebSocket: Session {} closed as slow consumer", session.getId());
+                }
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * Gauge hàng đợi của client inbound/outbound channel (chỉ khi dùng thread pool, virtual thread không có hàng đợi)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void registerChannelGauges(ApplicationReadyEvent event) {
+        registerQueueGauge(event, "clientInboundChannelExecutor", "inbound");
+        registerQueueGauge(event, "clientOutboundChannelExecutor", "outbound");
+        SimpUserRegistry userRegistry = event.getApplicationContext().getBeanProvider(SimpUserRegistry.class).getIfAvailable();
+        if (userRegistry != null) {
+            Gauge.builder("websocket.users", userRegistry, SimpUserRegistry::getUserCount).register(meterRegistry);
+        }
+    }
+
+    private void registerQueueGauge(ApplicationReadyEvent event, String beanName, String channel) {
+        if (!event.getApplicationContext().containsBean(beanName)) {
+            return;
+        }
+        if (event.getApplicationContext().getBean(beanName) instanceof ThreadPoolTaskExecutor executor) {
+            Gauge.builder("websocket.channel.queue", executor, pool -> pool.getThreadPoolExecutor().getQueue().size())
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+            Gauge.builder("websocket.channel.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                    .tag("channel", channel)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Buffer riêng của 1 session; việc ghi thật xuống socket được đo thời gian
+     */
+    private final class MonitoredSession extends ConcurrentWebSocketSessionDecorator {
+
+        MonitoredSession(WebSocketSession session, int sendTimeLimit, int bufferSizeLimit) {
+            super(new TimedSession(session), sendTimeLimit, bufferSizeLimit);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (properties.getOverflowStrategy() == WebSocketTransportProperties.OverflowStrategy.DROP
+                    && getBufferSize() + message.getPayloadLength() > getBufferSizeLimit()) {
+                droppedMessages.increment();
+                return;
+            }
+            super.sendMessage(message);
+        }
+    }
+
+    private final class TimedSession extends WebSocketSessionDecorator {
+
+        TimedSession(WebSocketSession session) {
+            super(session);
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            long start = System.nanoTime();
+            try {
+                super.sendMessage(message);
+            } finally {
+                sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -117,5 +117,40 @@ public class DraftContextHolder {
         servicesResponseHolder.remove();
         availabilityResponseHolder.remove();
     }
+    
+    /**
+     * Chụp toàn bộ context của current thread (dùng khi chuyển call sang thread khác, vd. LLM gateway)
+     */
+    public static Snapshot capture() {
+        return new Snapshot(
+            draftIdHolder.get(),
+            sessionIdHolder.get(),
+            vehiclesResponseHolder.get(),
+            branchesResponseHolder.get(),
+            servicesResponseHolder.get(),
+            availabilityResponseHolder.get()
+        );
+    }
+    
+    /**
+     * Khôi phục context đã chụp vào current thread
+     */
+    public static void restore(Snapshot snapshot) {
+        draftIdHolder.set(snapshot.draftId());
+        sessionIdHolder.set(snapshot.sessionId());
+        vehiclesResponseHolder.set(snapshot.vehiclesResponse());
+        branchesResponseHolder.set(snapshot.branchesResponse());
+        servicesResponseHolder.set(snapshot.servicesResponse());
+        availabilityResponseHolder.set(snapshot.availabilityResponse());
+    }
+    
+    public record Snapshot(
+        UUID draftId,
+        String sessionId,
+        GetCustomerVehiclesResponse vehiclesResponse,
+        GetBranchesResponse branchesResponse,
+        GetServicesResponse servicesResponse,
+        AvailabilityResponse availabilityResponse
+    ) {
+    }
 }
-
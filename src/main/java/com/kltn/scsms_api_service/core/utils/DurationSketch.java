@@ -0,0 +1,148 @@
+package com.kltn.scsms_api_service.core.utils;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sketch phân vị dạng streaming cho thời lượng (phút), kiểu DDSketch: bucket theo thang log
+ * - Sai số tương đối của mọi phân vị ≤ RELATIVE_ACCURACY, kích thước chỉ phụ thuộc khoảng giá trị (~200 bucket cho 1 phút..1 ngày)
+ * - Cộng dồn từng mẫu, merge được giữa các sketch, lưu DB dạng chuỗi "index:count,..."
+ * - decay(): chia đôi mọi bucket để mẫu mới có trọng số lớn hơn dữ liệu cũ
+ */
+public class DurationSketch {
+
+    /** Cố định: sketch đã lưu chỉ merge được khi cùng gamma */
+    public static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_VALUE = 1.0;
+
+    private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+    private long count;
+    private double sum;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+
+    public static DurationSketch empty() {
+        return new DurationSketch();
+    }
+
+    public static DurationSketch decode(String encoded, long count, double sum, Double min, Double max) {
+        DurationSketch sketch = new DurationSketch();
+        if (encoded != null && !encoded.isBlank()) {
+            for (String entry : encoded.split(",")) {
+                int separator = entry.indexOf(':');
+                if (separator > 0) {
+                    sketch.buckets.merge(Integer.parseInt(entry.substring(0, separator).trim()),
+                            Long.parseLong(entry.substring(separator + 1).trim()), Long::sum);
+                }
+            }
+        }
+        sketch.count = sketch.buckets.values().stream().mapToLong(Long::longValue).sum();
+        // sum lưu theo tổng mẫu lúc ghi; nếu lệch với bucket (dữ liệu cũ) thì scale lại theo count
+        sketch.sum = count > 0 ? sum * sketch.count / count : 0;
+        sketch.min = min != null ? min : Double.NaN;
+        sketch.max = max != null ? max : Double.NaN;
+        return sketch;
+    }
+
+    public String encode() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<Integer, Long> entry : buckets.entrySet()) {
+            if (!builder.isEmpty()) {
+                builder.append(',');
+            }
+            builder.append(entry.getKey()).append(':').append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    public void add(double minutes) {
+        double value = Math.max(minutes, MIN_VALUE);
+        buckets.merge(indexOf(value), 1L, Long::sum);
+        count++;
+        sum += value;
+        min = Double.isNaN(min) ? value : Math.min(min, value);
+        max = Double.isNaN(max) ? value : Math.max(max, value);
+    }
+
+    public void merge(DurationSketch other) {
+        other.buckets.forEach((index, bucketCount) -> buckets.merge(index, bucketCount, Long::sum));
+        count += other.count;
+        sum += other.sum;
+        if (!Double.isNaN(other.min)) {
+            min = Double.isNaN(min) ? other.min : Math.min(min, other.min);
+        }
+        if (!Double.isNaN(other.max)) {
+            max = Double.isNaN(max) ? other.max : Math.max(max, other.max);
+        }
+    }
+
+    /**
+     * Chia đôi số đếm của mọi bucket (bucket còn 0 bị bỏ); min/max giữ nguyên
+     */
+    public void decay() {
+        long before = count;
+        buckets.replaceAll((index, bucketCount) -> bucketCount / 2);
+        buckets.values().removeIf(bucketCount -> bucketCount == 0);
+        count = buckets.values().stream().mapToLong(Long::longValue).sum();
+        sum = before > 0 ? sum * count / before : 0;
+    }
+
+    /**
+     * Phân vị q (0..1); NaN nếu sketch rỗng
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(Math.min(Math.max(q, 0), 1) * (count - 1));
+        long seen = 0;
+        for (Map.Entry<Integer, Long> entry : buckets.entrySet()) {
+            seen += entry.getValue();
+            if (seen > rank) {
+                return clamp(valueOf(entry.getKey()));
+            }
+        }
+        return clamp(valueOf(buckets.lastKey()));
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+
+    public Double getMin() {
+        return Double.isNaN(min) ? null : min;
+    }
+
+    public Double getMax() {
+        return Double.isNaN(max) ? null : max;
+    }
+
+    private double clamp(double value) {
+        if (!Double.isNaN(min)) {
+            value = Math.max(value, min);
+        }
+        if (!Double.isNaN(max)) {
+            value = Math.min(value, max);
+        }
+        return value;
+    }
+
+    private static int indexOf(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    private static double valueOf(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+}
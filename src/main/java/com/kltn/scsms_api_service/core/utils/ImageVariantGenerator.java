@@ -0,0 +1,232 @@
+package com.kltn.scsms_api_service.core.utils;
+
+import com.kltn.scsms_api_service.configs.property.ImageVariantProperties;
+import com.kltn.scsms_api_service.core.entity.enumAttribute.ImageVariant;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sinh ảnh thumb/card/full từ ảnh upload
+ * - Chạy trên pool riêng có giới hạn (app.media.image-variants): decode ảnh lớn tốn CPU/RAM, không để dồn vào request thread
+ * - Ảnh rất lớn được decode với subsampling (gần gấp đôi kích thước full) thay vì decode toàn bộ rồi thu nhỏ
+ * - Variant nhỏ được thu nhỏ từ variant lớn hơn liền trước; JPEG (ảnh có alpha giữ PNG)
+ * - Mọi lỗi (định dạng không đọc được, ảnh quá lớn, pool đầy) chỉ làm mất variant, upload ảnh gốc vẫn thành công
+ */
+@Slf4j
+@Component
+public class ImageVariantGenerator {
+
+    public record EncodedVariant(ImageVariant variant, byte[] data, int width, int height,
+                                 String contentType, String extension) {
+    }
+
+    public record VariantSet(int sourceWidth, int sourceHeight, List<EncodedVariant> variants) {
+    }
+
+    private final ImageVariantProperties properties;
+    private final ThreadPoolExecutor executor;
+    private final Timer processingTimer;
+    private final Counter skippedCounter;
+
+    public ImageVariantGenerator(ImageVariantProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        int poolSize = Math.max(properties.getPoolSize(), 1);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(properties.getQueueCapacity(), 1)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.processingTimer = Timer.builder("media.image.variants.duration").register(meterRegistry);
+        this.skippedCounter = Counter.builder("media.image.variants.skipped").register(meterRegistry);
+        Gauge.builder("media.image.variants.queued", executor, pool -> pool.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sinh variant cho ảnh upload; không phải ảnh / tắt tính năng / pool đầy → Optional.empty()
+     */
+    public CompletableFuture<Optional<VariantSet>> generateAsync(MultipartFile file) {
+        if (file == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return generateAsync(file, file.getOriginalFilename(), file.getContentType());
+    }
+
+    /**
+     * Sinh variant từ nguồn bất kỳ (VD: stream đọc lại object đã upload trực tiếp lên S3)
+     * Nguồn chỉ được mở trên thread của pool
+     */
+    public CompletableFuture<Optional<VariantSet>> generateAsync(InputStreamSource source, String fileName,
+                                                                 String contentType) {
+        if (!properties.isEnabled() || contentType == null || !contentType.startsWith("image/")) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        try {
+            return CompletableFuture.supplyAsync(() -> generate(source, fileName), executor);
+        } catch (RejectedExecutionException e) {
+            skippedCounter.increment();
+            log.warn("Image variant pool is full, storing {} without variants", fileName);
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+    }
+
+    /**
+     * Key S3 của variant, suy ra từ key ảnh gốc
+     * VD: services/abc/xe_1700000000_ab12cd34.png + THUMB (.jpg) → services/abc/xe_1700000000_ab12cd34_thumb.jpg
+     */
+    public String variantKey(String originalKey, EncodedVariant variant) {
+        int slash = originalKey.lastIndexOf('/');
+        int dot = originalKey.lastIndexOf('.');
+        String base = dot > slash ? originalKey.substring(0, dot) : originalKey;
+        return base + "_" + variant.variant().getSuffix() + variant.extension();
+    }
+
+    private Optional<VariantSet> generate(InputStreamSource source, String fileName) {
+        long start = System.nanoTime();
+        try (InputStream inputStream = source.getInputStream();
+             ImageInputStream imageStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageStream != null
+                    ? ImageIO.getImageReaders(imageStream) : Collections.emptyIterator();
+            if (!readers.hasNext()) {
+                return skip(fileName, "unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageStream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > properties.getMaxSourcePixels()) {
+                    return skip(fileName, "image too large (" + width + "x" + height + ")");
+                }
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int factor = Math.max(1, Math.max(width, height) / (largestSize() * 2));
+                param.setSourceSubsampling(factor, factor, 0, 0);
+                BufferedImage current = reader.read(0, param);
+                boolean alpha = current.getColorModel().hasAlpha();
+
+                List<EncodedVariant> variants = new ArrayList<>();
+                List<ImageVariant> bySizeDesc = Arrays.stream(ImageVariant.values())
+                        .sorted(Comparator.comparingInt(properties::sizeOf).reversed())
+                        .toList();
+                for (ImageVariant variant : bySizeDesc) {
+                    current = resize(current, properties.sizeOf(variant), alpha);
+                    variants.add(encode(variant, current, alpha));
+                }
+                return Optional.of(new VariantSet(width, height, variants));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            return skip(fileName, e.getMessage());
+        } finally {
+            processingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Optional<VariantSet> skip(String fileName, String reason) {
+        skippedCounter.increment();
+        log.warn("Skipping image variants for {}: {}", fileName, reason);
+        return Optional.empty();
+    }
+
+    private int largestSize() {
+        return Arrays.stream(ImageVariant.values()).mapToInt(properties::sizeOf).max().orElse(1);
+    }
+
+    /**
+     * Thu nhỏ theo cạnh dài (không phóng to), mỗi bước tối đa /2 bằng bilinear:
+     * nét gần bằng SCALE_SMOOTH nhưng nhanh hơn nhiều
+     */
+    private BufferedImage resize(BufferedImage image, int maxEdge, boolean alpha) {
+        double scale = Math.min(1.0, (double) maxEdge / Math.max(image.getWidth(), image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = image;
+        do {
+            int width = Math.max(targetWidth, current.getWidth() / 2);
+            int height = Math.max(targetHeight, current.getHeight() / 2);
+            BufferedImage next = new BufferedImage(width, height, type);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    private EncodedVariant encode(ImageVariant variant, BufferedImage image, boolean alpha) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(image, "png", output);
+            return new EncodedVariant(variant, output.toByteArray(), image.getWidth(), image.getHeight(),
+                    "image/png", ".png");
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(properties.getJpegQuality());
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return new EncodedVariant(variant, output.toByteArray(), image.getWidth(), image.getHeight(),
+                "image/jpeg", ".jpg");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
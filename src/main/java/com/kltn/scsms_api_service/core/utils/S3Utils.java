@@ -5,21 +5,32 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.*;
 import com.kltn.scsms_api_service.configs.property.AwsS3Properties;
 import com.kltn.scsms_api_service.constants.S3Constants;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 
 /**
  * S3 Utility Class
  * Cung cấp các chức năng để tương tác với AWS S3
+ * - Upload/download qua client v2 async (multipart song song cho file lớn, upload song song cho nhiều file)
+ * - Các thao tác quản lý (copy, xóa, presign, metadata) vẫn dùng client v1
  */
 @Slf4j
 @Component
@@ -28,41 +39,58 @@ public class S3Utils {
 
     private final AmazonS3 amazonS3;
 
+    private final S3AsyncClient s3AsyncClient;
+
+    // Đọc InputStream của file upload để đẩy vào client async (mỗi upload 1 virtual thread)
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
     private final AwsS3Properties awsS3Properties;
 
     /**
-     * Upload file lên S3
+     * Upload file lên S3 (chờ upload xong)
      * 
      * @param file   MultipartFile cần upload
      * @param folder Thư mục đích trên S3
      * @return URL của file đã upload
      */
     public String uploadFile(MultipartFile file, String folder) {
-        try {
-            validateFile(file);
-            String key = generateFileKey(folder, file.getOriginalFilename());
-            String contentType = file.getContentType();
-
-            ObjectMetadata metadata = new ObjectMetadata();
-            metadata.setContentLength(file.getSize());
-            metadata.setContentType(contentType);
-            metadata.setCacheControl(S3Constants.CACHE_CONTROL_PUBLIC);
-
-            // Remove ACL to support buckets with "Block all public access" enabled
-            // Public access should be managed via bucket policy instead
-            amazonS3.putObject(new PutObjectRequest(
-                    awsS3Properties.getS3().getBucketName(),
-                    key,
-                    file.getInputStream(),
-                    metadata));
+        return await(uploadFileAsync(file, folder), "Failed to upload file to S3");
+    }
 
-            log.info("File uploaded successfully: {}", key);
-            return getFileUrl(key);
+    /**
+     * Upload file lên S3 qua client async
+     * File lớn hơn threshold được chia part và upload song song (multipart)
+     * 
+     * @param file   MultipartFile cần upload
+     * @param folder Thư mục đích trên S3
+     * @return Future URL của file đã upload
+     */
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file, String folder) {
+        validateFile(file);
+        String key = generateFileKey(folder, file.getOriginalFilename());
 
+        InputStream inputStream;
+        try {
+            inputStream = file.getInputStream();
         } catch (IOException e) {
-            log.error("Error uploading file to S3: {}", e.getMessage());
-            throw new RuntimeException("Failed to upload file to S3", e);
+            log.error("Error reading upload {}: {}", file.getOriginalFilename(), e.getMessage());
+            return CompletableFuture.failedFuture(new RuntimeException("Failed to upload file to S3", e));
         }
+
+        // Remove ACL to support buckets with "Block all public access" enabled
+        // Public access should be managed via bucket policy instead
+        return s3AsyncClient.putObject(request -> request
+                        .bucket(awsS3Properties.getS3().getBucketName())
+                        .key(key)
+                        .contentType(file.getContentType())
+                        .contentLength(file.getSize())
+                        .cacheControl(S3Constants.CACHE_CONTROL_PUBLIC),
+                AsyncRequestBody.fromInputStream(inputStream, file.getSize(), streamExecutor))
+                .whenComplete((response, error) -> closeQuietly(inputStream))
+                .thenApply(response -> {
+                    log.info("File uploaded successfully: {}", key);
+                    return getFileUrl(key);
+                });
     }
 
     /**
@@ -75,69 +103,125 @@ public class S3Utils {
      * @return URL của file đã upload
      */
     public String uploadFile(byte[] fileData, String fileName, String folder, String contentType) {
-        try {
-            String key = generateFileKey(folder, fileName);
-
-            ObjectMetadata metadata = new ObjectMetadata();
-            metadata.setContentLength(fileData.length);
-            metadata.setContentType(contentType);
-            metadata.setCacheControl(S3Constants.CACHE_CONTROL_PUBLIC);
-
-            InputStream inputStream = new ByteArrayInputStream(fileData);
-            // Remove ACL to support buckets with "Block all public access" enabled
-            amazonS3.putObject(new PutObjectRequest(
-                    awsS3Properties.getS3().getBucketName(),
-                    key,
-                    inputStream,
-                    metadata));
-
-            log.info("File uploaded successfully from byte array: {}", key);
-            return getFileUrl(key);
+        return await(uploadBytesAsync(generateFileKey(folder, fileName), fileData, contentType),
+                "Failed to upload file to S3");
+    }
 
-        } catch (Exception e) {
-            log.error("Error uploading file from byte array to S3: {}", e.getMessage());
-            throw new RuntimeException("Failed to upload file to S3", e);
-        }
+    /**
+     * Upload byte array vào đúng key cho trước (VD: variant của ảnh, key suy ra từ key ảnh gốc)
+     * 
+     * @param key         Key đích trên S3
+     * @param fileData    Dữ liệu file
+     * @param contentType Content type của file
+     * @return Future URL của file đã upload
+     */
+    public CompletableFuture<String> uploadBytesAsync(String key, byte[] fileData, String contentType) {
+        // Remove ACL to support buckets with "Block all public access" enabled
+        return s3AsyncClient.putObject(request -> request
+                        .bucket(awsS3Properties.getS3().getBucketName())
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength((long) fileData.length)
+                        .cacheControl(S3Constants.CACHE_CONTROL_PUBLIC),
+                AsyncRequestBody.fromBytes(fileData))
+                .thenApply(response -> {
+                    log.info("File uploaded successfully from byte array: {}", key);
+                    return getFileUrl(key);
+                });
     }
 
     /**
-     * Upload nhiều file cùng lúc
+     * Upload nhiều file song song (tối đa aws.multipart-upload.max-concurrency file cùng lúc)
+     * File lỗi được bỏ qua, thứ tự URL trả về giữ theo thứ tự file upload thành công
      * 
      * @param files  Danh sách các file cần upload
      * @param folder Thư mục đích
      * @return Danh sách URL của các file đã upload
      */
     public List<String> uploadMultipleFiles(List<MultipartFile> files, String folder) {
+        List<CompletableFuture<String>> uploads = uploadFilesAsync(files, folder);
         List<String> uploadedUrls = new ArrayList<>();
-        for (MultipartFile file : files) {
+        for (int i = 0; i < uploads.size(); i++) {
             try {
-                String url = uploadFile(file, folder);
-                uploadedUrls.add(url);
-            } catch (Exception e) {
-                log.error("Error uploading file {}: {}", file.getOriginalFilename(), e.getMessage());
+                uploadedUrls.add(uploads.get(i).join());
+            } catch (CompletionException e) {
+                log.error("Error uploading file {}: {}", files.get(i).getOriginalFilename(),
+                        e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
             }
         }
         return uploadedUrls;
     }
 
+    /**
+     * Bắt đầu upload song song một loạt file, giới hạn số upload chạy cùng lúc
+     * (thread gọi chờ khi đã đủ số upload đang chạy)
+     * 
+     * @param files  Danh sách các file cần upload
+     * @param folder Thư mục đích
+     * @return Future URL theo đúng thứ tự files
+     */
+    public List<CompletableFuture<String>> uploadFilesAsync(List<MultipartFile> files, String folder) {
+        Semaphore permits = new Semaphore(awsS3Properties.maxConcurrency());
+        List<CompletableFuture<String>> uploads = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<String> upload;
+            try {
+                upload = uploadFileAsync(file, folder);
+            } catch (RuntimeException e) {
+                upload = CompletableFuture.failedFuture(e);
+            }
+            upload.whenComplete((url, error) -> permits.release());
+            uploads.add(upload);
+        }
+        return uploads;
+    }
+
     /**
      * Download file từ S3
+     * Chỉ dùng cho file nhỏ; file lớn dùng downloadFileTo để stream thẳng ra response
      * 
      * @param key Key của file trên S3
      * @return Byte array của file
      */
     public byte[] downloadFile(String key) {
-        try {
-            S3Object s3Object = amazonS3.getObject(awsS3Properties.getS3().getBucketName(), key);
-            S3ObjectInputStream inputStream = s3Object.getObjectContent();
-            byte[] content = inputStream.readAllBytes();
-            inputStream.close();
+        CompletableFuture<byte[]> download = s3AsyncClient.getObject(
+                        request -> request.bucket(awsS3Properties.getS3().getBucketName()).key(key),
+                        AsyncResponseTransformer.toBytes())
+                .thenApply(response -> {
+                    log.info("File downloaded successfully: {}", key);
+                    return response.asByteArray();
+                });
+        return await(download, "Failed to download file from S3");
+    }
 
-            log.info("File downloaded successfully: {}", key);
-            return content;
+    /**
+     * Mở stream đọc file từ S3; người gọi phải đóng stream
+     * 
+     * @param key Key của file trên S3
+     * @return InputStream nội dung file
+     */
+    public InputStream openFileStream(String key) {
+        return await(s3AsyncClient.getObject(
+                        request -> request.bucket(awsS3Properties.getS3().getBucketName()).key(key),
+                        AsyncResponseTransformer.toBlockingInputStream()),
+                "Failed to download file from S3");
+    }
 
-        } catch (Exception e) {
-            log.error("Error downloading file from S3: {}", e.getMessage());
+    /**
+     * Stream file từ S3 thẳng vào OutputStream (không giữ cả file trong bộ nhớ)
+     * 
+     * @param key          Key của file trên S3
+     * @param outputStream Đích ghi (VD: output stream của HTTP response)
+     * @return Số byte đã ghi
+     */
+    public long downloadFileTo(String key, OutputStream outputStream) {
+        try (InputStream inputStream = openFileStream(key)) {
+            long written = inputStream.transferTo(outputStream);
+            log.debug("File streamed successfully: {} ({} bytes)", key, written);
+            return written;
+        } catch (IOException e) {
+            log.error("Error streaming file {} from S3: {}", key, e.getMessage());
             throw new RuntimeException("Failed to download file from S3", e);
         }
     }
@@ -279,6 +363,45 @@ public class S3Utils {
         }
     }
 
+    /**
+     * Tạo presigned URL để client PUT file thẳng lên S3
+     * Content-Type nằm trong chữ ký: client phải gửi đúng header Content-Type đã khai báo
+     * 
+     * @param key               Key của file sẽ upload
+     * @param contentType       Content type client sẽ gửi
+     * @param expirationMinutes Thời gian hết hạn (phút)
+     * @return Presigned URL cho upload
+     */
+    public String generatePresignedUploadUrl(String key, String contentType, int expirationMinutes) {
+        try {
+            GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(
+                    awsS3Properties.getS3().getBucketName(), key, HttpMethod.PUT)
+                    .withExpiration(Date.from(Instant.now().plusSeconds(expirationMinutes * 60L)))
+                    .withContentType(contentType);
+            URL url = amazonS3.generatePresignedUrl(request);
+
+            log.info("Presigned upload URL generated for file: {}", key);
+            return url.toString();
+
+        } catch (Exception e) {
+            log.error("Error generating presigned upload URL: {}", e.getMessage());
+            throw new RuntimeException("Failed to generate presigned upload URL", e);
+        }
+    }
+
+    /**
+     * Validate file sắp upload trực tiếp và sinh key duy nhất cho nó
+     * 
+     * @param folder   Thư mục đích
+     * @param fileName Tên file gốc
+     * @param fileSize Kích thước client khai báo (bytes)
+     * @return Key duy nhất
+     */
+    public String generateUploadKey(String folder, String fileName, long fileSize) {
+        validateFile(fileName, fileSize);
+        return generateFileKey(folder, fileName);
+    }
+
     /**
      * Kiểm tra file có tồn tại không
      * 
@@ -382,6 +505,35 @@ public class S3Utils {
         }
     }
 
+    /**
+     * Chờ kết quả async, lỗi được log và bọc lại như các thao tác S3 khác
+     */
+    private <T> T await(CompletableFuture<T> future, String errorMessage) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            log.error("{}: {}", errorMessage, cause.getMessage());
+            if (cause instanceof IllegalArgumentException illegalArgument) {
+                throw illegalArgument;
+            }
+            throw new RuntimeException(errorMessage, cause);
+        }
+    }
+
+    private void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            log.debug("Error closing upload stream: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamExecutor.shutdown();
+    }
+
     /**
      * Generate unique file key
      * 
@@ -410,14 +562,18 @@ public class S3Utils {
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("File cannot be empty");
         }
+        validateFile(file.getOriginalFilename(), file.getSize());
+    }
 
-        String originalFilename = file.getOriginalFilename();
+    /**
+     * Validate tên + kích thước file (dùng chung cho upload qua API và upload trực tiếp bằng presigned URL)
+     */
+    private void validateFile(String originalFilename, long fileSize) {
         if (originalFilename == null || originalFilename.trim().isEmpty()) {
             throw new IllegalArgumentException("File name cannot be empty");
         }
 
         String extension = getFileExtension(originalFilename).toLowerCase();
-        long fileSize = file.getSize();
 
         // Check allowed extensions first
         if (!isAllowedExtension(extension)) {
@@ -0,0 +1,71 @@
+package com.kltn.scsms_api_service.core.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa text tiếng Việt cho tìm kiếm gần đúng
+ * - Bỏ dấu (kể cả đ/Đ → d), lowercase
+ * - Tách token theo ký tự không phải chữ/số
+ * - Sinh trigram có padding để so khớp từ gõ sai/thiếu
+ */
+public final class VietnameseTextNormalizer {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private VietnameseTextNormalizer() {
+    }
+
+    /**
+     * "Chi nhánh Thảo Điền" → "chi nhanh thao dien"
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String withoutMarks = COMBINING_MARKS.matcher(decomposed).replaceAll("")
+                .replace('đ', 'd')
+                .replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        return NON_ALPHANUMERIC.matcher(withoutMarks).replaceAll(" ").trim();
+    }
+
+    /**
+     * Tách text đã fold thành các token
+     */
+    public static List<String> tokenize(String text) {
+        String folded = fold(text);
+        if (folded.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : folded.split(" ")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Trigram của từng token, có padding 2 khoảng trắng đầu và 1 cuối ("  ab", " abc", "bc ")
+     * để token ngắn vẫn có trigram và đầu từ được ưu tiên
+     */
+    public static Set<String> trigrams(String text) {
+        Set<String> result = new LinkedHashSet<>();
+        for (String token : tokenize(text)) {
+            String padded = "  " + token + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                result.add(padded.substring(i, i + 3));
+            }
+        }
+        return result;
+    }
+}
@@ -130,6 +130,10 @@ public enum ErrorCode {
     SERVICE_BAY_CAPACITY_EXCEEDED("SCS-D009", "SCS-D009", "SERVICE_BAY", "Service bay capacity exceeded", "error.service_bay_capacity_exceeded"),
     MISSING_BAY_INFO("SCS-D010", "SCS-D010", "SERVICE_BAY", "Bay information is required", "error.missing_bay_info"),
     
+    // Promotion related errors
+    PROMOTION_USAGE_LIMIT_REACHED("SCS-E001", "SCS-E001", "PROMOTION", "Promotion usage limit reached", "error.promotion_usage_limit_reached"),
+    PROMOTION_CUSTOMER_LIMIT_REACHED("SCS-E002", "SCS-E002", "PROMOTION", "Promotion usage limit per customer reached", "error.promotion_customer_limit_reached"),
+    
     // General entity errors
     ENTITY_NOT_FOUND("SCS-5001", "SCS-5001", "ENTITY", "Entity not found", "error.entity_not_found"),
     INVALID_INPUT("SCS-5002", "SCS-5002", "ENTITY", "Invalid input", "error.invalid_input");
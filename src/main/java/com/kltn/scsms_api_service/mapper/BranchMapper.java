@@ -5,11 +5,15 @@ import com.kltn.scsms_api_service.core.dto.branchManagement.BranchInfoDto;
 import com.kltn.scsms_api_service.core.dto.branchManagement.request.CreateBranchRequest;
 import com.kltn.scsms_api_service.core.dto.branchManagement.request.UpdateBranchRequest;
 import com.kltn.scsms_api_service.core.entity.Branch;
+import com.kltn.scsms_api_service.core.entity.Media;
+import com.kltn.scsms_api_service.core.service.entityService.MediaResolver;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
 import org.mapstruct.ReportingPolicy;
 
+import java.util.List;
+
 @Mapper(
     componentModel = "spring",
     unmappedTargetPolicy = ReportingPolicy.IGNORE,
@@ -71,6 +75,21 @@ public interface BranchMapper {
         return existingBranch;
     }
     
+    /**
+     * Map a list of branches with relations and main images prefetched in one query
+     */
+    default List<BranchInfoDto> toBranchInfoDtoListWithRelations(List<Branch> branches, MediaResolver mediaResolver) {
+        MediaResolver.Batch media = mediaResolver.prefetch(Media.EntityType.BRANCH,
+            branches.stream().map(Branch::getBranchId).toList());
+        return branches.stream()
+            .map(branch -> {
+                BranchInfoDto dto = toBranchInfoDtoWithRelations(branch);
+                dto.setMainImage(media.mainImage(branch.getBranchId()));
+                return dto;
+            })
+            .toList();
+    }
+    
     default BranchInfoDto toBranchInfoDtoWithRelations(Branch branch) {
         BranchInfoDto dto = toBranchInfoDto(branch);
         
@@ -10,7 +10,11 @@ import com.kltn.scsms_api_service.core.entity.Category;
 import org.mapstruct.*;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, uses = { AuditMapper.class })
@@ -136,21 +140,32 @@ public interface CategoryMapper {
         return ancestors;
     }
 
+    /**
+     * Map Category entity to CategoryHierarchyDto without touching lazy subcategories
+     * (hasChildren, children, level, fullPath are set while building the tree)
+     */
+    @Named("toHierarchyNodeDto")
+    @Mapping(target = "parentId", source = "parentCategory.categoryId")
+    @Mapping(target = "level", ignore = true)
+    @Mapping(target = "hasChildren", ignore = true)
+    @Mapping(target = "children", ignore = true)
+    @Mapping(target = "fullPath", ignore = true)
+    CategoryHierarchyDto toHierarchyNodeDto(Category category);
+
     /**
      * Build full hierarchy tree from list of categories
+     * Children are grouped by parent id in one pass, full paths are built top-down → O(n)
      */
     default List<CategoryHierarchyDto> buildHierarchyTree(List<Category> categories) {
         if (categories == null || categories.isEmpty()) {
             return new ArrayList<>();
         }
 
-        // Find root categories (no parent)
-        List<Category> rootCategories = categories.stream()
-                .filter(c -> c.getParentCategory() == null)
-                .toList();
+        Map<UUID, List<Category>> childrenByParentId = groupByParentId(categories);
 
-        return rootCategories.stream()
-                .map(root -> buildHierarchyNode(root, categories, 0))
+        // Root categories (no parent) are grouped under the null key
+        return childrenByParentId.getOrDefault(null, List.of()).stream()
+                .map(root -> buildHierarchyNode(root, childrenByParentId, 0, null))
                 .collect(Collectors.toList());
     }
 
@@ -158,26 +173,34 @@ public interface CategoryMapper {
      * Build hierarchy node with children
      */
     default CategoryHierarchyDto buildHierarchyNode(Category category, List<Category> allCategories, int level) {
-        CategoryHierarchyDto dto = toHierarchyDto(category);
+        // Only the starting node walks up its ancestors, descendants extend the path top-down
+        List<Category> ancestors = getAncestors(category);
+        String parentPath = ancestors.size() > 1
+                ? ancestors.subList(0, ancestors.size() - 1).stream()
+                        .map(Category::getCategoryName)
+                        .collect(Collectors.joining(" > "))
+                : null;
+
+        return buildHierarchyNode(category, groupByParentId(allCategories), level, parentPath);
+    }
+
+    /**
+     * Build hierarchy node from pre-grouped children
+     */
+    default CategoryHierarchyDto buildHierarchyNode(Category category, Map<UUID, List<Category>> childrenByParentId,
+            int level, String parentPath) {
+        CategoryHierarchyDto dto = toHierarchyNodeDto(category);
         dto.setLevel(level);
 
-        // Build full path
-        List<Category> ancestors = getAncestors(category);
-        String fullPath = ancestors.stream()
-                .map(Category::getCategoryName)
-                .collect(Collectors.joining(" > "));
+        String fullPath = parentPath == null
+                ? category.getCategoryName()
+                : parentPath + " > " + category.getCategoryName();
         dto.setFullPath(fullPath);
 
-        // Find children
-        List<Category> children = allCategories.stream()
-                .filter(c -> c.getParentCategory() != null &&
-                        c.getParentCategory().getCategoryId().equals(category.getCategoryId()))
-                .toList();
-
-        // Recursively build children
-        List<CategoryHierarchyDto> childrenDtos = children.stream()
-                .map(child -> buildHierarchyNode(child, allCategories, level + 1))
-                .collect(Collectors.toList());
+        List<CategoryHierarchyDto> childrenDtos = new ArrayList<>();
+        for (Category child : childrenByParentId.getOrDefault(category.getCategoryId(), List.of())) {
+            childrenDtos.add(buildHierarchyNode(child, childrenByParentId, level + 1, fullPath));
+        }
 
         dto.setChildren(childrenDtos);
         dto.setHasChildren(!childrenDtos.isEmpty());
@@ -185,6 +208,26 @@ public interface CategoryMapper {
         return dto;
     }
 
+    /**
+     * Group categories by parent id (null key = root), siblings ordered by sortOrder
+     * Reads parent id from the proxy without initializing the lazy parent
+     */
+    default Map<UUID, List<Category>> groupByParentId(List<Category> categories) {
+        Map<UUID, List<Category>> childrenByParentId = new HashMap<>();
+        for (Category category : categories) {
+            UUID parentId = category.getParentCategory() != null
+                    ? category.getParentCategory().getCategoryId()
+                    : null;
+            childrenByParentId.computeIfAbsent(parentId, key -> new ArrayList<>()).add(category);
+        }
+
+        Comparator<Category> bySortOrder = Comparator.comparing(
+                (Category c) -> c.getSortOrder() != null ? c.getSortOrder() : 0);
+        childrenByParentId.values().forEach(siblings -> siblings.sort(bySortOrder));
+
+        return childrenByParentId;
+    }
+
     // ===== HELPER METHODS =====
 
     /**
@@ -19,6 +19,8 @@ public interface MediaMapper {
      */
     @Mapping(target = "entityType", source = "entityType", qualifiedByName = "entityTypeToString")
     @Mapping(target = "mediaType", source = "mediaType", qualifiedByName = "mediaTypeToString")
+    @Mapping(target = "thumbnailUrl", expression = "java(media.getThumbnailUrl() != null ? media.getThumbnailUrl() : media.getMediaUrl())")
+    @Mapping(target = "cardUrl", expression = "java(media.getCardUrl() != null ? media.getCardUrl() : media.getMediaUrl())")
     MediaInfoDto toInfoDto(Media media);
     
     /**
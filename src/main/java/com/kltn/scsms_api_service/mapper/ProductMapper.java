@@ -3,11 +3,17 @@ package com.kltn.scsms_api_service.mapper;
 import com.kltn.scsms_api_service.core.dto.productManagement.ProductInfoDto;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.CreateProductRequest;
 import com.kltn.scsms_api_service.core.dto.productManagement.request.UpdateProductRequest;
+import com.kltn.scsms_api_service.core.entity.Media;
 import com.kltn.scsms_api_service.core.entity.Product;
+import com.kltn.scsms_api_service.core.service.entityService.MediaResolver;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import org.mapstruct.ReportingPolicy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, uses = { AuditMapper.class,
         ProductTypeMapper.class, ProductAttributeValueMapper.class })
@@ -18,6 +24,26 @@ public interface ProductMapper {
     @Mapping(target = "attributeValues", ignore = true) // Lazy-loaded, skip to avoid LazyInitializationException
     ProductInfoDto toProductInfoDto(Product product);
 
+    /**
+     * Map a list of products with their main images prefetched in one query (no per-row media lookup)
+     */
+    default List<ProductInfoDto> toProductInfoDtoList(List<Product> products, MediaResolver mediaResolver) {
+        MediaResolver.Batch media = mediaResolver.prefetch(Media.EntityType.PRODUCT,
+                products.stream().map(Product::getProductId).toList());
+        return products.stream()
+                .map(product -> {
+                    ProductInfoDto dto = toProductInfoDto(product);
+                    dto.setMainImage(media.mainImage(product.getProductId()));
+                    return dto;
+                })
+                .toList();
+    }
+
+    default Page<ProductInfoDto> toProductInfoDtoPage(Page<Product> products, MediaResolver mediaResolver) {
+        return new PageImpl<>(toProductInfoDtoList(products.getContent(), mediaResolver),
+                products.getPageable(), products.getTotalElements());
+    }
+
     @Mapping(target = "productType", ignore = true) // Will be set in service
     @Mapping(target = "productId", ignore = true)
     @Mapping(target = "attributeValues", ignore = true) // Will be handled separately
@@ -3,10 +3,16 @@ package com.kltn.scsms_api_service.mapper;
 import com.kltn.scsms_api_service.core.dto.serviceManagement.ServiceInfoDto;
 import com.kltn.scsms_api_service.core.dto.serviceManagement.request.CreateServiceRequest;
 import com.kltn.scsms_api_service.core.dto.serviceManagement.request.UpdateServiceRequest;
+import com.kltn.scsms_api_service.core.entity.Media;
 import com.kltn.scsms_api_service.core.entity.Service;
+import com.kltn.scsms_api_service.core.service.entityService.MediaResolver;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.List;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE, uses = {AuditMapper.class})
 public interface ServiceMapper {
@@ -29,6 +35,26 @@ public interface ServiceMapper {
     @Mapping(target = "audit.isDeleted", source = "isDeleted")
     ServiceInfoDto toServiceInfoDto(Service service);
 
+    /**
+     * Map a list of services with their main images prefetched in one query (no per-row media lookup)
+     */
+    default List<ServiceInfoDto> toServiceInfoDtoList(List<Service> services, MediaResolver mediaResolver) {
+        MediaResolver.Batch media = mediaResolver.prefetch(Media.EntityType.SERVICE,
+                services.stream().map(Service::getServiceId).toList());
+        return services.stream()
+                .map(service -> {
+                    ServiceInfoDto dto = toServiceInfoDto(service);
+                    dto.setMainImage(media.mainImage(service.getServiceId()));
+                    return dto;
+                })
+                .toList();
+    }
+
+    default Page<ServiceInfoDto> toServiceInfoDtoPage(Page<Service> services, MediaResolver mediaResolver) {
+        return new PageImpl<>(toServiceInfoDtoList(services.getContent(), mediaResolver),
+                services.getPageable(), services.getTotalElements());
+    }
+
     @Mapping(target = "category", ignore = true) // Will be set in service
     @Mapping(target = "serviceProcess", ignore = true) // Will be set in service
     @Mapping(target = "serviceProducts", ignore = true) // Will be set in service
@@ -0,0 +1,27 @@
+package com.kltn.scsms_api_service.scheduler;
+
+import com.kltn.scsms_api_service.core.service.entityService.S3FileService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TemporaryUploadCleanupScheduler {
+
+    private final S3FileService s3FileService;
+
+    /** Remove abandoned direct uploads and expired temporary files */
+    @Scheduled(fixedDelayString = "${app.media.direct-upload.sweep-interval-ms:900000}", initialDelay = 60000)
+    public void cleanupTemporaryUploads() {
+        try {
+            int abandoned = s3FileService.cleanupAbandonedUploads();
+            int expired = s3FileService.cleanupExpiredFiles();
+            log.debug("Temporary upload cleanup completed: {} abandoned, {} expired", abandoned, expired);
+        } catch (Exception e) {
+            log.error("Error during temporary upload cleanup: {}", e.getMessage(), e);
+        }
+    }
+}